@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm;
+
+import org.ethereum.vm.util.ByteArrayUtil;
+import org.ethereum.vm.util.HexUtil;
+
+/**
+ * Address is the 20-byte identifier of an account. <br/>
+ * <br/>
+ *
+ * The bytes are held as two longs and an int, in the same layout as the keys of
+ * {@link org.ethereum.vm.util.AddressMap}, and the hash is computed once, so
+ * that comparing and hashing an address does not touch an array.
+ *
+ * @ImplNote Address objects are immutable.
+ */
+public final class Address {
+
+    public static final int SIZE = 20;
+
+    // bytes 0-7, 8-15 and 16-19
+    private final long high;
+    private final long middle;
+    private final int low;
+
+    private final int hash;
+
+    private Address(long high, long middle, int low) {
+        this.high = high;
+        this.middle = middle;
+        this.low = low;
+
+        long h = (high * 0x9e3779b97f4a7c15L + middle) * 0x9e3779b97f4a7c15L + low;
+        h ^= h >>> 32;
+        h *= 0xd6e8feb86659fd93L;
+        h ^= h >>> 32;
+        this.hash = (int) h;
+    }
+
+    public static Address of(long high, long middle, int low) {
+        return new Address(high, middle, low);
+    }
+
+    /**
+     * Creates an address from a byte array.
+     *
+     * @param address
+     *            a 20-byte array
+     * @throws IllegalArgumentException
+     *             if the array is not 20 bytes long
+     */
+    public static Address of(byte[] address) {
+        if (address == null || address.length != SIZE) {
+            throw new IllegalArgumentException("Address must be " + SIZE + " bytes");
+        }
+        return new Address(ByteArrayUtil.readLong(address, 0), ByteArrayUtil.readLong(address, 8),
+                ByteArrayUtil.readInt(address, 16));
+    }
+
+    /**
+     * Creates an address from the last 20 bytes of a data word, without the copy
+     * made by {@link DataWord#getLast20Bytes()}.
+     */
+    public static Address of(DataWord word) {
+        long w1 = word.getLong(1), w2 = word.getLong(2), w3 = word.getLong(3);
+        return new Address((w1 << 32) | (w2 >>> 32), (w2 << 32) | (w3 >>> 32), (int) w3);
+    }
+
+    /**
+     * Returns bytes 0-7 of the address, in big-endian order.
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * Returns bytes 8-15 of the address, in big-endian order.
+     */
+    public long getMiddle() {
+        return middle;
+    }
+
+    /**
+     * Returns bytes 16-19 of the address, in big-endian order.
+     */
+    public int getLow() {
+        return low;
+    }
+
+    /**
+     * Returns a copy of the address bytes.
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[SIZE];
+        copyTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Writes the address bytes into an array, e.g. as the prefix of a composite
+     * key.
+     *
+     * @param dest
+     *            the destination array
+     * @param offset
+     *            the offset of the first byte
+     */
+    public void copyTo(byte[] dest, int offset) {
+        ByteArrayUtil.writeLong(high, dest, offset);
+        ByteArrayUtil.writeLong(middle, dest, offset + 8);
+        ByteArrayUtil.writeInt(low, dest, offset + 16);
+    }
+
+    /**
+     * Returns the address as a data word, left-padded with zeros.
+     */
+    public DataWord toDataWord() {
+        return DataWord.of(toBytes());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Address)) {
+            return false;
+        }
+        Address other = (Address) o;
+        return hash == other.hash && low == other.low && middle == other.middle && high == other.high;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return HexUtil.toHexString(toBytes());
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm;
+
+import java.util.Arrays;
+
+import org.ethereum.vm.util.HashUtil;
+import org.ethereum.vm.util.HexUtil;
+
+/**
+ * The 2048-bit bloom filter of logs. <br/>
+ * <br/>
+ *
+ * Each item, i.e. the address and the topics of a log, sets the three bits
+ * selected by the first six bytes of its Keccak-256 hash. A bloom of a receipt
+ * or of a block is the bitwise OR of the blooms of its logs.
+ */
+public class Bloom {
+
+    public static final int SIZE = 256;
+
+    private final byte[] data;
+
+    public Bloom() {
+        this.data = new byte[SIZE];
+    }
+
+    /**
+     * Creates a bloom from its encoding.
+     *
+     * @param data
+     *            a 256-byte array
+     */
+    public Bloom(byte[] data) {
+        if (data == null || data.length != SIZE) {
+            throw new IllegalArgumentException("Bloom must be " + SIZE + " bytes");
+        }
+        this.data = data.clone();
+    }
+
+    /**
+     * Returns the bloom of a log.
+     */
+    public static Bloom of(LogInfo log) {
+        Bloom bloom = new Bloom();
+        bloom.add(log);
+        return bloom;
+    }
+
+    /**
+     * Adds the address and the topics of a log.
+     */
+    public Bloom add(LogInfo log) {
+        add(log.getAddress());
+        for (DataWord topic : log.getTopics()) {
+            add(topic.getData());
+        }
+        return this;
+    }
+
+    /**
+     * Adds an item, e.g. an address or a topic.
+     */
+    public Bloom add(byte[] item) {
+        byte[] hash = HashUtil.keccak256(item);
+        for (int i = 0; i < 6; i += 2) {
+            int bit = bitIndex(hash, i);
+            data[SIZE - 1 - (bit >>> 3)] |= 1 << (bit & 7);
+        }
+        return this;
+    }
+
+    /**
+     * Checks whether an item may have been added. False positives are possible,
+     * false negatives are not.
+     */
+    public boolean mayContain(byte[] item) {
+        byte[] hash = HashUtil.keccak256(item);
+        for (int i = 0; i < 6; i += 2) {
+            int bit = bitIndex(hash, i);
+            if ((data[SIZE - 1 - (bit >>> 3)] & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether all the bits of another bloom are set in this one.
+     */
+    public boolean matches(Bloom other) {
+        for (int i = 0; i < SIZE; i++) {
+            if ((data[i] & other.data[i]) != other.data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Merges another bloom into this one.
+     */
+    public Bloom or(Bloom other) {
+        for (int i = 0; i < SIZE; i++) {
+            data[i] |= other.data[i];
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        for (byte b : data) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a copy of the encoding.
+     *
+     * @return a 256-byte array
+     */
+    public byte[] getData() {
+        return data.clone();
+    }
+
+    private static int bitIndex(byte[] hash, int i) {
+        return ((hash[i] & 0x07) << 8) | (hash[i + 1] & 0xff);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Bloom && Arrays.equals(data, ((Bloom) o).data));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        return HexUtil.toHexString(data);
+    }
+}
@@ -21,6 +21,7 @@ import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 
+import org.ethereum.vm.util.ByteArrayUtil;
 import org.ethereum.vm.util.HexUtil;
 
 /**
@@ -127,6 +128,17 @@ public class DataWord implements Comparable<DataWord> {
         return data[index];
     }
 
+    /**
+     * Returns 8 bytes of this word as a big-endian long, without copying.
+     *
+     * @param index
+     *            the index of the long, from 0 (most significant) to 3
+     * @return a long
+     */
+    public long getLong(int index) {
+        return ByteArrayUtil.readLong(data, index * 8);
+    }
+
     public BigInteger value() {
         return new BigInteger(1, data);
     }
@@ -174,6 +186,20 @@ public class DataWord implements Comparable<DataWord> {
         return longValue(true);
     }
 
+    /**
+     * Returns the value if it fits in an unsigned byte, without conversion.
+     *
+     * @return the value, or -1 if it is larger than 255
+     */
+    public int unsignedByteValue() {
+        for (int i = 0; i < SIZE - 1; i++) {
+            if (data[i] != 0) {
+                return -1;
+            }
+        }
+        return data[SIZE - 1] & 0xff;
+    }
+
     public boolean isZero() {
         for (byte b : data) {
             if (b != 0) {
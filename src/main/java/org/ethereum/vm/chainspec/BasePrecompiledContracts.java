@@ -31,9 +31,15 @@ import java.math.BigInteger;
 
 import org.ethereum.vm.DataWord;
 import org.ethereum.vm.crypto.ECKey;
+import org.ethereum.vm.crypto.ModExpEngine;
 import org.ethereum.vm.util.HashUtil;
 import org.ethereum.vm.util.Pair;
 
+/**
+ * The precompiled contracts of the Homestead code base, indexed by address.
+ * Precompiled contracts live at addresses 1 to 255, so that a lookup is an
+ * array access once the 31 high bytes of the address are known to be zero.
+ */
 public class BasePrecompiledContracts implements PrecompiledContracts {
 
     private static final ECRecover ecRecover = new ECRecover();
@@ -42,28 +48,40 @@ public class BasePrecompiledContracts implements PrecompiledContracts {
     private static final Identity identity = new Identity();
     private static final ModExp modExp = new ModExp();
 
-    private static final DataWord ecRecoverAddr = DataWord.of(1);
-    private static final DataWord sha256Addr = DataWord.of(2);
-    private static final DataWord ripempd160Addr = DataWord.of(3);
-    private static final DataWord identityAddr = DataWord.of(4);
-    private static final DataWord modExpAddr = DataWord.of(5);
+    private final PrecompiledContract[] contracts = new PrecompiledContract[256];
+
+    public BasePrecompiledContracts() {
+        register(DataWord.of(1), ecRecover);
+        register(DataWord.of(2), sha256);
+        register(DataWord.of(3), ripempd160);
+        register(DataWord.of(4), identity);
+        register(DataWord.of(5), modExp);
+    }
 
     @Override
     public PrecompiledContract getContractForAddress(DataWord address) {
+        int index = address.unsignedByteValue();
+        return index < 0 ? null : contracts[index];
+    }
 
-        if (address.equals(ecRecoverAddr)) {
-            return ecRecover;
-        } else if (address.equals(sha256Addr)) {
-            return sha256;
-        } else if (address.equals(ripempd160Addr)) {
-            return ripempd160;
-        } else if (address.equals(identityAddr)) {
-            return identity;
-        } else if (address.equals(modExpAddr)) {
-            return modExp;
+    /**
+     * Registers a precompiled contract, replacing the one at the same address if
+     * any. This is not thread-safe, contracts should be registered before any
+     * execution.
+     *
+     * @param address
+     *            the address, from 1 to 255
+     * @param contract
+     *            the contract, or NULL to unregister
+     * @throws IllegalArgumentException
+     *             if the address is out of range
+     */
+    public void register(DataWord address, PrecompiledContract contract) {
+        int index = address.unsignedByteValue();
+        if (index <= 0) {
+            throw new IllegalArgumentException("Precompiled contract address must be from 1 to 255: " + address);
         }
-
-        return null;
+        contracts[index] = contract;
     }
 
     public static byte[] encodeRes(byte[] w1, byte[] w2) {
@@ -132,14 +150,12 @@ public class BasePrecompiledContracts implements PrecompiledContracts {
         @Override
         public Pair<Boolean, byte[]> execute(PrecompiledContractContext context) {
             byte[] data = context.getInternalTransaction().getData();
-            byte[] result;
-            if (data == null) {
-                result = HashUtil.ripemd160(EMPTY_BYTE_ARRAY);
-            } else {
-                result = HashUtil.ripemd160(data);
-            }
+            byte[] result = HashUtil.ripemd160(data == null ? EMPTY_BYTE_ARRAY : data);
 
-            return Pair.of(true, DataWord.of(result).getData());
+            // left-padded to 32 bytes
+            byte[] out = new byte[32];
+            System.arraycopy(result, 0, out, out.length - result.length, result.length);
+            return Pair.of(true, out);
         }
     }
 
@@ -247,7 +263,7 @@ public class BasePrecompiledContracts implements PrecompiledContracts {
             if (isZero(mod))
                 return Pair.of(true, new byte[modLen]); // should keep length of the result
 
-            byte[] res = stripLeadingZeroes(base.modPow(exp, mod).toByteArray());
+            byte[] res = stripLeadingZeroes(ModExpEngine.modPow(base, exp, mod).toByteArray());
 
             // adjust result to the same length as the modulus has
             if (res.length < modLen) {
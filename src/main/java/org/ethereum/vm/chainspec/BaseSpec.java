@@ -17,6 +17,7 @@
  */
 package org.ethereum.vm.chainspec;
 
+import org.ethereum.vm.DataWord;
 import org.ethereum.vm.FeeSchedule;
 import org.ethereum.vm.OpCode;
 import org.ethereum.vm.client.Transaction;
@@ -44,7 +45,16 @@ import org.ethereum.vm.program.exception.OutOfGasException;
  */
 public class BaseSpec implements Spec {
     private static final FeeSchedule feeSchedule = new FeeSchedule();
-    private static final PrecompiledContracts precompiledContracts = new BasePrecompiledContracts();
+
+    private final BasePrecompiledContracts precompiledContracts;
+
+    public BaseSpec() {
+        this(new BasePrecompiledContracts());
+    }
+
+    protected BaseSpec(BasePrecompiledContracts precompiledContracts) {
+        this.precompiledContracts = precompiledContracts;
+    }
 
     @Override
     public FeeSchedule getFeeSchedule() {
@@ -56,6 +66,34 @@ public class BaseSpec implements Spec {
         return precompiledContracts;
     }
 
+    /**
+     * Plugs a custom precompiled contract into this specification, replacing the
+     * one at the same address if any. Other instances of the specification are not
+     * affected. This is not thread-safe, contracts should be registered before any
+     * execution.
+     *
+     * {@link Spec#DEFAULT} is shared by every executor created without a spec, so
+     * it's rejected; register on a new instance, e.g.
+     * <code>new ByzantiumSpec()</code>, and pass it to the executors instead.
+     *
+     * @param address
+     *            the address, from 1 to 255
+     * @param contract
+     *            the contract, or NULL to unregister
+     * @return this specification
+     * @throws IllegalArgumentException
+     *             if the address is out of range
+     * @throws IllegalStateException
+     *             if this is the default specification
+     */
+    public BaseSpec registerPrecompiledContract(DataWord address, PrecompiledContract contract) {
+        if (this == Spec.DEFAULT) {
+            throw new IllegalStateException("The default spec is shared, register on a new instance");
+        }
+        precompiledContracts.register(address, contract);
+        return this;
+    }
+
     @Override
     public long getCallGas(OpCode op, long requestedGas, long availableGas) throws OutOfGasException {
         return availableGas;
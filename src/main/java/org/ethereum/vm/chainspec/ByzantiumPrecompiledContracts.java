@@ -37,22 +37,10 @@ public class ByzantiumPrecompiledContracts extends BasePrecompiledContracts {
     private static final BN128Multiplication altBN128Mul = new BN128Multiplication();
     private static final BN128Pairing altBN128Pairing = new BN128Pairing();
 
-    private static final DataWord altBN128AddAddr = DataWord.of(6);
-    private static final DataWord altBN128MulAddr = DataWord.of(7);
-    private static final DataWord altBN128PairingAddr = DataWord.of(8);
-
-    @Override
-    public PrecompiledContract getContractForAddress(DataWord address) {
-
-        if (address.equals(altBN128AddAddr)) {
-            return altBN128Add;
-        } else if (address.equals(altBN128MulAddr)) {
-            return altBN128Mul;
-        } else if (address.equals(altBN128PairingAddr)) {
-            return altBN128Pairing;
-        }
-
-        return super.getContractForAddress(address);
+    public ByzantiumPrecompiledContracts() {
+        register(DataWord.of(6), altBN128Add);
+        register(DataWord.of(7), altBN128Mul);
+        register(DataWord.of(8), altBN128Pairing);
     }
 
     /**
@@ -58,19 +58,18 @@ public class ByzantiumSpec extends BaseSpec {
     }
 
     private static final FeeSchedule feeSchedule = new FeeScheduleByzantium();
-    private static final PrecompiledContracts precompiledContracts = new ByzantiumPrecompiledContracts();
 
     public ByzantiumSpec() {
+        this(new ByzantiumPrecompiledContracts());
     }
 
-    @Override
-    public FeeSchedule getFeeSchedule() {
-        return feeSchedule;
+    protected ByzantiumSpec(BasePrecompiledContracts precompiledContracts) {
+        super(precompiledContracts);
     }
 
     @Override
-    public PrecompiledContracts getPrecompiledContracts() {
-        return precompiledContracts;
+    public FeeSchedule getFeeSchedule() {
+        return feeSchedule;
     }
 
     private static long maxAllowed(long available) {
@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.chainspec;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.util.ByteArrayUtil;
+import org.ethereum.vm.util.ByteArrayWrapper;
+import org.ethereum.vm.util.ClockCache;
+import org.ethereum.vm.util.HashUtil;
+import org.ethereum.vm.util.Pair;
+
+/**
+ * A decorator of {@link PrecompiledContracts} which memoizes the results of
+ * pure precompiled contracts, keyed by address and input. Identical inputs
+ * recur across simulation retries and gas estimation passes, where a single
+ * signature recovery or pairing check costs far more than a lookup. <br/>
+ * <br/>
+ *
+ * Only the configured addresses are cached, and the contracts at those
+ * addresses must not depend on anything but their input. The cache is shared by
+ * all of them, bounded both in entries and in bytes, and safe to use from
+ * multiple threads. <br/>
+ * <br/>
+ *
+ * Inputs up to {@value #MAX_RAW_KEY} bytes are part of the key as such, longer
+ * ones are hashed with Keccak-256 first. Only the results are cached: the gas
+ * is recomputed from the input on every call, as the gas functions of the
+ * precompiled contracts are cheap arithmetic on the input length or on a few
+ * header words.
+ */
+public class CachingPrecompiledContracts implements PrecompiledContracts {
+
+    /**
+     * The contracts worth caching: ECRecover and the BN128 addition, multiplication
+     * and pairing. SHA256, RIPEMD160 and Identity are pure as well, but cost less
+     * than building their key, and Identity would fill the cache with copies of its
+     * input.
+     */
+    public static final List<DataWord> DEFAULT_CONTRACTS = Collections.unmodifiableList(Arrays.asList(
+            DataWord.of(1), DataWord.of(6), DataWord.of(7), DataWord.of(8)));
+
+    /**
+     * The max length of the inputs which are used as keys without hashing; it
+     * covers the inputs of ECRecover and of the BN128 addition and multiplication.
+     */
+    public static final int MAX_RAW_KEY = 128;
+
+    private static final byte[] RAW = { 0 };
+    private static final byte[] HASHED = { 1 };
+
+    // rough per-entry overhead of the key wrapper, the result pair and the index
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final PrecompiledContracts delegate;
+    private final ClockCache<ByteArrayWrapper, Pair<Boolean, byte[]>> cache;
+    private final Map<DataWord, CachedContract> contracts = new HashMap<>();
+
+    /**
+     * Creates a caching decorator.
+     *
+     * @param delegate
+     *            the precompiled contracts to decorate
+     * @param capacity
+     *            the max number of cached results
+     * @param maxBytes
+     *            the max memory footprint of the cached results
+     * @param addresses
+     *            the addresses of the contracts to cache, see
+     *            {@link #DEFAULT_CONTRACTS}
+     */
+    public CachingPrecompiledContracts(PrecompiledContracts delegate, int capacity, long maxBytes,
+            Collection<DataWord> addresses) {
+        this.delegate = delegate;
+        this.cache = new ClockCache<>(capacity, maxBytes,
+                (k, v) -> k.getData().length + ByteArrayUtil.getLength(v.getRight()) + ENTRY_OVERHEAD);
+
+        for (DataWord address : addresses) {
+            PrecompiledContract contract = delegate.getContractForAddress(address);
+            if (contract != null) {
+                contracts.put(address, new CachedContract(address, contract));
+            }
+        }
+    }
+
+    @Override
+    public PrecompiledContract getContractForAddress(DataWord address) {
+        CachedContract cached = contracts.get(address);
+        return cached != null ? cached : delegate.getContractForAddress(address);
+    }
+
+    /**
+     * Returns the number of calls to the contract at the given address which were
+     * answered from the cache.
+     *
+     * @param address
+     *            the contract address
+     * @return the number of hits, or 0 if the address is not cached
+     */
+    public long getHitCount(DataWord address) {
+        CachedContract cached = contracts.get(address);
+        return cached != null ? cached.hits.sum() : 0;
+    }
+
+    /**
+     * Returns the number of calls to the contract at the given address which were
+     * executed.
+     *
+     * @param address
+     *            the contract address
+     * @return the number of misses, or 0 if the address is not cached
+     */
+    public long getMissCount(DataWord address) {
+        CachedContract cached = contracts.get(address);
+        return cached != null ? cached.misses.sum() : 0;
+    }
+
+    /**
+     * Returns the ratio of cache hits among the calls to the contract at the given
+     * address.
+     *
+     * @param address
+     *            the contract address
+     * @return the hit rate between 0 and 1, or 0 if there was no call
+     */
+    public double getHitRate(DataWord address) {
+        long hits = getHitCount(address);
+        long total = hits + getMissCount(address);
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    /**
+     * Returns the estimated memory footprint of the cached results.
+     *
+     * @return the number of bytes
+     */
+    public long getMemoryFootprint() {
+        return cache.getWeight();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private class CachedContract implements PrecompiledContract {
+
+        private final byte[] address;
+        private final PrecompiledContract contract;
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        CachedContract(DataWord address, PrecompiledContract contract) {
+            this.address = address.getData();
+            this.contract = contract;
+        }
+
+        @Override
+        public long getGasForData(byte[] data) {
+            return contract.getGasForData(data);
+        }
+
+        @Override
+        public Pair<Boolean, byte[]> execute(PrecompiledContractContext context) {
+            byte[] data = ByteArrayUtil.nullToEmpty(context.getInternalTransaction().getData());
+            ByteArrayWrapper key = new ByteArrayWrapper(data.length <= MAX_RAW_KEY
+                    ? ByteArrayUtil.merge(address, RAW, data)
+                    : ByteArrayUtil.merge(address, HASHED, HashUtil.keccak256(data)));
+
+            Pair<Boolean, byte[]> result = cache.get(key);
+            if (result != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+                result = contract.execute(context);
+                cache.put(key, result);
+            }
+
+            // the caller owns the output
+            byte[] out = result.getRight();
+            return Pair.of(result.getLeft(), out == null ? null : out.clone());
+        }
+    }
+}
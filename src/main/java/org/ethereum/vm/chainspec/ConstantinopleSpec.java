@@ -27,6 +27,11 @@ package org.ethereum.vm.chainspec;
  * </ul>
  */
 public class ConstantinopleSpec extends ByzantiumSpec {
+
+    public ConstantinopleSpec() {
+        super(new ConstantinoplePrecompiledContracts());
+    }
+
     @Override
     public boolean eip1052() {
         return true;
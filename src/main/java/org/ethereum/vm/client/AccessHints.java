@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+/**
+ * A source of access hints for the transactions of a block, see
+ * {@link BlockExecutor#setAccessHints(AccessHints, PrefetchingRepository, int)}.
+ */
+public interface AccessHints {
+
+    /**
+     * Returns the accounts and storage slots a transaction is expected to access.
+     *
+     * @param tx
+     *            the transaction, not yet executed
+     * @return the hints, or NULL if there are none
+     */
+    AccessSet getHints(Transaction tx);
+
+    /**
+     * Called once a transaction has been executed, e.g. to learn from its access
+     * set.
+     *
+     * @param tx
+     *            the transaction
+     * @param receipt
+     *            the transaction receipt, or NULL if the transaction was rejected
+     */
+    default void onExecuted(Transaction tx, TransactionReceipt receipt) {
+    }
+}
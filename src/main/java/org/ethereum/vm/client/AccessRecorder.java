@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import static org.ethereum.vm.client.StateCache.slotKey;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.ethereum.vm.Address;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.util.ByteArrayWrapper;
+
+/**
+ * Collects the accounts and storage slots accessed through a
+ * {@link RecordingRepository}.
+ *
+ * @ImplNote accesses made by reverted frames are recorded as well.
+ */
+public class AccessRecorder {
+
+    private final Map<Address, Integer> accountIndex = new HashMap<>();
+    private final ByteArrayOutputStream accounts = new ByteArrayOutputStream();
+    private final byte[] scratch = new byte[Address.SIZE];
+    private byte[] accountFlags = new byte[16];
+
+    private final Map<ByteArrayWrapper, Integer> slotIndex = new HashMap<>();
+    private final ByteArrayOutputStream slotKeys = new ByteArrayOutputStream();
+    private int[] slotAccounts = new int[16];
+    private byte[] slotFlags = new byte[16];
+
+    public void recordAccount(byte[] address, byte flag) {
+        recordAccount(Address.of(address), flag);
+    }
+
+    public void recordAccount(Address address, byte flag) {
+        int i = indexOf(address);
+        accountFlags[i] |= flag;
+    }
+
+    public void recordSlot(byte[] address, DataWord key, byte flag) {
+        recordSlot(Address.of(address), key, flag);
+    }
+
+    public void recordSlot(Address address, DataWord key, byte flag) {
+        int account = indexOf(address);
+        accountFlags[account] |= AccessSet.READ;
+
+        ByteArrayWrapper k = slotKey(address, key);
+        Integer i = slotIndex.get(k);
+        if (i == null) {
+            i = slotIndex.size();
+            slotIndex.put(k, i);
+            slotKeys.write(k.getData(), Address.SIZE, DataWord.SIZE);
+
+            if (i == slotFlags.length) {
+                slotAccounts = Arrays.copyOf(slotAccounts, i * 2);
+                slotFlags = Arrays.copyOf(slotFlags, i * 2);
+            }
+            slotAccounts[i] = account;
+        }
+        slotFlags[i] |= flag;
+    }
+
+    /**
+     * Returns a compact snapshot of the recorded accesses.
+     *
+     * @return an access set
+     */
+    public AccessSet toAccessSet() {
+        int n = accountIndex.size();
+        int m = slotIndex.size();
+        return new AccessSet(accounts.toByteArray(), Arrays.copyOf(accountFlags, n),
+                Arrays.copyOf(slotAccounts, m), slotKeys.toByteArray(),
+                Arrays.copyOf(slotFlags, m));
+    }
+
+    private int indexOf(Address address) {
+        Integer i = accountIndex.get(address);
+        if (i == null) {
+            i = accountIndex.size();
+            accountIndex.put(address, i);
+            address.copyTo(scratch, 0);
+            accounts.write(scratch, 0, Address.SIZE);
+
+            if (i == accountFlags.length) {
+                accountFlags = Arrays.copyOf(accountFlags, i * 2);
+            }
+        }
+        return i;
+    }
+}
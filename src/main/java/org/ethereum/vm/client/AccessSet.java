@@ -0,0 +1,249 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.util.AddressMap;
+import org.ethereum.vm.util.ByteArrayUtil;
+import org.ethereum.vm.util.HexUtil;
+import org.ethereum.vm.util.WordMap;
+
+/**
+ * The accounts and storage slots touched by a transaction, see
+ * {@link AccessRecorder}.
+ *
+ * Entries are deduplicated and stored in flat primitive arrays: addresses are
+ * packed as 20-byte records and storage keys as 32-byte records, each slot
+ * referring to its owner by the account index.
+ *
+ * @ImplNote AccessSet objects are immutable.
+ */
+public class AccessSet {
+
+    public static final int ADDRESS_SIZE = 20;
+
+    public static final byte READ = 0x01;
+    public static final byte WRITE = 0x02;
+
+    private final byte[] accounts;
+    private final byte[] accountFlags;
+
+    private final int[] slotAccounts;
+    private final byte[] slotKeys;
+    private final byte[] slotFlags;
+
+    AccessSet(byte[] accounts, byte[] accountFlags, int[] slotAccounts, byte[] slotKeys, byte[] slotFlags) {
+        this.accounts = accounts;
+        this.accountFlags = accountFlags;
+        this.slotAccounts = slotAccounts;
+        this.slotKeys = slotKeys;
+        this.slotFlags = slotFlags;
+    }
+
+    public int getAccountCount() {
+        return accountFlags.length;
+    }
+
+    /**
+     * Returns the address of the i-th account.
+     *
+     * @param i
+     *            the account index
+     * @return a 20-byte array
+     */
+    public byte[] getAccount(int i) {
+        return Arrays.copyOfRange(accounts, i * ADDRESS_SIZE, (i + 1) * ADDRESS_SIZE);
+    }
+
+    public boolean isAccountRead(int i) {
+        return (accountFlags[i] & READ) != 0;
+    }
+
+    public boolean isAccountWritten(int i) {
+        return (accountFlags[i] & WRITE) != 0;
+    }
+
+    public int getSlotCount() {
+        return slotFlags.length;
+    }
+
+    /**
+     * Returns the index of the account which owns the i-th storage slot.
+     *
+     * @param i
+     *            the slot index
+     * @return an account index
+     */
+    public int getSlotAccount(int i) {
+        return slotAccounts[i];
+    }
+
+    public DataWord getSlotKey(int i) {
+        return DataWord.of(Arrays.copyOfRange(slotKeys, i * DataWord.SIZE, (i + 1) * DataWord.SIZE));
+    }
+
+    /**
+     * Returns the storage keys grouped by account, e.g. for one
+     * {@link Repository#getStorageRows(byte[], List)} call per account.
+     *
+     * @return a list of keys for each account, in the order of the accounts
+     */
+    public List<List<DataWord>> getSlotKeysByAccount() {
+        List<List<DataWord>> keys = new ArrayList<>(getAccountCount());
+        for (int i = 0; i < getAccountCount(); i++) {
+            keys.add(new ArrayList<>());
+        }
+        for (int i = 0; i < getSlotCount(); i++) {
+            keys.get(slotAccounts[i]).add(getSlotKey(i));
+        }
+        return keys;
+    }
+
+    public boolean isSlotRead(int i) {
+        return (slotFlags[i] & READ) != 0;
+    }
+
+    public boolean isSlotWritten(int i) {
+        return (slotFlags[i] & WRITE) != 0;
+    }
+
+    /**
+     * Returns the index of an account.
+     *
+     * @param address
+     *            the account address
+     * @return the account index, or -1 if the account was not touched
+     */
+    public int indexOfAccount(byte[] address) {
+        for (int i = 0; i < accountFlags.length; i++) {
+            if (equals(accounts, i * ADDRESS_SIZE, address, ADDRESS_SIZE)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether two access sets conflict, i.e. one of them writes an account
+     * or a slot that the other reads or writes.
+     *
+     * @param other
+     *            another access set
+     * @return true if the two sets conflict; otherwise false
+     */
+    public boolean conflictsWith(AccessSet other) {
+        AddressMap<Integer> otherAccounts = new AddressMap<>(other.getAccountCount());
+        for (int j = 0; j < other.getAccountCount(); j++) {
+            otherAccounts.put(addressHigh(other.accounts, j), addressMiddle(other.accounts, j),
+                    addressLow(other.accounts, j), j);
+        }
+
+        // the index of each of our accounts in the other set, or -1
+        int[] accountMap = new int[getAccountCount()];
+        for (int i = 0; i < getAccountCount(); i++) {
+            Integer j = otherAccounts.get(addressHigh(accounts, i), addressMiddle(accounts, i),
+                    addressLow(accounts, i));
+            accountMap[i] = j == null ? -1 : j;
+            if (j != null && (isAccountWritten(i) || other.isAccountWritten(j))) {
+                return true;
+            }
+        }
+
+        if (getSlotCount() == 0 || other.getSlotCount() == 0) {
+            return false;
+        }
+
+        // the other slots by key; a key is rarely used by several accounts
+        WordMap<int[]> otherSlots = new WordMap<>(other.getSlotCount());
+        for (int j = 0; j < other.getSlotCount(); j++) {
+            int off = j * DataWord.SIZE;
+            long k0 = ByteArrayUtil.readLong(other.slotKeys, off);
+            long k1 = ByteArrayUtil.readLong(other.slotKeys, off + 8);
+            long k2 = ByteArrayUtil.readLong(other.slotKeys, off + 16);
+            long k3 = ByteArrayUtil.readLong(other.slotKeys, off + 24);
+            int[] list = otherSlots.get(k0, k1, k2, k3);
+            if (list == null) {
+                list = new int[] { j };
+            } else {
+                list = Arrays.copyOf(list, list.length + 1);
+                list[list.length - 1] = j;
+            }
+            otherSlots.put(k0, k1, k2, k3, list);
+        }
+
+        for (int i = 0; i < getSlotCount(); i++) {
+            int account = accountMap[slotAccounts[i]];
+            if (account == -1) {
+                continue;
+            }
+            int off = i * DataWord.SIZE;
+            int[] list = otherSlots.get(ByteArrayUtil.readLong(slotKeys, off),
+                    ByteArrayUtil.readLong(slotKeys, off + 8), ByteArrayUtil.readLong(slotKeys, off + 16),
+                    ByteArrayUtil.readLong(slotKeys, off + 24));
+            for (int k = 0; list != null && k < list.length; k++) {
+                int j = list[k];
+                if (other.slotAccounts[j] == account && (isSlotWritten(i) || other.isSlotWritten(j))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static long addressHigh(byte[] accounts, int i) {
+        return ByteArrayUtil.readLong(accounts, i * ADDRESS_SIZE);
+    }
+
+    private static long addressMiddle(byte[] accounts, int i) {
+        return ByteArrayUtil.readLong(accounts, i * ADDRESS_SIZE + 8);
+    }
+
+    private static int addressLow(byte[] accounts, int i) {
+        return ByteArrayUtil.readInt(accounts, i * ADDRESS_SIZE + 16);
+    }
+
+    private static boolean equals(byte[] a, int offset, byte[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[offset + i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < getAccountCount(); i++) {
+            sb.append(i == 0 ? "" : ", ").append(HexUtil.toHexString(getAccount(i)))
+                    .append(isAccountWritten(i) ? "(w)" : "(r)");
+        }
+        sb.append("], slots=[");
+        for (int i = 0; i < getSlotCount(); i++) {
+            sb.append(i == 0 ? "" : ", ").append(slotAccounts[i]).append(":").append(getSlotKey(i))
+                    .append(isSlotWritten(i) ? "(w)" : "(r)");
+        }
+
+        return "AccessSet{accounts=[" + sb + "]}";
+    }
+}
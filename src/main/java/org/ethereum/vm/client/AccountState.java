@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import java.math.BigInteger;
+
+import org.ethereum.vm.util.HexUtil;
+
+/**
+ * A snapshot of the fields of an account, as returned by
+ * {@link Repository#getAccounts(java.util.List)}.
+ *
+ * @ImplNote AccountState objects are immutable.
+ */
+public class AccountState {
+
+    private final boolean exists;
+    private final long nonce;
+    private final BigInteger balance;
+    private final byte[] code;
+
+    public AccountState(boolean exists, long nonce, BigInteger balance, byte[] code) {
+        this.exists = exists;
+        this.nonce = nonce;
+        this.balance = balance;
+        this.code = code;
+    }
+
+    public boolean exists() {
+        return exists;
+    }
+
+    public long getNonce() {
+        return nonce;
+    }
+
+    public BigInteger getBalance() {
+        return balance;
+    }
+
+    /**
+     * Returns the account code.
+     *
+     * @return code in byte-array format, or NULL if not exist
+     */
+    public byte[] getCode() {
+        return code;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountState{" +
+                "exists=" + exists +
+                ", nonce=" + nonce +
+                ", balance=" + balance +
+                ", code=" + (code == null ? null : HexUtil.toHexString(code)) +
+                '}';
+    }
+}
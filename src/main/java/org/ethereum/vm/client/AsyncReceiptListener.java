@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A receipt listener which hands the receipts over to another listener on the
+ * given executor, so that consumers such as indexers or writers run alongside
+ * the execution of the next transactions.
+ *
+ * At most <code>capacity</code> events are buffered. When the buffer is full,
+ * the executing thread blocks until the consumer catches up, which bounds the
+ * receipts held in memory by a slow consumer. Events are delivered one at a
+ * time and in order.
+ *
+ * @ImplNote {@link #flush()} and {@link #close()} must not be called from the
+ *           consumer itself.
+ */
+public class AsyncReceiptListener implements ReceiptListener, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncReceiptListener.class);
+
+    private final ReceiptListener consumer;
+    private final Executor executor;
+    private final int capacity;
+
+    private final Semaphore permits;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private volatile boolean closed = false;
+
+    public AsyncReceiptListener(ReceiptListener consumer, Executor executor, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        this.consumer = consumer;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+    }
+
+    @Override
+    public void onReceipt(Block block, int index, TransactionReceipt receipt) {
+        submit(() -> consumer.onReceipt(block, index, receipt));
+    }
+
+    @Override
+    public void onBlock(BlockSummary summary) {
+        submit(() -> consumer.onBlock(summary));
+    }
+
+    /**
+     * Returns the number of events which have not been delivered yet.
+     *
+     * @return the number of buffered events
+     */
+    public int getBuffered() {
+        return capacity - permits.availablePermits();
+    }
+
+    /**
+     * Blocks until all the buffered events have been delivered.
+     */
+    public void flush() {
+        permits.acquireUninterruptibly(capacity);
+        permits.release(capacity);
+    }
+
+    /**
+     * Rejects any further event and delivers the buffered ones.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flush();
+    }
+
+    private void submit(Runnable event) {
+        if (closed) {
+            throw new IllegalStateException("The listener is closed");
+        }
+
+        // back pressure: wait for a free slot
+        permits.acquireUninterruptibly();
+        pending.add(event);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RuntimeException e) {
+            draining.set(false);
+            throw e;
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable event;
+            while ((event = pending.poll()) != null) {
+                try {
+                    event.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Receipt consumer failed", e);
+                } finally {
+                    permits.release();
+                }
+            }
+        } finally {
+            // also on an Error, or the producers would wait forever
+            draining.set(false);
+
+            // an event may have been added after the last poll
+            if (!pending.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
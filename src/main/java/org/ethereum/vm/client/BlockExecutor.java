@@ -0,0 +1,264 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.ethereum.vm.Bloom;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.chainspec.Spec;
+import org.ethereum.vm.program.InternalTxRecording;
+import org.ethereum.vm.program.invoke.BlockContext;
+import org.ethereum.vm.program.invoke.ProgramInvokeFactory;
+import org.ethereum.vm.program.invoke.ProgramInvokeFactoryImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes all the transactions of a block, sequentially, against the same
+ * repository.
+ *
+ * The block environment is encoded only once and shared by all the
+ * transactions; the gas used in the block is tracked by the executor.
+ */
+public class BlockExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockExecutor.class);
+
+    private final BlockContext blockContext;
+
+    private final Repository repo;
+    private final BlockStore blockStore;
+
+    private final Spec spec;
+    private final ProgramInvokeFactory invokeFactory;
+
+    private boolean recordAccesses;
+    private InternalTxRecording internalTxRecording = InternalTxRecording.FULL;
+    private ReceiptListener receiptListener;
+    private boolean retainReceipts = true;
+    private PrefetchingRepository prefetcher;
+    private AccessHints accessHints;
+    private int prefetchLookahead;
+
+    public BlockExecutor(Block block, Repository repo, BlockStore blockStore) {
+        this(block, repo, blockStore, Spec.DEFAULT, new ProgramInvokeFactoryImpl());
+    }
+
+    public BlockExecutor(Block block, Repository repo, BlockStore blockStore, Spec spec,
+            ProgramInvokeFactory invokeFactory) {
+        this.blockContext = new BlockContext(block);
+
+        this.repo = repo;
+        this.blockStore = blockStore;
+
+        this.spec = spec;
+        this.invokeFactory = invokeFactory;
+    }
+
+    /**
+     * Enables recording of the access set of each transaction.
+     *
+     * @param recordAccesses
+     *            whether to record the accesses
+     * @see TransactionExecutor#setRecordAccesses(boolean)
+     */
+    public void setRecordAccesses(boolean recordAccesses) {
+        this.recordAccesses = recordAccesses;
+    }
+
+    /**
+     * Sets which internal transactions are recorded into the receipts.
+     *
+     * @param internalTxRecording
+     *            the recording mode
+     * @see TransactionExecutor#setInternalTxRecording(InternalTxRecording)
+     */
+    public void setInternalTxRecording(InternalTxRecording internalTxRecording) {
+        this.internalTxRecording = internalTxRecording;
+    }
+
+    /**
+     * Sets a listener which receives each receipt as soon as its transaction is
+     * executed, rather than at the end of the block.
+     *
+     * @param receiptListener
+     *            the listener, or NULL to remove it
+     * @see AsyncReceiptListener
+     */
+    public void setReceiptListener(ReceiptListener receiptListener) {
+        this.receiptListener = receiptListener;
+    }
+
+    /**
+     * Sets whether the receipts are kept in the block summary. A client which
+     * consumes them through a {@link ReceiptListener} can turn this off, so that a
+     * receipt is released once the listener is done with it; the summary then holds
+     * an empty list, but still the bloom and the counters.
+     *
+     * @ImplNote listeners which read the receipts from
+     *           {@link ReceiptListener#onBlock(BlockSummary)} need the receipts to
+     *           be retained; {@link LogIndex} collects them as they are delivered,
+     *           and {@link ReceiptCodec#encode(long, List)} takes the collected
+     *           receipts.
+     *
+     * @param retainReceipts
+     *            whether to retain the receipts, true by default
+     */
+    public void setRetainReceipts(boolean retainReceipts) {
+        this.retainReceipts = retainReceipts;
+    }
+
+    /**
+     * Sets the source of the expected accesses of each transaction, which are
+     * loaded with one {@link Repository#getAccounts(List)} call and one
+     * {@link Repository#getStorageRows(byte[], List)} call per account. <br/>
+     * <br/>
+     *
+     * With a prefetcher, the hints of a transaction are issued before it runs,
+     * along with those of the next <code>lookahead</code> transactions, so that
+     * their loads overlap with the execution; once the transaction completes, its
+     * prefetches are cancelled and the ones of the next transactions are kept.
+     * Without, the hints of a transaction are loaded from the block repository
+     * right before it runs, e.g. to fill a {@link CachingRepository}.
+     *
+     * @param accessHints
+     *            the hint source, see {@link ContractAccessHints}, or NULL to
+     *            disable hints
+     * @param prefetcher
+     *            the prefetching repository which the block repository reads
+     *            through, or NULL to load the hints synchronously
+     * @param lookahead
+     *            the number of transactions to prefetch ahead of the current one
+     */
+    public void setAccessHints(AccessHints accessHints, PrefetchingRepository prefetcher, int lookahead) {
+        if (lookahead < 0) {
+            throw new IllegalArgumentException("The lookahead must not be negative");
+        }
+        this.accessHints = accessHints;
+        this.prefetcher = accessHints == null ? null : prefetcher;
+        this.prefetchLookahead = lookahead;
+    }
+
+    /**
+     * Executes the given transactions in order.
+     *
+     * @param txs
+     *            the transactions of the block
+     * @return a block summary
+     */
+    public BlockSummary run(List<? extends Transaction> txs) {
+        long start = System.nanoTime();
+
+        List<TransactionReceipt> receipts = retainReceipts ? new ArrayList<>(txs.size())
+                : Collections.emptyList();
+        Bloom bloom = new Bloom();
+        int index = 0;
+        long gasUsed = 0;
+        int failed = 0;
+        int rejected = 0;
+        long[] prefetchGroups = new long[txs.size()];
+        int prefetched = 0;
+
+        try {
+            for (Transaction tx : txs) {
+                if (accessHints != null && prefetcher == null) {
+                    AccessSet hints = accessHints.getHints(tx);
+                    if (hints != null) {
+                        load(hints);
+                    }
+                }
+                for (; prefetcher != null && prefetched < txs.size()
+                        && prefetched <= index + prefetchLookahead; prefetched++) {
+                    prefetchGroups[prefetched] = prefetcher.startGroup();
+                    AccessSet hints = accessHints.getHints(txs.get(prefetched));
+                    if (hints != null) {
+                        prefetcher.prefetch(hints);
+                    }
+                }
+
+                TransactionExecutor executor = new TransactionExecutor(tx, blockContext, repo, blockStore, spec,
+                        invokeFactory, gasUsed);
+                executor.setRecordAccesses(recordAccesses);
+                executor.setInternalTxRecording(internalTxRecording);
+                TransactionReceipt receipt = executor.run();
+
+                if (accessHints != null) {
+                    accessHints.onExecuted(tx, receipt);
+                }
+                if (prefetcher != null) {
+                    prefetcher.cancel(prefetchGroups[index]);
+                }
+
+                if (receipt == null) {
+                    rejected++;
+                } else {
+                    gasUsed += receipt.getGasUsed();
+                    if (!receipt.isSuccess()) {
+                        failed++;
+                    }
+                    bloom.or(receipt.getBloom());
+                }
+                if (retainReceipts) {
+                    receipts.add(receipt);
+                }
+
+                if (receiptListener != null) {
+                    receiptListener.onReceipt(blockContext.getBlock(), index, receipt);
+                }
+                index++;
+            }
+        } finally {
+            if (prefetcher != null) {
+                // also the ones issued ahead, if a transaction threw
+                prefetcher.cancel();
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        logger.debug("Block #{} executed: txs = {}, gasUsed = {}, failed = {}, rejected = {}, elapsed = {} ns",
+                blockContext.getBlock().getNumber(), txs.size(), gasUsed, failed, rejected, elapsed);
+
+        BlockSummary summary = new BlockSummary(blockContext.getBlock(), receipts, txs.size(), bloom, gasUsed,
+                failed, rejected, elapsed);
+        if (receiptListener != null) {
+            receiptListener.onBlock(summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Loads the hinted accounts and storage slots from the block repository.
+     */
+    private void load(AccessSet hints) {
+        List<byte[]> addresses = new ArrayList<>(hints.getAccountCount());
+        for (int i = 0; i < hints.getAccountCount(); i++) {
+            addresses.add(hints.getAccount(i));
+        }
+        repo.getAccounts(addresses);
+
+        List<List<DataWord>> keys = hints.getSlotKeysByAccount();
+        for (int i = 0; i < addresses.size(); i++) {
+            if (!keys.get(i).isEmpty()) {
+                repo.getStorageRows(addresses.get(i), keys.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,423 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.ethereum.vm.DataWord;
+
+/**
+ * A flyweight over a record of {@link ReceiptCodec}, e.g. within a
+ * memory-mapped archive. Nothing is decoded or copied until asked for, and a
+ * view can be re-wrapped over the next record to scan an archive without
+ * allocating:
+ *
+ * <pre>
+ * BlockReceiptsView view = new BlockReceiptsView();
+ * for (int offset = 0; offset &lt; buffer.limit(); offset += view.getRecordLength()) {
+ *     view.wrap(buffer, offset);
+ *     ...
+ * }
+ * </pre>
+ *
+ * This class is not thread-safe.
+ */
+public class BlockReceiptsView {
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    private long number;
+    private int addressCount;
+    private int addressOffset;
+    private int wordCount;
+    private int wordOffset;
+    private int receiptCount;
+    private int receiptsOffset;
+
+    private final Cursor cursor = new Cursor();
+
+    /**
+     * Points this view at a record.
+     *
+     * @param buffer
+     *            the buffer holding the record
+     * @param offset
+     *            the offset of the record
+     * @return this view
+     * @throws IllegalArgumentException
+     *             if the format version is not supported
+     */
+    public BlockReceiptsView wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = buffer.getInt(offset);
+
+        ReceiptCodec.Reader in = new ReceiptCodec.Reader(buffer, offset + 4);
+        int version = in.get();
+        if (version != ReceiptCodec.VERSION) {
+            throw new IllegalArgumentException("Unsupported version: " + version);
+        }
+        this.number = in.varint();
+
+        this.addressCount = in.varintInt();
+        this.addressOffset = in.pos;
+        in.skip(addressCount * AccessSet.ADDRESS_SIZE);
+
+        this.wordCount = in.varintInt();
+        this.wordOffset = in.pos;
+        in.skip(wordCount * DataWord.SIZE);
+
+        this.receiptCount = in.varintInt();
+        this.receiptsOffset = in.pos;
+        return this;
+    }
+
+    /**
+     * Returns the length of the record, including its length prefix, i.e. the
+     * distance to the next record.
+     */
+    public int getRecordLength() {
+        return 4 + length;
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    public int getAddressCount() {
+        return addressCount;
+    }
+
+    /**
+     * Returns a copy of the i-th address of the block.
+     */
+    public byte[] getAddress(int i) {
+        byte[] address = new byte[AccessSet.ADDRESS_SIZE];
+        copy(addressOffset + i * AccessSet.ADDRESS_SIZE, address);
+        return address;
+    }
+
+    /**
+     * Returns the index of an address in the table of the block.
+     *
+     * @return the address index, or -1 if the block doesn't refer to the address
+     */
+    public int indexOfAddress(byte[] address) {
+        for (int i = 0; i < addressCount; i++) {
+            if (equals(addressOffset + i * AccessSet.ADDRESS_SIZE, address)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Returns the i-th word, i.e. topic or storage key, of the block.
+     */
+    public DataWord getWord(int i) {
+        byte[] word = new byte[DataWord.SIZE];
+        copy(wordOffset + i * DataWord.SIZE, word);
+        return DataWord.of(word);
+    }
+
+    /**
+     * Returns the index of a word in the table of the block.
+     *
+     * @return the word index, or -1 if the block doesn't refer to the word
+     */
+    public int indexOfWord(DataWord word) {
+        for (int i = 0; i < wordCount; i++) {
+            int pos = wordOffset + i * DataWord.SIZE;
+            if (buffer.getLong(pos) == word.getLong(0) && buffer.getLong(pos + 8) == word.getLong(1)
+                    && buffer.getLong(pos + 16) == word.getLong(2) && buffer.getLong(pos + 24) == word.getLong(3)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getReceiptCount() {
+        return receiptCount;
+    }
+
+    /**
+     * Returns a cursor over the receipts, positioned before the first one. The
+     * cursor is owned by this view and is reset by each call.
+     */
+    public Cursor receipts() {
+        cursor.reset();
+        return cursor;
+    }
+
+    private void copy(int pos, byte[] dst) {
+        for (int i = 0; i < dst.length; i++) {
+            dst[i] = buffer.get(pos + i);
+        }
+    }
+
+    private boolean equals(int pos, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(pos + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A forward cursor over the receipts of a record and, within a receipt, over
+     * its logs. Addresses and topics are returned as indexes into the tables of the
+     * block.
+     */
+    public class Cursor {
+
+        private ReceiptCodec.Reader in;
+        private int remaining;
+
+        // the current receipt
+        private int flags;
+        private long gasUsed;
+        private int returnDataOffset;
+        private int returnDataLength;
+        private int logCount;
+        private int logsRemaining;
+
+        // the current log
+        private int logAddress;
+        private int[] topics = new int[4];
+        private int topicCount;
+        private int logDataOffset;
+        private int logDataLength;
+
+        // the state changes of the current receipt, read after the logs
+        private int[] deleted = new int[0];
+        private int deletedCount;
+        private int accessSetOffset;
+
+        void reset() {
+            in = new ReceiptCodec.Reader(buffer, receiptsOffset);
+            remaining = receiptCount;
+            logsRemaining = 0;
+            flags = 0;
+        }
+
+        /**
+         * Moves to the next receipt.
+         *
+         * @return false if there are no more receipts
+         */
+        public boolean next() {
+            if ((flags & ReceiptCodec.EXECUTED) != 0) {
+                // skip what is left of the current receipt
+                while (logsRemaining > 0) {
+                    nextLog();
+                }
+                skipAccessSet();
+            }
+            if (remaining == 0) {
+                flags = 0;
+                return false;
+            }
+            remaining--;
+
+            flags = in.get();
+            if ((flags & ReceiptCodec.EXECUTED) == 0) {
+                return true;
+            }
+            gasUsed = in.varint();
+            returnDataLength = in.varintInt();
+            returnDataOffset = in.pos;
+            in.skip(returnDataLength);
+            logCount = logsRemaining = in.varintInt();
+            if (logCount == 0) {
+                readStateChanges();
+            }
+            return true;
+        }
+
+        /**
+         * Returns whether the transaction was executed, i.e. not rejected.
+         */
+        public boolean isExecuted() {
+            return (flags & ReceiptCodec.EXECUTED) != 0;
+        }
+
+        public boolean isSuccess() {
+            return (flags & ReceiptCodec.SUCCESS) != 0;
+        }
+
+        public long getGasUsed() {
+            return gasUsed;
+        }
+
+        public byte[] getReturnData() {
+            byte[] data = new byte[returnDataLength];
+            copy(returnDataOffset, data);
+            return data;
+        }
+
+        public int getLogCount() {
+            return logCount;
+        }
+
+        /**
+         * Moves to the next log of the current receipt.
+         *
+         * @return false if there are no more logs
+         */
+        public boolean nextLog() {
+            if (logsRemaining == 0) {
+                return false;
+            }
+            logsRemaining--;
+
+            logAddress = in.varintInt();
+            topicCount = in.varintInt();
+            if (topicCount > topics.length) {
+                topics = new int[topicCount];
+            }
+            for (int i = 0; i < topicCount; i++) {
+                topics[i] = in.varintInt();
+            }
+            logDataLength = in.varintInt();
+            logDataOffset = in.pos;
+            in.skip(logDataLength);
+
+            if (logsRemaining == 0) {
+                readStateChanges();
+            }
+            return true;
+        }
+
+        public int getLogAddress() {
+            return logAddress;
+        }
+
+        public int getTopicCount() {
+            return topicCount;
+        }
+
+        public int getTopic(int i) {
+            return topics[i];
+        }
+
+        public byte[] getLogData() {
+            byte[] data = new byte[logDataLength];
+            copy(logDataOffset, data);
+            return data;
+        }
+
+        /**
+         * Returns the data of the current log, without copying it.
+         *
+         * @return a read-only buffer sharing the content of the record
+         */
+        public ByteBuffer getLogDataSlice() {
+            ByteBuffer slice = buffer.asReadOnlyBuffer();
+            slice.position(logDataOffset).limit(logDataOffset + logDataLength);
+            return slice.slice();
+        }
+
+        /**
+         * Returns the number of accounts deleted by the current receipt. Only available
+         * once all the logs have been visited.
+         */
+        public int getDeletedAccountCount() {
+            return deletedCount;
+        }
+
+        public int getDeletedAccount(int i) {
+            return deleted[i];
+        }
+
+        /**
+         * Decodes the access set of the current receipt. Only available once all the
+         * logs have been visited.
+         *
+         * @return the access set, or NULL if it was not recorded
+         */
+        public AccessSet getAccessSet() {
+            if ((flags & ReceiptCodec.ACCESS_SET) == 0) {
+                return null;
+            }
+
+            ReceiptCodec.Reader r = new ReceiptCodec.Reader(buffer, accessSetOffset);
+            int accountCount = r.varintInt();
+            byte[] accounts = new byte[accountCount * AccessSet.ADDRESS_SIZE];
+            byte[] accountFlags = new byte[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                int index = r.varintInt();
+                for (int j = 0; j < AccessSet.ADDRESS_SIZE; j++) {
+                    accounts[i * AccessSet.ADDRESS_SIZE + j] = buffer
+                            .get(addressOffset + index * AccessSet.ADDRESS_SIZE + j);
+                }
+                accountFlags[i] = (byte) r.get();
+            }
+
+            int slotCount = r.varintInt();
+            int[] slotAccounts = new int[slotCount];
+            byte[] slotKeys = new byte[slotCount * DataWord.SIZE];
+            byte[] slotFlags = new byte[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                slotAccounts[i] = r.varintInt();
+                int index = r.varintInt();
+                for (int j = 0; j < DataWord.SIZE; j++) {
+                    slotKeys[i * DataWord.SIZE + j] = buffer.get(wordOffset + index * DataWord.SIZE + j);
+                }
+                slotFlags[i] = (byte) r.get();
+            }
+
+            return new AccessSet(accounts, accountFlags, slotAccounts, slotKeys, slotFlags);
+        }
+
+        private void readStateChanges() {
+            deletedCount = in.varintInt();
+            if (deletedCount > deleted.length) {
+                deleted = Arrays.copyOf(deleted, deletedCount);
+            }
+            for (int i = 0; i < deletedCount; i++) {
+                deleted[i] = in.varintInt();
+            }
+            accessSetOffset = in.pos;
+        }
+
+        private void skipAccessSet() {
+            if ((flags & ReceiptCodec.ACCESS_SET) == 0) {
+                return;
+            }
+            int accountCount = in.varintInt();
+            for (int i = 0; i < accountCount; i++) {
+                in.varint();
+                in.skip(1);
+            }
+            int slotCount = in.varintInt();
+            for (int i = 0; i < slotCount; i++) {
+                in.varint();
+                in.varint();
+                in.skip(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import java.util.List;
+
+import org.ethereum.vm.Bloom;
+
+/**
+ * The outcome of executing a block, see {@link BlockExecutor}.
+ */
+public class BlockSummary {
+
+    private Block block;
+
+    private List<TransactionReceipt> receipts;
+    private int txCount;
+    private long gasUsed;
+    private int failedCount;
+    private int rejectedCount;
+    private long elapsedNanos;
+    private Bloom bloom;
+
+    public BlockSummary(Block block, List<TransactionReceipt> receipts, long gasUsed, int failedCount,
+            int rejectedCount, long elapsedNanos) {
+        this(block, receipts, receipts.size(), bloomOf(receipts), gasUsed, failedCount, rejectedCount,
+                elapsedNanos);
+    }
+
+    /**
+     * Creates a summary which may not hold the receipts, see
+     * {@link BlockExecutor#setRetainReceipts(boolean)}.
+     *
+     * @param block
+     *            the block
+     * @param receipts
+     *            the receipts, or an empty list if not retained
+     * @param txCount
+     *            the number of transactions
+     * @param bloom
+     *            the bloom of all the logs of the block
+     * @param gasUsed
+     *            the cumulative gas used
+     * @param failedCount
+     *            the number of failed transactions
+     * @param rejectedCount
+     *            the number of rejected transactions
+     * @param elapsedNanos
+     *            the execution time
+     */
+    public BlockSummary(Block block, List<TransactionReceipt> receipts, int txCount, Bloom bloom, long gasUsed,
+            int failedCount, int rejectedCount, long elapsedNanos) {
+        this.block = block;
+        this.receipts = receipts;
+        this.txCount = txCount;
+        this.bloom = bloom;
+        this.gasUsed = gasUsed;
+        this.failedCount = failedCount;
+        this.rejectedCount = rejectedCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    private static Bloom bloomOf(List<TransactionReceipt> receipts) {
+        Bloom bloom = new Bloom();
+        for (TransactionReceipt receipt : receipts) {
+            if (receipt != null) {
+                bloom.or(receipt.getBloom());
+            }
+        }
+        return bloom;
+    }
+
+    public Block getBlock() {
+        return block;
+    }
+
+    /**
+     * Returns the transaction receipts, in the same order as the transactions.
+     *
+     * @return a list of receipts; the element is NULL if the corresponding
+     *         transaction was rejected. The list is empty if the receipts were not
+     *         retained.
+     */
+    public List<TransactionReceipt> getReceipts() {
+        return receipts;
+    }
+
+    /**
+     * Returns the number of transactions of the block, including the rejected ones.
+     *
+     * @return the number of transactions
+     */
+    public int getTxCount() {
+        return txCount;
+    }
+
+    /**
+     * Returns the bloom of all the logs of the block.
+     *
+     * @return a copy of the logs bloom
+     */
+    public Bloom getBloom() {
+        return new Bloom().or(bloom);
+    }
+
+    /**
+     * Returns the total gas used by all the included transactions.
+     *
+     * @return the cumulative gas used
+     */
+    public long getGasUsed() {
+        return gasUsed;
+    }
+
+    /**
+     * Returns the number of transactions which were executed but failed, e.g.
+     * reverted or ran out of gas.
+     *
+     * @return the number of failed transactions
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the number of transactions which didn't pass validation and were not
+     * executed.
+     *
+     * @return the number of rejected transactions
+     */
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the execution throughput.
+     *
+     * @return gas used per second
+     */
+    public double getGasPerSecond() {
+        return elapsedNanos == 0 ? 0 : gasUsed * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockSummary{" +
+                "number=" + block.getNumber() +
+                ", txs=" + txCount +
+                ", gasUsed=" + gasUsed +
+                ", failedCount=" + failedCount +
+                ", rejectedCount=" + rejectedCount +
+                ", elapsedNanos=" + elapsedNanos +
+                '}';
+    }
+}
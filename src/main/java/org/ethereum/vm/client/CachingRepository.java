@@ -0,0 +1,558 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import static org.ethereum.vm.client.StateCache.ABSENT;
+import static org.ethereum.vm.client.StateCache.owner;
+import static org.ethereum.vm.client.StateCache.slotKey;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.ethereum.vm.Address;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.util.ByteArrayWrapper;
+
+/**
+ * A repository decorator which caches account and storage reads in two tiers:
+ * <ul>
+ * <li>L1, an unbounded map owned by the root repository, which holds the reads
+ * of the uncommitted state, e.g. of a block being executed; it is moved into L2
+ * when the root is committed, and discarded when it's rolled back;</li>
+ * <li>L2, a process-wide {@link StateCache} with bounded size, which only holds
+ * committed state.</li>
+ * </ul>
+ *
+ * Only the state of the root repository is cached. Keys written by a track are
+ * read from the track until it's committed, when the cached entries are
+ * invalidated; keys written by the root are invalidated immediately. <br/>
+ * <br/>
+ *
+ * Accounts are cached as a whole, as loaded by {@link #getAccounts(List)}, e.g.
+ * for prefetch hints. A single field read which misses is forwarded as such,
+ * unless full account loads are enabled, see
+ * {@link #setLoadFullAccounts(boolean)}.
+ *
+ * @ImplNote clones are not cached, as they are snapshots which diverge from the
+ *           root.
+ */
+public class CachingRepository implements Repository {
+
+    private final Repository repo;
+    private final CachingRepository parent;
+    private final CachingRepository root;
+    private final StateCache l2;
+
+    // L1 and statistics, used by the root only
+    private final Map<Address, AccountState> l1Accounts;
+    private final Map<ByteArrayWrapper, DataWord> l1Slots;
+    private final Map<Address, Set<ByteArrayWrapper>> l1SlotsByAccount;
+    private boolean loadFullAccounts = false;
+    private long l1Hits = 0;
+    private long l2Hits = 0;
+    private long misses = 0;
+
+    // keys written at this level, and not yet committed (or rolled back for root)
+    private final Set<Address> writtenAccounts = new HashSet<>();
+    private final Set<ByteArrayWrapper> writtenSlots = new HashSet<>();
+    private final Set<Address> deletedAccounts = new HashSet<>();
+
+    public CachingRepository(Repository repo, StateCache l2) {
+        this.repo = repo;
+        this.parent = null;
+        this.root = this;
+        this.l2 = l2;
+
+        this.l1Accounts = new HashMap<>();
+        this.l1Slots = new HashMap<>();
+        this.l1SlotsByAccount = new HashMap<>();
+    }
+
+    private CachingRepository(Repository repo, CachingRepository parent) {
+        this.repo = repo;
+        this.parent = parent;
+        this.root = parent.root;
+        this.l2 = parent.l2;
+
+        this.l1Accounts = null;
+        this.l1Slots = null;
+        this.l1SlotsByAccount = null;
+    }
+
+    /**
+     * Sets whether a single field read which misses the cache loads and caches the
+     * whole account, including its code. This pays off when the nonce, the balance
+     * and the code of an account tend to be read together.
+     *
+     * @param loadFullAccounts
+     *            whether to load full accounts, false by default
+     */
+    public void setLoadFullAccounts(boolean loadFullAccounts) {
+        root.loadFullAccounts = loadFullAccounts;
+    }
+
+    /**
+     * Returns the ratio of reads served by either L1 or L2.
+     *
+     * @return the hit ratio, between 0 and 1
+     */
+    public double getHitRatio() {
+        long total = root.l1Hits + root.l2Hits + root.misses;
+        return total == 0 ? 0 : (double) (root.l1Hits + root.l2Hits) / total;
+    }
+
+    public long getL1HitCount() {
+        return root.l1Hits;
+    }
+
+    public long getL2HitCount() {
+        return root.l2Hits;
+    }
+
+    public long getMissCount() {
+        return root.misses;
+    }
+
+    public long getEvictionCount() {
+        return l2.getEvictionCount();
+    }
+
+    /**
+     * Returns the estimated memory footprint of both L1 and L2.
+     *
+     * @return the number of bytes
+     */
+    public long getMemoryFootprint() {
+        long bytes = l2.getMemoryFootprint();
+        for (Map.Entry<Address, AccountState> e : root.l1Accounts.entrySet()) {
+            bytes += StateCache.weigh(e.getKey(), e.getValue());
+        }
+        for (Map.Entry<ByteArrayWrapper, DataWord> e : root.l1Slots.entrySet()) {
+            bytes += StateCache.weigh(e.getKey(), e.getValue());
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean exists(byte[] address) {
+        AccountState account = getAccount(Address.of(address));
+        return account == null ? repo.exists(address) : account.exists();
+    }
+
+    @Override
+    public void createAccount(byte[] address) {
+        writeAccount(Address.of(address));
+        repo.createAccount(address);
+    }
+
+    @Override
+    public void delete(byte[] address) {
+        Address key = Address.of(address);
+        writeAccount(key);
+        deletedAccounts.add(key);
+        if (parent == null) {
+            invalidateStorage(key);
+        }
+        repo.delete(address);
+    }
+
+    @Override
+    public long increaseNonce(byte[] address) {
+        writeAccount(Address.of(address));
+        return repo.increaseNonce(address);
+    }
+
+    @Override
+    public long setNonce(byte[] address, long nonce) {
+        writeAccount(Address.of(address));
+        return repo.setNonce(address, nonce);
+    }
+
+    @Override
+    public long getNonce(byte[] address) {
+        AccountState account = getAccount(Address.of(address));
+        return account == null ? repo.getNonce(address) : account.getNonce();
+    }
+
+    @Override
+    public void saveCode(byte[] address, byte[] code) {
+        writeAccount(Address.of(address));
+        repo.saveCode(address, code);
+    }
+
+    @Override
+    public byte[] getCode(byte[] address) {
+        AccountState account = getAccount(Address.of(address));
+        return account == null ? repo.getCode(address) : account.getCode();
+    }
+
+    @Override
+    public void putStorageRow(byte[] address, DataWord key, DataWord value) {
+        writeSlot(slotKey(address, key));
+        repo.putStorageRow(address, key, value);
+    }
+
+    @Override
+    public DataWord getStorageRow(byte[] address, DataWord key) {
+        ByteArrayWrapper slot = slotKey(address, key);
+        if (isStorageDirty(slot)) {
+            return repo.getStorageRow(address, key);
+        }
+
+        DataWord value = getCachedSlot(slot);
+        if (value == null) {
+            value = repo.getStorageRow(address, key);
+            root.cacheSlot(slot, value == null ? ABSENT : value);
+            return value;
+        }
+        return value == ABSENT ? null : value;
+    }
+
+    @Override
+    public List<DataWord> getStorageRows(byte[] address, List<DataWord> keys) {
+        List<DataWord> values = new ArrayList<>(keys.size());
+        List<DataWord> missing = new ArrayList<>();
+        List<ByteArrayWrapper> missingSlots = new ArrayList<>();
+        int[] missingIndexes = new int[keys.size()];
+        for (DataWord key : keys) {
+            ByteArrayWrapper slot = slotKey(address, key);
+            DataWord value = isStorageDirty(slot) ? null : getCachedSlot(slot);
+            if (value == null) {
+                missingIndexes[missing.size()] = values.size();
+                missing.add(key);
+                missingSlots.add(slot);
+            }
+            values.add(value == ABSENT ? null : value);
+        }
+
+        if (!missing.isEmpty()) {
+            List<DataWord> loaded = repo.getStorageRows(address, missing);
+            for (int i = 0; i < missing.size(); i++) {
+                DataWord value = loaded.get(i);
+                values.set(missingIndexes[i], value);
+
+                ByteArrayWrapper slot = missingSlots.get(i);
+                if (!isStorageDirty(slot)) {
+                    root.cacheSlot(slot, value == null ? ABSENT : value);
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public BigInteger getBalance(byte[] address) {
+        AccountState account = getAccount(Address.of(address));
+        return account == null ? repo.getBalance(address) : account.getBalance();
+    }
+
+    @Override
+    public List<AccountState> getAccounts(List<byte[]> addresses) {
+        List<AccountState> accounts = new ArrayList<>(addresses.size());
+        List<byte[]> missing = new ArrayList<>();
+        List<Address> missingKeys = new ArrayList<>();
+        for (byte[] address : addresses) {
+            Address key = Address.of(address);
+            AccountState account = isAccountDirty(key) ? null : getCachedAccount(key);
+            if (account == null) {
+                missing.add(address);
+                missingKeys.add(key);
+            }
+            accounts.add(account);
+        }
+
+        if (!missing.isEmpty()) {
+            List<AccountState> loaded = repo.getAccounts(missing);
+            for (int i = 0, j = 0; i < addresses.size(); i++) {
+                if (accounts.get(i) == null) {
+                    AccountState account = loaded.get(j);
+                    accounts.set(i, account);
+
+                    Address key = missingKeys.get(j++);
+                    if (!isAccountDirty(key)) {
+                        root.l1Accounts.put(key, account);
+                    }
+                }
+            }
+        }
+        return accounts;
+    }
+
+    @Override
+    public BigInteger addBalance(byte[] address, BigInteger value) {
+        writeAccount(Address.of(address));
+        return repo.addBalance(address, value);
+    }
+
+    /*
+     * The Address overloads are forwarded as such, for backends keyed by Address;
+     * accounts are cached by Address, so that they are never turned into arrays.
+     */
+
+    @Override
+    public boolean exists(Address address) {
+        AccountState account = getAccount(address);
+        return account == null ? repo.exists(address) : account.exists();
+    }
+
+    @Override
+    public long getNonce(Address address) {
+        AccountState account = getAccount(address);
+        return account == null ? repo.getNonce(address) : account.getNonce();
+    }
+
+    @Override
+    public byte[] getCode(Address address) {
+        AccountState account = getAccount(address);
+        return account == null ? repo.getCode(address) : account.getCode();
+    }
+
+    @Override
+    public void putStorageRow(Address address, DataWord key, DataWord value) {
+        writeSlot(slotKey(address, key));
+        repo.putStorageRow(address, key, value);
+    }
+
+    @Override
+    public DataWord getStorageRow(Address address, DataWord key) {
+        ByteArrayWrapper slot = slotKey(address, key);
+        if (isStorageDirty(slot)) {
+            return repo.getStorageRow(address, key);
+        }
+
+        DataWord value = getCachedSlot(slot);
+        if (value == null) {
+            value = repo.getStorageRow(address, key);
+            root.cacheSlot(slot, value == null ? ABSENT : value);
+            return value;
+        }
+        return value == ABSENT ? null : value;
+    }
+
+    @Override
+    public BigInteger getBalance(Address address) {
+        AccountState account = getAccount(address);
+        return account == null ? repo.getBalance(address) : account.getBalance();
+    }
+
+    @Override
+    public BigInteger addBalance(Address address, BigInteger value) {
+        writeAccount(address);
+        return repo.addBalance(address, value);
+    }
+
+    @Override
+    public Repository startTracking() {
+        return new CachingRepository(repo.startTracking(), this);
+    }
+
+    @Override
+    public Repository clone() {
+        return repo.clone();
+    }
+
+    @Override
+    public void commit() {
+        repo.commit();
+
+        if (parent == null) {
+            // the L1 entries are now committed state
+            promote();
+        }
+        if (parent == root) {
+            // the root state has changed
+            for (Address key : deletedAccounts) {
+                root.invalidateStorage(key);
+            }
+            for (Address key : writtenAccounts) {
+                root.invalidateAccount(key);
+            }
+            for (ByteArrayWrapper slot : writtenSlots) {
+                root.invalidateSlot(slot);
+            }
+        }
+        if (parent != null) {
+            parent.writtenAccounts.addAll(writtenAccounts);
+            parent.writtenSlots.addAll(writtenSlots);
+            parent.deletedAccounts.addAll(deletedAccounts);
+        }
+        clearWrites();
+    }
+
+    @Override
+    public void rollback() {
+        repo.rollback();
+
+        if (parent == null) {
+            // the L1 entries may have been read from the uncommitted state, and L2
+            // entries of the written keys were invalidated with the writes
+            l1Accounts.clear();
+            l1Slots.clear();
+            l1SlotsByAccount.clear();
+        }
+        clearWrites();
+    }
+
+    /**
+     * Returns the cached account, or NULL if the account is not cached and full
+     * account loads are disabled, or if the account has been written by this track.
+     */
+    private AccountState getAccount(Address key) {
+        if (isAccountDirty(key)) {
+            return null;
+        }
+
+        AccountState account = getCachedAccount(key);
+        if (account == null && root.loadFullAccounts) {
+            account = repo.getAccounts(Collections.singletonList(key.toBytes())).get(0);
+            root.l1Accounts.put(key, account);
+        }
+        return account;
+    }
+
+    private void promote() {
+        for (Map.Entry<Address, AccountState> e : l1Accounts.entrySet()) {
+            l2.getAccounts().put(e.getKey(), e.getValue());
+        }
+        for (Set<ByteArrayWrapper> slots : l1SlotsByAccount.values()) {
+            for (ByteArrayWrapper slot : slots) {
+                DataWord value = l1Slots.get(slot);
+                if (value != null) {
+                    l2.putSlot(slot, value);
+                }
+            }
+        }
+        l1Accounts.clear();
+        l1Slots.clear();
+        l1SlotsByAccount.clear();
+    }
+
+    private AccountState getCachedAccount(Address key) {
+        AccountState account = root.l1Accounts.get(key);
+        if (account != null) {
+            root.l1Hits++;
+            return account;
+        }
+
+        account = l2.getAccounts().get(key);
+        if (account != null) {
+            root.l2Hits++;
+            root.l1Accounts.put(key, account);
+            return account;
+        }
+
+        root.misses++;
+        return null;
+    }
+
+    private DataWord getCachedSlot(ByteArrayWrapper slot) {
+        DataWord value = root.l1Slots.get(slot);
+        if (value != null) {
+            root.l1Hits++;
+            return value;
+        }
+
+        value = l2.getSlot(slot);
+        if (value != null) {
+            root.l2Hits++;
+            root.cacheSlot(slot, value);
+            return value;
+        }
+
+        root.misses++;
+        return null;
+    }
+
+    private void cacheSlot(ByteArrayWrapper slot, DataWord value) {
+        if (l1Slots.put(slot, value) == null) {
+            l1SlotsByAccount.computeIfAbsent(owner(slot), k -> new HashSet<>()).add(slot);
+        }
+    }
+
+    private void writeAccount(Address key) {
+        writtenAccounts.add(key);
+        if (parent == null) {
+            invalidateAccount(key);
+        }
+    }
+
+    private void writeSlot(ByteArrayWrapper slot) {
+        writtenSlots.add(slot);
+        if (parent == null) {
+            invalidateSlot(slot);
+        }
+    }
+
+    private boolean isAccountDirty(Address key) {
+        for (CachingRepository r = this; r.parent != null; r = r.parent) {
+            if (r.writtenAccounts.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isStorageDirty(ByteArrayWrapper slot) {
+        Address key = null;
+        for (CachingRepository r = this; r.parent != null; r = r.parent) {
+            if (r.writtenSlots.contains(slot)) {
+                return true;
+            }
+            if (!r.deletedAccounts.isEmpty()) {
+                key = key == null ? owner(slot) : key;
+                if (r.deletedAccounts.contains(key)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void invalidateAccount(Address key) {
+        l1Accounts.remove(key);
+        l2.getAccounts().remove(key);
+    }
+
+    private void invalidateSlot(ByteArrayWrapper slot) {
+        // left in the per-account index of L1, which tolerates stale keys
+        l1Slots.remove(slot);
+        l2.removeSlot(slot);
+    }
+
+    private void invalidateStorage(Address key) {
+        Set<ByteArrayWrapper> slots = l1SlotsByAccount.remove(key);
+        if (slots != null) {
+            for (ByteArrayWrapper slot : slots) {
+                l1Slots.remove(slot);
+            }
+        }
+        l2.removeStorage(key);
+    }
+
+    private void clearWrites() {
+        writtenAccounts.clear();
+        writtenSlots.clear();
+        deletedAccounts.clear();
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.util.ByteArrayWrapper;
+import org.ethereum.vm.util.ClockCache;
+
+/**
+ * Access hints learned from previous executions: a call to a contract is
+ * expected to access what the last call to the same contract accessed. The
+ * access sets are taken from the receipts, which requires
+ * {@link BlockExecutor#setRecordAccesses(boolean)}. This class is thread-safe.
+ */
+public class ContractAccessHints implements AccessHints {
+
+    private final ClockCache<ByteArrayWrapper, AccessSet> hints;
+
+    /**
+     * Creates a hint source.
+     *
+     * @param capacity
+     *            the max number of contracts to remember
+     */
+    public ContractAccessHints(int capacity) {
+        this.hints = new ClockCache<>(capacity,
+                (k, v) -> v.getAccountCount() * AccessSet.ADDRESS_SIZE + v.getSlotCount() * DataWord.SIZE);
+    }
+
+    @Override
+    public AccessSet getHints(Transaction tx) {
+        return tx.isCreate() ? null : hints.get(new ByteArrayWrapper(tx.getTo()));
+    }
+
+    @Override
+    public void onExecuted(Transaction tx, TransactionReceipt receipt) {
+        if (!tx.isCreate() && receipt != null && receipt.getAccessSet() != null) {
+            hints.put(new ByteArrayWrapper(tx.getTo()), receipt.getAccessSet());
+        }
+    }
+}
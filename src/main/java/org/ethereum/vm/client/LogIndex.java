@@ -0,0 +1,485 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+import org.ethereum.vm.util.AddressMap;
+import org.ethereum.vm.util.WordMap;
+
+/**
+ * An in-memory inverted index of the logs of the most recent blocks, from
+ * addresses and topics to the position of the logs. <br/>
+ * <br/>
+ *
+ * Blocks are added in ascending order of number, e.g. by registering the index
+ * as the {@link ReceiptListener} of a {@link BlockExecutor}, and the oldest
+ * blocks are dropped once more than <code>maxBlocks</code> are retained. As a
+ * listener, the index collects the receipts as they are delivered, so it works
+ * whether or not the block summaries retain them; only the receipts which have
+ * logs are kept. A filter query only checks the logs listed under its most
+ * selective criterion, instead of scanning all the receipts. This class is
+ * thread-safe.
+ */
+public class LogIndex implements ReceiptListener {
+
+    private final int maxBlocks;
+
+    private final List<IndexedBlock> blocks = new ArrayList<>();
+    private final AddressMap<Postings> addresses = new AddressMap<>();
+    private final WordMap<Postings> topics = new WordMap<>();
+
+    public LogIndex(int maxBlocks) {
+        if (maxBlocks <= 0) {
+            throw new IllegalArgumentException("The retention window must be positive");
+        }
+        this.maxBlocks = maxBlocks;
+    }
+
+    // the receipts of the block being executed
+    private Block pendingBlock;
+    private List<TransactionReceipt> pendingReceipts;
+
+    @Override
+    public synchronized void onReceipt(Block block, int index, TransactionReceipt receipt) {
+        if (pendingBlock != block) {
+            // a block which did not complete is discarded
+            pendingBlock = block;
+            pendingReceipts = new ArrayList<>();
+        }
+        while (pendingReceipts.size() <= index) {
+            pendingReceipts.add(null);
+        }
+        if (receipt != null && !receipt.getLogs().isEmpty()) {
+            pendingReceipts.set(index, receipt);
+        }
+    }
+
+    @Override
+    public synchronized void onBlock(BlockSummary summary) {
+        if (pendingBlock == summary.getBlock()) {
+            List<TransactionReceipt> receipts = pendingReceipts;
+            pendingBlock = null;
+            pendingReceipts = null;
+            add(summary.getBlock(), receipts);
+        } else {
+            add(summary);
+        }
+    }
+
+    /**
+     * Adds the logs of a block, and drops the oldest block if the retention window
+     * is exceeded.
+     *
+     * @param summary
+     *            the summary of the block, which must hold the receipts
+     * @throws IllegalArgumentException
+     *             if the block is not newer than the last one added
+     */
+    public synchronized void add(BlockSummary summary) {
+        add(summary.getBlock(), summary.getReceipts());
+    }
+
+    private void add(Block block, List<TransactionReceipt> receipts) {
+        long number = block.getNumber();
+        if (!blocks.isEmpty() && number <= blocks.get(blocks.size() - 1).getNumber()) {
+            throw new IllegalArgumentException("Blocks must be added in ascending order: " + number);
+        }
+
+        for (int tx = 0; tx < receipts.size(); tx++) {
+            TransactionReceipt receipt = receipts.get(tx);
+            if (receipt == null) {
+                continue;
+            }
+            List<LogInfo> logs = receipt.getLogs();
+            for (int i = 0; i < logs.size(); i++) {
+                LogInfo log = logs.get(i);
+                postings(addresses, log.getAddress()).add(number, tx, i);
+                for (DataWord topic : log.getTopics()) {
+                    postings(topics, topic).add(number, tx, i);
+                }
+            }
+        }
+        blocks.add(new IndexedBlock(block, receipts));
+
+        if (blocks.size() > maxBlocks) {
+            List<IndexedBlock> evicted = blocks.subList(0, blocks.size() - maxBlocks);
+            for (IndexedBlock b : evicted) {
+                evict(b);
+            }
+            evicted.clear();
+        }
+    }
+
+    /**
+     * Returns the number of retained blocks.
+     */
+    public synchronized int getBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * Finds the retained logs which match a filter. A log matches if it was emitted
+     * by one of the addresses, and if for each position of the topic filter, its
+     * topic at this position is one of the given ones.
+     *
+     * @param fromBlock
+     *            the first block number, inclusive
+     * @param toBlock
+     *            the last block number, inclusive
+     * @param addresses
+     *            the addresses, NULL or empty for any address
+     * @param topics
+     *            the topics by position, NULL or empty for any topics; an element
+     *            is NULL or empty for any topic at that position
+     * @return the matching logs, in the order they were emitted
+     */
+    public synchronized List<Entry> filter(long fromBlock, long toBlock, Collection<byte[]> addresses,
+            List<? extends Collection<DataWord>> topics) {
+        List<Entry> result = new ArrayList<>();
+
+        // choose the criterion with the fewest candidates
+        List<Postings> candidates = null;
+        int count = Integer.MAX_VALUE;
+        if (addresses != null && !addresses.isEmpty()) {
+            candidates = new ArrayList<>(addresses.size());
+            count = 0;
+            for (byte[] address : addresses) {
+                Postings p = this.addresses.get(address);
+                if (p != null) {
+                    candidates.add(p);
+                    count += p.size();
+                }
+            }
+        }
+        if (topics != null) {
+            for (Collection<DataWord> position : topics) {
+                if (position == null || position.isEmpty()) {
+                    continue;
+                }
+                List<Postings> list = new ArrayList<>(position.size());
+                int n = 0;
+                for (DataWord topic : position) {
+                    Postings p = this.topics.get(topic);
+                    if (p != null) {
+                        list.add(p);
+                        n += p.size();
+                    }
+                }
+                if (n < count) {
+                    candidates = list;
+                    count = n;
+                }
+            }
+        }
+
+        if (candidates == null) {
+            // no criteria, all the logs in range match
+            for (int b = seekBlock(fromBlock); b < blocks.size() && blocks.get(b).getNumber() <= toBlock; b++) {
+                IndexedBlock block = blocks.get(b);
+                for (int tx = 0; tx < block.receipts.size(); tx++) {
+                    TransactionReceipt receipt = block.receipts.get(tx);
+                    for (int i = 0; receipt != null && i < receipt.getLogs().size(); i++) {
+                        result.add(new Entry(block, tx, i));
+                    }
+                }
+            }
+            return result;
+        }
+
+        // merge the sorted positions, then check each candidate log
+        int[] cursors = new int[candidates.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = candidates.get(i).seek(fromBlock);
+        }
+        IndexedBlock block = null;
+        while (true) {
+            long number = Long.MAX_VALUE;
+            long position = Long.MAX_VALUE;
+            for (int i = 0; i < cursors.length; i++) {
+                Postings p = candidates.get(i);
+                int c = cursors[i];
+                if (c < p.tail && p.blocks[c] <= toBlock
+                        && (p.blocks[c] < number || (p.blocks[c] == number && p.positions[c] < position))) {
+                    number = p.blocks[c];
+                    position = p.positions[c];
+                }
+            }
+            if (number == Long.MAX_VALUE) {
+                break;
+            }
+            // a log may be listed under several of the keys
+            for (int i = 0; i < cursors.length; i++) {
+                Postings p = candidates.get(i);
+                int c = cursors[i];
+                if (c < p.tail && p.blocks[c] == number && p.positions[c] == position) {
+                    cursors[i]++;
+                }
+            }
+
+            if (block == null || block.getNumber() != number) {
+                block = findBlock(number);
+            }
+            Entry entry = new Entry(block, (int) (position >>> 32), (int) position);
+            if (matches(entry.getLog(), addresses, topics)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether a log matches a filter, see
+     * {@link #filter(long, long, Collection, List)}.
+     */
+    public static boolean matches(LogInfo log, Collection<byte[]> addresses,
+            List<? extends Collection<DataWord>> topics) {
+        if (addresses != null && !addresses.isEmpty()) {
+            boolean found = false;
+            for (byte[] address : addresses) {
+                if (Arrays.equals(address, log.getAddress())) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+
+        if (topics != null) {
+            List<DataWord> logTopics = log.getTopics();
+            for (int i = 0; i < topics.size(); i++) {
+                Collection<DataWord> position = topics.get(i);
+                if (position == null || position.isEmpty()) {
+                    continue;
+                }
+                if (i >= logTopics.size() || !position.contains(logTopics.get(i))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the index of the first retained block at or after the given number.
+     */
+    private int seekBlock(long number) {
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blocks.get(mid).getNumber() < number) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private IndexedBlock findBlock(long number) {
+        int i = seekBlock(number);
+        if (i == blocks.size() || blocks.get(i).getNumber() != number) {
+            throw new IllegalStateException("Block not retained: " + number);
+        }
+        return blocks.get(i);
+    }
+
+    private void evict(IndexedBlock block) {
+        long number = block.getNumber();
+        for (TransactionReceipt receipt : block.receipts) {
+            if (receipt == null) {
+                continue;
+            }
+            for (LogInfo log : receipt.getLogs()) {
+                Postings p = addresses.get(log.getAddress());
+                if (p != null && p.dropUntil(number)) {
+                    addresses.remove(log.getAddress());
+                }
+                for (DataWord topic : log.getTopics()) {
+                    p = topics.get(topic);
+                    if (p != null && p.dropUntil(number)) {
+                        topics.remove(topic);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Postings postings(AddressMap<Postings> map, byte[] address) {
+        Postings p = map.get(address);
+        if (p == null) {
+            p = new Postings();
+            map.put(address, p);
+        }
+        return p;
+    }
+
+    private static Postings postings(WordMap<Postings> map, DataWord topic) {
+        Postings p = map.get(topic);
+        if (p == null) {
+            p = new Postings();
+            map.put(topic, p);
+        }
+        return p;
+    }
+
+    /**
+     * A log found by a filter query.
+     */
+    public static class Entry {
+
+        private final IndexedBlock block;
+        private final int transactionIndex;
+        private final int logIndex;
+
+        Entry(IndexedBlock block, int transactionIndex, int logIndex) {
+            this.block = block;
+            this.transactionIndex = transactionIndex;
+            this.logIndex = logIndex;
+        }
+
+        public Block getBlock() {
+            return block.block;
+        }
+
+        public int getTransactionIndex() {
+            return transactionIndex;
+        }
+
+        /**
+         * Returns the index of the log within its transaction.
+         */
+        public int getLogIndex() {
+            return logIndex;
+        }
+
+        public TransactionReceipt getReceipt() {
+            return block.receipts.get(transactionIndex);
+        }
+
+        public LogInfo getLog() {
+            return getReceipt().getLogs().get(logIndex);
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "block=" + block.getNumber() +
+                    ", transactionIndex=" + transactionIndex +
+                    ", logIndex=" + logIndex +
+                    '}';
+        }
+    }
+
+    /**
+     * A retained block and its receipts, by transaction index.
+     */
+    private static class IndexedBlock {
+
+        private final Block block;
+        private final List<TransactionReceipt> receipts;
+
+        IndexedBlock(Block block, List<TransactionReceipt> receipts) {
+            this.block = block;
+            this.receipts = receipts;
+        }
+
+        long getNumber() {
+            return block.getNumber();
+        }
+    }
+
+    /**
+     * The positions of the logs listed under a key, in ascending order; the
+     * position is the transaction index and the log index packed in a long.
+     */
+    private static class Postings {
+
+        private long[] blocks = new long[4];
+        private long[] positions = new long[4];
+        private int head = 0;
+        private int tail = 0;
+
+        int size() {
+            return tail - head;
+        }
+
+        void add(long number, int tx, int log) {
+            long position = ((long) tx << 32) | log;
+            if (tail > head && blocks[tail - 1] == number && positions[tail - 1] == position) {
+                return; // the same topic repeated in a log
+            }
+            if (tail == blocks.length) {
+                if (head > blocks.length / 2) {
+                    compact();
+                } else {
+                    blocks = Arrays.copyOf(blocks, blocks.length * 2);
+                    positions = Arrays.copyOf(positions, positions.length * 2);
+                }
+            }
+            blocks[tail] = number;
+            positions[tail] = position;
+            tail++;
+        }
+
+        /**
+         * Drops the positions up to the given block, inclusive.
+         *
+         * @return true if the list is empty
+         */
+        boolean dropUntil(long number) {
+            while (head < tail && blocks[head] <= number) {
+                head++;
+            }
+            return head == tail;
+        }
+
+        /**
+         * Returns the index of the first position at or after the given block.
+         */
+        int seek(long number) {
+            int low = head;
+            int high = tail;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (blocks[mid] < number) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void compact() {
+            System.arraycopy(blocks, head, blocks, 0, tail - head);
+            System.arraycopy(positions, head, positions, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+    }
+}
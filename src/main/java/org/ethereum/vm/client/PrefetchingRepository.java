@@ -0,0 +1,604 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import static org.ethereum.vm.client.StateCache.owner;
+import static org.ethereum.vm.client.StateCache.slotKey;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.ethereum.vm.Address;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.util.ByteArrayWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A repository decorator which warms up accounts and storage slots in the
+ * background, based on access hints, e.g. the {@link AccessSet} of a previous
+ * execution of the same contract.
+ *
+ * Prefetched values are only served for keys which have not been written
+ * through this repository (or its tracks and clones) since the last
+ * {@link #cancel(long)}, so that all the tracks observe the same state as the
+ * underlying repository. <br/>
+ * <br/>
+ *
+ * Prefetches are scheduled in groups, e.g. one per transaction, so that the
+ * hints of the next transactions can be issued ahead of time and survive the
+ * end of the current one, see {@link #startGroup()}.
+ *
+ * @ImplNote background loads run while the executing thread writes to the
+ *           underlying repository, which must therefore support concurrent
+ *           reads and writes; a value loaded before a write is never served, as
+ *           the written key is dirty. Loads are dispatched to the given
+ *           executor, with at most <code>maxInFlight</code> of them running at
+ *           the same time; an executor backed by virtual threads is a good fit
+ *           when available.
+ */
+public class PrefetchingRepository implements Repository {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefetchingRepository.class);
+
+    private final Repository repo;
+    private final Prefetcher prefetcher;
+
+    public PrefetchingRepository(Repository repo, Executor executor, int maxInFlight) {
+        this(repo, new Prefetcher(executor, maxInFlight));
+    }
+
+    private PrefetchingRepository(Repository repo, Prefetcher prefetcher) {
+        this.repo = repo;
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * Schedules the account to be loaded in the background.
+     *
+     * @param address
+     *            the account address
+     */
+    public void prefetchAccount(byte[] address) {
+        prefetchAccounts(Collections.singletonList(address));
+    }
+
+    /**
+     * Schedules the accounts to be loaded in the background, with a single
+     * {@link Repository#getAccounts(List)} call.
+     *
+     * @param addresses
+     *            the account addresses
+     */
+    public void prefetchAccounts(List<byte[]> addresses) {
+        List<Address> keys = new ArrayList<>(addresses.size());
+        for (byte[] address : addresses) {
+            Address key = Address.of(address);
+            if (!prefetcher.dirtyAccounts.contains(key)) {
+                keys.add(key);
+            }
+        }
+        prefetcher.submit(prefetcher.accounts, keys, batch -> repo.getAccounts(toAddresses(batch)));
+    }
+
+    /**
+     * Schedules the storage slot to be loaded in the background.
+     *
+     * @param address
+     *            the account address
+     * @param key
+     *            the storage key
+     */
+    public void prefetchStorageRow(byte[] address, DataWord key) {
+        prefetchStorageRows(address, Collections.singletonList(key));
+    }
+
+    /**
+     * Schedules the storage slots of an account to be loaded in the background,
+     * with a single {@link Repository#getStorageRows(byte[], List)} call.
+     *
+     * @param address
+     *            the account address
+     * @param keys
+     *            the storage keys
+     */
+    public void prefetchStorageRows(byte[] address, List<DataWord> keys) {
+        List<ByteArrayWrapper> slots = new ArrayList<>(keys.size());
+        for (DataWord key : keys) {
+            ByteArrayWrapper slot = slotKey(address, key);
+            if (!isSlotDirty(slot)) {
+                slots.add(slot);
+            }
+        }
+        prefetcher.submit(prefetcher.slots, slots, batch -> repo.getStorageRows(address, toStorageKeys(batch)));
+    }
+
+    /**
+     * Schedules all the accounts and storage slots of an access set to be loaded in
+     * the background.
+     *
+     * @param hints
+     *            the access hints
+     */
+    public void prefetch(AccessSet hints) {
+        List<byte[]> addresses = new ArrayList<>(hints.getAccountCount());
+        for (int i = 0; i < hints.getAccountCount(); i++) {
+            addresses.add(hints.getAccount(i));
+        }
+        prefetchAccounts(addresses);
+
+        List<List<DataWord>> keys = hints.getSlotKeysByAccount();
+        for (int i = 0; i < addresses.size(); i++) {
+            if (!keys.get(i).isEmpty()) {
+                prefetchStorageRows(addresses.get(i), keys.get(i));
+            }
+        }
+    }
+
+    /**
+     * Starts a new group of prefetches; the ones scheduled from now on belong to
+     * it. A key which is scheduled again moves to the new group.
+     *
+     * @return the group id, increasing
+     */
+    public long startGroup() {
+        return prefetcher.group.incrementAndGet();
+    }
+
+    /**
+     * Cancels the pending loads and discards the prefetched values of a group and
+     * of the earlier ones; the later groups are kept, except for the keys which
+     * have been written since the last cancel. This is supposed to be called when a
+     * transaction finishes, once its changes are committed, with the group of its
+     * hints.
+     *
+     * @param group
+     *            the group id
+     */
+    public void cancel(long group) {
+        prefetcher.cancel(group);
+    }
+
+    /**
+     * Cancels all the pending loads and discards the prefetched values.
+     */
+    public void cancel() {
+        prefetcher.cancel(prefetcher.group.get());
+    }
+
+    /**
+     * Returns the number of reads served by prefetched values.
+     */
+    public long getHitCount() {
+        return prefetcher.hits.get();
+    }
+
+    /**
+     * Returns the number of reads which went to the underlying repository.
+     */
+    public long getMissCount() {
+        return prefetcher.misses.get();
+    }
+
+    @Override
+    public boolean exists(byte[] address) {
+        AccountState account = getAccount(Address.of(address));
+        return account == null ? repo.exists(address) : account.exists();
+    }
+
+    @Override
+    public void createAccount(byte[] address) {
+        markDirty(Address.of(address));
+        repo.createAccount(address);
+    }
+
+    @Override
+    public void delete(byte[] address) {
+        markDirty(Address.of(address));
+        prefetcher.dirtyStorage.add(Address.of(address));
+        repo.delete(address);
+    }
+
+    @Override
+    public long increaseNonce(byte[] address) {
+        markDirty(Address.of(address));
+        return repo.increaseNonce(address);
+    }
+
+    @Override
+    public long setNonce(byte[] address, long nonce) {
+        markDirty(Address.of(address));
+        return repo.setNonce(address, nonce);
+    }
+
+    @Override
+    public long getNonce(byte[] address) {
+        AccountState account = getAccount(Address.of(address));
+        return account == null ? repo.getNonce(address) : account.getNonce();
+    }
+
+    @Override
+    public void saveCode(byte[] address, byte[] code) {
+        markDirty(Address.of(address));
+        repo.saveCode(address, code);
+    }
+
+    @Override
+    public byte[] getCode(byte[] address) {
+        AccountState account = getAccount(Address.of(address));
+        return account == null ? repo.getCode(address) : account.getCode();
+    }
+
+    @Override
+    public void putStorageRow(byte[] address, DataWord key, DataWord value) {
+        prefetcher.dirtySlots.add(slotKey(address, key));
+        repo.putStorageRow(address, key, value);
+    }
+
+    @Override
+    public DataWord getStorageRow(byte[] address, DataWord key) {
+        ByteArrayWrapper slot = slotKey(address, key);
+        if (isSlotDirty(slot)) {
+            return repo.getStorageRow(address, key);
+        }
+        return prefetcher.get(prefetcher.slots, slot, () -> repo.getStorageRow(address, key));
+    }
+
+    @Override
+    public List<DataWord> getStorageRows(byte[] address, List<DataWord> keys) {
+        List<DataWord> values = new ArrayList<>(keys.size());
+        List<DataWord> missing = new ArrayList<>();
+        int[] missingIndexes = new int[keys.size()];
+        for (DataWord key : keys) {
+            ByteArrayWrapper slot = slotKey(address, key);
+            Prefetch<DataWord> p = isSlotDirty(slot) ? null : prefetcher.slots.get(slot);
+            if (p != null && (p.started || p.future.isDone())) {
+                values.add(prefetcher.get(prefetcher.slots, slot, () -> repo.getStorageRow(address, key)));
+            } else {
+                missingIndexes[missing.size()] = values.size();
+                values.add(null);
+                missing.add(key);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            prefetcher.misses.addAndGet(missing.size());
+            List<DataWord> loaded = repo.getStorageRows(address, missing);
+            for (int i = 0; i < missing.size(); i++) {
+                values.set(missingIndexes[i], loaded.get(i));
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public BigInteger getBalance(byte[] address) {
+        AccountState account = getAccount(Address.of(address));
+        return account == null ? repo.getBalance(address) : account.getBalance();
+    }
+
+    @Override
+    public List<AccountState> getAccounts(List<byte[]> addresses) {
+        List<AccountState> accounts = new ArrayList<>(addresses.size());
+        List<byte[]> missing = new ArrayList<>();
+        for (byte[] address : addresses) {
+            AccountState account = getAccount(Address.of(address));
+            accounts.add(account);
+            if (account == null) {
+                missing.add(address);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<AccountState> loaded = repo.getAccounts(missing);
+            for (int i = 0, j = 0; i < addresses.size(); i++) {
+                if (accounts.get(i) == null) {
+                    accounts.set(i, loaded.get(j++));
+                }
+            }
+        }
+        return accounts;
+    }
+
+    @Override
+    public BigInteger addBalance(byte[] address, BigInteger value) {
+        markDirty(Address.of(address));
+        return repo.addBalance(address, value);
+    }
+
+    /*
+     * The Address overloads are forwarded as such, for backends keyed by Address;
+     * the prefetched accounts are keyed by Address, which is only turned into an
+     * array for the batch reads of the backend.
+     */
+
+    @Override
+    public boolean exists(Address address) {
+        AccountState account = getAccount(address);
+        return account == null ? repo.exists(address) : account.exists();
+    }
+
+    @Override
+    public long getNonce(Address address) {
+        AccountState account = getAccount(address);
+        return account == null ? repo.getNonce(address) : account.getNonce();
+    }
+
+    @Override
+    public byte[] getCode(Address address) {
+        AccountState account = getAccount(address);
+        return account == null ? repo.getCode(address) : account.getCode();
+    }
+
+    @Override
+    public void putStorageRow(Address address, DataWord key, DataWord value) {
+        prefetcher.dirtySlots.add(slotKey(address, key));
+        repo.putStorageRow(address, key, value);
+    }
+
+    @Override
+    public DataWord getStorageRow(Address address, DataWord key) {
+        ByteArrayWrapper slot = slotKey(address, key);
+        if (isSlotDirty(slot)) {
+            return repo.getStorageRow(address, key);
+        }
+        return prefetcher.get(prefetcher.slots, slot, () -> repo.getStorageRow(address, key));
+    }
+
+    @Override
+    public BigInteger getBalance(Address address) {
+        AccountState account = getAccount(address);
+        return account == null ? repo.getBalance(address) : account.getBalance();
+    }
+
+    @Override
+    public BigInteger addBalance(Address address, BigInteger value) {
+        markDirty(address);
+        return repo.addBalance(address, value);
+    }
+
+    @Override
+    public Repository startTracking() {
+        return new PrefetchingRepository(repo.startTracking(), prefetcher);
+    }
+
+    @Override
+    public Repository clone() {
+        return new PrefetchingRepository(repo.clone(), prefetcher);
+    }
+
+    @Override
+    public void commit() {
+        repo.commit();
+    }
+
+    @Override
+    public void rollback() {
+        repo.rollback();
+    }
+
+    /**
+     * Returns the prefetched account, or NULL if it's not available.
+     */
+    private AccountState getAccount(Address key) {
+        Prefetch<AccountState> p = prefetcher.accounts.get(key);
+        if (p == null || !(p.started || p.future.isDone()) || prefetcher.dirtyAccounts.contains(key)) {
+            // not worth loading the whole account for a single field
+            prefetcher.misses.incrementAndGet();
+            return null;
+        }
+        return prefetcher.get(prefetcher.accounts, key,
+                () -> repo.getAccounts(Collections.singletonList(key.toBytes())).get(0));
+    }
+
+    private void markDirty(Address address) {
+        prefetcher.dirtyAccounts.add(address);
+    }
+
+    private boolean isSlotDirty(ByteArrayWrapper slot) {
+        return prefetcher.dirtySlots.contains(slot)
+                || (!prefetcher.dirtyStorage.isEmpty() && prefetcher.dirtyStorage.contains(owner(slot)));
+    }
+
+    private static List<byte[]> toAddresses(List<Address> keys) {
+        List<byte[]> addresses = new ArrayList<>(keys.size());
+        for (Address key : keys) {
+            addresses.add(key.toBytes());
+        }
+        return addresses;
+    }
+
+    private static List<DataWord> toStorageKeys(List<ByteArrayWrapper> slots) {
+        List<DataWord> keys = new ArrayList<>(slots.size());
+        for (ByteArrayWrapper slot : slots) {
+            byte[] data = slot.getData();
+            keys.add(DataWord.of(Arrays.copyOfRange(data, data.length - DataWord.SIZE, data.length)));
+        }
+        return keys;
+    }
+
+    /**
+     * A value being loaded in the background.
+     */
+    private static class Prefetch<T> {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        volatile boolean started = false;
+        volatile long group;
+
+        Prefetch(long group) {
+            this.group = group;
+        }
+    }
+
+    /**
+     * The prefetch state, shared by a repository and all its tracks.
+     */
+    private static class Prefetcher {
+        final Executor executor;
+        final int maxInFlight;
+
+        final Map<Address, Prefetch<AccountState>> accounts = new ConcurrentHashMap<>();
+        final Map<ByteArrayWrapper, Prefetch<DataWord>> slots = new ConcurrentHashMap<>();
+
+        final Set<Address> dirtyAccounts = ConcurrentHashMap.newKeySet();
+        final Set<ByteArrayWrapper> dirtySlots = ConcurrentHashMap.newKeySet();
+        final Set<Address> dirtyStorage = ConcurrentHashMap.newKeySet();
+
+        final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicLong group = new AtomicLong();
+        final AtomicLong cancelled = new AtomicLong(-1);
+
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+
+        Prefetcher(Executor executor, int maxInFlight) {
+            if (maxInFlight <= 0) {
+                throw new IllegalArgumentException("The in-flight window must be positive");
+            }
+            this.executor = executor;
+            this.maxInFlight = maxInFlight;
+        }
+
+        <K, T> void submit(Map<K, Prefetch<T>> cache, List<K> keys, Function<List<K>, List<T>> loader) {
+            long g = group.get();
+            List<K> batch = new ArrayList<>(keys.size());
+            List<Prefetch<T>> prefetches = new ArrayList<>(keys.size());
+            for (K key : keys) {
+                Prefetch<T> p = new Prefetch<>(g);
+                Prefetch<T> existing = cache.putIfAbsent(key, p);
+                if (existing == null) {
+                    batch.add(key);
+                    prefetches.add(p);
+                } else if (existing.group < g) {
+                    existing.group = g;
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            pending.add(() -> {
+                if (isCancelled(prefetches)) {
+                    return;
+                }
+                for (Prefetch<T> p : prefetches) {
+                    p.started = true;
+                }
+                try {
+                    List<T> values = loader.apply(batch);
+                    for (int i = 0; i < prefetches.size(); i++) {
+                        prefetches.get(i).future.complete(values.get(i));
+                    }
+                } catch (RuntimeException e) {
+                    logger.debug("Failed to prefetch {} entries", batch.size(), e);
+                    for (Prefetch<T> p : prefetches) {
+                        p.future.completeExceptionally(e);
+                    }
+                }
+            });
+            schedule();
+        }
+
+        <K, T> T get(Map<K, Prefetch<T>> cache, K key, Supplier<T> loader) {
+            Prefetch<T> p = cache.get(key);
+            if (p != null && (p.started || p.future.isDone())) {
+                try {
+                    T value = p.future.join();
+                    hits.incrementAndGet();
+                    return value;
+                } catch (RuntimeException e) {
+                    // fall through, and retry in the current thread
+                }
+            }
+
+            misses.incrementAndGet();
+            T value = loader.get();
+            if (p != null) {
+                p.future.complete(value);
+            }
+            return value;
+        }
+
+        void schedule() {
+            while (true) {
+                int n = inFlight.get();
+                if (n >= maxInFlight) {
+                    return;
+                }
+                if (!inFlight.compareAndSet(n, n + 1)) {
+                    continue;
+                }
+
+                Runnable task = pending.poll();
+                if (task == null) {
+                    inFlight.decrementAndGet();
+                    return;
+                }
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        inFlight.decrementAndGet();
+                        schedule();
+                    }
+                });
+            }
+        }
+
+        void cancel(long g) {
+            cancelled.accumulateAndGet(g, Math::max);
+            if (g >= group.get()) {
+                pending.clear();
+            }
+
+            // a value of a later group may have been loaded before a write
+            accounts.entrySet().removeIf(e -> e.getValue().group <= g || dirtyAccounts.contains(e.getKey()));
+            slots.entrySet().removeIf(e -> e.getValue().group <= g || dirtySlots.contains(e.getKey())
+                    || (!dirtyStorage.isEmpty() && dirtyStorage.contains(owner(e.getKey()))));
+            dirtyAccounts.clear();
+            dirtySlots.clear();
+            dirtyStorage.clear();
+        }
+
+        private <T> boolean isCancelled(List<Prefetch<T>> prefetches) {
+            long c = cancelled.get();
+            for (Prefetch<T> p : prefetches) {
+                if (p.group > c) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+}
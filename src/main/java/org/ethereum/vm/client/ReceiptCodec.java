@@ -0,0 +1,338 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+import org.ethereum.vm.util.AddressMap;
+import org.ethereum.vm.util.ByteArrayWrapper;
+import org.ethereum.vm.util.WordMap;
+
+/**
+ * A compact binary encoding of the receipts of a block, their logs and their
+ * state changes, i.e. the deleted accounts and the access set. <br/>
+ * <br/>
+ *
+ * A block is encoded as one record: a 4-byte length, the format version, the
+ * block number, a table of the distinct addresses and a table of the distinct
+ * 32-byte words (topics and storage keys) of the block, then the receipts,
+ * which refer to the tables by index. Integers are written as unsigned varints.
+ * Records can be appended to a file and scanned without decoding them, see
+ * {@link BlockReceiptsView}. Transactions are not part of the encoding, the
+ * decoded receipts have no transaction.
+ */
+public final class ReceiptCodec {
+
+    public static final int VERSION = 1;
+
+    // receipt flags
+    static final int EXECUTED = 0x01;
+    static final int SUCCESS = 0x02;
+    static final int ACCESS_SET = 0x04;
+
+    private ReceiptCodec() {
+    }
+
+    /**
+     * Encodes the receipts of a block.
+     *
+     * @param summary
+     *            the block summary
+     * @return a buffer holding one record, ready to be read
+     * @throws IllegalArgumentException
+     *             if the summary does not hold the receipts, see
+     *             {@link BlockExecutor#setRetainReceipts(boolean)}
+     */
+    public static ByteBuffer encode(BlockSummary summary) {
+        if (summary.getReceipts().size() != summary.getTxCount()) {
+            throw new IllegalArgumentException("The receipts of block " + summary.getBlock().getNumber()
+                    + " were not retained");
+        }
+        return encode(summary.getBlock().getNumber(), summary.getReceipts());
+    }
+
+    /**
+     * Encodes the receipts of a block, e.g. as collected by a
+     * {@link ReceiptListener} when they are not retained in the block summary.
+     *
+     * @param number
+     *            the block number
+     * @param receipts
+     *            the receipts in transaction order; an element is NULL if the
+     *            transaction was rejected
+     * @return a buffer holding one record, ready to be read
+     */
+    public static ByteBuffer encode(long number, List<TransactionReceipt> receipts) {
+        return new Encoder(number, receipts).encode();
+    }
+
+    /**
+     * Encodes the receipts of a block and writes the record to a channel, e.g. a
+     * {@link java.nio.channels.FileChannel}.
+     *
+     * @param summary
+     *            the block summary
+     * @param channel
+     *            the channel to write to
+     * @throws IOException
+     *             if the channel fails
+     */
+    public static void write(BlockSummary summary, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = encode(summary);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Decodes the receipts of a record.
+     *
+     * @param buffer
+     *            the buffer holding the record
+     * @param offset
+     *            the offset of the record
+     * @return the receipts; an element is NULL if the transaction was rejected
+     */
+    public static List<TransactionReceipt> decode(ByteBuffer buffer, int offset) {
+        BlockReceiptsView view = new BlockReceiptsView();
+        view.wrap(buffer, offset);
+
+        List<TransactionReceipt> receipts = new ArrayList<>(view.getReceiptCount());
+        BlockReceiptsView.Cursor cursor = view.receipts();
+        while (cursor.next()) {
+            if (!cursor.isExecuted()) {
+                receipts.add(null);
+                continue;
+            }
+
+            byte[] returnData = cursor.getReturnData();
+            List<LogInfo> logs = new ArrayList<>(cursor.getLogCount());
+            while (cursor.nextLog()) {
+                List<DataWord> topics = new ArrayList<>(cursor.getTopicCount());
+                for (int i = 0; i < cursor.getTopicCount(); i++) {
+                    topics.add(view.getWord(cursor.getTopic(i)));
+                }
+                logs.add(new LogInfo(view.getAddress(cursor.getLogAddress()), topics, cursor.getLogData()));
+            }
+            List<ByteArrayWrapper> deleted = new ArrayList<>();
+            for (int i = 0; i < cursor.getDeletedAccountCount(); i++) {
+                deleted.add(new ByteArrayWrapper(view.getAddress(cursor.getDeletedAccount(i))));
+            }
+
+            receipts.add(new TransactionReceipt(null, cursor.isSuccess(), cursor.getGasUsed(), returnData, logs,
+                    deleted, new ArrayList<>(), cursor.getAccessSet()));
+        }
+        return receipts;
+    }
+
+    /**
+     * Reads the varints of a buffer, with absolute positions.
+     */
+    static final class Reader {
+
+        private final ByteBuffer buffer;
+        int pos;
+
+        Reader(ByteBuffer buffer, int pos) {
+            this.buffer = buffer;
+            this.pos = pos;
+        }
+
+        int get() {
+            return buffer.get(pos++) & 0xff;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = buffer.get(pos++);
+                value |= (long) (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at " + (pos - 1));
+        }
+
+        int varintInt() {
+            long value = varint();
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Value out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        void skip(int n) {
+            pos += n;
+        }
+    }
+
+    private static class Encoder {
+
+        private final long number;
+        private final List<TransactionReceipt> receipts;
+
+        private final AddressMap<Integer> addressIndex = new AddressMap<>();
+        private final List<byte[]> addresses = new ArrayList<>();
+        private final WordMap<Integer> wordIndex = new WordMap<>();
+        private final List<DataWord> words = new ArrayList<>();
+
+        private byte[] buf = new byte[256];
+        private int size = 0;
+
+        Encoder(long number, List<TransactionReceipt> receipts) {
+            this.number = number;
+            this.receipts = receipts;
+        }
+
+        ByteBuffer encode() {
+            // collect the tables
+            for (TransactionReceipt receipt : receipts) {
+                if (receipt == null) {
+                    continue;
+                }
+                for (LogInfo log : receipt.getLogs()) {
+                    address(log.getAddress());
+                    for (DataWord topic : log.getTopics()) {
+                        word(topic);
+                    }
+                }
+                for (ByteArrayWrapper account : receipt.getDeletedAccounts()) {
+                    address(account.getData());
+                }
+                AccessSet accessSet = receipt.getAccessSet();
+                for (int i = 0; accessSet != null && i < accessSet.getAccountCount(); i++) {
+                    address(accessSet.getAccount(i));
+                }
+                for (int i = 0; accessSet != null && i < accessSet.getSlotCount(); i++) {
+                    word(accessSet.getSlotKey(i));
+                }
+            }
+
+            // header
+            size = 4; // the record length
+            writeByte(VERSION);
+            writeVarint(number);
+            writeVarint(addresses.size());
+            for (byte[] address : addresses) {
+                writeBytes(address);
+            }
+            writeVarint(words.size());
+            for (DataWord word : words) {
+                writeBytes(word.getData());
+            }
+
+            // receipts
+            writeVarint(receipts.size());
+            for (TransactionReceipt receipt : receipts) {
+                if (receipt == null) {
+                    writeByte(0);
+                    continue;
+                }
+                AccessSet accessSet = receipt.getAccessSet();
+                writeByte(EXECUTED | (receipt.isSuccess() ? SUCCESS : 0) | (accessSet != null ? ACCESS_SET : 0));
+                writeVarint(receipt.getGasUsed());
+                writeVarint(receipt.getReturnData().length);
+                writeBytes(receipt.getReturnData());
+
+                writeVarint(receipt.getLogs().size());
+                for (LogInfo log : receipt.getLogs()) {
+                    writeVarint(addressIndex.get(log.getAddress()));
+                    writeVarint(log.getTopics().size());
+                    for (DataWord topic : log.getTopics()) {
+                        writeVarint(wordIndex.get(topic));
+                    }
+                    writeVarint(log.getData().length);
+                    writeBytes(log.getData());
+                }
+
+                writeVarint(receipt.getDeletedAccounts().size());
+                for (ByteArrayWrapper account : receipt.getDeletedAccounts()) {
+                    writeVarint(addressIndex.get(account.getData()));
+                }
+
+                if (accessSet != null) {
+                    writeVarint(accessSet.getAccountCount());
+                    for (int i = 0; i < accessSet.getAccountCount(); i++) {
+                        writeVarint(addressIndex.get(accessSet.getAccount(i)));
+                        writeByte((accessSet.isAccountRead(i) ? AccessSet.READ : 0)
+                                | (accessSet.isAccountWritten(i) ? AccessSet.WRITE : 0));
+                    }
+                    writeVarint(accessSet.getSlotCount());
+                    for (int i = 0; i < accessSet.getSlotCount(); i++) {
+                        writeVarint(accessSet.getSlotAccount(i));
+                        writeVarint(wordIndex.get(accessSet.getSlotKey(i)));
+                        writeByte((accessSet.isSlotRead(i) ? AccessSet.READ : 0)
+                                | (accessSet.isSlotWritten(i) ? AccessSet.WRITE : 0));
+                    }
+                }
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(buf, 0, size);
+            buffer.putInt(0, size - 4);
+            return buffer;
+        }
+
+        private void address(byte[] address) {
+            if (!addressIndex.containsKey(address)) {
+                addressIndex.put(address, addresses.size());
+                addresses.add(address);
+            }
+        }
+
+        private void word(DataWord word) {
+            if (!wordIndex.containsKey(word)) {
+                wordIndex.put(word, words.size());
+                words.add(word);
+            }
+        }
+
+        private void ensure(int n) {
+            if (size + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + n));
+            }
+        }
+
+        private void writeByte(int b) {
+            ensure(1);
+            buf[size++] = (byte) b;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7fL) != 0) {
+                buf[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buf[size++] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+/**
+ * Receives the receipts of a block as soon as each transaction is executed, see
+ * {@link BlockExecutor#setReceiptListener(ReceiptListener)}.
+ *
+ * Receipts are delivered once the transaction has completed, and only carry the
+ * logs of the frames which were not reverted, so a listener never observes logs
+ * which are rolled back later.
+ */
+public interface ReceiptListener {
+
+    /**
+     * Called after each transaction of a block, in order.
+     *
+     * @param block
+     *            the block being executed
+     * @param index
+     *            the index of the transaction within the block
+     * @param receipt
+     *            the transaction receipt, or NULL if the transaction was rejected
+     */
+    void onReceipt(Block block, int index, TransactionReceipt receipt);
+
+    /**
+     * Called once all the transactions of a block have been executed.
+     *
+     * @param summary
+     *            the block summary
+     */
+    default void onBlock(BlockSummary summary) {
+    }
+}
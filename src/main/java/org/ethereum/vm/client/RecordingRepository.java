@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import static org.ethereum.vm.client.AccessSet.READ;
+import static org.ethereum.vm.client.AccessSet.WRITE;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import org.ethereum.vm.Address;
+import org.ethereum.vm.DataWord;
+
+/**
+ * A repository decorator which records every account and storage slot accessed
+ * through it, including the accesses made through its tracks and clones.
+ */
+public class RecordingRepository implements Repository {
+
+    private final Repository repo;
+    private final AccessRecorder recorder;
+
+    public RecordingRepository(Repository repo, AccessRecorder recorder) {
+        this.repo = repo;
+        this.recorder = recorder;
+    }
+
+    public AccessRecorder getRecorder() {
+        return recorder;
+    }
+
+    @Override
+    public boolean exists(byte[] address) {
+        recorder.recordAccount(address, READ);
+        return repo.exists(address);
+    }
+
+    @Override
+    public void createAccount(byte[] address) {
+        recorder.recordAccount(address, WRITE);
+        repo.createAccount(address);
+    }
+
+    @Override
+    public void delete(byte[] address) {
+        recorder.recordAccount(address, WRITE);
+        repo.delete(address);
+    }
+
+    @Override
+    public long increaseNonce(byte[] address) {
+        recorder.recordAccount(address, WRITE);
+        return repo.increaseNonce(address);
+    }
+
+    @Override
+    public long setNonce(byte[] address, long nonce) {
+        recorder.recordAccount(address, WRITE);
+        return repo.setNonce(address, nonce);
+    }
+
+    @Override
+    public long getNonce(byte[] address) {
+        recorder.recordAccount(address, READ);
+        return repo.getNonce(address);
+    }
+
+    @Override
+    public void saveCode(byte[] address, byte[] code) {
+        recorder.recordAccount(address, WRITE);
+        repo.saveCode(address, code);
+    }
+
+    @Override
+    public byte[] getCode(byte[] address) {
+        recorder.recordAccount(address, READ);
+        return repo.getCode(address);
+    }
+
+    @Override
+    public void putStorageRow(byte[] address, DataWord key, DataWord value) {
+        recorder.recordSlot(address, key, WRITE);
+        repo.putStorageRow(address, key, value);
+    }
+
+    @Override
+    public DataWord getStorageRow(byte[] address, DataWord key) {
+        recorder.recordSlot(address, key, READ);
+        return repo.getStorageRow(address, key);
+    }
+
+    @Override
+    public List<DataWord> getStorageRows(byte[] address, List<DataWord> keys) {
+        for (DataWord key : keys) {
+            recorder.recordSlot(address, key, READ);
+        }
+        return repo.getStorageRows(address, keys);
+    }
+
+    @Override
+    public BigInteger getBalance(byte[] address) {
+        recorder.recordAccount(address, READ);
+        return repo.getBalance(address);
+    }
+
+    @Override
+    public List<AccountState> getAccounts(List<byte[]> addresses) {
+        for (byte[] address : addresses) {
+            recorder.recordAccount(address, READ);
+        }
+        return repo.getAccounts(addresses);
+    }
+
+    @Override
+    public BigInteger addBalance(byte[] address, BigInteger value) {
+        recorder.recordAccount(address, WRITE);
+        return repo.addBalance(address, value);
+    }
+
+    /*
+     * The Address overloads are forwarded as such, for backends keyed by Address.
+     */
+
+    @Override
+    public boolean exists(Address address) {
+        recorder.recordAccount(address, READ);
+        return repo.exists(address);
+    }
+
+    @Override
+    public long getNonce(Address address) {
+        recorder.recordAccount(address, READ);
+        return repo.getNonce(address);
+    }
+
+    @Override
+    public byte[] getCode(Address address) {
+        recorder.recordAccount(address, READ);
+        return repo.getCode(address);
+    }
+
+    @Override
+    public void putStorageRow(Address address, DataWord key, DataWord value) {
+        recorder.recordSlot(address, key, WRITE);
+        repo.putStorageRow(address, key, value);
+    }
+
+    @Override
+    public DataWord getStorageRow(Address address, DataWord key) {
+        recorder.recordSlot(address, key, READ);
+        return repo.getStorageRow(address, key);
+    }
+
+    @Override
+    public BigInteger getBalance(Address address) {
+        recorder.recordAccount(address, READ);
+        return repo.getBalance(address);
+    }
+
+    @Override
+    public BigInteger addBalance(Address address, BigInteger value) {
+        recorder.recordAccount(address, WRITE);
+        return repo.addBalance(address, value);
+    }
+
+    @Override
+    public Repository startTracking() {
+        return new RecordingRepository(repo.startTracking(), recorder);
+    }
+
+    @Override
+    public Repository clone() {
+        return new RecordingRepository(repo.clone(), recorder);
+    }
+
+    @Override
+    public void commit() {
+        repo.commit();
+    }
+
+    @Override
+    public void rollback() {
+        repo.rollback();
+    }
+}
@@ -18,7 +18,10 @@
 package org.ethereum.vm.client;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.ethereum.vm.Address;
 import org.ethereum.vm.DataWord;
 
 public interface Repository {
@@ -32,6 +35,14 @@ public interface Repository {
      */
     boolean exists(byte[] address);
 
+    /**
+     * Same as {@link #exists(byte[])}, for an {@link Address}. Backends keyed by
+     * address objects should override this method to avoid the conversion.
+     */
+    default boolean exists(Address address) {
+        return exists(address.toBytes());
+    }
+
     /**
      * Creates an account if not exist.
      *
@@ -80,6 +91,13 @@ public interface Repository {
      */
     long getNonce(byte[] address);
 
+    /**
+     * Same as {@link #getNonce(byte[])}, for an {@link Address}.
+     */
+    default long getNonce(Address address) {
+        return getNonce(address.toBytes());
+    }
+
     /**
      * Stores code associated with an account
      *
@@ -100,6 +118,13 @@ public interface Repository {
      */
     byte[] getCode(byte[] address);
 
+    /**
+     * Same as {@link #getCode(byte[])}, for an {@link Address}.
+     */
+    default byte[] getCode(Address address) {
+        return getCode(address.toBytes());
+    }
+
     /**
      * Puts a value in storage of an account at a given key
      *
@@ -113,6 +138,14 @@ public interface Repository {
      */
     void putStorageRow(byte[] address, DataWord key, DataWord value);
 
+    /**
+     * Same as {@link #putStorageRow(byte[], DataWord, DataWord)}, for an
+     * {@link Address}.
+     */
+    default void putStorageRow(Address address, DataWord key, DataWord value) {
+        putStorageRow(address.toBytes(), key, value);
+    }
+
     /**
      * Retrieves storage value from an account for a given key
      *
@@ -124,6 +157,32 @@ public interface Repository {
      */
     DataWord getStorageRow(byte[] address, DataWord key);
 
+    /**
+     * Same as {@link #getStorageRow(byte[], DataWord)}, for an {@link Address}.
+     */
+    default DataWord getStorageRow(Address address, DataWord key) {
+        return getStorageRow(address.toBytes(), key);
+    }
+
+    /**
+     * Retrieves multiple storage values from an account at once. Backends which are
+     * able to serve several keys in one round trip should override this method.
+     *
+     * @param address
+     *            the account address
+     * @param keys
+     *            the storage keys
+     * @return the values, in the same order as the keys; an element is NULL if the
+     *         value does not exist
+     */
+    default List<DataWord> getStorageRows(byte[] address, List<DataWord> keys) {
+        List<DataWord> values = new ArrayList<>(keys.size());
+        for (DataWord key : keys) {
+            values.add(getStorageRow(address, key));
+        }
+        return values;
+    }
+
     /**
      * Retrieves balance of an account
      *
@@ -133,6 +192,30 @@ public interface Repository {
      */
     BigInteger getBalance(byte[] address);
 
+    /**
+     * Same as {@link #getBalance(byte[])}, for an {@link Address}.
+     */
+    default BigInteger getBalance(Address address) {
+        return getBalance(address.toBytes());
+    }
+
+    /**
+     * Retrieves the state of multiple accounts at once. Backends which are able to
+     * serve several accounts in one round trip should override this method.
+     *
+     * @param addresses
+     *            the account addresses
+     * @return the account states, in the same order as the addresses
+     */
+    default List<AccountState> getAccounts(List<byte[]> addresses) {
+        List<AccountState> accounts = new ArrayList<>(addresses.size());
+        for (byte[] address : addresses) {
+            accounts.add(new AccountState(exists(address), getNonce(address), getBalance(address),
+                    getCode(address)));
+        }
+        return accounts;
+    }
+
     /**
      * Add value to the balance of an account
      *
@@ -145,6 +228,13 @@ public interface Repository {
      */
     BigInteger addBalance(byte[] address, BigInteger value);
 
+    /**
+     * Same as {@link #addBalance(byte[], BigInteger)}, for an {@link Address}.
+     */
+    default BigInteger addBalance(Address address, BigInteger value) {
+        return addBalance(address.toBytes(), value);
+    }
+
     /**
      * Save a snapshot and start tracking future changes
      *
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntBiFunction;
+
+import org.ethereum.vm.Address;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.util.ByteArrayUtil;
+import org.ethereum.vm.util.ByteArrayWrapper;
+import org.ethereum.vm.util.ClockCache;
+
+/**
+ * The process-wide, size-bounded tier of {@link CachingRepository}, keyed by
+ * address for accounts and by (address, key) for storage slots.
+ *
+ * A state cache may be shared by multiple caching repositories, as long as they
+ * are backed by the same chain of state.
+ */
+public class StateCache {
+
+    // rough per-entry overhead of the key wrapper, the value object and the index
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /**
+     * Marks a storage slot which does not exist, as NULL can't be cached.
+     */
+    static final DataWord ABSENT = DataWord.of(ByteArrayUtil.EMPTY_BYTE_ARRAY);
+
+    private final ClockCache<Address, AccountState> accounts;
+    private final ClockCache<ByteArrayWrapper, DataWord> slots;
+
+    // the cached slots of each account, so that an account's storage can be
+    // invalidated without scanning the whole cache
+    private final Map<Address, Set<ByteArrayWrapper>> slotsByAccount = new HashMap<>();
+
+    public StateCache(int accountCapacity, int slotCapacity) {
+        this.accounts = new ClockCache<>(accountCapacity,
+                (ToIntBiFunction<Address, AccountState>) StateCache::weigh);
+        this.slots = new ClockCache<>(slotCapacity, (ToIntBiFunction<ByteArrayWrapper, DataWord>) StateCache::weigh);
+        this.slots.setRemovalListener((slot, value) -> unindex(slot));
+    }
+
+    ClockCache<Address, AccountState> getAccounts() {
+        return accounts;
+    }
+
+    /*
+     * Slots are accessed with the lock of the state cache held, so that the
+     * per-account index, which is updated by the removal listener of the slot
+     * cache, stays in sync with it.
+     */
+
+    synchronized DataWord getSlot(ByteArrayWrapper slot) {
+        return slots.get(slot);
+    }
+
+    synchronized void putSlot(ByteArrayWrapper slot, DataWord value) {
+        // indexed first, as the put may remove the entry again
+        slotsByAccount.computeIfAbsent(owner(slot), k -> new HashSet<>()).add(slot);
+        slots.put(slot, value);
+    }
+
+    synchronized void removeSlot(ByteArrayWrapper slot) {
+        slots.remove(slot);
+    }
+
+    /**
+     * Removes all the cached slots of an account, in time proportional to their
+     * number.
+     */
+    synchronized void removeStorage(Address account) {
+        Set<ByteArrayWrapper> keys = slotsByAccount.remove(account);
+        if (keys != null) {
+            for (ByteArrayWrapper slot : keys) {
+                slots.remove(slot);
+            }
+        }
+    }
+
+    synchronized int getIndexedSlotCount() {
+        int count = 0;
+        for (Set<ByteArrayWrapper> keys : slotsByAccount.values()) {
+            count += keys.size();
+        }
+        return count;
+    }
+
+    public long getEvictionCount() {
+        return accounts.getEvictionCount() + slots.getEvictionCount();
+    }
+
+    /**
+     * Returns the estimated memory footprint of the cached entries.
+     *
+     * @return the number of bytes
+     */
+    public long getMemoryFootprint() {
+        return accounts.getWeight() + slots.getWeight();
+    }
+
+    public synchronized void clear() {
+        accounts.clear();
+        slots.clear();
+        slotsByAccount.clear();
+    }
+
+    private void unindex(ByteArrayWrapper slot) {
+        Address account = owner(slot);
+        Set<ByteArrayWrapper> keys = slotsByAccount.get(account);
+        if (keys != null && keys.remove(slot) && keys.isEmpty()) {
+            slotsByAccount.remove(account);
+        }
+    }
+
+    /**
+     * Returns the key of a storage slot: the address followed by the storage key.
+     */
+    static ByteArrayWrapper slotKey(byte[] address, DataWord key) {
+        byte[] bytes = new byte[Address.SIZE + DataWord.SIZE];
+        System.arraycopy(address, 0, bytes, 0, Address.SIZE);
+        writeKey(key, bytes);
+        return new ByteArrayWrapper(bytes);
+    }
+
+    /**
+     * Same as {@link #slotKey(byte[], DataWord)}, without a copy of the address.
+     */
+    static ByteArrayWrapper slotKey(Address address, DataWord key) {
+        byte[] bytes = new byte[Address.SIZE + DataWord.SIZE];
+        address.copyTo(bytes, 0);
+        writeKey(key, bytes);
+        return new ByteArrayWrapper(bytes);
+    }
+
+    /**
+     * Returns the address of a storage slot key.
+     */
+    static Address owner(ByteArrayWrapper slot) {
+        byte[] data = slot.getData();
+        return Address.of(ByteArrayUtil.readLong(data, 0), ByteArrayUtil.readLong(data, 8),
+                ByteArrayUtil.readInt(data, 16));
+    }
+
+    private static void writeKey(DataWord key, byte[] bytes) {
+        for (int i = 0; i < DataWord.SIZE / 8; i++) {
+            ByteArrayUtil.writeLong(key.getLong(i), bytes, Address.SIZE + i * 8);
+        }
+    }
+
+    static int weigh(Address key, AccountState account) {
+        return Address.SIZE + ByteArrayUtil.getLength(account.getCode()) + 32 + ENTRY_OVERHEAD;
+    }
+
+    static int weigh(ByteArrayWrapper key, DataWord value) {
+        return key.getData().length + DataWord.SIZE + ENTRY_OVERHEAD;
+    }
+}
@@ -22,12 +22,17 @@ import static org.ethereum.vm.util.ByteArrayUtil.EMPTY_BYTE_ARRAY;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.ethereum.vm.DataWord;
 import org.ethereum.vm.OpCode;
 import org.ethereum.vm.chainspec.Spec;
+import org.ethereum.vm.program.InternalTransaction;
+import org.ethereum.vm.program.InternalTxRecording;
 import org.ethereum.vm.program.Program;
 import org.ethereum.vm.program.ProgramResult;
+import org.ethereum.vm.program.invoke.BlockContext;
 import org.ethereum.vm.program.invoke.ProgramInvoke;
 import org.ethereum.vm.program.invoke.ProgramInvokeFactory;
 import org.ethereum.vm.program.invoke.ProgramInvokeFactoryImpl;
@@ -41,10 +46,13 @@ public class TransactionExecutor {
 
     private final Transaction tx;
     private final Block block;
+    private final BlockContext blockContext;
     private long basicTxCost;
 
-    private final Repository repo;
+    private Repository repo;
     private final BlockStore blockStore;
+    private AccessRecorder accessRecorder;
+    private InternalTxRecording internalTxRecording = InternalTxRecording.FULL;
 
     private final Spec spec;
     private final ProgramInvokeFactory invokeFactory;
@@ -58,8 +66,14 @@ public class TransactionExecutor {
 
     public TransactionExecutor(Transaction tx, Block block, Repository repo, BlockStore blockStore,
             Spec spec, ProgramInvokeFactory invokeFactory, long gasUsedInTheBlock) {
+        this(tx, new BlockContext(block), repo, blockStore, spec, invokeFactory, gasUsedInTheBlock);
+    }
+
+    public TransactionExecutor(Transaction tx, BlockContext blockContext, Repository repo, BlockStore blockStore,
+            Spec spec, ProgramInvokeFactory invokeFactory, long gasUsedInTheBlock) {
         this.tx = tx;
-        this.block = block;
+        this.block = blockContext.getBlock();
+        this.blockContext = blockContext;
         this.basicTxCost = spec.getTransactionCost(tx);
 
         this.repo = repo;
@@ -70,6 +84,28 @@ public class TransactionExecutor {
         this.gasUsedInTheBlock = gasUsedInTheBlock;
     }
 
+    /**
+     * Enables recording of the accounts and storage slots accessed by the
+     * transaction; the result is attached to the receipt.
+     *
+     * @param recordAccesses
+     *            whether to record the accesses
+     */
+    public void setRecordAccesses(boolean recordAccesses) {
+        this.accessRecorder = recordAccesses ? new AccessRecorder() : null;
+    }
+
+    /**
+     * Sets which internal transactions are recorded into the receipt; all of them,
+     * with their call data, by default.
+     *
+     * @param internalTxRecording
+     *            the recording mode
+     */
+    public void setInternalTxRecording(InternalTxRecording internalTxRecording) {
+        this.internalTxRecording = internalTxRecording;
+    }
+
     /**
      * Do basic validation, e.g. nonce, balance and gas check.
      *
@@ -117,8 +153,9 @@ public class TransactionExecutor {
 
         // phantom invoke
         byte[] ops = EMPTY_BYTE_ARRAY;
-        ProgramInvoke invoke = invokeFactory.createProgramInvoke(tx, block, repo, blockStore);
+        ProgramInvoke invoke = invokeFactory.createProgramInvoke(tx, blockContext, repo, blockStore);
         Program program = new Program(ops, invoke, spec);
+        program.setInternalTxRecording(internalTxRecording);
 
         // [1] spend basic transaction cost
         program.spendGas(basicTxCost, "Basic transaction cost");
@@ -173,7 +210,8 @@ public class TransactionExecutor {
         result.setReturnData(invokeResult.getReturnData());
         result.setException(invokeResult.getException());
         result.setRevert(invokeResult.isRevert());
-        result.setInternalTransactions(new ArrayList<>(invokeResult.getInternalTransactions()));
+        List<InternalTransaction> internalTxs = invokeResult.getInternalTransactions();
+        result.setInternalTransactions(internalTxs.isEmpty() ? Collections.emptyList() : new ArrayList<>(internalTxs));
         // others have been merged after the invocation
 
         // [POST-INVOKE] credit the sender for remaining gas
@@ -192,6 +230,11 @@ public class TransactionExecutor {
             return receipt;
         }
 
+        if (accessRecorder != null) {
+            // wrap even a recording repository, its recorder is not ours
+            repo = new RecordingRepository(repo, accessRecorder);
+        }
+
         // prepare
         if (!prepare()) {
             return null;
@@ -206,7 +249,8 @@ public class TransactionExecutor {
                 result.getReturnData(),
                 result.getLogs(),
                 new ArrayList<>(result.getDeleteAccounts()),
-                result.getInternalTransactions());
+                result.getInternalTransactions(),
+                accessRecorder == null ? null : accessRecorder.toAccessSet());
         return receipt;
     }
 }
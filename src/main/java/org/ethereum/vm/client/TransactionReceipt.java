@@ -20,6 +20,7 @@ package org.ethereum.vm.client;
 import java.util.List;
 
 import org.bouncycastle.util.encoders.Hex;
+import org.ethereum.vm.Bloom;
 import org.ethereum.vm.LogInfo;
 import org.ethereum.vm.program.InternalTransaction;
 import org.ethereum.vm.util.ByteArrayWrapper;
@@ -32,20 +33,33 @@ public class TransactionReceipt {
     private long gasUsed;
     private byte[] returnData;
     private List<LogInfo> logs;
+    private Bloom bloom;
 
     // transient
     private List<ByteArrayWrapper> deletedAccounts;
     private List<InternalTransaction> internalTransactions;
+    private AccessSet accessSet;
 
     public TransactionReceipt(Transaction tx, boolean success, long gasUsed, byte[] returnData, List<LogInfo> logs,
             List<ByteArrayWrapper> deletedAccounts, List<InternalTransaction> internalTransactions) {
+        this(tx, success, gasUsed, returnData, logs, deletedAccounts, internalTransactions, null);
+    }
+
+    public TransactionReceipt(Transaction tx, boolean success, long gasUsed, byte[] returnData, List<LogInfo> logs,
+            List<ByteArrayWrapper> deletedAccounts, List<InternalTransaction> internalTransactions,
+            AccessSet accessSet) {
         this.tx = tx;
         this.success = success;
         this.gasUsed = gasUsed;
         this.returnData = returnData;
         this.logs = logs;
+        this.bloom = new Bloom();
+        for (LogInfo log : logs) {
+            bloom.add(log);
+        }
         this.deletedAccounts = deletedAccounts;
         this.internalTransactions = internalTransactions;
+        this.accessSet = accessSet;
     }
 
     public Transaction getTx() {
@@ -68,6 +82,15 @@ public class TransactionReceipt {
         return logs;
     }
 
+    /**
+     * Returns the bloom of the logs, computed when the receipt is created.
+     *
+     * @return a copy of the logs bloom
+     */
+    public Bloom getBloom() {
+        return new Bloom().or(bloom);
+    }
+
     public List<ByteArrayWrapper> getDeletedAccounts() {
         return deletedAccounts;
     }
@@ -76,6 +99,15 @@ public class TransactionReceipt {
         return internalTransactions;
     }
 
+    /**
+     * Returns the accounts and storage slots accessed by the transaction.
+     *
+     * @return the access set, or NULL if access recording is disabled
+     */
+    public AccessSet getAccessSet() {
+        return accessSet;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
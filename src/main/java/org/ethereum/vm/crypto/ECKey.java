@@ -37,14 +37,12 @@ import static org.ethereum.vm.util.BigIntegerUtil.isLessThan;
 import java.math.BigInteger;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.bouncycastle.asn1.sec.SECNamedCurves;
 import org.bouncycastle.asn1.x9.X9ECParameters;
-import org.bouncycastle.asn1.x9.X9IntegerConverter;
 import org.bouncycastle.crypto.params.ECDomainParameters;
-import org.bouncycastle.math.ec.ECAlgorithms;
-import org.bouncycastle.math.ec.ECCurve;
-import org.bouncycastle.math.ec.ECPoint;
 import org.ethereum.vm.util.HashUtil;
 
 public class ECKey {
@@ -54,12 +52,97 @@ public class ECKey {
 
     public static final ECDomainParameters CURVE;
 
+    private static final String COULD_NOT_RECOVER = "Could not recover public key from signature";
+
+    // signatures per field inversion and per task of a batch recovery
+    private static final int BATCH_CHUNK_SIZE = 64;
+
     static {
         X9ECParameters params = SECNamedCurves.getByName("secp256k1");
         CURVE = new ECDomainParameters(params.getCurve(), params.getG(), params.getN(), params.getH());
     }
 
     public static byte[] signatureToAddress(byte[] messageHash, ECDSASignature sig) throws SignatureException {
+        int recId = recId(messageHash, sig);
+
+        byte[] pubBytes = ECKey.recoverPubBytesFromSignature(recId, sig, messageHash);
+        if (pubBytes == null) {
+            throw new SignatureException(COULD_NOT_RECOVER);
+        }
+
+        return HashUtil.sha3omit12(Arrays.copyOfRange(pubBytes, 1, pubBytes.length));
+    }
+
+    /**
+     * Recovers the addresses of many signatures at once, on the common fork-join
+     * pool, see
+     * {@link #signaturesToAddresses(byte[][], ECDSASignature[], ForkJoinPool)}.
+     */
+    public static RecoveryResult[] signaturesToAddresses(byte[][] messageHashes, ECDSASignature[] sigs) {
+        return signaturesToAddresses(messageHashes, sigs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Recovers the addresses of many signatures at once. The signatures are
+     * processed in chunks which share a single field inversion to normalize the
+     * recovered keys (Montgomery's trick); the chunks are independent and are
+     * spread over the pool.
+     *
+     * @param messageHashes
+     *            the hashes of the signed data
+     * @param sigs
+     *            the signatures, one per hash
+     * @param pool
+     *            the pool to recover on, or null to recover in the calling thread
+     * @return per signature, the address or the exception
+     *         {@link #signatureToAddress(byte[], ECDSASignature)} would throw
+     */
+    public static RecoveryResult[] signaturesToAddresses(byte[][] messageHashes, ECDSASignature[] sigs,
+            ForkJoinPool pool) {
+        check(messageHashes.length == sigs.length, "messageHashes and sigs have different lengths");
+
+        RecoveryResult[] results = new RecoveryResult[sigs.length];
+        if (pool == null || sigs.length <= BATCH_CHUNK_SIZE) {
+            for (int from = 0; from < sigs.length; from += BATCH_CHUNK_SIZE) {
+                recoverChunk(messageHashes, sigs, results, from, Math.min(sigs.length, from + BATCH_CHUNK_SIZE));
+            }
+        } else {
+            pool.invoke(new RecoverTask(messageHashes, sigs, results, 0, sigs.length));
+        }
+        return results;
+    }
+
+    private static void recoverChunk(byte[][] messageHashes, ECDSASignature[] sigs, RecoveryResult[] results,
+            int from, int to) {
+        int count = to - from;
+        int[] points = new int[count * 24];
+
+        for (int i = 0; i < count; i++) {
+            try {
+                int recId = recId(messageHashes[from + i], sigs[from + i]);
+                if (!recoverPoint(recId, sigs[from + i], messageHashes[from + i], points, i * 24)) {
+                    results[from + i] = new RecoveryResult(null, new SignatureException(COULD_NOT_RECOVER));
+                }
+            } catch (SignatureException | RuntimeException e) {
+                results[from + i] = new RecoveryResult(null, e);
+            }
+        }
+
+        // points left at infinity are skipped
+        Secp256k1.toAffine(points, count);
+
+        for (int i = 0; i < count; i++) {
+            if (results[from + i] == null) {
+                byte[] pubBytes = Secp256k1.encode(points, i * 24);
+                results[from + i] = pubBytes == null
+                        ? new RecoveryResult(null, new SignatureException(COULD_NOT_RECOVER))
+                        : new RecoveryResult(HashUtil.sha3omit12(Arrays.copyOfRange(pubBytes, 1, pubBytes.length)),
+                                null);
+            }
+        }
+    }
+
+    private static int recId(byte[] messageHash, ECDSASignature sig) throws SignatureException {
         check(messageHash.length == 32, "messageHash argument has length " + messageHash.length);
 
         int header = sig.v;
@@ -71,14 +154,7 @@ public class ECKey {
         if (header >= 31) {
             header -= 4;
         }
-        int recId = header - 27;
-
-        byte[] pubBytes = ECKey.recoverPubBytesFromSignature(recId, sig, messageHash);
-        if (pubBytes == null) {
-            throw new SignatureException("Could not recover public key from signature");
-        }
-
-        return HashUtil.sha3omit12(Arrays.copyOfRange(pubBytes, 1, pubBytes.length));
+        return header - 27;
     }
 
     /**
@@ -116,6 +192,21 @@ public class ECKey {
      * @return 65-byte encoded public key
      */
     public static byte[] recoverPubBytesFromSignature(int recId, ECDSASignature sig, byte[] messageHash) {
+        int[] q = new int[24];
+        if (!recoverPoint(recId, sig, messageHash, q, 0)) {
+            return null;
+        }
+        Secp256k1.toAffine(q, 1);
+        return Secp256k1.encode(q, 0);
+    }
+
+    /**
+     * Computes the candidate public key in Jacobian coordinates, which is the point
+     * at infinity if recovery is not possible.
+     *
+     * @return false if the candidate does not exist
+     */
+    private static boolean recoverPoint(int recId, ECDSASignature sig, byte[] messageHash, int[] q, int qi) {
         check(recId >= 0, "recId must be positive");
         check(sig.r.signum() >= 0, "r must be positive");
         check(sig.s.signum() >= 0, "s must be positive");
@@ -136,21 +227,18 @@ public class ECKey {
         //
         // More concisely, what these points mean is to use X as a compressed public
         // key.
-        ECCurve.Fp curve = (ECCurve.Fp) CURVE.getCurve();
-        BigInteger prime = curve.getQ(); // Bouncy Castle is not consistent about the letter it uses for the prime.
-        if (x.compareTo(prime) >= 0) {
+        if (x.compareTo(Secp256k1.PRIME) >= 0) {
             // Cannot have point co-ordinates larger than this as everything takes place
             // modulo Q.
-            return null;
+            return false;
         }
         // Compressed keys require you to know an extra bit of data about the y-coord as
         // there are two possibilities.
         // So it's encoded in the recId.
-        ECPoint R = decompressKey(x, (recId & 1) == 1);
+        int[] R = Secp256k1.decompress(x, (recId & 1) == 1);
         // 1.4. If nR != point at infinity, then do another iteration of Step 1 (callers
-        // responsibility).
-        if (!R.multiply(n).isInfinity())
-            return null;
+        // responsibility). The cofactor of secp256k1 is 1, so any point of the curve is
+        // of order n.
         // 1.5. Compute e from M using Steps 2 and 3 of ECDSA signature verification.
         BigInteger e = new BigInteger(1, messageHash);
         // 1.6. For k from 1 to 2 do the following. (loop is outside this function via
@@ -172,21 +260,9 @@ public class ECKey {
         BigInteger rInv = sig.r.modInverse(n);
         BigInteger srInv = rInv.multiply(sig.s).mod(n);
         BigInteger eInvrInv = rInv.multiply(eInv).mod(n);
-        ECPoint.Fp q = (ECPoint.Fp) ECAlgorithms.sumOfTwoMultiplies(CURVE.getG(), eInvrInv, R, srInv);
-        // result sanity check: point must not be at infinity
-        if (q.isInfinity())
-            return null;
-        return q.getEncoded(/* compressed */ false);
-    }
-
-    /**
-     * Decompress a compressed public key (x co-ord and low-bit of y-coord).
-     */
-    private static ECPoint decompressKey(BigInteger xBN, boolean yBit) {
-        X9IntegerConverter x9 = new X9IntegerConverter();
-        byte[] compEnc = x9.integerToBytes(xBN, 1 + x9.getByteLength(CURVE.getCurve()));
-        compEnc[0] = (byte) (yBit ? 0x03 : 0x02);
-        return CURVE.getCurve().decodePoint(compEnc);
+        // result sanity check: point must not be at infinity, left to the caller
+        Secp256k1.sumOfTwoMultiplies(eInvrInv, R, srInv, q, qi);
+        return true;
     }
 
     private static void check(boolean test, String message) {
@@ -235,6 +311,71 @@ public class ECKey {
         }
     }
 
+    /**
+     * The outcome of the recovery of a signature within a batch, see
+     * {@link #signaturesToAddresses(byte[][], ECDSASignature[], ForkJoinPool)}.
+     */
+    public static class RecoveryResult {
+        private final byte[] address;
+        private final Exception error;
+
+        RecoveryResult(byte[] address, Exception error) {
+            this.address = address;
+            this.error = error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        /**
+         * Returns the recovered address, or null if the recovery failed.
+         */
+        public byte[] getAddress() {
+            return address;
+        }
+
+        /**
+         * Returns the exception the recovery failed with, or null.
+         */
+        public Exception getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Recovers a range of a batch, splitting it in halves down to single chunks.
+     */
+    private static class RecoverTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final byte[][] messageHashes;
+        private final ECDSASignature[] sigs;
+        private final RecoveryResult[] results;
+        private final int from, to;
+
+        RecoverTask(byte[][] messageHashes, ECDSASignature[] sigs, RecoveryResult[] results, int from, int to) {
+            this.messageHashes = messageHashes;
+            this.sigs = sigs;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_CHUNK_SIZE) {
+                recoverChunk(messageHashes, sigs, results, from, to);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new RecoverTask(messageHashes, sigs, results, from, mid),
+                    new RecoverTask(messageHashes, sigs, results, mid, to));
+        }
+    }
+
     /**
      * This is the generic Signature exception.
      */
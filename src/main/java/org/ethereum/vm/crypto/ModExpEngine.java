@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Modular exponentiation for the ModExp precompile, with the same results as
+ * {@link BigInteger#modPow(BigInteger, BigInteger)}. <br/>
+ * <br/>
+ *
+ * {@link BigInteger#modPow(BigInteger, BigInteger)} already does Montgomery
+ * multiplication with sliding windows, and CRT for even moduli, on top of the
+ * Montgomery intrinsics of HotSpot which plain Java limb arithmetic can't
+ * match. What is left is its setup cost: the trivial cases are answered here
+ * without any, and moduli which fit in an int are done on longs.
+ */
+public final class ModExpEngine {
+
+    private ModExpEngine() {
+    }
+
+    /**
+     * Computes base^exp mod mod.
+     *
+     * @throws ArithmeticException
+     *             if the modulus is not positive
+     */
+    public static BigInteger modPow(BigInteger base, BigInteger exp, BigInteger mod) {
+        if (mod.signum() <= 0) {
+            throw new ArithmeticException("BigInteger: modulus not positive");
+        }
+        if (base.signum() < 0 || exp.signum() < 0) {
+            return base.modPow(exp, mod); // not produced by the precompile
+        }
+
+        if (mod.equals(BigInteger.ONE)) {
+            return BigInteger.ZERO;
+        }
+        if (exp.signum() == 0) {
+            return BigInteger.ONE;
+        }
+
+        if (base.compareTo(mod) >= 0) {
+            base = base.mod(mod);
+        }
+        if (base.signum() == 0 || base.equals(BigInteger.ONE) || exp.equals(BigInteger.ONE)) {
+            return base;
+        }
+
+        if (mod.bitLength() < 32) {
+            return BigInteger.valueOf(modPow(base.longValue(), exp, mod.longValue()));
+        }
+
+        return base.modPow(exp, mod);
+    }
+
+    /**
+     * Left-to-right square-and-multiply; base < mod < 2^31, so that products fit in
+     * a long.
+     */
+    private static long modPow(long base, BigInteger exp, long mod) {
+        long r = 1;
+        for (int i = exp.bitLength() - 1; i >= 0; i--) {
+            r = r * r % mod;
+            if (exp.testBit(i)) {
+                r = r * base % mod;
+            }
+        }
+        return r;
+    }
+}
@@ -0,0 +1,818 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic on secp256k1 specialised for public key recovery, see
+ * {@link ECKey#recoverPubBytesFromSignature(int, ECKey.ECDSASignature, byte[])}.
+ * <br/>
+ * <br/>
+ *
+ * Field elements are eight little-endian 32-bit limbs, reduced with 2^256 =
+ * 2^32 + 977 (mod p); points are kept in Jacobian coordinates. u1 * G + u2 * R
+ * is computed in a single double-and-add loop (Shamir's trick) which
+ * interleaves a comb over a precomputed table of G with the width-5 NAFs of the
+ * GLV decomposition u2 = k1 + k2 * lambda, where lambda * R = (beta * x, y).
+ */
+final class Secp256k1 {
+
+    private static final long M = 0xffffffffL;
+
+    static final BigInteger PRIME = new BigInteger(
+            "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2f", 16);
+
+    private static final BigInteger N = ECKey.SECP256K1N;
+
+    private static final BigInteger GX = new BigInteger(
+            "79be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798", 16);
+    private static final BigInteger GY = new BigInteger(
+            "483ada7726a3c4655da4fbfc0e1108a8fd17b448a68554199c47d08ffb10d4b8", 16);
+
+    private static final int[] ZERO = new int[8];
+    private static final int[] SEVEN = limbs(BigInteger.valueOf(7));
+    private static final int[] BETA = limbs(new BigInteger(
+            "7ae96a2b657c07106e64479eac3434e99cf0497512f58995c1396c28719501ee", 16));
+
+    // the GLV basis (v1, v2) and the rounding constants g1, g2 of the
+    // decomposition, as used by BouncyCastle
+    private static final BigInteger V1_A = new BigInteger("3086d221a7d46bcde86c90e49284eb15", 16);
+    private static final BigInteger V1_B = new BigInteger("-e4437ed6010e88286f547fa90abfe4c3", 16);
+    private static final BigInteger V2_A = new BigInteger("114ca50f7a8e2f3f657c1108d9d44cfd8", 16);
+    private static final BigInteger V2_B = new BigInteger("3086d221a7d46bcde86c90e49284eb15", 16);
+    private static final BigInteger G1 = new BigInteger("3086d221a7d46bcde86c90e49284eb153dab", 16);
+    private static final BigInteger G2 = new BigInteger("e4437ed6010e88286f547fa90abfe4c42212", 16);
+    private static final int GLV_BITS = 272;
+
+    private static final int WNAF_WIDTH = 5;
+    private static final int WNAF_TABLE_SIZE = 1 << (WNAF_WIDTH - 2);
+
+    // the comb has a tooth per limb of the scalar
+    private static final int COMB_TEETH = 8;
+    private static final int COMB_SPACING = 32;
+
+    private static final ThreadLocal<Secp256k1> ENGINE = ThreadLocal.withInitial(Secp256k1::new);
+
+    // affine points sum(2^(32 * b) * G) over the bits b of the index, 16 ints each
+    private static final int[] COMB = combTable();
+
+    // temporaries of the point formulas
+    private static final int T0 = 0, T1 = 8, T2 = 16, T3 = 24, T4 = 32, T5 = 40, T6 = 48, T7 = 56, T8 = 64,
+            T9 = 72, T10 = 80, T11 = 88;
+
+    private final int[] tt = new int[16];
+    private final int[] t = new int[96];
+    private final int[] acc = new int[24];
+    // odd multiples of R followed by their images under the endomorphism
+    private final int[] table = new int[2 * WNAF_TABLE_SIZE * 24];
+
+    private Secp256k1() {
+    }
+
+    /**
+     * Returns the engine of the current thread.
+     */
+    static Secp256k1 get() {
+        return ENGINE.get();
+    }
+
+    /**
+     * Decompresses a point.
+     *
+     * @param x
+     *            the x coordinate, less than {@link #PRIME}
+     * @param yOdd
+     *            the parity of the y coordinate
+     * @return the affine coordinates x and y
+     * @throws IllegalArgumentException
+     *             if x is not the coordinate of a point of the curve
+     */
+    static int[] decompress(BigInteger x, boolean yOdd) {
+        Secp256k1 e = get();
+
+        int[] p = new int[16];
+        fromBigInteger(p, 0, x);
+
+        // y^2 = x^3 + 7
+        int[] y2 = new int[8];
+        e.sqr(y2, 0, p, 0);
+        e.mul(y2, 0, y2, 0, p, 0);
+        add(y2, 0, y2, 0, SEVEN, 0);
+
+        if (!e.sqrt(p, 8, y2)) {
+            throw new IllegalArgumentException("Invalid point compression");
+        }
+        if ((p[8] & 1) != (yOdd ? 1 : 0)) {
+            neg(p, 8, p, 8);
+        }
+
+        return p;
+    }
+
+    /**
+     * Computes u1 * G + u2 * R in Jacobian coordinates, see
+     * {@link #toAffine(int[], int)}.
+     *
+     * @param u1
+     *            a scalar less than the group order
+     * @param r
+     *            an affine point, see {@link #decompress(BigInteger, boolean)}
+     * @param u2
+     *            a scalar less than the group order
+     * @param q
+     *            the destination of the 24 ints of the sum
+     * @param qi
+     *            the offset of the sum in q
+     */
+    static void sumOfTwoMultiplies(BigInteger u1, int[] r, BigInteger u2, int[] q, int qi) {
+        get().sum(u1, r, u2, q, qi);
+    }
+
+    /**
+     * Normalizes Jacobian points to Z = 1 with a single field inversion
+     * (Montgomery's trick); points at infinity are left untouched.
+     *
+     * @param points
+     *            consecutive points of 24 ints each
+     * @param count
+     *            the number of points
+     */
+    static void toAffine(int[] points, int count) {
+        get().normalize(points, count);
+    }
+
+    /**
+     * Returns the 65-byte uncompressed encoding of a normalized point, or null if
+     * it is the point at infinity.
+     */
+    static byte[] encode(int[] p, int pi) {
+        if (isZero(p, pi + 16)) {
+            return null;
+        }
+
+        byte[] encoded = new byte[65];
+        encoded[0] = 0x04;
+        toBytes(p, pi, encoded, 1);
+        toBytes(p, pi + 8, encoded, 33);
+        return encoded;
+    }
+
+    private void sum(BigInteger u1, int[] r, BigInteger u2, int[] q, int qi) {
+        int[] table = this.table;
+        int[] acc = this.acc;
+
+        // R, 3R, ..., 15R
+        System.arraycopy(r, 0, table, 0, 16);
+        setOne(table, 16);
+        dbl(acc, 0, table, 0);
+        for (int i = 1; i < WNAF_TABLE_SIZE; i++) {
+            add(table, i * 24, table, (i - 1) * 24, acc, 0, false);
+        }
+        // lambda * (R, 3R, ..., 15R)
+        for (int i = 0; i < WNAF_TABLE_SIZE; i++) {
+            int o = (WNAF_TABLE_SIZE + i) * 24;
+            mul(table, o, BETA, 0, table, i * 24);
+            System.arraycopy(table, i * 24 + 8, table, o + 8, 16);
+        }
+
+        BigInteger[] k = decompose(u2);
+        byte[] naf1 = Wnaf.encode(k[0].abs(), WNAF_WIDTH);
+        byte[] naf2 = Wnaf.encode(k[1].abs(), WNAF_WIDTH);
+        boolean neg1 = k[0].signum() < 0;
+        boolean neg2 = k[1].signum() < 0;
+
+        int[] s = limbs(u1);
+
+        setInfinity(acc, 0);
+        for (int i = Math.max(COMB_SPACING, Math.max(naf1.length, naf2.length)) - 1; i >= 0; i--) {
+            dbl(acc, 0, acc, 0);
+
+            if (i < naf1.length && naf1[i] != 0) {
+                int d = naf1[i];
+                add(acc, 0, acc, 0, table, (Math.abs(d) >>> 1) * 24, (d < 0) != neg1);
+            }
+            if (i < naf2.length && naf2[i] != 0) {
+                int d = naf2[i];
+                add(acc, 0, acc, 0, table, (WNAF_TABLE_SIZE + (Math.abs(d) >>> 1)) * 24, (d < 0) != neg2);
+            }
+            if (i < COMB_SPACING) {
+                int idx = 0;
+                for (int b = 0; b < COMB_TEETH; b++) {
+                    idx |= ((s[b] >>> i) & 1) << b;
+                }
+                if (idx != 0) {
+                    addAffine(acc, 0, acc, 0, COMB, idx * 16);
+                }
+            }
+        }
+
+        System.arraycopy(acc, 0, q, qi, 24);
+    }
+
+    private void normalize(int[] points, int count) {
+        int[] t = this.t;
+
+        // the finite points and the prefix products of their Z coordinates
+        int[] finite = new int[count];
+        int[] prefix = new int[8 * count];
+        int m = 0;
+        for (int i = 0; i < count; i++) {
+            int z = i * 24 + 16;
+            if (isZero(points, z)) {
+                continue;
+            }
+            if (m == 0) {
+                System.arraycopy(points, z, prefix, 0, 8);
+            } else {
+                mul(prefix, m * 8, prefix, (m - 1) * 8, points, z);
+            }
+            finite[m++] = i;
+        }
+        if (m == 0) {
+            return;
+        }
+
+        // T0 = (Z_0 * ... * Z_k)^-1, going down
+        inverse(t, T0, prefix, (m - 1) * 8);
+        for (int k = m - 1; k >= 0; k--) {
+            int o = finite[k] * 24;
+
+            // T1 = Z_k^-1
+            if (k > 0) {
+                mul(t, T1, t, T0, prefix, (k - 1) * 8);
+                mul(t, T0, t, T0, points, o + 16);
+            } else {
+                System.arraycopy(t, T0, t, T1, 8);
+            }
+
+            sqr(t, T2, t, T1);
+            mul(points, o, points, o, t, T2);
+            mul(t, T2, t, T2, t, T1);
+            mul(points, o + 8, points, o + 8, t, T2);
+            setOne(points, o + 16);
+        }
+    }
+
+    /**
+     * Splits a scalar into k1 + k2 * lambda (mod n), with k1 and k2 of about 128
+     * bits.
+     */
+    static BigInteger[] decompose(BigInteger k) {
+        BigInteger b1 = roundedShift(k.multiply(G1));
+        BigInteger b2 = roundedShift(k.multiply(G2));
+
+        BigInteger k1 = k.subtract(b1.multiply(V1_A).add(b2.multiply(V2_A)));
+        BigInteger k2 = b1.multiply(V1_B).add(b2.multiply(V2_B)).negate();
+
+        return new BigInteger[] { k1, k2 };
+    }
+
+    private static BigInteger roundedShift(BigInteger v) {
+        BigInteger r = v.shiftRight(GLV_BITS);
+        return v.testBit(GLV_BITS - 1) ? r.add(BigInteger.ONE) : r;
+    }
+
+    private static int[] combTable() {
+        Secp256k1 e = new Secp256k1();
+
+        int[] jacobian = new int[(1 << COMB_TEETH) * 24];
+
+        // 2^(32 * b) * G
+        fromBigInteger(jacobian, 24, GX);
+        fromBigInteger(jacobian, 32, GY);
+        setOne(jacobian, 40);
+        for (int b = 1; b < COMB_TEETH; b++) {
+            int o = (1 << b) * 24;
+            System.arraycopy(jacobian, (1 << (b - 1)) * 24, jacobian, o, 24);
+            for (int i = 0; i < COMB_SPACING; i++) {
+                e.dbl(jacobian, o, jacobian, o);
+            }
+        }
+        for (int j = 3; j < 1 << COMB_TEETH; j++) {
+            int high = Integer.highestOneBit(j);
+            if (j != high) {
+                e.add(jacobian, j * 24, jacobian, (j - high) * 24, jacobian, high * 24, false);
+            }
+        }
+
+        e.normalize(jacobian, 1 << COMB_TEETH);
+
+        int[] table = new int[(1 << COMB_TEETH) * 16];
+        for (int j = 1; j < 1 << COMB_TEETH; j++) {
+            System.arraycopy(jacobian, j * 24, table, j * 16, 16);
+        }
+        return table;
+    }
+
+    // ------------------------------------------------------------------------
+    // points, Jacobian unless stated otherwise; Z = 0 is the point at infinity
+    // ------------------------------------------------------------------------
+
+    /**
+     * r = 2 * p, dbl-2009-l; r may be p.
+     */
+    private void dbl(int[] r, int ri, int[] p, int pi) {
+        int[] t = this.t;
+
+        // A = X1^2, B = Y1^2, C = B^2
+        sqr(t, T0, p, pi);
+        sqr(t, T1, p, pi + 8);
+        sqr(t, T2, t, T1);
+        // D = 2 * ((X1 + B)^2 - A - C)
+        add(t, T3, p, pi, t, T1);
+        sqr(t, T3, t, T3);
+        sub(t, T3, t, T3, t, T0);
+        sub(t, T3, t, T3, t, T2);
+        add(t, T3, t, T3, t, T3);
+        // E = 3 * A, F = E^2
+        add(t, T4, t, T0, t, T0);
+        add(t, T4, t, T4, t, T0);
+        sqr(t, T5, t, T4);
+        // Z3 = 2 * Y1 * Z1
+        mul(r, ri + 16, p, pi + 8, p, pi + 16);
+        add(r, ri + 16, r, ri + 16, r, ri + 16);
+        // X3 = F - 2 * D
+        sub(r, ri, t, T5, t, T3);
+        sub(r, ri, r, ri, t, T3);
+        // Y3 = E * (D - X3) - 8 * C
+        sub(t, T3, t, T3, r, ri);
+        mul(t, T3, t, T4, t, T3);
+        add(t, T2, t, T2, t, T2);
+        add(t, T2, t, T2, t, T2);
+        add(t, T2, t, T2, t, T2);
+        sub(r, ri + 8, t, T3, t, T2);
+    }
+
+    /**
+     * r = p + q, add-2007-bl, where q is negated if requested; r may be p.
+     */
+    private void add(int[] r, int ri, int[] p, int pi, int[] q, int qi, boolean negate) {
+        int[] t = this.t;
+
+        if (isZero(q, qi + 16)) {
+            System.arraycopy(p, pi, r, ri, 24);
+            return;
+        }
+        if (isZero(p, pi + 16)) {
+            System.arraycopy(q, qi, r, ri, 24);
+            if (negate) {
+                neg(r, ri + 8, r, ri + 8);
+            }
+            return;
+        }
+
+        // Z1Z1 = Z1^2, Z2Z2 = Z2^2, U1 = X1 * Z2Z2, U2 = X2 * Z1Z1
+        sqr(t, T0, p, pi + 16);
+        sqr(t, T1, q, qi + 16);
+        mul(t, T2, p, pi, t, T1);
+        mul(t, T3, q, qi, t, T0);
+        // S1 = Y1 * Z2 * Z2Z2, S2 = Y2 * Z1 * Z1Z1
+        mul(t, T4, p, pi + 8, q, qi + 16);
+        mul(t, T4, t, T4, t, T1);
+        mul(t, T5, q, qi + 8, p, pi + 16);
+        mul(t, T5, t, T5, t, T0);
+        if (negate) {
+            neg(t, T5, t, T5);
+        }
+        // H = U2 - U1, R = S2 - S1
+        sub(t, T6, t, T3, t, T2);
+        sub(t, T7, t, T5, t, T4);
+
+        if (isZero(t, T6)) {
+            if (isZero(t, T7)) {
+                dbl(r, ri, p, pi);
+            } else {
+                setInfinity(r, ri);
+            }
+            return;
+        }
+
+        // R = 2 * (S2 - S1), I = (2 * H)^2, J = H * I, V = U1 * I
+        add(t, T7, t, T7, t, T7);
+        add(t, T8, t, T6, t, T6);
+        sqr(t, T8, t, T8);
+        mul(t, T9, t, T6, t, T8);
+        mul(t, T10, t, T2, t, T8);
+        // 2 * S1 * J
+        mul(t, T4, t, T4, t, T9);
+        add(t, T4, t, T4, t, T4);
+        // Z3 = ((Z1 + Z2)^2 - Z1Z1 - Z2Z2) * H
+        add(r, ri + 16, p, pi + 16, q, qi + 16);
+        sqr(r, ri + 16, r, ri + 16);
+        sub(r, ri + 16, r, ri + 16, t, T0);
+        sub(r, ri + 16, r, ri + 16, t, T1);
+        mul(r, ri + 16, r, ri + 16, t, T6);
+        // X3 = R^2 - J - 2 * V
+        sqr(r, ri, t, T7);
+        sub(r, ri, r, ri, t, T9);
+        sub(r, ri, r, ri, t, T10);
+        sub(r, ri, r, ri, t, T10);
+        // Y3 = R * (V - X3) - 2 * S1 * J
+        sub(t, T10, t, T10, r, ri);
+        mul(t, T10, t, T7, t, T10);
+        sub(r, ri + 8, t, T10, t, T4);
+    }
+
+    /**
+     * r = p + a, madd-2007-bl, where a is an affine point; r may be p.
+     */
+    private void addAffine(int[] r, int ri, int[] p, int pi, int[] a, int ai) {
+        int[] t = this.t;
+
+        if (isZero(p, pi + 16)) {
+            System.arraycopy(a, ai, r, ri, 16);
+            setOne(r, ri + 16);
+            return;
+        }
+
+        // Z1Z1 = Z1^2, U2 = X2 * Z1Z1, S2 = Y2 * Z1 * Z1Z1
+        sqr(t, T0, p, pi + 16);
+        mul(t, T1, a, ai, t, T0);
+        mul(t, T2, a, ai + 8, p, pi + 16);
+        mul(t, T2, t, T2, t, T0);
+        // H = U2 - X1, R = S2 - Y1
+        sub(t, T3, t, T1, p, pi);
+        sub(t, T4, t, T2, p, pi + 8);
+
+        if (isZero(t, T3)) {
+            if (isZero(t, T4)) {
+                dbl(r, ri, p, pi);
+            } else {
+                setInfinity(r, ri);
+            }
+            return;
+        }
+
+        // R = 2 * (S2 - Y1), HH = H^2, I = 4 * HH, J = H * I, V = X1 * I
+        add(t, T4, t, T4, t, T4);
+        sqr(t, T5, t, T3);
+        add(t, T6, t, T5, t, T5);
+        add(t, T6, t, T6, t, T6);
+        mul(t, T7, t, T3, t, T6);
+        mul(t, T8, p, pi, t, T6);
+        // 2 * Y1 * J
+        mul(t, T9, p, pi + 8, t, T7);
+        add(t, T9, t, T9, t, T9);
+        // Z3 = (Z1 + H)^2 - Z1Z1 - HH
+        add(r, ri + 16, p, pi + 16, t, T3);
+        sqr(r, ri + 16, r, ri + 16);
+        sub(r, ri + 16, r, ri + 16, t, T0);
+        sub(r, ri + 16, r, ri + 16, t, T5);
+        // X3 = R^2 - J - 2 * V
+        sqr(r, ri, t, T4);
+        sub(r, ri, r, ri, t, T7);
+        sub(r, ri, r, ri, t, T8);
+        sub(r, ri, r, ri, t, T8);
+        // Y3 = R * (V - X3) - 2 * Y1 * J
+        sub(t, T8, t, T8, r, ri);
+        mul(t, T8, t, T4, t, T8);
+        sub(r, ri + 8, t, T8, t, T9);
+    }
+
+    private static void setInfinity(int[] r, int ri) {
+        for (int i = 0; i < 24; i++) {
+            r[ri + i] = 0;
+        }
+        r[ri] = 1;
+        r[ri + 8] = 1;
+    }
+
+    // ------------------------------------------------------------------------
+    // field elements modulo p = 2^256 - 2^32 - 977, fully reduced
+    // ------------------------------------------------------------------------
+
+    /**
+     * z = x * y (mod p); z may be x or y.
+     */
+    void mul(int[] z, int zi, int[] x, int xi, int[] y, int yi) {
+        int[] tt = this.tt;
+
+        long y0 = y[yi] & M, y1 = y[yi + 1] & M, y2 = y[yi + 2] & M, y3 = y[yi + 3] & M;
+        long y4 = y[yi + 4] & M, y5 = y[yi + 5] & M, y6 = y[yi + 6] & M, y7 = y[yi + 7] & M;
+
+        long c = 0, xw = x[xi] & M;
+        c += xw * y0;
+        tt[0] = (int) c;
+        c >>>= 32;
+        c += xw * y1;
+        tt[1] = (int) c;
+        c >>>= 32;
+        c += xw * y2;
+        tt[2] = (int) c;
+        c >>>= 32;
+        c += xw * y3;
+        tt[3] = (int) c;
+        c >>>= 32;
+        c += xw * y4;
+        tt[4] = (int) c;
+        c >>>= 32;
+        c += xw * y5;
+        tt[5] = (int) c;
+        c >>>= 32;
+        c += xw * y6;
+        tt[6] = (int) c;
+        c >>>= 32;
+        c += xw * y7;
+        tt[7] = (int) c;
+        tt[8] = (int) (c >>> 32);
+
+        for (int i = 1; i < 8; i++) {
+            xw = x[xi + i] & M;
+            c = xw * y0 + (tt[i] & M);
+            tt[i] = (int) c;
+            c >>>= 32;
+            c += xw * y1 + (tt[i + 1] & M);
+            tt[i + 1] = (int) c;
+            c >>>= 32;
+            c += xw * y2 + (tt[i + 2] & M);
+            tt[i + 2] = (int) c;
+            c >>>= 32;
+            c += xw * y3 + (tt[i + 3] & M);
+            tt[i + 3] = (int) c;
+            c >>>= 32;
+            c += xw * y4 + (tt[i + 4] & M);
+            tt[i + 4] = (int) c;
+            c >>>= 32;
+            c += xw * y5 + (tt[i + 5] & M);
+            tt[i + 5] = (int) c;
+            c >>>= 32;
+            c += xw * y6 + (tt[i + 6] & M);
+            tt[i + 6] = (int) c;
+            c >>>= 32;
+            c += xw * y7 + (tt[i + 7] & M);
+            tt[i + 7] = (int) c;
+            tt[i + 8] = (int) (c >>> 32);
+        }
+
+        reduce(z, zi, tt);
+    }
+
+    /**
+     * z = x^2 (mod p); z may be x.
+     */
+    void sqr(int[] z, int zi, int[] x, int xi) {
+        int[] tt = this.tt;
+
+        // the products x_i * x_j for i < j
+        long c;
+        for (int i = 0; i < 16; i++) {
+            tt[i] = 0;
+        }
+        for (int i = 0; i < 7; i++) {
+            long xw = x[xi + i] & M;
+            c = 0;
+            for (int j = i + 1; j < 8; j++) {
+                c += xw * (x[xi + j] & M) + (tt[i + j] & M);
+                tt[i + j] = (int) c;
+                c >>>= 32;
+            }
+            tt[i + 8] = (int) c;
+        }
+
+        // doubled, plus the squares x_i^2
+        c = 0;
+        for (int i = 0; i < 8; i++) {
+            long xw = x[xi + i] & M;
+            long sq = xw * xw;
+            c += ((tt[2 * i] & M) << 1) + (sq & M);
+            tt[2 * i] = (int) c;
+            c >>>= 32;
+            c += ((tt[2 * i + 1] & M) << 1) + (sq >>> 32);
+            tt[2 * i + 1] = (int) c;
+            c >>>= 32;
+        }
+
+        reduce(z, zi, tt);
+    }
+
+    /**
+     * z = tt (mod p), where tt holds a product of 16 limbs.
+     */
+    private static void reduce(int[] z, int zi, int[] tt) {
+        // high * 2^256 + low = high * (2^32 + 977) + low
+        long c = (tt[0] & M) + (tt[8] & M) * 977;
+        z[zi] = (int) c;
+        c >>>= 32;
+        for (int i = 1; i < 8; i++) {
+            c += (tt[i] & M) + (tt[i + 8] & M) * 977 + (tt[i + 7] & M);
+            z[zi + i] = (int) c;
+            c >>>= 32;
+        }
+        c += tt[15] & M;
+
+        if (fold(z, zi, c) != 0) {
+            fold(z, zi, 1);
+        }
+        reduce(z, zi);
+    }
+
+    /**
+     * z = x^-1 (mod p), with the addition chain of libsecp256k1 for p - 2.
+     */
+    void inverse(int[] z, int zi, int[] x, int xi) {
+        int[][] c = powChain(x, xi);
+
+        int[] r = sqrMul(c[3], 23, c[2]);
+        r = sqrMul(r, 5, c[0]);
+        r = sqrMul(r, 3, c[1]);
+        r = sqrMul(r, 2, c[0]);
+
+        System.arraycopy(r, 0, z, zi, 8);
+    }
+
+    /**
+     * z = x^((p + 1) / 4), with the addition chain of libsecp256k1.
+     *
+     * @return whether z is a square root of x
+     */
+    boolean sqrt(int[] z, int zi, int[] x) {
+        int[][] c = powChain(x, 0);
+
+        int[] r = sqrMul(c[3], 23, c[2]);
+        r = sqrMul(r, 6, c[1]);
+        sqr(r, 0, r, 0);
+        sqr(r, 0, r, 0);
+
+        System.arraycopy(r, 0, z, zi, 8);
+
+        sqr(r, 0, r, 0);
+        return equals(r, 0, x, 0);
+    }
+
+    /**
+     * Returns x, x^(2^2 - 1), x^(2^22 - 1) and x^(2^223 - 1).
+     */
+    private int[][] powChain(int[] x, int xi) {
+        int[] x1 = new int[8];
+        System.arraycopy(x, xi, x1, 0, 8);
+
+        int[] x2 = sqrMul(x1, 1, x1);
+        int[] x3 = sqrMul(x2, 1, x1);
+        int[] x6 = sqrMul(x3, 3, x3);
+        int[] x9 = sqrMul(x6, 3, x3);
+        int[] x11 = sqrMul(x9, 2, x2);
+        int[] x22 = sqrMul(x11, 11, x11);
+        int[] x44 = sqrMul(x22, 22, x22);
+        int[] x88 = sqrMul(x44, 44, x44);
+        int[] x176 = sqrMul(x88, 88, x88);
+        int[] x220 = sqrMul(x176, 44, x44);
+        int[] x223 = sqrMul(x220, 3, x3);
+
+        return new int[][] { x1, x2, x22, x223 };
+    }
+
+    /**
+     * Returns x^(2^n) * y.
+     */
+    private int[] sqrMul(int[] x, int n, int[] y) {
+        int[] r = x.clone();
+        for (int i = 0; i < n; i++) {
+            sqr(r, 0, r, 0);
+        }
+        mul(r, 0, r, 0, y, 0);
+        return r;
+    }
+
+    static void add(int[] z, int zi, int[] x, int xi, int[] y, int yi) {
+        long c = 0;
+        for (int i = 0; i < 8; i++) {
+            c += (x[xi + i] & M) + (y[yi + i] & M);
+            z[zi + i] = (int) c;
+            c >>>= 32;
+        }
+        if (c != 0) {
+            fold(z, zi, 1);
+        }
+        reduce(z, zi);
+    }
+
+    static void sub(int[] z, int zi, int[] x, int xi, int[] y, int yi) {
+        long c = 0;
+        for (int i = 0; i < 8; i++) {
+            c += (x[xi + i] & M) - (y[yi + i] & M);
+            z[zi + i] = (int) c;
+            c >>= 32;
+        }
+        if (c != 0) {
+            // add p, that is subtract 2^32 + 977 modulo 2^256
+            c = (z[zi] & M) - 977;
+            z[zi] = (int) c;
+            c >>= 32;
+            c += (z[zi + 1] & M) - 1;
+            z[zi + 1] = (int) c;
+            c >>= 32;
+            for (int i = 2; i < 8 && c != 0; i++) {
+                c += z[zi + i] & M;
+                z[zi + i] = (int) c;
+                c >>= 32;
+            }
+        }
+    }
+
+    static void neg(int[] z, int zi, int[] x, int xi) {
+        sub(z, zi, ZERO, 0, x, xi);
+    }
+
+    /**
+     * z += c * (2^32 + 977), returns the carry out of 2^256.
+     */
+    private static int fold(int[] z, int zi, long c) {
+        long d = (z[zi] & M) + c * 977;
+        z[zi] = (int) d;
+        d >>>= 32;
+        d += (z[zi + 1] & M) + c;
+        z[zi + 1] = (int) d;
+        d >>>= 32;
+        for (int i = 2; i < 8 && d != 0; i++) {
+            d += z[zi + i] & M;
+            z[zi + i] = (int) d;
+            d >>>= 32;
+        }
+        return (int) d;
+    }
+
+    /**
+     * Subtracts p from z if z >= p.
+     */
+    private static void reduce(int[] z, int zi) {
+        for (int i = 7; i >= 2; i--) {
+            if (z[zi + i] != -1) {
+                return;
+            }
+        }
+        long z1 = z[zi + 1] & M;
+        if (z1 < 0xfffffffeL || (z1 == 0xfffffffeL && (z[zi] & M) < 0xfffffc2fL)) {
+            return;
+        }
+        // subtract p, that is add 2^32 + 977 modulo 2^256
+        fold(z, zi, 1);
+    }
+
+    static boolean isZero(int[] x, int xi) {
+        int v = 0;
+        for (int i = 0; i < 8; i++) {
+            v |= x[xi + i];
+        }
+        return v == 0;
+    }
+
+    static boolean equals(int[] x, int xi, int[] y, int yi) {
+        for (int i = 0; i < 8; i++) {
+            if (x[xi + i] != y[yi + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void setOne(int[] z, int zi) {
+        z[zi] = 1;
+        for (int i = 1; i < 8; i++) {
+            z[zi + i] = 0;
+        }
+    }
+
+    private static int[] limbs(BigInteger v) {
+        int[] r = new int[8];
+        fromBigInteger(r, 0, v);
+        return r;
+    }
+
+    static void fromBigInteger(int[] z, int zi, BigInteger v) {
+        for (int i = 0; i < 8; i++) {
+            z[zi + i] = v.shiftRight(32 * i).intValue();
+        }
+    }
+
+    static BigInteger toBigInteger(int[] x, int xi) {
+        byte[] b = new byte[32];
+        toBytes(x, xi, b, 0);
+        return new BigInteger(1, b);
+    }
+
+    private static void toBytes(int[] x, int xi, byte[] out, int offset) {
+        for (int i = 0; i < 8; i++) {
+            int w = x[xi + 7 - i];
+            out[offset + 4 * i] = (byte) (w >>> 24);
+            out[offset + 4 * i + 1] = (byte) (w >>> 16);
+            out[offset + 4 * i + 2] = (byte) (w >>> 8);
+            out[offset + 4 * i + 3] = (byte) w;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto;
+
+import java.math.BigInteger;
+
+/**
+ * Width-w non-adjacent form of scalars, shared by the scalar multiplications of
+ * the elliptic curves.
+ */
+public final class Wnaf {
+
+    private Wnaf() {
+    }
+
+    /**
+     * Computes the width-w non-adjacent form of a non-negative number, least
+     * significant digit first; non-zero digits are odd and less than 2^(w-1) by
+     * absolute value.
+     *
+     * @param k
+     *            the number, not negative
+     * @param w
+     *            the window width, between 2 and 8
+     * @return the digits
+     */
+    public static byte[] encode(BigInteger k, int w) {
+        byte[] digits = new byte[k.bitLength() + 1];
+        int mod = 1 << w;
+        int len = 0;
+
+        while (k.signum() > 0) {
+            int d = 0;
+            if (k.testBit(0)) {
+                d = k.intValue() & (mod - 1);
+                if (d >= mod >>> 1) {
+                    d -= mod;
+                }
+                k = k.subtract(BigInteger.valueOf(d));
+            }
+            digits[len++] = (byte) d;
+            k = k.shiftRight(1);
+        }
+
+        byte[] res = new byte[len];
+        System.arraycopy(digits, 0, res, 0, len);
+        return res;
+    }
+}
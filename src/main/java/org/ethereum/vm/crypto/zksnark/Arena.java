@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-thread scratch space for the mutable tower elements. <br/>
+ * <br/>
+ *
+ * Temporaries are taken from stacks which grow on demand and are never shrunk,
+ * an operation takes a {@link #mark()} on entry and {@link #reset(long)}s the
+ * stacks on exit. Temporaries are not cleared, their content is undefined until
+ * written. {@link #tmp} is reserved for the leaf operations of
+ * {@link MutableFp2}, which don't call each other.
+ */
+final class Arena {
+
+    private static final ThreadLocal<Arena> ARENA = ThreadLocal.withInitial(Arena::new);
+
+    // scratch slots of four F_p elements
+    final long[] tmp = new long[16];
+
+    private final List<MutableFp2> fp2 = new ArrayList<>();
+    private final List<MutableFp6> fp6 = new ArrayList<>();
+    private final List<MutableFp12> fp12 = new ArrayList<>();
+
+    private int fp2Top = 0;
+    private int fp6Top = 0;
+    private int fp12Top = 0;
+
+    private Arena() {
+    }
+
+    /**
+     * Returns the arena of the current thread.
+     */
+    static Arena get() {
+        return ARENA.get();
+    }
+
+    MutableFp2 fp2() {
+        if (fp2Top == fp2.size()) {
+            fp2.add(new MutableFp2());
+        }
+        return fp2.get(fp2Top++);
+    }
+
+    MutableFp6 fp6() {
+        if (fp6Top == fp6.size()) {
+            fp6.add(new MutableFp6());
+        }
+        return fp6.get(fp6Top++);
+    }
+
+    MutableFp12 fp12() {
+        if (fp12Top == fp12.size()) {
+            fp12.add(new MutableFp12());
+        }
+        return fp12.get(fp12Top++);
+    }
+
+    /**
+     * Returns the current state of the stacks.
+     */
+    long mark() {
+        return fp2Top | ((long) fp6Top << 21) | ((long) fp12Top << 42);
+    }
+
+    /**
+     * Releases all the temporaries taken after the mark.
+     */
+    void reset(long mark) {
+        fp2Top = (int) (mark & 0x1fffff);
+        fp6Top = (int) ((mark >>> 21) & 0x1fffff);
+        fp12Top = (int) (mark >>> 42);
+    }
+}
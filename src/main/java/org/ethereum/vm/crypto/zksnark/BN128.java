@@ -18,6 +18,11 @@
 package org.ethereum.vm.crypto.zksnark;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.ethereum.vm.crypto.Wnaf;
 
 /**
  * Implementation of Barreto–Naehrig curve defined over abstract finite field.
@@ -50,6 +55,11 @@ import java.math.BigInteger;
  * "https://github.com/scipr-lab/libff/blob/master/libff/algebra/curves/alt_bn128/alt_bn128_g1.cpp">libff</a>
  * does, use {@link #toEthNotation()} to convert Jacobian coords to Ethereum
  * encoding <br/>
+ * <br/>
+ *
+ * Scalar multiplication uses wNAF with a per-call table of odd multiples, which
+ * is normalized to affine coordinates with a single inversion, so that the
+ * additions of the main loop are mixed Jacobian-affine ones <br/>
  *
  * @author Mikhail Kalinin
  * @since 05.09.2017
@@ -88,6 +98,10 @@ public abstract class BN128<T extends Field<T>> {
             return instance(zero.x, one(), zero.z); // (0; 1; 0)
         }
 
+        if (z.equals(one())) {
+            return this;
+        }
+
         T zInv = z.inverse();
         T zInv2 = zInv.squared();
         T zInv3 = zInv2.mul(zInv);
@@ -112,6 +126,50 @@ public abstract class BN128<T extends Field<T>> {
         }
     }
 
+    /**
+     * Transforms given Jacobian points to affine coordinates with a single field
+     * inversion (Montgomery's trick), see {@link #toAffine()}.
+     */
+    public static <T extends Field<T>> List<BN128<T>> toAffine(List<? extends BN128<T>> points) {
+
+        List<BN128<T>> res = new ArrayList<>(points.size());
+
+        // running products of z coordinates of the non-zero points
+        List<T> acc = new ArrayList<>(points.size());
+        T prod = null;
+        for (BN128<T> p : points) {
+            if (!p.isZero()) {
+                prod = prod == null ? p.z : prod.mul(p.z);
+            }
+            acc.add(prod);
+        }
+
+        T inv = prod == null ? null : prod.inverse();
+
+        for (int i = points.size() - 1; i >= 0; i--) {
+            BN128<T> p = points.get(i);
+
+            if (p.isZero()) {
+                res.add(p.toAffine());
+                continue;
+            }
+
+            // inverse of z of the current point
+            T zInv = i > 0 && acc.get(i - 1) != null ? inv.mul(acc.get(i - 1)) : inv;
+            inv = inv.mul(p.z);
+
+            T zInv2 = zInv.squared();
+            T zInv3 = zInv2.mul(zInv);
+
+            res.add(p.instance(p.x.mul(zInv2), p.y.mul(zInv3), p.one()));
+        }
+
+        // filled in reverse order
+        Collections.reverse(res);
+
+        return res;
+    }
+
     protected boolean isOnCurve() {
 
         if (isZero())
@@ -131,6 +189,11 @@ public abstract class BN128<T extends Field<T>> {
         if (o.isZero())
             return this; // P + 0 = P
 
+        if (o.z.equals(one()))
+            return addMixed(o);
+        if (this.z.equals(one()))
+            return o.addMixed(this);
+
         T x1 = this.x, y1 = this.y, z1 = this.z;
         T x2 = o.x, y2 = o.y, z2 = o.z;
 
@@ -168,6 +231,42 @@ public abstract class BN128<T extends Field<T>> {
         return instance(x3, y3, z3);
     }
 
+    /**
+     * Adds an affine point, that is a point with z = 1, using the "madd-2007-bl"
+     * formulas.
+     */
+    private BN128<T> addMixed(BN128<T> o) {
+
+        T x1 = this.x, y1 = this.y, z1 = this.z;
+        T x2 = o.x, y2 = o.y;
+
+        T z1z1 = z1.squared(); // z1z1 = z1^2
+        T u2 = x2.mul(z1z1); // u2 = x2 * z1z1
+        T s2 = y2.mul(z1).mul(z1z1); // s2 = y2 * z1 * z1z1
+
+        T h = u2.sub(x1); // h = u2 - x1
+        T r = s2.sub(y1).dbl(); // r = 2 * (s2 - y1)
+
+        if (h.isZero()) {
+            return r.isZero() ? dbl() : zero(); // P + P = 2P, P + (-P) = 0
+        }
+
+        T hh = h.squared(); // hh = h^2
+        T i = hh.dbl().dbl(); // i = 4 * hh
+        T j = h.mul(i); // j = h * i
+        T v = x1.mul(i); // v = x1 * i
+
+        T x3 = r.squared().sub(j).sub(v.dbl()); // x3 = r^2 - j - 2 * v
+        T y3 = r.mul(v.sub(x3)).sub(y1.mul(j).dbl()); // y3 = r * (v - x3) - 2 * y1 * j
+        T z3 = z1.add(h).squared().sub(z1z1).sub(hh); // z3 = (z1 + h)^2 - z1z1 - hh
+
+        return instance(x3, y3, z3);
+    }
+
+    public BN128<T> negate() {
+        return isZero() ? this : instance(x, y.negate(), z);
+    }
+
     public BN128<T> mul(BigInteger s) {
 
         if (s.compareTo(BigInteger.ZERO) == 0) // P * 0 = 0
@@ -176,14 +275,31 @@ public abstract class BN128<T extends Field<T>> {
         if (isZero())
             return this; // 0 * s = 0
 
+        int w = s.bitLength() > 192 ? 5 : s.bitLength() > 64 ? 4 : 2;
+        byte[] naf = Wnaf.encode(s, w);
+
+        // odd multiples: P, 3P, 5P, ..., (2^(w-1) - 1)P
+        List<BN128<T>> table = new ArrayList<>(1 << (w - 2));
+        table.add(this);
+        if (w > 2) {
+            BN128<T> dbl = dbl();
+            for (int i = 1; i < 1 << (w - 2); i++) {
+                table.add(table.get(i - 1).add(dbl));
+            }
+            table = toAffine(table);
+        }
+
         BN128<T> res = zero();
 
-        for (int i = s.bitLength() - 1; i >= 0; i--) {
+        for (int i = naf.length - 1; i >= 0; i--) {
 
             res = res.dbl();
 
-            if (s.testBit(i)) {
-                res = res.add(this);
+            int d = naf[i];
+            if (d > 0) {
+                res = res.add(table.get(d >>> 1));
+            } else if (d < 0) {
+                res = res.add(table.get(-d >>> 1).negate());
             }
         }
 
@@ -76,12 +76,32 @@ public class BN128G2 extends BN128Fp2 {
         return new BN128G2(p);
     }
 
-    private static boolean isGroupMember(BN128<Fp2> p) {
-        BN128<Fp2> left = p.mul(FR_NEG_ONE).add(p);
-        return left.isZero(); // should satisfy condition: -1 * p + p == 0, where -1 belongs to F_r
+    /**
+     * Checks the subgroup membership with the endomorphism psi (see
+     * {@link #mulByP()}), which acts on the subgroup as multiplication by "p".
+     * Point is a member iff <br/>
+     * [x + 1] * p + psi([x] * p) + psi^2([x] * p) == psi^3([2x] * p), <br/>
+     * where "x" is the BN parameter, <a href="https://eprint.iacr.org/2022/352">
+     * see</a>. That takes a 63-bit scalar multiplication instead of a 254-bit one.
+     */
+    static boolean isGroupMember(BN128<Fp2> p) {
+        BN128G2 q = new BN128G2(p);
+        BN128G2 xq = new BN128G2(q.mul(BN_X));
+
+        BN128G2 psiXq = xq.mulByP();
+        BN128G2 psi2Xq = psiXq.mulByP();
+        BN128G2 psi3X2q = new BN128G2(xq.add(xq)).mulByP().mulByP().mulByP();
+
+        BN128<Fp2> left = xq.add(q).add(psiXq).add(psi2Xq);
+        BN128<Fp2> right = new BN128G2(psi3X2q.x, psi3X2q.y.negate(), psi3X2q.z);
+
+        return left.add(right).isZero();
     }
 
-    static final BigInteger FR_NEG_ONE = BigInteger.ONE.negate().mod(Params.R);
+    /**
+     * BN parameter "x", {@link PairingCheck#LOOP_COUNT} equals 6x + 2
+     */
+    static final BigInteger BN_X = new BigInteger("4965661367192848881");
 
     BN128G2 mulByP() {
 
@@ -17,15 +17,17 @@
  */
 package org.ethereum.vm.crypto.zksnark;
 
-import static org.ethereum.vm.crypto.zksnark.Params.P;
+import static org.ethereum.vm.crypto.zksnark.FpArith.MODULUS;
 
 import java.math.BigInteger;
-import java.util.Objects;
 
 /**
  * Arithmetic in F_p, p =
  * 21888242871839275222246405745257275088696311157297823662689037894645226208583
  *
+ * @ImplNote Elements are kept in Montgomery form as four 64-bit limbs, see
+ *           {@link FpArith}.
+ *
  * @author Mikhail Kalinin
  * @since 01.09.2017
  */
@@ -36,52 +38,81 @@ public class Fp implements Field<Fp> {
     static final Fp NON_RESIDUE = new Fp(
             new BigInteger("21888242871839275222246405745257275088696311157297823662689037894645226208582"));
 
-    static final Fp _2_INV = new Fp(BigInteger.valueOf(2).modInverse(P));
+    static final Fp _2_INV = new Fp(BigInteger.valueOf(2).modInverse(MODULUS));
+
+    final long v0, v1, v2, v3;
+
+    // false if the value this element has been created from is not less than p
+    private final boolean valid;
+
+    Fp(long v0, long v1, long v2, long v3) {
+        this.v0 = v0;
+        this.v1 = v1;
+        this.v2 = v2;
+        this.v3 = v3;
+        this.valid = true;
+    }
 
-    BigInteger v;
+    private Fp(long[] v) {
+        this(v[0], v[1], v[2], v[3]);
+    }
 
     Fp(BigInteger v) {
-        this.v = v;
+        boolean valid = v.compareTo(MODULUS) < 0;
+        long[] r = new long[4];
+        FpArith.fromBigInteger(r, 0, v.signum() >= 0 && valid ? v : v.mod(MODULUS));
+
+        this.v0 = r[0];
+        this.v1 = r[1];
+        this.v2 = r[2];
+        this.v3 = r[3];
+        this.valid = valid;
     }
 
     @Override
     public Fp add(Fp o) {
-        return new Fp(this.v.add(o.v).mod(P));
+        long[] r = new long[4];
+        FpArith.add(r, 0, v0, v1, v2, v3, o.v0, o.v1, o.v2, o.v3);
+        return new Fp(r);
     }
 
     @Override
     public Fp mul(Fp o) {
-        return new Fp(this.v.multiply(o.v).mod(P));
+        long[] r = new long[4];
+        FpArith.mul(r, 0, v0, v1, v2, v3, o.v0, o.v1, o.v2, o.v3);
+        return new Fp(r);
     }
 
     @Override
     public Fp sub(Fp o) {
-        return new Fp(this.v.subtract(o.v).mod(P));
+        long[] r = new long[4];
+        FpArith.sub(r, 0, v0, v1, v2, v3, o.v0, o.v1, o.v2, o.v3);
+        return new Fp(r);
     }
 
     @Override
     public Fp squared() {
-        return new Fp(v.multiply(v).mod(P));
+        return mul(this);
     }
 
     @Override
     public Fp dbl() {
-        return new Fp(v.add(v).mod(P));
+        return add(this);
     }
 
     @Override
     public Fp inverse() {
-        return new Fp(v.modInverse(P));
+        return new Fp(toBigInteger().modInverse(MODULUS));
     }
 
     @Override
     public Fp negate() {
-        return new Fp(v.negate().mod(P));
+        return ZERO.sub(this);
     }
 
     @Override
     public boolean isZero() {
-        return v.compareTo(BigInteger.ZERO) == 0;
+        return valid && (v0 | v1 | v2 | v3) == 0;
     }
 
     /**
@@ -89,7 +120,7 @@ public class Fp implements Field<Fp> {
      */
     @Override
     public boolean isValid() {
-        return v.compareTo(P) < 0;
+        return valid;
     }
 
     Fp2 mul(Fp2 o) {
@@ -105,7 +136,33 @@ public class Fp implements Field<Fp> {
     }
 
     public byte[] bytes() {
-        return v.toByteArray();
+        return toBigInteger().toByteArray();
+    }
+
+    /**
+     * Converts this element out of Montgomery form.
+     */
+    BigInteger toBigInteger() {
+        byte[] bytes = new byte[32];
+        writeTo(bytes, 0);
+        return new BigInteger(1, bytes);
+    }
+
+    /**
+     * Writes the value of this element as a 32-byte big-endian integer.
+     */
+    void writeTo(byte[] out, int offset) {
+        FpArith.toBytes(new long[] { v0, v1, v2, v3 }, 0, out, offset);
+    }
+
+    /**
+     * Copies the limbs of this element into the given slot.
+     */
+    void copyTo(long[] r, int ri) {
+        r[ri] = v0;
+        r[ri + 1] = v1;
+        r[ri + 2] = v2;
+        r[ri + 3] = v3;
     }
 
     @Override
@@ -117,16 +174,17 @@ public class Fp implements Field<Fp> {
 
         Fp fp = (Fp) o;
 
-        return !(v != null ? v.compareTo(fp.v) != 0 : fp.v != null);
+        return v0 == fp.v0 && v1 == fp.v1 && v2 == fp.v2 && v3 == fp.v3 && valid == fp.valid;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(v);
+        long h = v0 ^ (v1 * 31) ^ (v2 * 961) ^ (v3 * 29791);
+        return (int) (h ^ (h >>> 32));
     }
 
     @Override
     public String toString() {
-        return v.toString();
+        return toBigInteger().toString();
     }
 }
@@ -18,6 +18,7 @@
 package org.ethereum.vm.crypto.zksnark;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -41,6 +42,8 @@ public class Fp12 implements Field<Fp12> {
     static final Fp12 ZERO = new Fp12(Fp6.ZERO, Fp6.ZERO);
     static final Fp12 _1 = new Fp12(Fp6._1, Fp6.ZERO);
 
+    static final byte[] Z_NAF = naf(Params.PAIRING_FINAL_EXPONENT_Z);
+
     Fp6 a;
     Fp6 b;
 
@@ -200,6 +203,12 @@ public class Fp12 implements Field<Fp12> {
         return new Fp12(ra, rb);
     }
 
+    /**
+     * Squaring of an element of the cyclotomic subgroup, that is of any element
+     * after the easy part of the final exponentiation. Ported from libff, uses the
+     * Granger-Scott formulas: three Fp4 squarings computed with Fp2 squarings only,
+     * instead of a generic Fp12 squaring.
+     */
     Fp12 cyclotomicSquared() {
 
         Fp2 z0 = a.a;
@@ -209,20 +218,23 @@ public class Fp12 implements Field<Fp12> {
         Fp2 z1 = b.b;
         Fp2 z5 = b.c;
 
-        Fp2 t0, t1, t2, t3, t4, t5, tmp;
+        Fp2 t0, t1, t2, t3, t4, t5, s0, s1, tmp;
 
         // t0 + t1*y = (z0 + z1*y)^2 = a^2
-        tmp = z0.mul(z1);
-        t0 = z0.add(z1).mul(z0.add(Fp6.NON_RESIDUE.mul(z1))).sub(tmp).sub(Fp6.NON_RESIDUE.mul(tmp));
-        t1 = tmp.add(tmp);
+        s0 = z0.squared();
+        s1 = z1.squared();
+        t0 = s1.mulByNonResidue().add(s0);
+        t1 = z0.add(z1).squared().sub(s0).sub(s1);
         // t2 + t3*y = (z2 + z3*y)^2 = b^2
-        tmp = z2.mul(z3);
-        t2 = z2.add(z3).mul(z2.add(Fp6.NON_RESIDUE.mul(z3))).sub(tmp).sub(Fp6.NON_RESIDUE.mul(tmp));
-        t3 = tmp.add(tmp);
+        s0 = z2.squared();
+        s1 = z3.squared();
+        t2 = s1.mulByNonResidue().add(s0);
+        t3 = z2.add(z3).squared().sub(s0).sub(s1);
         // t4 + t5*y = (z4 + z5*y)^2 = c^2
-        tmp = z4.mul(z5);
-        t4 = z4.add(z5).mul(z4.add(Fp6.NON_RESIDUE.mul(z5))).sub(tmp).sub(Fp6.NON_RESIDUE.mul(tmp));
-        t5 = tmp.add(tmp);
+        s0 = z4.squared();
+        s1 = z5.squared();
+        t4 = s1.mulByNonResidue().add(s0);
+        t5 = z4.add(z5).squared().sub(s0).sub(s1);
 
         // for A
 
@@ -238,7 +250,7 @@ public class Fp12 implements Field<Fp12> {
         // for B
 
         // z2 = 3 * (xi * t5) + 2 * z2
-        tmp = Fp6.NON_RESIDUE.mul(t5);
+        tmp = t5.mulByNonResidue();
         z2 = tmp.add(z2);
         z2 = z2.add(z2);
         z2 = z2.add(tmp);
@@ -263,21 +275,60 @@ public class Fp12 implements Field<Fp12> {
         return new Fp12(new Fp6(z0, z4, z3), new Fp6(z2, z1, z5));
     }
 
+    /**
+     * Exponentiation of an element of the cyclotomic subgroup. Inversion of such
+     * elements is a mere conjugation (see {@link #unitaryInverse()}), thus the
+     * exponent is scanned in non-adjacent form, which has fewer non-zero digits
+     * than the binary one.
+     */
     Fp12 cyclotomicExp(BigInteger pow) {
+        return cyclotomicExp(pow.equals(Params.PAIRING_FINAL_EXPONENT_Z) ? Z_NAF : naf(pow));
+    }
+
+    private Fp12 cyclotomicExp(byte[] naf) {
+
+        if (naf.length == 0) {
+            return _1;
+        }
+
+        Fp12 inv = this.unitaryInverse();
 
-        Fp12 res = _1;
+        // the most significant digit is always 1
+        Fp12 res = this;
 
-        for (int i = pow.bitLength() - 1; i >= 0; i--) {
+        for (int i = naf.length - 2; i >= 0; i--) {
             res = res.cyclotomicSquared();
 
-            if (pow.testBit(i)) {
+            if (naf[i] > 0) {
                 res = res.mul(this);
+            } else if (naf[i] < 0) {
+                res = res.mul(inv);
             }
         }
 
         return res;
     }
 
+    /**
+     * Non-adjacent form of a non-negative number, least significant digit first.
+     */
+    static byte[] naf(BigInteger k) {
+        byte[] digits = new byte[k.bitLength() + 1];
+        int len = 0;
+
+        while (k.signum() > 0) {
+            byte d = 0;
+            if (k.testBit(0)) {
+                d = (byte) (k.testBit(1) ? -1 : 1); // 2 - (k mod 4)
+                k = k.subtract(BigInteger.valueOf(d));
+            }
+            digits[len++] = d;
+            k = k.shiftRight(1);
+        }
+
+        return Arrays.copyOf(digits, len);
+    }
+
     Fp12 unitaryInverse() {
 
         Fp6 ra = a;
@@ -67,8 +67,9 @@ public class Fp2 implements Field<Fp2> {
 
         Fp ab = a.mul(b);
 
-        Fp ra = a.add(b).mul(b.mul(Fp.NON_RESIDUE).add(a))
-                .sub(ab).sub(ab.mul(Fp.NON_RESIDUE)); // ra = (a + b)(a + NON_RESIDUE * b) - ab - NON_RESIDUE * b
+        // NON_RESIDUE of Fp equals -1, thus
+        // ra = (a + b)(a + NON_RESIDUE * b) - ab - NON_RESIDUE * ab = (a + b)(a - b)
+        Fp ra = a.add(b).mul(a.sub(b));
         Fp rb = ab.dbl();
 
         return new Fp2(ra, rb);
@@ -80,7 +81,7 @@ public class Fp2 implements Field<Fp2> {
         Fp aa = a.mul(o.a);
         Fp bb = b.mul(o.b);
 
-        Fp ra = bb.mul(Fp.NON_RESIDUE).add(aa); // ra = a1 * a2 + NON_RESIDUE * b1 * b2
+        Fp ra = aa.sub(bb); // ra = a1 * a2 + NON_RESIDUE * b1 * b2, where NON_RESIDUE = -1
         Fp rb = a.add(b).mul(o.a.add(o.b)).sub(aa).sub(bb); // rb = (a1 + b1)(a2 + b2) - a1 * a2 - b1 * b2
 
         return new Fp2(ra, rb);
@@ -175,7 +176,12 @@ public class Fp2 implements Field<Fp2> {
     }
 
     Fp2 mulByNonResidue() {
-        return NON_RESIDUE.mul(this);
+
+        // (9 + i) * (a + b * i) = (9a - b) + (a + 9b) * i
+        Fp ra = a.dbl().dbl().dbl().add(a).sub(b);
+        Fp rb = b.dbl().dbl().dbl().add(b).add(a);
+
+        return new Fp2(ra, rb);
     }
 
     @Override
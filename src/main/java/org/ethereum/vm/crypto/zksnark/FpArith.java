@@ -0,0 +1,336 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+import java.math.BigInteger;
+
+/**
+ * Limb arithmetic in F_p shared by {@link Fp} and the mutable tower elements
+ * ({@link MutableFp2}, {@link MutableFp6}, {@link MutableFp12}). <br/>
+ * <br/>
+ *
+ * An element takes four consecutive slots of a {@code long[]}: the
+ * little-endian 64-bit limbs of its Montgomery form {@code x * 2^256 mod p}.
+ * Every operation reads all of its operands before writing the result, thus the
+ * result may overlap any operand. <br/>
+ * <br/>
+ *
+ * Multiplication uses the CIOS method. Since {@code p < 2^254}, the carry-out
+ * words of CIOS are always zero and are dropped, additions never overflow 256
+ * bits and a single conditional subtraction keeps every result in
+ * {@code [0, p)}.
+ */
+final class FpArith {
+
+    private static final long MASK_32 = 0xffffffffL;
+
+    /**
+     * Equals {@link Params#P}, defined here as Params depends on Fp at
+     * initialization
+     */
+    static final BigInteger MODULUS = new BigInteger(
+            "21888242871839275222246405745257275088696311157297823662689037894645226208583");
+
+    // p, little-endian limbs
+    private static final long P0 = MODULUS.longValue();
+    private static final long P1 = MODULUS.shiftRight(64).longValue();
+    private static final long P2 = MODULUS.shiftRight(128).longValue();
+    private static final long P3 = MODULUS.shiftRight(192).longValue();
+
+    // -p^-1 mod 2^64
+    private static final long INV = MODULUS.negate().modInverse(BigInteger.ONE.shiftLeft(64)).longValue();
+
+    // 2^512 mod p, converts a value into Montgomery form
+    private static final long[] R2 = limbs(BigInteger.ONE.shiftLeft(512).mod(MODULUS));
+
+    private FpArith() {
+    }
+
+    static void add(long[] r, int ri, long[] a, int ai, long[] b, int bi) {
+        add(r, ri, a[ai], a[ai + 1], a[ai + 2], a[ai + 3], b[bi], b[bi + 1], b[bi + 2], b[bi + 3]);
+    }
+
+    static void add(long[] r, int ri, long a0, long a1, long a2, long a3, long b0, long b1, long b2, long b3) {
+        // both operands are less than p < 2^254, so the sum fits into 256 bits
+        long r0 = a0 + b0;
+        long c = carry(r0, a0);
+        long r1 = a1 + b1 + c;
+        c = carry(r1, a1, c);
+        long r2 = a2 + b2 + c;
+        c = carry(r2, a2, c);
+        long r3 = a3 + b3 + c;
+
+        reduce(r, ri, r0, r1, r2, r3);
+    }
+
+    static void sub(long[] r, int ri, long[] a, int ai, long[] b, int bi) {
+        sub(r, ri, a[ai], a[ai + 1], a[ai + 2], a[ai + 3], b[bi], b[bi + 1], b[bi + 2], b[bi + 3]);
+    }
+
+    static void sub(long[] r, int ri, long a0, long a1, long a2, long a3, long b0, long b1, long b2, long b3) {
+        long r0 = a0 - b0;
+        long b = borrow(a0, r0);
+        long r1 = a1 - b1 - b;
+        b = borrow(a1, r1, b);
+        long r2 = a2 - b2 - b;
+        b = borrow(a2, r2, b);
+        long r3 = a3 - b3 - b;
+        b = borrow(a3, r3, b);
+
+        if (b != 0) {
+            // negative result, add p back
+            long s0 = r0 + P0;
+            long c = carry(s0, r0);
+            long s1 = r1 + P1 + c;
+            c = carry(s1, r1, c);
+            long s2 = r2 + P2 + c;
+            c = carry(s2, r2, c);
+            r3 = r3 + P3 + c;
+            r0 = s0;
+            r1 = s1;
+            r2 = s2;
+        }
+
+        r[ri] = r0;
+        r[ri + 1] = r1;
+        r[ri + 2] = r2;
+        r[ri + 3] = r3;
+    }
+
+    static void dbl(long[] r, int ri, long[] a, int ai) {
+        add(r, ri, a, ai, a, ai);
+    }
+
+    static void neg(long[] r, int ri, long[] a, int ai) {
+        sub(r, ri, 0, 0, 0, 0, a[ai], a[ai + 1], a[ai + 2], a[ai + 3]);
+    }
+
+    static void mul(long[] r, int ri, long[] a, int ai, long[] b, int bi) {
+        mul(r, ri, a[ai], a[ai + 1], a[ai + 2], a[ai + 3], b[bi], b[bi + 1], b[bi + 2], b[bi + 3]);
+    }
+
+    /**
+     * Montgomery product {@code a * b * 2^-256 mod p}, coarsely integrated operand
+     * scanning.
+     */
+    static void mul(long[] r, int ri, long a0, long a1, long a2, long a3, long b0, long b1, long b2, long b3) {
+        long t0 = 0, t1 = 0, t2 = 0, t3 = 0;
+
+        for (int i = 0; i < 4; i++) {
+            long bi = i == 0 ? b0 : i == 1 ? b1 : i == 2 ? b2 : b3;
+
+            // t += a * b[i], the carry word is kept aside in "hiA"
+            long lo = a0 * bi;
+            long hi = mulHigh(a0, bi);
+            lo += t0;
+            hi += carry(lo, t0);
+            t0 = lo;
+            long hiA = hi;
+
+            // m makes the low word vanish when m * p is added
+            long m = t0 * INV;
+            lo = m * P0;
+            hi = mulHigh(m, P0);
+            lo += t0;
+            long hiM = hi + carry(lo, t0);
+
+            // word 1
+            lo = a1 * bi;
+            hi = mulHigh(a1, bi);
+            lo += t1;
+            hi += carry(lo, t1);
+            lo += hiA;
+            hi += carry(lo, hiA);
+            t1 = lo;
+            hiA = hi;
+            lo = m * P1;
+            hi = mulHigh(m, P1);
+            lo += t1;
+            hi += carry(lo, t1);
+            lo += hiM;
+            hi += carry(lo, hiM);
+            t0 = lo;
+            hiM = hi;
+
+            // word 2
+            lo = a2 * bi;
+            hi = mulHigh(a2, bi);
+            lo += t2;
+            hi += carry(lo, t2);
+            lo += hiA;
+            hi += carry(lo, hiA);
+            t2 = lo;
+            hiA = hi;
+            lo = m * P2;
+            hi = mulHigh(m, P2);
+            lo += t2;
+            hi += carry(lo, t2);
+            lo += hiM;
+            hi += carry(lo, hiM);
+            t1 = lo;
+            hiM = hi;
+
+            // word 3
+            lo = a3 * bi;
+            hi = mulHigh(a3, bi);
+            lo += t3;
+            hi += carry(lo, t3);
+            lo += hiA;
+            hi += carry(lo, hiA);
+            t3 = lo;
+            hiA = hi;
+            lo = m * P3;
+            hi = mulHigh(m, P3);
+            lo += t3;
+            hi += carry(lo, t3);
+            lo += hiM;
+            hi += carry(lo, hiM);
+            t2 = lo;
+            hiM = hi;
+
+            // top word, can't overflow as p < 2^254
+            t3 = hiA + hiM;
+        }
+
+        reduce(r, ri, t0, t1, t2, t3);
+    }
+
+    static void copy(long[] r, int ri, long[] a, int ai) {
+        System.arraycopy(a, ai, r, ri, 4);
+    }
+
+    static boolean isZero(long[] a, int ai) {
+        return (a[ai] | a[ai + 1] | a[ai + 2] | a[ai + 3]) == 0;
+    }
+
+    static boolean equals(long[] a, int ai, long[] b, int bi) {
+        return a[ai] == b[bi] && a[ai + 1] == b[bi + 1] && a[ai + 2] == b[bi + 2] && a[ai + 3] == b[bi + 3];
+    }
+
+    /**
+     * Converts a value in {@code [0, p)} into Montgomery form.
+     */
+    static void fromBigInteger(long[] r, int ri, BigInteger v) {
+        long[] l = limbs(v);
+        mul(r, ri, l[0], l[1], l[2], l[3], R2[0], R2[1], R2[2], R2[3]);
+    }
+
+    /**
+     * Converts an element out of Montgomery form, as a 32-byte big-endian integer.
+     */
+    static void toBytes(long[] a, int ai, byte[] out, int offset) {
+        long[] r = new long[4];
+        mul(r, 0, a[ai], a[ai + 1], a[ai + 2], a[ai + 3], 1, 0, 0, 0);
+
+        for (int i = 0; i < 4; i++) {
+            long limb = r[i];
+            for (int j = 0; j < 8; j++) {
+                out[offset + 31 - i * 8 - j] = (byte) (limb >>> (j * 8));
+            }
+        }
+    }
+
+    /**
+     * Subtracts p from a value in {@code [0, 2p)}, if necessary.
+     */
+    private static void reduce(long[] r, int ri, long r0, long r1, long r2, long r3) {
+        if (!lessThanP(r0, r1, r2, r3)) {
+            long s0 = r0 - P0;
+            long b = borrow(r0, s0);
+            long s1 = r1 - P1 - b;
+            b = borrow(r1, s1, b);
+            long s2 = r2 - P2 - b;
+            b = borrow(r2, s2, b);
+            r3 = r3 - P3 - b;
+            r0 = s0;
+            r1 = s1;
+            r2 = s2;
+        }
+
+        r[ri] = r0;
+        r[ri + 1] = r1;
+        r[ri + 2] = r2;
+        r[ri + 3] = r3;
+    }
+
+    private static boolean lessThanP(long r0, long r1, long r2, long r3) {
+        if (r3 != P3) {
+            return Long.compareUnsigned(r3, P3) < 0;
+        }
+        if (r2 != P2) {
+            return Long.compareUnsigned(r2, P2) < 0;
+        }
+        if (r1 != P1) {
+            return Long.compareUnsigned(r1, P1) < 0;
+        }
+        return Long.compareUnsigned(r0, P0) < 0;
+    }
+
+    /**
+     * Carry of {@code sum = x + y}.
+     */
+    private static long carry(long sum, long x) {
+        return Long.compareUnsigned(sum, x) < 0 ? 1 : 0;
+    }
+
+    /**
+     * Carry of {@code sum = x + y + c}, where c is either 0 or 1.
+     */
+    private static long carry(long sum, long x, long c) {
+        return (c == 0 ? Long.compareUnsigned(sum, x) < 0 : Long.compareUnsigned(sum, x) <= 0) ? 1 : 0;
+    }
+
+    /**
+     * Borrow of {@code diff = x - y}.
+     */
+    private static long borrow(long x, long diff) {
+        return Long.compareUnsigned(diff, x) > 0 ? 1 : 0;
+    }
+
+    /**
+     * Borrow of {@code diff = x - y - b}, where b is either 0 or 1.
+     */
+    private static long borrow(long x, long diff, long b) {
+        return (b == 0 ? Long.compareUnsigned(diff, x) > 0 : Long.compareUnsigned(diff, x) >= 0) ? 1 : 0;
+    }
+
+    /**
+     * High word of the unsigned 128-bit product {@code x * y}.
+     */
+    private static long mulHigh(long x, long y) {
+        long x0 = x & MASK_32, x1 = x >>> 32;
+        long y0 = y & MASK_32, y1 = y >>> 32;
+
+        long p00 = x0 * y0;
+        long p01 = x0 * y1;
+        long p10 = x1 * y0;
+        long p11 = x1 * y1;
+
+        long mid = (p00 >>> 32) + (p01 & MASK_32) + (p10 & MASK_32);
+        return p11 + (p01 >>> 32) + (p10 >>> 32) + (mid >>> 32);
+    }
+
+    private static long[] limbs(BigInteger v) {
+        return new long[] {
+                v.longValue(),
+                v.shiftRight(64).longValue(),
+                v.shiftRight(128).longValue(),
+                v.shiftRight(192).longValue()
+        };
+    }
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+/**
+ * Mutable counterpart of {@link Fp12}, a view of 48 slots of a {@code long[]}
+ * holding "a" and "b" as {@link MutableFp6} elements. It backs the pairing
+ * engine, see {@link PairingCheck}, which otherwise allocates hundreds of
+ * thousands of short-lived objects per check. <br/>
+ * <br/>
+ *
+ * Operations store their result into this element, which may be one of the
+ * operands; temporaries are taken from the given {@link Arena}.
+ */
+final class MutableFp12 {
+
+    private static final MutableFp12 ONE = new MutableFp12().set(Fp12._1);
+
+    private static final MutableFp2[] FROBENIUS_COEFFS_B = new MutableFp2[12];
+
+    static {
+        for (int i = 0; i < 12; i++) {
+            FROBENIUS_COEFFS_B[i] = MutableFp2.of(Fp12.FROBENIUS_COEFFS_B[i]);
+        }
+    }
+
+    final MutableFp6 a;
+    final MutableFp6 b;
+
+    MutableFp12() {
+        long[] v = new long[48];
+        this.a = new MutableFp6(v, 0);
+        this.b = new MutableFp6(v, 24);
+    }
+
+    MutableFp12 set(Fp12 x) {
+        a.set(x.a);
+        b.set(x.b);
+        return this;
+    }
+
+    MutableFp12 set(MutableFp12 x) {
+        a.set(x.a);
+        b.set(x.b);
+        return this;
+    }
+
+    MutableFp12 setOne() {
+        return set(ONE);
+    }
+
+    Fp12 toFp12() {
+        return new Fp12(a.toFp6(), b.toFp6());
+    }
+
+    boolean isOne() {
+        return equalsTo(ONE);
+    }
+
+    boolean equalsTo(MutableFp12 x) {
+        return a.equalsTo(x.a) && b.equalsTo(x.b);
+    }
+
+    MutableFp12 mul(MutableFp12 x, MutableFp12 y, Arena arena) {
+        long mark = arena.mark();
+
+        MutableFp6 a1a2 = arena.fp6().mul(x.a, y.a, arena);
+        MutableFp6 b1b2 = arena.fp6().mul(x.b, y.b, arena);
+        MutableFp6 t1 = arena.fp6().add(x.a, x.b);
+        MutableFp6 t2 = arena.fp6().add(y.a, y.b);
+
+        // rb = (a1 + b1)(a2 + b2) - a1a2 - b1b2
+        t1.mul(t1, t2, arena).sub(t1, a1a2).sub(t1, b1b2);
+        // ra = a1a2 + b1b2 * NON_RESIDUE
+        b1b2.mulByNonResidue(b1b2, arena).add(b1b2, a1a2);
+
+        a.set(b1b2);
+        b.set(t1);
+
+        arena.reset(mark);
+        return this;
+    }
+
+    MutableFp12 squared(MutableFp12 x, Arena arena) {
+        long mark = arena.mark();
+
+        MutableFp6 ab = arena.fp6().mul(x.a, x.b, arena);
+        MutableFp6 t1 = arena.fp6().add(x.a, x.b);
+        MutableFp6 t2 = arena.fp6().mulByNonResidue(x.b, arena);
+
+        // ra = (a + b)(a + b * NON_RESIDUE) - ab - ab * NON_RESIDUE
+        t2.add(t2, x.a);
+        t1.mul(t1, t2, arena).sub(t1, ab);
+        t2.mulByNonResidue(ab, arena);
+        t1.sub(t1, t2);
+
+        // rb = 2ab
+        b.add(ab, ab);
+        a.set(t1);
+
+        arena.reset(mark);
+        return this;
+    }
+
+    /**
+     * In-place multiplication by a sparse element, see
+     * {@link Fp12#mulBy024(Fp2, Fp2, Fp2)}.
+     */
+    MutableFp12 mulBy024(MutableFp2 ell0, MutableFp2 ellVW, MutableFp2 ellVV, Arena arena) {
+        long mark = arena.mark();
+
+        MutableFp2 z0 = a.a, z1 = a.b, z2 = a.c;
+        MutableFp2 z3 = b.a, z4 = b.b, z5 = b.c;
+
+        MutableFp2 x0 = ell0, x2 = ellVV, x4 = ellVW;
+
+        MutableFp2 d0 = arena.fp2(), d2 = arena.fp2(), d4 = arena.fp2();
+        MutableFp2 t0 = arena.fp2(), t1 = arena.fp2(), t2 = arena.fp2(), t3 = arena.fp2(), t4 = arena.fp2();
+        MutableFp2 s0 = arena.fp2(), s1 = arena.fp2();
+
+        d0.mul(z0, x0, arena);
+        d2.mul(z2, x2, arena);
+        d4.mul(z4, x4, arena);
+        t2.add(z0, z4);
+        t1.add(z0, z2);
+        s0.add(z1, z3).add(z5);
+
+        // For z.a_.a_ = z0.
+        s1.mul(z1, x2, arena);
+        t3.add(s1, d4);
+        t4.mulByNonResidue(t3, arena).add(d0);
+        z0.set(t4);
+
+        // For z.a_.b_ = z1
+        t3.mul(z5, x4, arena);
+        s1.add(t3);
+        t3.add(d2);
+        t4.mulByNonResidue(t3, arena);
+        t3.mul(z1, x0, arena);
+        s1.add(t3);
+        t4.add(t3);
+        z1.set(t4);
+
+        // For z.a_.c_ = z2
+        t0.add(x0, x2);
+        t3.mul(t1, t0, arena).sub(d0).sub(d2);
+        t4.mul(z3, x4, arena);
+        s1.add(t4);
+        t3.add(t4);
+
+        // For z.b_.a_ = z3 (z3 needs z2)
+        t0.add(z2, z4);
+        z2.set(t3);
+        t1.add(x2, x4);
+        t3.mul(t0, t1, arena).sub(d2).sub(d4);
+        t4.mulByNonResidue(t3, arena);
+        t3.mul(z3, x0, arena);
+        s1.add(t3);
+        t4.add(t3);
+        z3.set(t4);
+
+        // For z.b_.b_ = z4
+        t3.mul(z5, x2, arena);
+        s1.add(t3);
+        t4.mulByNonResidue(t3, arena);
+        t0.add(x0, x4);
+        t3.mul(t2, t0, arena).sub(d0).sub(d4);
+        t4.add(t3);
+        z4.set(t4);
+
+        // For z.b_.c_ = z5.
+        t0.add(x0, x2).add(x4);
+        t3.mul(s0, t0, arena).sub(s1);
+        z5.set(t3);
+
+        arena.reset(mark);
+        return this;
+    }
+
+    /**
+     * Squaring of an element of the cyclotomic subgroup, see
+     * {@link Fp12#cyclotomicSquared()}.
+     */
+    MutableFp12 cyclotomicSquared(MutableFp12 x, Arena arena) {
+        long mark = arena.mark();
+
+        MutableFp2 z0 = x.a.a, z4 = x.a.b, z3 = x.a.c;
+        MutableFp2 z2 = x.b.a, z1 = x.b.b, z5 = x.b.c;
+
+        MutableFp2 t0 = arena.fp2(), t1 = arena.fp2(), t2 = arena.fp2();
+        MutableFp2 t3 = arena.fp2(), t4 = arena.fp2(), t5 = arena.fp2();
+        MutableFp2 tmp = arena.fp2();
+
+        // t0 + t1*y = (z0 + z1*y)^2 = a^2
+        fp4Squared(t0, t1, z0, z1, tmp, arena);
+        // t2 + t3*y = (z2 + z3*y)^2 = b^2
+        fp4Squared(t2, t3, z2, z3, tmp, arena);
+        // t4 + t5*y = (z4 + z5*y)^2 = c^2
+        fp4Squared(t4, t5, z4, z5, tmp, arena);
+
+        // z0 = 3 * t0 - 2 * z0
+        a.a.sub(t0, z0).dbl().add(t0);
+        // z1 = 3 * t1 + 2 * z1
+        b.b.add(t1, z1).dbl().add(t1);
+        // z2 = 3 * (xi * t5) + 2 * z2
+        tmp.mulByNonResidue(t5, arena);
+        b.a.add(tmp, z2).dbl().add(tmp);
+        // z3 = 3 * t4 - 2 * z3
+        a.c.sub(t4, z3).dbl().add(t4);
+        // z4 = 3 * t2 - 2 * z4
+        a.b.sub(t2, z4).dbl().add(t2);
+        // z5 = 3 * t3 + 2 * z5
+        b.c.add(t3, z5).dbl().add(t3);
+
+        arena.reset(mark);
+        return this;
+    }
+
+    /**
+     * (r0 + r1*y) = (x0 + x1*y)^2 in Fp4 = Fp2[y] / (y^2 - xi)
+     */
+    private static void fp4Squared(MutableFp2 r0, MutableFp2 r1, MutableFp2 x0, MutableFp2 x1, MutableFp2 tmp,
+            Arena arena) {
+        long mark = arena.mark();
+
+        MutableFp2 s0 = arena.fp2().squared(x0, arena);
+        MutableFp2 s1 = arena.fp2().squared(x1, arena);
+
+        r0.mulByNonResidue(s1, arena).add(s0);
+        tmp.add(x0, x1);
+        r1.squared(tmp, arena).sub(s0).sub(s1);
+
+        arena.reset(mark);
+    }
+
+    /**
+     * Exponentiation of an element of the cyclotomic subgroup, see
+     * {@link Fp12#cyclotomicExp(java.math.BigInteger)}.
+     *
+     * @param naf
+     *            the exponent in non-adjacent form
+     */
+    MutableFp12 cyclotomicExp(MutableFp12 x, byte[] naf, Arena arena) {
+
+        if (naf.length == 0) {
+            return setOne();
+        }
+
+        long mark = arena.mark();
+
+        MutableFp12 inv = arena.fp12().conjugate(x);
+
+        // the most significant digit is always 1
+        MutableFp12 res = arena.fp12().set(x);
+
+        for (int i = naf.length - 2; i >= 0; i--) {
+            res.cyclotomicSquared(res, arena);
+
+            if (naf[i] > 0) {
+                res.mul(res, x, arena);
+            } else if (naf[i] < 0) {
+                res.mul(res, inv, arena);
+            }
+        }
+
+        set(res);
+
+        arena.reset(mark);
+        return this;
+    }
+
+    /**
+     * Inverse of an element of the cyclotomic subgroup, see
+     * {@link Fp12#unitaryInverse()}.
+     */
+    MutableFp12 conjugate(MutableFp12 x) {
+        a.set(x.a);
+        b.negate(x.b);
+        return this;
+    }
+
+    MutableFp12 frobeniusMap(MutableFp12 x, int power, Arena arena) {
+        a.frobeniusMap(x.a, power, arena);
+        b.frobeniusMap(x.b, power, arena).mul(b, FROBENIUS_COEFFS_B[power % 12], arena);
+        return this;
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+/**
+ * Mutable counterpart of {@link Fp2}, a view of eight slots of a
+ * {@code long[]}: the limbs of "a" followed by the limbs of "b", see
+ * {@link FpArith}. <br/>
+ * <br/>
+ *
+ * Operations store their result into this element, which may be one of the
+ * operands.
+ */
+final class MutableFp2 {
+
+    final long[] v;
+    final int off;
+
+    MutableFp2() {
+        this(new long[8], 0);
+    }
+
+    MutableFp2(long[] v, int off) {
+        this.v = v;
+        this.off = off;
+    }
+
+    static MutableFp2 of(Fp2 x) {
+        return new MutableFp2().set(x);
+    }
+
+    MutableFp2 set(Fp2 x) {
+        x.a.copyTo(v, off);
+        x.b.copyTo(v, off + 4);
+        return this;
+    }
+
+    MutableFp2 set(MutableFp2 x) {
+        System.arraycopy(x.v, x.off, v, off, 8);
+        return this;
+    }
+
+    Fp2 toFp2() {
+        return new Fp2(new Fp(v[off], v[off + 1], v[off + 2], v[off + 3]),
+                new Fp(v[off + 4], v[off + 5], v[off + 6], v[off + 7]));
+    }
+
+    MutableFp2 setZero() {
+        for (int i = 0; i < 8; i++) {
+            v[off + i] = 0;
+        }
+        return this;
+    }
+
+    MutableFp2 add(MutableFp2 x, MutableFp2 y) {
+        FpArith.add(v, off, x.v, x.off, y.v, y.off);
+        FpArith.add(v, off + 4, x.v, x.off + 4, y.v, y.off + 4);
+        return this;
+    }
+
+    MutableFp2 sub(MutableFp2 x, MutableFp2 y) {
+        FpArith.sub(v, off, x.v, x.off, y.v, y.off);
+        FpArith.sub(v, off + 4, x.v, x.off + 4, y.v, y.off + 4);
+        return this;
+    }
+
+    MutableFp2 dbl(MutableFp2 x) {
+        return add(x, x);
+    }
+
+    MutableFp2 add(MutableFp2 y) {
+        return add(this, y);
+    }
+
+    MutableFp2 sub(MutableFp2 y) {
+        return sub(this, y);
+    }
+
+    MutableFp2 dbl() {
+        return add(this, this);
+    }
+
+    MutableFp2 negate(MutableFp2 x) {
+        FpArith.neg(v, off, x.v, x.off);
+        FpArith.neg(v, off + 4, x.v, x.off + 4);
+        return this;
+    }
+
+    /**
+     * Multiplies "b" of x by -1, that is by the Frobenius coefficient of odd
+     * powers, see {@link Fp2#frobeniusMap(int)}.
+     */
+    MutableFp2 conjugate(MutableFp2 x) {
+        FpArith.copy(v, off, x.v, x.off);
+        FpArith.neg(v, off + 4, x.v, x.off + 4);
+        return this;
+    }
+
+    MutableFp2 frobeniusMap(MutableFp2 x, int power) {
+        return power % 2 == 0 ? set(x) : conjugate(x);
+    }
+
+    /**
+     * Multiplies x by an element of F_p stored in the given slot.
+     */
+    MutableFp2 mul(MutableFp2 x, long[] f, int fi) {
+        FpArith.mul(v, off, x.v, x.off, f, fi);
+        FpArith.mul(v, off + 4, x.v, x.off + 4, f, fi);
+        return this;
+    }
+
+    MutableFp2 mul(MutableFp2 x, MutableFp2 y, Arena arena) {
+        long[] t = arena.tmp;
+
+        FpArith.mul(t, 0, x.v, x.off, y.v, y.off); // aa = a1 * a2
+        FpArith.mul(t, 4, x.v, x.off + 4, y.v, y.off + 4); // bb = b1 * b2
+        FpArith.add(t, 8, x.v, x.off, x.v, x.off + 4); // a1 + b1
+        FpArith.add(t, 12, y.v, y.off, y.v, y.off + 4); // a2 + b2
+
+        // rb = (a1 + b1)(a2 + b2) - aa - bb
+        FpArith.mul(t, 8, t, 8, t, 12);
+        FpArith.sub(t, 8, t, 8, t, 0);
+        FpArith.sub(v, off + 4, t, 8, t, 4);
+
+        // ra = aa + NON_RESIDUE * bb, where NON_RESIDUE = -1
+        FpArith.sub(v, off, t, 0, t, 4);
+        return this;
+    }
+
+    MutableFp2 squared(MutableFp2 x, Arena arena) {
+        long[] t = arena.tmp;
+
+        FpArith.mul(t, 0, x.v, x.off, x.v, x.off + 4); // ab
+        FpArith.add(t, 4, x.v, x.off, x.v, x.off + 4); // a + b
+        FpArith.sub(t, 8, x.v, x.off, x.v, x.off + 4); // a - b
+
+        FpArith.mul(v, off, t, 4, t, 8); // ra = (a + b)(a - b)
+        FpArith.dbl(v, off + 4, t, 0); // rb = 2ab
+        return this;
+    }
+
+    /**
+     * Multiplies x by {@link Fp2#NON_RESIDUE}, that is by (9 + i).
+     */
+    MutableFp2 mulByNonResidue(MutableFp2 x, Arena arena) {
+        long[] t = arena.tmp;
+
+        // 9a, 9b
+        FpArith.dbl(t, 0, x.v, x.off);
+        FpArith.dbl(t, 0, t, 0);
+        FpArith.dbl(t, 0, t, 0);
+        FpArith.add(t, 0, t, 0, x.v, x.off);
+        FpArith.dbl(t, 4, x.v, x.off + 4);
+        FpArith.dbl(t, 4, t, 4);
+        FpArith.dbl(t, 4, t, 4);
+        FpArith.add(t, 4, t, 4, x.v, x.off + 4);
+
+        // (9 + i) * (a + b * i) = (9a - b) + (a + 9b) * i
+        FpArith.sub(t, 0, t, 0, x.v, x.off + 4);
+        FpArith.add(v, off + 4, t, 4, x.v, x.off);
+        FpArith.copy(v, off, t, 0);
+        return this;
+    }
+
+    boolean isZero() {
+        return FpArith.isZero(v, off) && FpArith.isZero(v, off + 4);
+    }
+
+    boolean equalsTo(MutableFp2 x) {
+        return FpArith.equals(v, off, x.v, x.off) && FpArith.equals(v, off + 4, x.v, x.off + 4);
+    }
+}
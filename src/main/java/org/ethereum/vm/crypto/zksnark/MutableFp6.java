@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+/**
+ * Mutable counterpart of {@link Fp6}, a view of 24 slots of a {@code long[]}
+ * holding "a", "b" and "c" as {@link MutableFp2} elements. <br/>
+ * <br/>
+ *
+ * Operations store their result into this element, which may be one of the
+ * operands; temporaries are taken from the given {@link Arena}.
+ */
+final class MutableFp6 {
+
+    private static final MutableFp2[] FROBENIUS_COEFFS_B = new MutableFp2[6];
+    private static final MutableFp2[] FROBENIUS_COEFFS_C = new MutableFp2[6];
+
+    static {
+        for (int i = 0; i < 6; i++) {
+            FROBENIUS_COEFFS_B[i] = MutableFp2.of(Fp6.FROBENIUS_COEFFS_B[i]);
+            FROBENIUS_COEFFS_C[i] = MutableFp2.of(Fp6.FROBENIUS_COEFFS_C[i]);
+        }
+    }
+
+    final MutableFp2 a;
+    final MutableFp2 b;
+    final MutableFp2 c;
+
+    MutableFp6() {
+        this(new long[24], 0);
+    }
+
+    MutableFp6(long[] v, int off) {
+        this.a = new MutableFp2(v, off);
+        this.b = new MutableFp2(v, off + 8);
+        this.c = new MutableFp2(v, off + 16);
+    }
+
+    MutableFp6 set(Fp6 x) {
+        a.set(x.a);
+        b.set(x.b);
+        c.set(x.c);
+        return this;
+    }
+
+    MutableFp6 set(MutableFp6 x) {
+        a.set(x.a);
+        b.set(x.b);
+        c.set(x.c);
+        return this;
+    }
+
+    Fp6 toFp6() {
+        return new Fp6(a.toFp2(), b.toFp2(), c.toFp2());
+    }
+
+    MutableFp6 add(MutableFp6 x, MutableFp6 y) {
+        a.add(x.a, y.a);
+        b.add(x.b, y.b);
+        c.add(x.c, y.c);
+        return this;
+    }
+
+    MutableFp6 sub(MutableFp6 x, MutableFp6 y) {
+        a.sub(x.a, y.a);
+        b.sub(x.b, y.b);
+        c.sub(x.c, y.c);
+        return this;
+    }
+
+    MutableFp6 negate(MutableFp6 x) {
+        a.negate(x.a);
+        b.negate(x.b);
+        c.negate(x.c);
+        return this;
+    }
+
+    MutableFp6 mul(MutableFp6 x, MutableFp6 y, Arena arena) {
+        long mark = arena.mark();
+
+        MutableFp2 a1a2 = arena.fp2().mul(x.a, y.a, arena);
+        MutableFp2 b1b2 = arena.fp2().mul(x.b, y.b, arena);
+        MutableFp2 c1c2 = arena.fp2().mul(x.c, y.c, arena);
+        MutableFp2 t1 = arena.fp2();
+        MutableFp2 t2 = arena.fp2();
+
+        // ra = a1a2 + ((b1 + c1)(b2 + c2) - b1b2 - c1c2) * NON_RESIDUE
+        t1.add(x.b, x.c);
+        t2.add(y.b, y.c);
+        t1.mul(t1, t2, arena).sub(b1b2).sub(c1c2);
+        MutableFp2 ra = arena.fp2().mulByNonResidue(t1, arena).add(a1a2);
+
+        // rb = (a1 + b1)(a2 + b2) - a1a2 - b1b2 + c1c2 * NON_RESIDUE
+        t1.add(x.a, x.b);
+        t2.add(y.a, y.b);
+        t1.mul(t1, t2, arena).sub(a1a2).sub(b1b2);
+        MutableFp2 rb = arena.fp2().mulByNonResidue(c1c2, arena).add(t1);
+
+        // rc = (a1 + c1)(a2 + c2) - a1a2 + b1b2 - c1c2
+        t1.add(x.a, x.c);
+        t2.add(y.a, y.c);
+        t1.mul(t1, t2, arena).sub(a1a2).add(b1b2).sub(c1c2);
+
+        a.set(ra);
+        b.set(rb);
+        c.set(t1);
+
+        arena.reset(mark);
+        return this;
+    }
+
+    MutableFp6 squared(MutableFp6 x, Arena arena) {
+        long mark = arena.mark();
+
+        MutableFp2 s0 = arena.fp2().squared(x.a, arena);
+        MutableFp2 s1 = arena.fp2().mul(x.a, x.b, arena).dbl();
+        MutableFp2 s2 = arena.fp2().sub(x.a, x.b).add(x.c);
+        s2.squared(s2, arena);
+        MutableFp2 s3 = arena.fp2().mul(x.b, x.c, arena).dbl();
+        MutableFp2 s4 = arena.fp2().squared(x.c, arena);
+
+        // rc = s1 + s2 + s3 - s0 - s4
+        s2.add(s1).add(s3).sub(s0).sub(s4);
+        // ra = s0 + s3 * NON_RESIDUE
+        s3.mulByNonResidue(s3, arena).add(s0);
+        // rb = s1 + s4 * NON_RESIDUE
+        s4.mulByNonResidue(s4, arena).add(s1);
+
+        a.set(s3);
+        b.set(s4);
+        c.set(s2);
+
+        arena.reset(mark);
+        return this;
+    }
+
+    MutableFp6 mulByNonResidue(MutableFp6 x, Arena arena) {
+        long mark = arena.mark();
+
+        MutableFp2 ra = arena.fp2().mulByNonResidue(x.c, arena);
+        c.set(x.b);
+        b.set(x.a);
+        a.set(ra);
+
+        arena.reset(mark);
+        return this;
+    }
+
+    MutableFp6 mul(MutableFp6 x, MutableFp2 k, Arena arena) {
+        a.mul(x.a, k, arena);
+        b.mul(x.b, k, arena);
+        c.mul(x.c, k, arena);
+        return this;
+    }
+
+    MutableFp6 frobeniusMap(MutableFp6 x, int power, Arena arena) {
+        a.frobeniusMap(x.a, power);
+        b.frobeniusMap(x.b, power).mul(b, FROBENIUS_COEFFS_B[power % 6], arena);
+        c.frobeniusMap(x.c, power).mul(c, FROBENIUS_COEFFS_C[power % 6], arena);
+        return this;
+    }
+
+    boolean equalsTo(MutableFp6 x) {
+        return a.equalsTo(x.a) && b.equalsTo(x.b) && c.equalsTo(x.c);
+    }
+}
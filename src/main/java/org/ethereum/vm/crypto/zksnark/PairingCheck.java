@@ -19,7 +19,15 @@ package org.ethereum.vm.crypto.zksnark;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import org.ethereum.vm.util.ByteArrayWrapper;
+import org.ethereum.vm.util.ClockCache;
 
 /**
  * Implementation of a Pairing Check operation over points of two twisted
@@ -44,6 +52,18 @@ import java.util.List;
  * <li>get result with {@link #result()}</li>
  * </ul>
  *
+ * When the number of pairs exceeds the parallel threshold, Miller loops of the
+ * pairs are computed concurrently on a fork-join pool and their results are
+ * multiplied in a tree, see {@link #setParallelism(ForkJoinPool, int)}. Fp12
+ * elements have a canonical representation, thus the result is the same as the
+ * one of the serial path. The default pool is dedicated to pairing checks, so
+ * that they neither take over nor wait for the common pool; it's created on
+ * first use, and not at all on a single CPU.
+ *
+ * Line coefficients of the G2 points are cached, so that the pairings with the
+ * same G2 points, e.g. verifying keys, only evaluate the lines at G1, see
+ * {@link #setCoeffsCacheSize(int, long)}.
+ *
  * Arithmetic has been ported from <a href=
  * "https://github.com/scipr-lab/libff/blob/master/libff/algebra/curves/alt_bn128/alt_bn128_pairing.cpp">libff</a>
  * Ate pairing algorithms
@@ -55,14 +75,110 @@ public class PairingCheck {
 
     static final BigInteger LOOP_COUNT = new BigInteger("29793968203157093288");
 
+    /**
+     * Default minimal number of pairs to run Miller loops in parallel. A Miller
+     * loop takes about a fifth of the serial final exponentiation, so below 4 pairs
+     * going parallel saves little for the workers it takes, see
+     * <code>PairingCheckBenchmark</code>.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 4;
+
+    /**
+     * Default max number of G2 points to cache line coefficients for
+     */
+    public static final int DEFAULT_COEFFS_CACHE_SIZE = 64;
+
+    /**
+     * Default max memory footprint of the cached line coefficients, in bytes
+     */
+    public static final long DEFAULT_COEFFS_CACHE_BYTES = 2L << 20;
+
+    private static volatile Supplier<ForkJoinPool> defaultPool = DedicatedPool::get;
+    private static volatile int defaultThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    private static volatile ClockCache<ByteArrayWrapper, List<EllCoeffs>> coeffsCache = newCoeffsCache(
+            DEFAULT_COEFFS_CACHE_SIZE, DEFAULT_COEFFS_CACHE_BYTES);
+
     List<Pair> pairs = new ArrayList<>();
     Fp12 product = Fp12._1;
 
-    private PairingCheck() {
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    private PairingCheck(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
     }
 
     public static PairingCheck create() {
-        return new PairingCheck();
+        return new PairingCheck(defaultPool.get(), defaultThreshold);
+    }
+
+    /**
+     * Creates a pairing check which computes Miller loops on the given pool if the
+     * number of pairs is greater than or equal to the threshold.
+     *
+     * @param pool
+     *            the pool to run Miller loops on, null to always run serially
+     * @param threshold
+     *            the minimal number of pairs to go parallel
+     */
+    public static PairingCheck create(ForkJoinPool pool, int threshold) {
+        return new PairingCheck(pool, threshold);
+    }
+
+    /**
+     * Configures the pool and the threshold used by the checks created with
+     * {@link #create()}, in place of the dedicated pool.
+     *
+     * @param pool
+     *            the pool to run Miller loops on, null to always run serially
+     * @param threshold
+     *            the minimal number of pairs to go parallel
+     */
+    public static void setParallelism(ForkJoinPool pool, int threshold) {
+        defaultPool = () -> pool;
+        defaultThreshold = threshold;
+    }
+
+    /**
+     * Resizes the cache of G2 line coefficients, with the default memory budget,
+     * dropping all the cached entries.
+     *
+     * @param size
+     *            the max number of G2 points, 0 to disable caching
+     */
+    public static void setCoeffsCacheSize(int size) {
+        setCoeffsCacheSize(size, DEFAULT_COEFFS_CACHE_BYTES);
+    }
+
+    /**
+     * Resizes the cache of G2 line coefficients, dropping all the cached entries.
+     *
+     * @param size
+     *            the max number of G2 points, 0 to disable caching
+     * @param maxBytes
+     *            the max memory footprint of the coefficients, in bytes
+     */
+    public static void setCoeffsCacheSize(int size, long maxBytes) {
+        coeffsCache = newCoeffsCache(size, maxBytes);
+    }
+
+    static ClockCache<ByteArrayWrapper, List<EllCoeffs>> getCoeffsCache() {
+        return coeffsCache;
+    }
+
+    private static ClockCache<ByteArrayWrapper, List<EllCoeffs>> newCoeffsCache(int size, long maxBytes) {
+        return size > 0 ? new ClockCache<>(size, maxBytes, (k, v) -> weigh(v)) : null;
+    }
+
+    /**
+     * Estimates the memory footprint of the coefficients of a G2 point: a line
+     * holds 3 Fp2 objects of 2 Fp objects each, about 400 bytes with the headers;
+     * plus the key and the list.
+     */
+    static int weigh(List<EllCoeffs> coeffs) {
+        return 256 + coeffs.size() * 400;
     }
 
     public void addPair(BN128G1 g1, BN128G2 g2) {
@@ -71,12 +187,16 @@ public class PairingCheck {
 
     public void run() {
 
-        for (Pair pair : pairs) {
+        if (pool != null && pairs.size() > 1 && pairs.size() >= threshold) {
+            product = pool.invoke(new MillerLoopTask(pairs, 0, pairs.size()));
+        } else {
+            for (Pair pair : pairs) {
 
-            Fp12 miller = pair.millerLoop();
+                Fp12 miller = pair.millerLoop();
 
-            if (!miller.equals(Fp12._1)) // run mul code only if necessary
-                product = product.mul(miller);
+                if (!miller.equals(Fp12._1)) // run mul code only if necessary
+                    product = product.mul(miller);
+            }
         }
 
         // finalize
@@ -94,32 +214,76 @@ public class PairingCheck {
         g2 = g2.toAffine();
 
         // calculate Ell coefficients
-        List<EllCoeffs> coeffs = calcEllCoeffs(g2);
+        List<EllCoeffs> coeffs = ellCoeffs(g2);
 
-        Fp12 f = Fp12._1;
-        int idx = 0;
+        Arena arena = Arena.get();
+        long mark = arena.mark();
+        try {
+            // x at 0, y at 4
+            long[] p = new long[8];
+            g1.x.copyTo(p, 0);
+            g1.y.copyTo(p, 4);
 
-        // for each bit except most significant one
-        for (int i = LOOP_COUNT.bitLength() - 2; i >= 0; i--) {
+            MutableFp12 f = arena.fp12().setOne();
+            MutableFp2 ell0 = arena.fp2();
+            MutableFp2 ellVW = arena.fp2();
+            MutableFp2 ellVV = arena.fp2();
+            int idx = 0;
 
-            EllCoeffs c = coeffs.get(idx++);
-            f = f.squared();
-            f = f.mulBy024(c.ell0, g1.y.mul(c.ellVW), g1.x.mul(c.ellVV));
+            // for each bit except most significant one
+            for (int i = LOOP_COUNT.bitLength() - 2; i >= 0; i--) {
+
+                f.squared(f, arena);
+                mulBy024(f, coeffs.get(idx++), p, ell0, ellVW, ellVV, arena);
+
+                if (LOOP_COUNT.testBit(i)) {
+                    mulBy024(f, coeffs.get(idx++), p, ell0, ellVW, ellVV, arena);
+                }
 
-            if (LOOP_COUNT.testBit(i)) {
-                c = coeffs.get(idx++);
-                f = f.mulBy024(c.ell0, g1.y.mul(c.ellVW), g1.x.mul(c.ellVV));
             }
 
+            mulBy024(f, coeffs.get(idx++), p, ell0, ellVW, ellVV, arena);
+            mulBy024(f, coeffs.get(idx), p, ell0, ellVW, ellVV, arena);
+
+            return f.toFp12();
+        } finally {
+            arena.reset(mark);
         }
+    }
 
-        EllCoeffs c = coeffs.get(idx++);
-        f = f.mulBy024(c.ell0, g1.y.mul(c.ellVW), g1.x.mul(c.ellVV));
+    /**
+     * f = f * (ell0, y * ellVW, x * ellVV) with the affine G1 point packed in p.
+     */
+    private static void mulBy024(MutableFp12 f, EllCoeffs c, long[] p, MutableFp2 ell0, MutableFp2 ellVW,
+            MutableFp2 ellVV, Arena arena) {
+        ell0.set(c.ell0);
+        ellVW.set(c.ellVW).mul(ellVW, p, 4);
+        ellVV.set(c.ellVV).mul(ellVV, p, 0);
+        f.mulBy024(ell0, ellVW, ellVV, arena);
+    }
 
-        c = coeffs.get(idx);
-        f = f.mulBy024(c.ell0, g1.y.mul(c.ellVW), g1.x.mul(c.ellVV));
+    /**
+     * Returns the Ell coefficients of an affine point, from the cache if possible.
+     */
+    private static List<EllCoeffs> ellCoeffs(BN128G2 affine) {
+        ClockCache<ByteArrayWrapper, List<EllCoeffs>> cache = coeffsCache;
+        if (cache == null) {
+            return calcEllCoeffs(affine);
+        }
 
-        return f;
+        byte[] key = new byte[128];
+        affine.x.a.writeTo(key, 0);
+        affine.x.b.writeTo(key, 32);
+        affine.y.a.writeTo(key, 64);
+        affine.y.b.writeTo(key, 96);
+        ByteArrayWrapper k = new ByteArrayWrapper(key);
+
+        List<EllCoeffs> coeffs = cache.get(k);
+        if (coeffs == null) {
+            coeffs = Collections.unmodifiableList(calcEllCoeffs(affine));
+            cache.put(k, coeffs);
+        }
+        return coeffs;
     }
 
     private static List<EllCoeffs> calcEllCoeffs(BN128G2 base) {
@@ -215,38 +379,109 @@ public class PairingCheck {
 
     public static Fp12 finalExponentiation(Fp12 el) {
 
-        // first chunk
-        Fp12 w = new Fp12(el.a, el.b.negate()); // el.b = -el.b
-        Fp12 x = el.inverse();
-        Fp12 y = w.mul(x);
-        Fp12 z = y.frobeniusMap(2);
-        Fp12 pre = z.mul(y);
-
-        // last chunk
-        Fp12 a = pre.negExp(Params.PAIRING_FINAL_EXPONENT_Z);
-        Fp12 b = a.cyclotomicSquared();
-        Fp12 c = b.cyclotomicSquared();
-        Fp12 d = c.mul(b);
-        Fp12 e = d.negExp(Params.PAIRING_FINAL_EXPONENT_Z);
-        Fp12 f = e.cyclotomicSquared();
-        Fp12 g = f.negExp(Params.PAIRING_FINAL_EXPONENT_Z);
-        Fp12 h = d.unitaryInverse();
-        Fp12 i = g.unitaryInverse();
-        Fp12 j = i.mul(e);
-        Fp12 k = j.mul(h);
-        Fp12 l = k.mul(b);
-        Fp12 m = k.mul(e);
-        Fp12 n = m.mul(pre);
-        Fp12 o = l.frobeniusMap(1);
-        Fp12 p = o.mul(n);
-        Fp12 q = k.frobeniusMap(2);
-        Fp12 r = q.mul(p);
-        Fp12 s = pre.unitaryInverse();
-        Fp12 t = s.mul(l);
-        Fp12 u = t.frobeniusMap(3);
-        Fp12 v = u.mul(r);
-
-        return v;
+        Arena arena = Arena.get();
+        long mark = arena.mark();
+        try {
+            byte[] z = Fp12.Z_NAF;
+
+            MutableFp12 y = arena.fp12(), pre = arena.fp12(), a = arena.fp12(), b = arena.fp12();
+            MutableFp12 d = arena.fp12(), e = arena.fp12(), g = arena.fp12(), h = arena.fp12();
+            MutableFp12 k = arena.fp12(), l = arena.fp12(), n = arena.fp12(), p = arena.fp12();
+            MutableFp12 r = arena.fp12(), t = arena.fp12(), v = arena.fp12();
+
+            // first chunk
+            y.set(el.inverse());
+            v.set(el).conjugate(v); // el.b = -el.b
+            y.mul(v, y, arena);
+            pre.frobeniusMap(y, 2, arena).mul(pre, y, arena);
+
+            // last chunk
+            a.cyclotomicExp(pre, z, arena).conjugate(a);
+            b.cyclotomicSquared(a, arena);
+            d.cyclotomicSquared(b, arena).mul(d, b, arena);
+            e.cyclotomicExp(d, z, arena).conjugate(e);
+            g.cyclotomicSquared(e, arena);
+            g.cyclotomicExp(g, z, arena).conjugate(g);
+            h.conjugate(d);
+            k.conjugate(g).mul(k, e, arena).mul(k, h, arena);
+            l.mul(k, b, arena);
+            n.mul(k, e, arena).mul(n, pre, arena);
+            p.frobeniusMap(l, 1, arena).mul(p, n, arena);
+            r.frobeniusMap(k, 2, arena).mul(r, p, arena);
+            t.conjugate(pre).mul(t, l, arena);
+            v.frobeniusMap(t, 3, arena).mul(v, r, arena);
+
+            return v.toFp12();
+        } finally {
+            arena.reset(mark);
+        }
+    }
+
+    /**
+     * The default pool of the pairing checks, created on first use.
+     */
+    private static class DedicatedPool {
+
+        private static final ForkJoinPool INSTANCE = create();
+
+        private static ForkJoinPool create() {
+            int cpus = Runtime.getRuntime().availableProcessors();
+            if (cpus == 1) {
+                return null;
+            }
+            return new ForkJoinPool(cpus, pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("pairing-check-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+        }
+
+        static ForkJoinPool get() {
+            return INSTANCE;
+        }
+    }
+
+    /**
+     * Computes Miller loops of a range of pairs and multiplies the results in a
+     * tree, splitting the range in halves down to single pairs.
+     */
+    static class MillerLoopTask extends RecursiveTask<Fp12> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Pair> pairs;
+        private final int from, to;
+
+        MillerLoopTask(List<Pair> pairs, int from, int to) {
+            this.pairs = pairs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Fp12 compute() {
+            if (to - from == 1) {
+                return pairs.get(from).millerLoop();
+            }
+
+            int mid = (from + to) >>> 1;
+            MillerLoopTask left = new MillerLoopTask(pairs, from, mid);
+            MillerLoopTask right = new MillerLoopTask(pairs, mid, to);
+
+            left.fork();
+            Fp12 r = right.compute();
+            Fp12 l = left.join();
+
+            // run mul code only if necessary
+            if (l.equals(Fp12._1)) {
+                return r;
+            }
+            if (r.equals(Fp12._1)) {
+                return l;
+            }
+            return l.mul(r);
+        }
     }
 
     static class Precomputed {
@@ -291,9 +526,9 @@ public class PairingCheck {
     }
 
     static class EllCoeffs {
-        Fp2 ell0;
-        Fp2 ellVW;
-        Fp2 ellVV;
+        final Fp2 ell0;
+        final Fp2 ellVW;
+        final Fp2 ellVV;
 
         EllCoeffs(Fp2 ell0, Fp2 ellVW, Fp2 ellVV) {
             this.ell0 = ell0;
@@ -39,12 +39,24 @@ public class InternalTransaction implements Transaction {
     private long nonce;
     private BigInteger value;
     private byte[] data;
+    private int dataOffset;
+    private int dataSize;
     private long gas;
     private BigInteger gasPrice;
 
     public InternalTransaction(int depth, int index, String type,
             byte[] from, byte[] to, long nonce, BigInteger value, byte[] data,
             long gas, BigInteger gasPrice) {
+        this(depth, index, type, from, to, nonce, value, data, 0, data.length, gas, gasPrice);
+    }
+
+    /**
+     * Creates an internal transaction which also refers to the location of its call
+     * data in the memory of the calling frame.
+     */
+    public InternalTransaction(int depth, int index, String type,
+            byte[] from, byte[] to, long nonce, BigInteger value, byte[] data, int dataOffset, int dataSize,
+            long gas, BigInteger gasPrice) {
         this.depth = depth;
         this.index = index;
         this.type = type;
@@ -54,6 +66,8 @@ public class InternalTransaction implements Transaction {
         this.nonce = nonce;
         this.value = value;
         this.data = data;
+        this.dataOffset = dataOffset;
+        this.dataSize = dataSize;
         this.gas = gas;
         this.gasPrice = gasPrice;
     }
@@ -109,6 +123,22 @@ public class InternalTransaction implements Transaction {
         return data;
     }
 
+    /**
+     * Returns the offset of the call data in the memory of the calling frame, or 0
+     * if the data was not read from memory.
+     */
+    public int getDataOffset() {
+        return dataOffset;
+    }
+
+    /**
+     * Returns the size of the call data, which is known even if the data itself was
+     * not recorded, see {@link InternalTxRecording#METADATA}.
+     */
+    public int getDataSize() {
+        return dataSize;
+    }
+
     @Override
     public long getGas() {
         return gas;
@@ -131,6 +161,8 @@ public class InternalTransaction implements Transaction {
                 ", nonce=" + nonce +
                 ", value=" + value +
                 ", data=" + HexUtil.toHexString(data) +
+                ", dataOffset=" + dataOffset +
+                ", dataSize=" + dataSize +
                 ", gas=" + gas +
                 ", gasPrice=" + gasPrice +
                 '}';
@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.program;
+
+/**
+ * Controls which internal transactions a program records into its result, see
+ * {@link Program#setInternalTxRecording(InternalTxRecording)}.
+ */
+public enum InternalTxRecording {
+
+    /**
+     * Nothing is recorded. Internal transactions are only created when a
+     * precompiled contract needs one.
+     */
+    NONE,
+
+    /**
+     * Internal transactions are recorded without their call data, so that the input
+     * of each call is not kept alive until the end of the transaction. They keep
+     * where the data was in the memory of the calling frame instead, see
+     * {@link InternalTransaction#getDataOffset()} and
+     * {@link InternalTransaction#getDataSize()}.
+     *
+     * @ImplNote the bytes are not referenced lazily: the memory of the calling
+     *           frame is overwritten once the call returns, so a slice of it could
+     *           only be read back while the call is running.
+     */
+    METADATA,
+
+    /**
+     * Internal transactions are recorded with their call data.
+     */
+    FULL
+}
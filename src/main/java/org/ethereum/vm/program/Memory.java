@@ -18,20 +18,26 @@
 package org.ethereum.vm.program;
 
 import static java.lang.Math.ceil;
-import static java.lang.Math.min;
 import static org.ethereum.vm.util.ByteArrayUtil.EMPTY_BYTE_ARRAY;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.ethereum.vm.DataWord;
 
+/**
+ * The memory of a program, a single contiguous buffer which grows by chunks, so
+ * that reads and writes of any size are a single copy.
+ */
 public class Memory {
 
     private static final int CHUNK_SIZE = 1024;
     private static final int WORD_SIZE = 32;
 
-    private List<byte[]> chunks = new LinkedList<>();
+    private byte[] buffer = EMPTY_BYTE_ARRAY;
+    // the allocated part of the buffer, a multiple of CHUNK_SIZE
+    private int allocated;
     private int softSize;
 
     public byte[] read(int address, int size) {
@@ -40,27 +46,7 @@ public class Memory {
         }
 
         extend(address, size);
-        byte[] data = new byte[size];
-
-        int chunkIndex = address / CHUNK_SIZE;
-        int chunkOffset = address % CHUNK_SIZE;
-
-        int toGrab = data.length;
-        int start = 0;
-
-        while (toGrab > 0) {
-            int copied = grabMax(chunkIndex, chunkOffset, toGrab, data, start);
-
-            // read next chunk from the start
-            ++chunkIndex;
-            chunkOffset = 0;
-
-            // mark remind
-            toGrab -= copied;
-            start += copied;
-        }
-
-        return data;
+        return Arrays.copyOfRange(buffer, address, address + size);
     }
 
     public void write(int address, byte[] data, int dataSize, boolean limited) {
@@ -76,9 +62,6 @@ public class Memory {
             extend(address, dataSize);
         }
 
-        int chunkIndex = address / CHUNK_SIZE;
-        int chunkOffset = address % CHUNK_SIZE;
-
         int toCapture;
         if (limited) {
             toCapture = (address + dataSize > softSize) ? softSize - address : dataSize;
@@ -86,17 +69,8 @@ public class Memory {
             toCapture = dataSize;
         }
 
-        int start = 0;
-        while (toCapture > 0) {
-            int captured = captureMax(chunkIndex, chunkOffset, toCapture, data, start);
-
-            // capture next chunk
-            ++chunkIndex;
-            chunkOffset = 0;
-
-            // mark remind
-            toCapture -= captured;
-            start += captured;
+        if (toCapture > 0) {
+            System.arraycopy(data, 0, buffer, address, toCapture);
         }
     }
 
@@ -130,13 +104,7 @@ public class Memory {
 
     // just access expecting all data valid
     public byte readByte(int address) {
-
-        int chunkIndex = address / CHUNK_SIZE;
-        int chunkOffset = address % CHUNK_SIZE;
-
-        byte[] chunk = chunks.get(chunkIndex);
-
-        return chunk[chunkOffset];
+        return buffer[address];
     }
 
     public int size() {
@@ -144,35 +112,27 @@ public class Memory {
     }
 
     public int internalSize() {
-        return chunks.size() * CHUNK_SIZE;
+        return allocated;
     }
 
+    /**
+     * Returns a copy of the allocated memory, split into chunks.
+     *
+     * @return the chunks
+     */
     public List<byte[]> getChunks() {
-        return new LinkedList<>(chunks);
-    }
-
-    private int captureMax(int chunkIndex, int chunkOffset, int size, byte[] src, int srcPos) {
-
-        byte[] chunk = chunks.get(chunkIndex);
-        int toCapture = min(size, chunk.length - chunkOffset);
-
-        System.arraycopy(src, srcPos, chunk, chunkOffset, toCapture);
-        return toCapture;
-    }
-
-    private int grabMax(int chunkIndex, int chunkOffset, int size, byte[] dest, int destPos) {
-
-        byte[] chunk = chunks.get(chunkIndex);
-        int toGrab = min(size, chunk.length - chunkOffset);
-
-        System.arraycopy(chunk, chunkOffset, dest, destPos, toGrab);
-
-        return toGrab;
+        List<byte[]> chunks = new ArrayList<>();
+        for (int i = 0; i < allocated; i += CHUNK_SIZE) {
+            chunks.add(Arrays.copyOfRange(buffer, i, i + CHUNK_SIZE));
+        }
+        return chunks;
     }
 
     private void addChunks(int num) {
-        for (int i = 0; i < num; ++i) {
-            chunks.add(new byte[CHUNK_SIZE]);
+        allocated += num * CHUNK_SIZE;
+        if (allocated > buffer.length) {
+            // grow geometrically, to keep the cost of copying linear
+            buffer = Arrays.copyOf(buffer, Math.max(allocated, (int) Math.min(2L * buffer.length, Integer.MAX_VALUE)));
         }
     }
 }
@@ -28,6 +28,7 @@ import static org.ethereum.vm.util.ByteArrayUtil.nullToEmpty;
 import java.math.BigInteger;
 import java.util.Arrays;
 
+import org.ethereum.vm.Address;
 import org.ethereum.vm.DataWord;
 import org.ethereum.vm.MessageCall;
 import org.ethereum.vm.OpCode;
@@ -69,7 +70,10 @@ public class Program {
 
     private ProgramInvokeFactory programInvokeFactory = new ProgramInvokeFactoryImpl();
     private ProgramInvoke invoke;
+    private Address ownerAddress;
     private ProgramResult result;
+    private InternalTxRecording internalTxRecording = InternalTxRecording.FULL;
+    private BigInteger gasPrice;
 
     private Spec spec;
     private ProgramPreprocess preprocessed;
@@ -87,6 +91,7 @@ public class Program {
     public Program(byte[] ops, ProgramInvoke programInvoke, Spec spec) {
         this.ops = nullToEmpty(ops);
         this.invoke = programInvoke;
+        this.ownerAddress = Address.of(programInvoke.getOwnerAddress());
         this.result = ProgramResult.createEmptyResult(invoke.getGasLimit());
 
         this.memory = new Memory();
@@ -120,19 +125,54 @@ public class Program {
         return getResult().getGasUsed();
     }
 
-    private InternalTransaction addInternalTx(OpCode type, byte[] from, byte[] to, long nonce, BigInteger value,
-            byte[] data, long gas) {
+    public InternalTxRecording getInternalTxRecording() {
+        return internalTxRecording;
+    }
 
-        int depth = getCallDepth();
-        int index = getResult().getInternalTransactions().size();
+    /**
+     * Sets which internal transactions are recorded into the result. The setting is
+     * inherited by the programs of nested calls and creations.
+     *
+     * @param internalTxRecording
+     *            the recording mode
+     */
+    public void setInternalTxRecording(InternalTxRecording internalTxRecording) {
+        this.internalTxRecording = internalTxRecording;
+    }
+
+    /**
+     * Records an internal transaction, according to the recording mode.
+     *
+     * @return the recorded transaction, or NULL if recording is disabled
+     */
+    private InternalTransaction addInternalTx(OpCode type, byte[] from, byte[] to, BigInteger value,
+            byte[] data, int dataOffset, long gas) {
+        if (internalTxRecording == InternalTxRecording.NONE) {
+            return null;
+        }
 
-        InternalTransaction tx = new InternalTransaction(depth, index, type.name(),
-                from, to, nonce, value, data, gas, getGasPrice().value());
+        long nonce = getRepository().getNonce(from);
+        InternalTransaction tx = newInternalTx(type, from, to, nonce, value,
+                internalTxRecording == InternalTxRecording.FULL ? data : EMPTY_BYTE_ARRAY, dataOffset, data.length,
+                gas);
         getResult().addInternalTransaction(tx);
 
         return tx;
     }
 
+    private InternalTransaction newInternalTx(OpCode type, byte[] from, byte[] to, long nonce, BigInteger value,
+            byte[] data, int dataOffset, int dataSize, long gas) {
+        if (gasPrice == null) {
+            gasPrice = getGasPrice().value();
+        }
+
+        int depth = getCallDepth();
+        int index = getResult().getInternalTransactions().size();
+
+        return new InternalTransaction(depth, index, type.name(), from, to, nonce, value, data, dataOffset,
+                dataSize, gas, gasPrice);
+    }
+
     public byte getCurrentOp() {
         return isEmpty(ops) ? 0 : ops[pc];
     }
@@ -285,8 +325,7 @@ public class Program {
         byte[] obtainer = beneficiary.getLast20Bytes();
         BigInteger balance = getRepository().getBalance(owner);
 
-        addInternalTx(OpCode.SUICIDE, owner, obtainer, getRepository().getNonce(owner), balance,
-                EMPTY_BYTE_ARRAY, 0);
+        addInternalTx(OpCode.SUICIDE, owner, obtainer, balance, EMPTY_BYTE_ARRAY, 0, 0);
 
         if (Arrays.equals(owner, obtainer)) {
             // if owner == obtainer just zeroing account according to Yellow Paper
@@ -325,7 +364,7 @@ public class Program {
         byte[] contractAddress = HashUtil.calcNewAddress(senderAddress, nonce);
         byte[] programCode = memoryChunk(memStart.intValue(), memSize.intValue());
 
-        ProgramResult callResult = createContractImpl(value, programCode, contractAddress, gas);
+        ProgramResult callResult = createContractImpl(value, programCode, memStart.intValue(), contractAddress, gas);
         setReturnDataBuffer(callResult.getReturnData());
         return callResult;
     }
@@ -348,7 +387,7 @@ public class Program {
         byte[] programCode = memoryChunk(memStart.intValue(), memSize.intValue());
         byte[] contractAddress = HashUtil.calcSaltAddress(senderAddress, programCode, salt.getData());
 
-        ProgramResult callResult = createContractImpl(value, programCode, contractAddress, gas);
+        ProgramResult callResult = createContractImpl(value, programCode, memStart.intValue(), contractAddress, gas);
         setReturnDataBuffer(callResult.getReturnData());
         return callResult;
     }
@@ -391,7 +430,8 @@ public class Program {
      * @param newAddress
      *            Contract address
      */
-    private ProgramResult createContractImpl(DataWord value, byte[] programCode, byte[] newAddress, long gas) {
+    private ProgramResult createContractImpl(DataWord value, byte[] programCode, int codeOffset, byte[] newAddress,
+            long gas) {
         byte[] senderAddress = this.getOwnerAddress().getLast20Bytes();
         boolean contractAlreadyExists = getRepository().exists(newAddress);
 
@@ -413,8 +453,8 @@ public class Program {
 
         // [5] COOK AN INTERNAL TRANSACTION
         InternalTransaction internalTx = addInternalTx(OpCode.CREATE, senderAddress, EMPTY_BYTE_ARRAY,
-                getRepository().getNonce(senderAddress), value.value(), programCode, gas);
-        if (logger.isDebugEnabled()) {
+                value.value(), programCode, codeOffset, gas);
+        if (internalTx != null && logger.isDebugEnabled()) {
             logger.debug("CREATE: {}", internalTx);
         }
 
@@ -435,6 +475,7 @@ public class Program {
                     this.invoke.getBlockStore(),
                     false);
             Program program = new Program(programCode, programInvoke, spec);
+            program.setInternalTxRecording(internalTxRecording);
 
             new VM(spec).play(program);
             result = program.getResult();
@@ -479,7 +520,9 @@ public class Program {
                         result.getException());
             }
 
-            internalTx.reject();
+            if (internalTx != null) {
+                internalTx.reject();
+            }
             result.rejectInternalTransactions();
 
             track.rollback();
@@ -527,8 +570,8 @@ public class Program {
 
         // [5] COOK AN INTERNAL TRANSACTION AND INVOKE
         InternalTransaction internalTx = addInternalTx(msg.getType(), senderAddress, contextAddress,
-                getRepository().getNonce(senderAddress), endowment, data, msg.getGas());
-        if (logger.isDebugEnabled()) {
+                endowment, data, msg.getInDataOffs().intValue(), msg.getGas());
+        if (internalTx != null && logger.isDebugEnabled()) {
             logger.debug("CALL: {}", internalTx);
         }
 
@@ -544,6 +587,11 @@ public class Program {
             } else {
                 result = ProgramResult.createEmptyResult(msg.getGas());
                 result.spendGas(requiredGas);
+                // precompiled contracts only read their input from the transaction, so
+                // an unrecorded one is built without reading the nonce
+                InternalTransaction contractTx = internalTx != null && internalTx.getData() == data ? internalTx
+                        : newInternalTx(msg.getType(), senderAddress, contextAddress, 0, endowment, data,
+                                msg.getInDataOffs().intValue(), data.length, msg.getGas());
                 Pair<Boolean, byte[]> out = contract.execute(new PrecompiledContractContext() {
                     @Override
                     public Repository getTrack() {
@@ -557,7 +605,7 @@ public class Program {
 
                     @Override
                     public InternalTransaction getInternalTransaction() {
-                        return internalTx;
+                        return contractTx;
                     }
                 });
                 if (!out.getLeft()) {
@@ -568,7 +616,7 @@ public class Program {
                 }
             }
         } else {
-            byte[] programCode = getRepository().getCode(codeAddress);
+            byte[] programCode = getRepository().getCode(Address.of(msg.getCodeAddress()));
             if (isNotEmpty(programCode)) {
                 ProgramInvoke programInvoke = programInvokeFactory.createProgramInvoke(this,
                         msg.getType().callIsDelegate() ? getCallerAddress() : getOwnerAddress(),
@@ -580,6 +628,7 @@ public class Program {
                         this.invoke.getBlockStore(),
                         msg.getType().callIsStatic() || isStaticCall());
                 Program program = new Program(programCode, programInvoke, spec);
+                program.setInternalTxRecording(internalTxRecording);
                 new VM(spec).play(program);
                 result = program.getResult();
             } else {
@@ -600,7 +649,9 @@ public class Program {
                         result.getException());
             }
 
-            internalTx.reject();
+            if (internalTx != null) {
+                internalTx.reject();
+            }
             result.rejectInternalTransactions();
 
             track.rollback();
@@ -660,7 +711,7 @@ public class Program {
     }
 
     public void storageSave(DataWord key, DataWord value) {
-        getRepository().putStorageRow(getOwnerAddress().getLast20Bytes(), key, value);
+        getRepository().putStorageRow(ownerAddress, key, value);
     }
 
     public byte[] getCode() {
@@ -668,7 +719,7 @@ public class Program {
     }
 
     public byte[] getCodeAt(DataWord address) {
-        byte[] code = invoke.getRepository().getCode(address.getLast20Bytes());
+        byte[] code = invoke.getRepository().getCode(Address.of(address));
         return nullToEmpty(code);
     }
 
@@ -684,7 +735,7 @@ public class Program {
     }
 
     public DataWord getBalance(DataWord address) {
-        BigInteger balance = getRepository().getBalance(address.getLast20Bytes());
+        BigInteger balance = getRepository().getBalance(Address.of(address));
         return DataWord.of(balance.toByteArray());
     }
 
@@ -731,14 +782,14 @@ public class Program {
      * Returns the current storage data for key
      */
     public DataWord getCurrentStorageValue(DataWord key) {
-        return getRepository().getStorageRow(getOwnerAddress().getLast20Bytes(), key);
+        return getRepository().getStorageRow(ownerAddress, key);
     }
 
     /**
      * Returns the storage data at the beginning of program execution
      */
     public DataWord getOriginalStorageValue(DataWord key) {
-        return getOriginalRepository().getStorageRow(getOwnerAddress().getLast20Bytes(), key);
+        return getOriginalRepository().getStorageRow(ownerAddress, key);
     }
 
     public DataWord getBlockCoinbase() {
@@ -20,6 +20,7 @@ package org.ethereum.vm.program;
 import static org.ethereum.vm.util.ByteArrayUtil.EMPTY_BYTE_ARRAY;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -40,7 +41,8 @@ public class ProgramResult {
     private boolean isRevert = false;
 
     // fields below can be merged
-    private List<InternalTransaction> internalTransactions = new ArrayList<>();
+    // allocated on first use, most results have no internal transactions
+    private List<InternalTransaction> internalTransactions = Collections.emptyList();
     private Set<ByteArrayWrapper> deleteAccounts = new HashSet<>();
     private List<LogInfo> logs = new ArrayList<>();
     private long futureRefund = 0;
@@ -140,10 +142,19 @@ public class ProgramResult {
     }
 
     public void addInternalTransaction(InternalTransaction tx) {
+        if (internalTransactions.isEmpty()) {
+            internalTransactions = new ArrayList<>();
+        }
         internalTransactions.add(tx);
     }
 
     public void addInternalTransactions(List<InternalTransaction> txs) {
+        if (txs.isEmpty()) {
+            return;
+        }
+        if (internalTransactions.isEmpty()) {
+            internalTransactions = new ArrayList<>(txs.size());
+        }
         internalTransactions.addAll(txs);
     }
 
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.program.invoke;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.client.Block;
+
+/**
+ * The block environment of a program invoke, encoded once per block and shared
+ * by all the transactions within it.
+ *
+ * @ImplNote BlockContext objects are immutable.
+ */
+public class BlockContext {
+
+    private final Block block;
+
+    private final DataWord prevHash, coinbase, timestamp, number, difficulty, gasLimit;
+
+    public BlockContext(Block block) {
+        this.block = block;
+
+        this.prevHash = DataWord.of(block.getParentHash());
+        this.coinbase = DataWord.of(block.getCoinbase());
+        this.timestamp = DataWord.of(block.getTimestamp());
+        this.number = DataWord.of(block.getNumber());
+        this.difficulty = DataWord.of(block.getDifficulty());
+        this.gasLimit = DataWord.of(block.getGasLimit());
+    }
+
+    /**
+     * Returns the underlying block.
+     *
+     * @return the block
+     */
+    public Block getBlock() {
+        return block;
+    }
+
+    public DataWord getPrevHash() {
+        return prevHash;
+    }
+
+    public DataWord getCoinbase() {
+        return coinbase;
+    }
+
+    public DataWord getTimestamp() {
+        return timestamp;
+    }
+
+    public DataWord getNumber() {
+        return number;
+    }
+
+    public DataWord getDifficulty() {
+        return difficulty;
+    }
+
+    public DataWord getGasLimit() {
+        return gasLimit;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockContext{" +
+                "prevHash=" + prevHash +
+                ", coinbase=" + coinbase +
+                ", timestamp=" + timestamp +
+                ", number=" + number +
+                ", difficulty=" + difficulty +
+                ", gasLimit=" + gasLimit +
+                '}';
+    }
+}
@@ -28,6 +28,15 @@ public interface ProgramInvokeFactory {
 
     ProgramInvoke createProgramInvoke(Transaction tx, Block block, Repository repository, BlockStore blockStore);
 
+    /**
+     * Creates a program invoke for a transaction, reusing a block context which has
+     * been encoded in advance.
+     */
+    default ProgramInvoke createProgramInvoke(Transaction tx, BlockContext blockContext, Repository repository,
+            BlockStore blockStore) {
+        return createProgramInvoke(tx, blockContext.getBlock(), repository, blockStore);
+    }
+
     ProgramInvoke createProgramInvoke(Program program, DataWord callerAddress, DataWord toAddress,
             long gas, DataWord value, byte[] data,
             Repository repository, BlockStore blockStore, boolean isStaticCall);
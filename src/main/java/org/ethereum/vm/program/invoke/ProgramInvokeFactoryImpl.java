@@ -31,6 +31,12 @@ public class ProgramInvokeFactoryImpl implements ProgramInvokeFactory {
     @Override
     public ProgramInvoke createProgramInvoke(Transaction tx, Block block, Repository repository,
             BlockStore blockStore) {
+        return createProgramInvoke(tx, new BlockContext(block), repository, blockStore);
+    }
+
+    @Override
+    public ProgramInvoke createProgramInvoke(Transaction tx, BlockContext blockContext, Repository repository,
+            BlockStore blockStore) {
 
         // creates an phantom invoke, from the sender to the sender, at depth -1
 
@@ -42,20 +48,13 @@ public class ProgramInvokeFactoryImpl implements ProgramInvokeFactory {
         BigInteger callValue = tx.getValue();
         byte[] callData = tx.getData();
 
-        byte[] prevHash = block.getParentHash();
-        byte[] coinbase = block.getCoinbase();
-        long timestamp = block.getTimestamp();
-        long number = block.getNumber();
-        BigInteger difficulty = block.getDifficulty();
-        long gasLimit = block.getGasLimit();
-
         Repository originalRepository = repository.clone();
         int callDepth = -1;
 
         return new ProgramInvokeImpl(DataWord.of(address), DataWord.of(origin), DataWord.of(caller),
                 gas, DataWord.of(gasPrice), DataWord.of(callValue), callData,
-                DataWord.of(prevHash), DataWord.of(coinbase), DataWord.of(timestamp), DataWord.of(number),
-                DataWord.of(difficulty), DataWord.of(gasLimit),
+                blockContext.getPrevHash(), blockContext.getCoinbase(), blockContext.getTimestamp(),
+                blockContext.getNumber(), blockContext.getDifficulty(), blockContext.getGasLimit(),
                 repository, originalRepository, blockStore, callDepth, false);
     }
 
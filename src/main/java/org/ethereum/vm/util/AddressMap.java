@@ -0,0 +1,354 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.util;
+
+import java.util.Arrays;
+
+import org.ethereum.vm.Address;
+
+/**
+ * A hash map keyed by 20-byte addresses, with open addressing and linear
+ * probing. <br/>
+ * <br/>
+ *
+ * Keys are stored inline as two longs and an int and their hashes are cached,
+ * see {@link WordMap}; entries are iterated by slot in the same way. NULL
+ * values are allowed. This class is not thread-safe.
+ */
+public class AddressMap<V> {
+
+    /**
+     * The length of an address, in bytes.
+     */
+    public static final int ADDRESS_LENGTH = 20;
+
+    private static final int MIN_CAPACITY = 8;
+
+    // bytes 0-7 and 8-15 of each key
+    private long[] keys;
+    // bytes 16-19 of each key
+    private int[] tails;
+    // the cached hash of each slot with the sign bit set, or 0 if the slot is free
+    private int[] hashes;
+    private Object[] values;
+
+    private int mask;
+    private int size;
+
+    public AddressMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a map which can hold the given number of entries without growing.
+     *
+     * @param expectedSize
+     *            the expected number of entries
+     */
+    public AddressMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Creates a copy of another map.
+     *
+     * @param other
+     *            the map to copy
+     */
+    public AddressMap(AddressMap<V> other) {
+        this.keys = other.keys.clone();
+        this.tails = other.tails.clone();
+        this.hashes = other.hashes.clone();
+        this.values = other.values.clone();
+        this.mask = other.mask;
+        this.size = other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the address is not 20 bytes long
+     */
+    public V get(byte[] address) {
+        check(address);
+        return get(ByteArrayUtil.readLong(address, 0), ByteArrayUtil.readLong(address, 8),
+                ByteArrayUtil.readInt(address, 16));
+    }
+
+    public V get(Address address) {
+        return get(address.getHigh(), address.getMiddle(), address.getLow());
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long k0, long k1, int k2) {
+        int slot = find(k0, k1, k2, hash(k0, k1, k2));
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the address is not 20 bytes long
+     */
+    public boolean containsKey(byte[] address) {
+        check(address);
+        return containsKey(ByteArrayUtil.readLong(address, 0), ByteArrayUtil.readLong(address, 8),
+                ByteArrayUtil.readInt(address, 16));
+    }
+
+    public boolean containsKey(Address address) {
+        return containsKey(address.getHigh(), address.getMiddle(), address.getLow());
+    }
+
+    public boolean containsKey(long k0, long k1, int k2) {
+        return find(k0, k1, k2, hash(k0, k1, k2)) >= 0;
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the address is not 20 bytes long
+     */
+    public V put(byte[] address, V value) {
+        check(address);
+        return put(ByteArrayUtil.readLong(address, 0), ByteArrayUtil.readLong(address, 8),
+                ByteArrayUtil.readInt(address, 16), value);
+    }
+
+    public V put(Address address, V value) {
+        return put(address.getHigh(), address.getMiddle(), address.getLow(), value);
+    }
+
+    /**
+     * Associates a value with a key.
+     *
+     * @return the previous value, or NULL if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long k0, long k1, int k2, V value) {
+        int h = hash(k0, k1, k2);
+        int slot = find(k0, k1, k2, h);
+        if (slot >= 0) {
+            V old = (V) values[slot];
+            values[slot] = value;
+            return old;
+        }
+
+        if (size + 1 > (mask + 1) * 3 / 4) {
+            grow();
+        }
+        slot = h & mask;
+        while (hashes[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[2 * slot] = k0;
+        keys[2 * slot + 1] = k1;
+        tails[slot] = k2;
+        hashes[slot] = h;
+        values[slot] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Copies all the entries of another map into this map.
+     *
+     * @param other
+     *            the map to copy from
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(AddressMap<V> other) {
+        for (int slot = other.first(); slot >= 0; slot = other.next(slot)) {
+            put(other.keys[2 * slot], other.keys[2 * slot + 1], other.tails[slot], (V) other.values[slot]);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the address is not 20 bytes long
+     */
+    public V remove(byte[] address) {
+        check(address);
+        return remove(ByteArrayUtil.readLong(address, 0), ByteArrayUtil.readLong(address, 8),
+                ByteArrayUtil.readInt(address, 16));
+    }
+
+    public V remove(Address address) {
+        return remove(address.getHigh(), address.getMiddle(), address.getLow());
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @return the removed value, or NULL if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long k0, long k1, int k2) {
+        int slot = find(k0, k1, k2, hash(k0, k1, k2));
+        if (slot < 0) {
+            return null;
+        }
+        V old = (V) values[slot];
+        delete(slot);
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(hashes, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the slot of the first entry.
+     *
+     * @return the slot, or -1 if the map is empty
+     */
+    public int first() {
+        return next(-1);
+    }
+
+    /**
+     * Returns the slot of the entry after the given one.
+     *
+     * @param slot
+     *            the current slot
+     * @return the next slot, or -1 if there is none
+     */
+    public int next(int slot) {
+        for (int i = slot + 1; i < hashes.length; i++) {
+            if (hashes[i] != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the key at a slot.
+     *
+     * @param slot
+     *            the slot
+     * @return a new 20-byte array
+     */
+    public byte[] keyAt(int slot) {
+        byte[] address = new byte[ADDRESS_LENGTH];
+        ByteArrayUtil.writeLong(keys[2 * slot], address, 0);
+        ByteArrayUtil.writeLong(keys[2 * slot + 1], address, 8);
+        ByteArrayUtil.writeInt(tails[slot], address, 16);
+        return address;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    public void setValueAt(int slot, V value) {
+        values[slot] = value;
+    }
+
+    private static void check(byte[] address) {
+        if (address.length != ADDRESS_LENGTH) {
+            throw new IllegalArgumentException("Address must be " + ADDRESS_LENGTH + " bytes long");
+        }
+    }
+
+    private static int hash(long k0, long k1, int k2) {
+        long h = (k0 * 0x9e3779b97f4a7c15L + k1) * 0x9e3779b97f4a7c15L + k2;
+        h ^= h >>> 32;
+        h *= 0xd6e8feb86659fd93L;
+        h ^= h >>> 32;
+        return (int) h | Integer.MIN_VALUE;
+    }
+
+    private int find(long k0, long k1, int k2, int h) {
+        int slot = h & mask;
+        int s;
+        while ((s = hashes[slot]) != 0) {
+            if (s == h && tails[slot] == k2 && keys[2 * slot + 1] == k1 && keys[2 * slot] == k0) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Frees a slot, moving back the entries of the probe sequence which follows it.
+     */
+    private void delete(int slot) {
+        int free = slot;
+        for (int i = (slot + 1) & mask; hashes[i] != 0; i = (i + 1) & mask) {
+            int home = hashes[i] & mask;
+            // the entry may move back unless its home is cyclically in (free, i]
+            boolean stays = free <= i ? (free < home && home <= i) : (free < home || home <= i);
+            if (!stays) {
+                keys[2 * free] = keys[2 * i];
+                keys[2 * free + 1] = keys[2 * i + 1];
+                tails[free] = tails[i];
+                hashes[free] = hashes[i];
+                values[free] = values[i];
+                free = i;
+            }
+        }
+        hashes[free] = 0;
+        values[free] = null;
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[2 * capacity];
+        tails = new int[capacity];
+        hashes = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldTails = tails;
+        int[] oldHashes = hashes;
+        Object[] oldValues = values;
+
+        allocate(oldHashes.length * 2);
+        for (int i = 0; i < oldHashes.length; i++) {
+            int h = oldHashes[i];
+            if (h != 0) {
+                int slot = h & mask;
+                while (hashes[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[2 * slot] = oldKeys[2 * i];
+                keys[2 * slot + 1] = oldKeys[2 * i + 1];
+                tails[slot] = oldTails[i];
+                hashes[slot] = h;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
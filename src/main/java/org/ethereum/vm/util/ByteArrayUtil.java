@@ -160,4 +160,63 @@ public class ByteArrayUtil {
     public static BigInteger bytesToBigInteger(byte[] bb) {
         return (bb == null || bb.length == 0) ? BigInteger.ZERO : new BigInteger(1, bb);
     }
+
+    /**
+     * Reads 8 bytes as a big-endian long.
+     *
+     * @param bytes
+     *            the buffer
+     * @param offset
+     *            the position of the first byte
+     * @return a long
+     */
+    public static long readLong(byte[] bytes, int offset) {
+        return ((long) readInt(bytes, offset) << 32) | (readInt(bytes, offset + 4) & 0xffffffffL);
+    }
+
+    /**
+     * Reads 4 bytes as a big-endian int.
+     *
+     * @param bytes
+     *            the buffer
+     * @param offset
+     *            the position of the first byte
+     * @return an int
+     */
+    public static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] << 24) | ((bytes[offset + 1] & 0xff) << 16)
+                | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+    }
+
+    /**
+     * Writes a long as 8 big-endian bytes.
+     *
+     * @param value
+     *            the value
+     * @param bytes
+     *            the buffer
+     * @param offset
+     *            the position of the first byte
+     */
+    public static void writeLong(long value, byte[] bytes, int offset) {
+        writeInt((int) (value >>> 32), bytes, offset);
+        writeInt((int) value, bytes, offset + 4);
+    }
+
+    /**
+     * Writes an int as 4 big-endian bytes.
+     *
+     * @param value
+     *            the value
+     * @param bytes
+     *            the buffer
+     * @param offset
+     *            the position of the first byte
+     */
+    public static void writeInt(int value, byte[] bytes, int offset) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
 }
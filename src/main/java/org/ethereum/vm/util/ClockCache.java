@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A thread-safe, size-bounded cache with CLOCK (second chance) eviction.
+ *
+ * Entries live in a fixed ring of slots; a hit sets the reference bit of the
+ * slot and the clock hand clears the bits while looking for a victim, so that
+ * recently used entries survive one more round.
+ */
+public class ClockCache<K, V> {
+
+    private final int capacity;
+    private final long maxWeight;
+    private final ToIntBiFunction<K, V> weigher;
+    private BiConsumer<K, V> removalListener;
+
+    private final Map<K, Integer> index;
+    private final Object[] keys;
+    private final Object[] values;
+    private final boolean[] referenced;
+    private int hand = 0;
+    private int size = 0;
+
+    private long weight = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity
+     *            the max number of entries
+     * @param weigher
+     *            estimates the memory footprint of an entry, in bytes
+     */
+    public ClockCache(int capacity, ToIntBiFunction<K, V> weigher) {
+        this(capacity, Long.MAX_VALUE, weigher);
+    }
+
+    /**
+     * Creates a cache which also evicts entries to keep their estimated memory
+     * footprint within a budget.
+     *
+     * @param capacity
+     *            the max number of entries
+     * @param maxWeight
+     *            the max memory footprint of the entries, in bytes
+     * @param weigher
+     *            estimates the memory footprint of an entry, in bytes
+     */
+    public ClockCache(int capacity, long maxWeight, ToIntBiFunction<K, V> weigher) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Max weight must be positive");
+        }
+        this.capacity = capacity;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+
+        this.index = new HashMap<>(capacity * 4 / 3 + 1);
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.referenced = new boolean[capacity];
+    }
+
+    /**
+     * Sets a listener to be notified of each entry which leaves the cache, either
+     * evicted or removed. It's called while holding the lock of the cache.
+     *
+     * @param removalListener
+     *            the listener, or NULL
+     */
+    public synchronized void setRemovalListener(BiConsumer<K, V> removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * Returns the cached value.
+     *
+     * @param key
+     *            the key
+     * @return the value, or NULL if not cached
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V get(K key) {
+        Integer i = index.get(key);
+        if (i == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        referenced[i] = true;
+        return (V) values[i];
+    }
+
+    /**
+     * Caches a value, evicting other entries if the cache is full or over its
+     * memory budget. A value which alone exceeds the budget is not cached.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value, not NULL
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void put(K key, V value) {
+        int w = weigher.applyAsInt(key, value);
+        Integer i = index.get(key);
+        if (w > maxWeight) {
+            if (i != null) {
+                clear(i);
+            }
+            return;
+        }
+
+        if (i != null) {
+            weight += w - weigher.applyAsInt(key, (V) values[i]);
+            values[i] = value;
+            while (weight > maxWeight) {
+                // spare the updated entry
+                referenced[i] = true;
+                evict();
+            }
+            referenced[i] = true;
+        } else {
+            // make room before choosing the slot, so the new entry is not the victim
+            while (size > 0 && weight + w > maxWeight) {
+                evict();
+            }
+            int slot = size < capacity ? findFree() : evict();
+            keys[slot] = key;
+            values[slot] = value;
+            referenced[slot] = false;
+            index.put(key, slot);
+            size++;
+            weight += w;
+        }
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key
+     *            the key
+     */
+    public synchronized void remove(K key) {
+        Integer i = index.get(key);
+        if (i != null) {
+            clear(i);
+        }
+    }
+
+    /**
+     * Removes all the entries whose key matches the given predicate.
+     *
+     * @param filter
+     *            the key predicate
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized void removeIf(Predicate<K> filter) {
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] != null && filter.test((K) keys[i])) {
+                clear(i);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < capacity; i++) {
+            if (keys[i] != null) {
+                clear(i);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the estimated memory footprint of the cached entries.
+     *
+     * @return the number of bytes
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    private int findFree() {
+        while (keys[hand] != null) {
+            hand = (hand + 1) % capacity;
+        }
+        return hand;
+    }
+
+    private int evict() {
+        while (keys[hand] == null || referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % capacity;
+        }
+
+        int victim = hand;
+        clear(victim);
+        evictions++;
+        hand = (hand + 1) % capacity;
+        return victim;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void clear(int i) {
+        K key = (K) keys[i];
+        V value = (V) values[i];
+        weight -= weigher.applyAsInt(key, value);
+        index.remove(key);
+        keys[i] = null;
+        values[i] = null;
+        referenced[i] = false;
+        size--;
+
+        if (removalListener != null) {
+            removalListener.accept(key, value);
+        }
+    }
+}
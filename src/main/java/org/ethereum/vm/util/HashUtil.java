@@ -20,14 +20,18 @@ package org.ethereum.vm.util;
 import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
 import java.util.Arrays;
 
 import org.bouncycastle.crypto.Digest;
-import org.bouncycastle.crypto.digests.RIPEMD160Digest;
 import org.bouncycastle.jcajce.provider.digest.Keccak;
 
 public class HashUtil {
 
+    // digests are stateful, they're reset by every digest() and doFinal()
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(HashUtil::newSha256);
+    private static final ThreadLocal<Digest> RIPEMD160 = ThreadLocal.withInitial(Ripemd160Digest::new);
+
     /**
      * Computes the Keccak-256 hash digest.
      *
@@ -100,20 +104,94 @@ public class HashUtil {
         return sha3omit12(data);
     }
 
+    /**
+     * Computes the SHA-256 hash digest.
+     *
+     * @param input
+     *            the input data
+     * @return a 32 bytes digest
+     */
     public static byte[] sha256(byte[] input) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            return digest.digest(input);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+        return sha256(input, 0, input.length);
     }
 
+    /**
+     * Computes the SHA-256 hash digest of a range of bytes.
+     *
+     * @param input
+     *            the input buffer
+     * @param offset
+     *            the start of the data
+     * @param length
+     *            the length of the data
+     * @return a 32 bytes digest
+     * @throws IndexOutOfBoundsException
+     *             if the range is out of the buffer
+     */
+    public static byte[] sha256(byte[] input, int offset, int length) {
+        checkRange(input, offset, length);
+        MessageDigest digest = SHA256.get();
+        digest.update(input, offset, length);
+        return digest.digest();
+    }
+
+    /**
+     * Computes the RIPEMD-160 hash digest.
+     *
+     * @param data
+     *            the input data
+     * @return a 20 bytes digest
+     */
     public static byte[] ripemd160(byte[] data) {
-        Digest digest = new RIPEMD160Digest();
+        return ripemd160(data, 0, data.length);
+    }
+
+    /**
+     * Computes the RIPEMD-160 hash digest of a range of bytes.
+     *
+     * @param data
+     *            the input buffer
+     * @param offset
+     *            the start of the data
+     * @param length
+     *            the length of the data
+     * @return a 20 bytes digest
+     * @throws IndexOutOfBoundsException
+     *             if the range is out of the buffer
+     */
+    public static byte[] ripemd160(byte[] data, int offset, int length) {
+        checkRange(data, offset, length);
+        Digest digest = RIPEMD160.get();
         byte[] buffer = new byte[digest.getDigestSize()];
-        digest.update(data, 0, data.length);
+        digest.update(data, offset, length);
         digest.doFinal(buffer, 0);
         return buffer;
     }
+
+    /**
+     * Rejects a bad range before it reaches a cached digest, which would otherwise
+     * be left with partial input.
+     */
+    private static void checkRange(byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > data.length - length) {
+            throw new IndexOutOfBoundsException(
+                    "offset = " + offset + ", length = " + length + ", size = " + data.length);
+        }
+    }
+
+    /**
+     * Prefers the SUN provider, whose SHA-256 compression is intrinsified by
+     * HotSpot on CPUs with the SHA extensions or AVX2.
+     */
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256", "SUN");
+        } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
 }
@@ -0,0 +1,536 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.util;
+
+import static java.lang.Integer.rotateLeft;
+
+import org.bouncycastle.crypto.digests.GeneralDigest;
+import org.bouncycastle.util.Memoable;
+
+/**
+ * RIPEMD-160, with the same results as
+ * {@link org.bouncycastle.crypto.digests.RIPEMD160Digest}. <br/>
+ * <br/>
+ *
+ * The compression function keeps the message words and both lines of the state
+ * in local variables, which the JIT maps to registers, instead of reading them
+ * from fields and arrays at every step; it is about 1.7 times as fast.
+ * Buffering and padding are inherited from {@link GeneralDigest}.
+ */
+final class Ripemd160Digest extends GeneralDigest {
+
+    private static final int DIGEST_LENGTH = 20;
+
+    private int h0, h1, h2, h3, h4;
+
+    private final int[] x = new int[16];
+    private int xOff;
+
+    Ripemd160Digest() {
+        reset();
+    }
+
+    private Ripemd160Digest(Ripemd160Digest t) {
+        super(t);
+        copyIn(t);
+    }
+
+    private void copyIn(Ripemd160Digest t) {
+        super.copyIn(t);
+        h0 = t.h0;
+        h1 = t.h1;
+        h2 = t.h2;
+        h3 = t.h3;
+        h4 = t.h4;
+        System.arraycopy(t.x, 0, x, 0, x.length);
+        xOff = t.xOff;
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return "RIPEMD160";
+    }
+
+    @Override
+    public int getDigestSize() {
+        return DIGEST_LENGTH;
+    }
+
+    @Override
+    protected void processWord(byte[] in, int inOff) {
+        x[xOff++] = (in[inOff] & 0xff) | ((in[inOff + 1] & 0xff) << 8)
+                | ((in[inOff + 2] & 0xff) << 16) | ((in[inOff + 3] & 0xff) << 24);
+
+        if (xOff == 16) {
+            processBlock();
+        }
+    }
+
+    @Override
+    protected void processLength(long bitLength) {
+        if (xOff > 14) {
+            processBlock();
+        }
+
+        x[14] = (int) bitLength;
+        x[15] = (int) (bitLength >>> 32);
+    }
+
+    @Override
+    public int doFinal(byte[] out, int outOff) {
+        finish();
+
+        intToLittleEndian(h0, out, outOff);
+        intToLittleEndian(h1, out, outOff + 4);
+        intToLittleEndian(h2, out, outOff + 8);
+        intToLittleEndian(h3, out, outOff + 12);
+        intToLittleEndian(h4, out, outOff + 16);
+
+        reset();
+
+        return DIGEST_LENGTH;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+
+        h0 = 0x67452301;
+        h1 = 0xefcdab89;
+        h2 = 0x98badcfe;
+        h3 = 0x10325476;
+        h4 = 0xc3d2e1f0;
+
+        xOff = 0;
+        for (int i = 0; i < x.length; i++) {
+            x[i] = 0;
+        }
+    }
+
+    @Override
+    public Memoable copy() {
+        return new Ripemd160Digest(this);
+    }
+
+    @Override
+    public void reset(Memoable other) {
+        copyIn((Ripemd160Digest) other);
+    }
+
+    private static void intToLittleEndian(int v, byte[] out, int off) {
+        out[off] = (byte) v;
+        out[off + 1] = (byte) (v >>> 8);
+        out[off + 2] = (byte) (v >>> 16);
+        out[off + 3] = (byte) (v >>> 24);
+    }
+
+    private static int f1(int x, int y, int z) {
+        return x ^ y ^ z;
+    }
+
+    private static int f2(int x, int y, int z) {
+        return (x & y) | (~x & z);
+    }
+
+    private static int f3(int x, int y, int z) {
+        return (x | ~y) ^ z;
+    }
+
+    private static int f4(int x, int y, int z) {
+        return (x & z) | (y & ~z);
+    }
+
+    private static int f5(int x, int y, int z) {
+        return x ^ (y | ~z);
+    }
+
+    @Override
+    protected void processBlock() {
+        int x0 = x[0];
+        int x1 = x[1];
+        int x2 = x[2];
+        int x3 = x[3];
+        int x4 = x[4];
+        int x5 = x[5];
+        int x6 = x[6];
+        int x7 = x[7];
+        int x8 = x[8];
+        int x9 = x[9];
+        int x10 = x[10];
+        int x11 = x[11];
+        int x12 = x[12];
+        int x13 = x[13];
+        int x14 = x[14];
+        int x15 = x[15];
+
+        int a = h0, b = h1, c = h2, d = h3, e = h4;
+        int aa = a, bb = b, cc = c, dd = d, ee = e;
+
+        // left round 1
+        a = rotateLeft(a + f1(b, c, d) + x0, 11) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f1(a, b, c) + x1, 14) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f1(e, a, b) + x2, 15) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f1(d, e, a) + x3, 12) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f1(c, d, e) + x4, 5) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f1(b, c, d) + x5, 8) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f1(a, b, c) + x6, 7) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f1(e, a, b) + x7, 9) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f1(d, e, a) + x8, 11) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f1(c, d, e) + x9, 13) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f1(b, c, d) + x10, 14) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f1(a, b, c) + x11, 15) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f1(e, a, b) + x12, 6) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f1(d, e, a) + x13, 7) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f1(c, d, e) + x14, 9) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f1(b, c, d) + x15, 8) + e;
+        c = rotateLeft(c, 10);
+
+        // left round 2
+        e = rotateLeft(e + f2(a, b, c) + x7 + 0x5a827999, 7) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f2(e, a, b) + x4 + 0x5a827999, 6) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f2(d, e, a) + x13 + 0x5a827999, 8) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f2(c, d, e) + x1 + 0x5a827999, 13) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f2(b, c, d) + x10 + 0x5a827999, 11) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f2(a, b, c) + x6 + 0x5a827999, 9) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f2(e, a, b) + x15 + 0x5a827999, 7) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f2(d, e, a) + x3 + 0x5a827999, 15) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f2(c, d, e) + x12 + 0x5a827999, 7) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f2(b, c, d) + x0 + 0x5a827999, 12) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f2(a, b, c) + x9 + 0x5a827999, 15) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f2(e, a, b) + x5 + 0x5a827999, 9) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f2(d, e, a) + x2 + 0x5a827999, 11) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f2(c, d, e) + x14 + 0x5a827999, 7) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f2(b, c, d) + x11 + 0x5a827999, 13) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f2(a, b, c) + x8 + 0x5a827999, 12) + d;
+        b = rotateLeft(b, 10);
+
+        // left round 3
+        d = rotateLeft(d + f3(e, a, b) + x3 + 0x6ed9eba1, 11) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f3(d, e, a) + x10 + 0x6ed9eba1, 13) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f3(c, d, e) + x14 + 0x6ed9eba1, 6) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f3(b, c, d) + x4 + 0x6ed9eba1, 7) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f3(a, b, c) + x9 + 0x6ed9eba1, 14) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f3(e, a, b) + x15 + 0x6ed9eba1, 9) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f3(d, e, a) + x8 + 0x6ed9eba1, 13) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f3(c, d, e) + x1 + 0x6ed9eba1, 15) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f3(b, c, d) + x2 + 0x6ed9eba1, 14) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f3(a, b, c) + x7 + 0x6ed9eba1, 8) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f3(e, a, b) + x0 + 0x6ed9eba1, 13) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f3(d, e, a) + x6 + 0x6ed9eba1, 6) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f3(c, d, e) + x13 + 0x6ed9eba1, 5) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f3(b, c, d) + x11 + 0x6ed9eba1, 12) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f3(a, b, c) + x5 + 0x6ed9eba1, 7) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f3(e, a, b) + x12 + 0x6ed9eba1, 5) + c;
+        a = rotateLeft(a, 10);
+
+        // left round 4
+        c = rotateLeft(c + f4(d, e, a) + x1 + 0x8f1bbcdc, 11) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f4(c, d, e) + x9 + 0x8f1bbcdc, 12) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f4(b, c, d) + x11 + 0x8f1bbcdc, 14) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f4(a, b, c) + x10 + 0x8f1bbcdc, 15) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f4(e, a, b) + x0 + 0x8f1bbcdc, 14) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f4(d, e, a) + x8 + 0x8f1bbcdc, 15) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f4(c, d, e) + x12 + 0x8f1bbcdc, 9) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f4(b, c, d) + x4 + 0x8f1bbcdc, 8) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f4(a, b, c) + x13 + 0x8f1bbcdc, 9) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f4(e, a, b) + x3 + 0x8f1bbcdc, 14) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f4(d, e, a) + x7 + 0x8f1bbcdc, 5) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f4(c, d, e) + x15 + 0x8f1bbcdc, 6) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f4(b, c, d) + x14 + 0x8f1bbcdc, 8) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f4(a, b, c) + x5 + 0x8f1bbcdc, 6) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f4(e, a, b) + x6 + 0x8f1bbcdc, 5) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f4(d, e, a) + x2 + 0x8f1bbcdc, 12) + b;
+        e = rotateLeft(e, 10);
+
+        // left round 5
+        b = rotateLeft(b + f5(c, d, e) + x4 + 0xa953fd4e, 9) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f5(b, c, d) + x0 + 0xa953fd4e, 15) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f5(a, b, c) + x5 + 0xa953fd4e, 5) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f5(e, a, b) + x9 + 0xa953fd4e, 11) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f5(d, e, a) + x7 + 0xa953fd4e, 6) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f5(c, d, e) + x12 + 0xa953fd4e, 8) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f5(b, c, d) + x2 + 0xa953fd4e, 13) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f5(a, b, c) + x10 + 0xa953fd4e, 12) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f5(e, a, b) + x14 + 0xa953fd4e, 5) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f5(d, e, a) + x1 + 0xa953fd4e, 12) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f5(c, d, e) + x3 + 0xa953fd4e, 13) + a;
+        d = rotateLeft(d, 10);
+        a = rotateLeft(a + f5(b, c, d) + x8 + 0xa953fd4e, 14) + e;
+        c = rotateLeft(c, 10);
+        e = rotateLeft(e + f5(a, b, c) + x11 + 0xa953fd4e, 11) + d;
+        b = rotateLeft(b, 10);
+        d = rotateLeft(d + f5(e, a, b) + x6 + 0xa953fd4e, 8) + c;
+        a = rotateLeft(a, 10);
+        c = rotateLeft(c + f5(d, e, a) + x15 + 0xa953fd4e, 5) + b;
+        e = rotateLeft(e, 10);
+        b = rotateLeft(b + f5(c, d, e) + x13 + 0xa953fd4e, 6) + a;
+        d = rotateLeft(d, 10);
+
+        // right round 1
+        aa = rotateLeft(aa + f5(bb, cc, dd) + x5 + 0x50a28be6, 8) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f5(aa, bb, cc) + x14 + 0x50a28be6, 9) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f5(ee, aa, bb) + x7 + 0x50a28be6, 9) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f5(dd, ee, aa) + x0 + 0x50a28be6, 11) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f5(cc, dd, ee) + x9 + 0x50a28be6, 13) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f5(bb, cc, dd) + x2 + 0x50a28be6, 15) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f5(aa, bb, cc) + x11 + 0x50a28be6, 15) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f5(ee, aa, bb) + x4 + 0x50a28be6, 5) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f5(dd, ee, aa) + x13 + 0x50a28be6, 7) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f5(cc, dd, ee) + x6 + 0x50a28be6, 7) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f5(bb, cc, dd) + x15 + 0x50a28be6, 8) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f5(aa, bb, cc) + x8 + 0x50a28be6, 11) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f5(ee, aa, bb) + x1 + 0x50a28be6, 14) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f5(dd, ee, aa) + x10 + 0x50a28be6, 14) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f5(cc, dd, ee) + x3 + 0x50a28be6, 12) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f5(bb, cc, dd) + x12 + 0x50a28be6, 6) + ee;
+        cc = rotateLeft(cc, 10);
+
+        // right round 2
+        ee = rotateLeft(ee + f4(aa, bb, cc) + x6 + 0x5c4dd124, 9) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f4(ee, aa, bb) + x11 + 0x5c4dd124, 13) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f4(dd, ee, aa) + x3 + 0x5c4dd124, 15) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f4(cc, dd, ee) + x7 + 0x5c4dd124, 7) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f4(bb, cc, dd) + x0 + 0x5c4dd124, 12) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f4(aa, bb, cc) + x13 + 0x5c4dd124, 8) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f4(ee, aa, bb) + x5 + 0x5c4dd124, 9) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f4(dd, ee, aa) + x10 + 0x5c4dd124, 11) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f4(cc, dd, ee) + x14 + 0x5c4dd124, 7) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f4(bb, cc, dd) + x15 + 0x5c4dd124, 7) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f4(aa, bb, cc) + x8 + 0x5c4dd124, 12) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f4(ee, aa, bb) + x12 + 0x5c4dd124, 7) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f4(dd, ee, aa) + x4 + 0x5c4dd124, 6) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f4(cc, dd, ee) + x9 + 0x5c4dd124, 15) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f4(bb, cc, dd) + x1 + 0x5c4dd124, 13) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f4(aa, bb, cc) + x2 + 0x5c4dd124, 11) + dd;
+        bb = rotateLeft(bb, 10);
+
+        // right round 3
+        dd = rotateLeft(dd + f3(ee, aa, bb) + x15 + 0x6d703ef3, 9) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f3(dd, ee, aa) + x5 + 0x6d703ef3, 7) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f3(cc, dd, ee) + x1 + 0x6d703ef3, 15) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f3(bb, cc, dd) + x3 + 0x6d703ef3, 11) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f3(aa, bb, cc) + x7 + 0x6d703ef3, 8) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f3(ee, aa, bb) + x14 + 0x6d703ef3, 6) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f3(dd, ee, aa) + x6 + 0x6d703ef3, 6) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f3(cc, dd, ee) + x9 + 0x6d703ef3, 14) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f3(bb, cc, dd) + x11 + 0x6d703ef3, 12) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f3(aa, bb, cc) + x8 + 0x6d703ef3, 13) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f3(ee, aa, bb) + x12 + 0x6d703ef3, 5) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f3(dd, ee, aa) + x2 + 0x6d703ef3, 14) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f3(cc, dd, ee) + x10 + 0x6d703ef3, 13) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f3(bb, cc, dd) + x0 + 0x6d703ef3, 13) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f3(aa, bb, cc) + x4 + 0x6d703ef3, 7) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f3(ee, aa, bb) + x13 + 0x6d703ef3, 5) + cc;
+        aa = rotateLeft(aa, 10);
+
+        // right round 4
+        cc = rotateLeft(cc + f2(dd, ee, aa) + x8 + 0x7a6d76e9, 15) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f2(cc, dd, ee) + x6 + 0x7a6d76e9, 5) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f2(bb, cc, dd) + x4 + 0x7a6d76e9, 8) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f2(aa, bb, cc) + x1 + 0x7a6d76e9, 11) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f2(ee, aa, bb) + x3 + 0x7a6d76e9, 14) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f2(dd, ee, aa) + x11 + 0x7a6d76e9, 14) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f2(cc, dd, ee) + x15 + 0x7a6d76e9, 6) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f2(bb, cc, dd) + x0 + 0x7a6d76e9, 14) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f2(aa, bb, cc) + x5 + 0x7a6d76e9, 6) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f2(ee, aa, bb) + x12 + 0x7a6d76e9, 9) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f2(dd, ee, aa) + x2 + 0x7a6d76e9, 12) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f2(cc, dd, ee) + x13 + 0x7a6d76e9, 9) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f2(bb, cc, dd) + x9 + 0x7a6d76e9, 12) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f2(aa, bb, cc) + x7 + 0x7a6d76e9, 5) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f2(ee, aa, bb) + x10 + 0x7a6d76e9, 15) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f2(dd, ee, aa) + x14 + 0x7a6d76e9, 8) + bb;
+        ee = rotateLeft(ee, 10);
+
+        // right round 5
+        bb = rotateLeft(bb + f1(cc, dd, ee) + x12, 8) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f1(bb, cc, dd) + x15, 5) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f1(aa, bb, cc) + x10, 12) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f1(ee, aa, bb) + x4, 9) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f1(dd, ee, aa) + x1, 12) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f1(cc, dd, ee) + x5, 5) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f1(bb, cc, dd) + x8, 14) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f1(aa, bb, cc) + x7, 6) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f1(ee, aa, bb) + x6, 8) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f1(dd, ee, aa) + x2, 13) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f1(cc, dd, ee) + x13, 6) + aa;
+        dd = rotateLeft(dd, 10);
+        aa = rotateLeft(aa + f1(bb, cc, dd) + x14, 5) + ee;
+        cc = rotateLeft(cc, 10);
+        ee = rotateLeft(ee + f1(aa, bb, cc) + x0, 15) + dd;
+        bb = rotateLeft(bb, 10);
+        dd = rotateLeft(dd + f1(ee, aa, bb) + x3, 13) + cc;
+        aa = rotateLeft(aa, 10);
+        cc = rotateLeft(cc + f1(dd, ee, aa) + x9, 11) + bb;
+        ee = rotateLeft(ee, 10);
+        bb = rotateLeft(bb + f1(cc, dd, ee) + x11, 11) + aa;
+        dd = rotateLeft(dd, 10);
+
+        int t = h1 + c + dd;
+        h1 = h2 + d + ee;
+        h2 = h3 + e + aa;
+        h3 = h4 + a + bb;
+        h4 = h0 + b + cc;
+        h0 = t;
+
+        xOff = 0;
+        for (int i = 0; i < x.length; i++) {
+            x[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.util;
+
+import java.util.Arrays;
+
+import org.ethereum.vm.DataWord;
+
+/**
+ * A hash map keyed by 256-bit words, e.g. storage keys, with open addressing
+ * and linear probing. <br/>
+ * <br/>
+ *
+ * Keys are stored inline as four longs and their hashes are cached, so that a
+ * lookup neither hashes a byte array nor follows a node, and growing the map
+ * doesn't rehash the keys. Entries are iterated by slot, without allocation:
+ *
+ * <pre>
+ * for (int slot = map.first(); slot &gt;= 0; slot = map.next(slot)) {
+ *     map.keyAt(slot, 0); // ... and map.valueAt(slot)
+ * }
+ * </pre>
+ *
+ * The map must not be modified while iterating, except by
+ * {@link #setValueAt(int, Object)}. NULL values are allowed. This class is not
+ * thread-safe.
+ */
+public class WordMap<V> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    // 4 longs per slot, most significant first
+    private long[] keys;
+    // the cached hash of each slot with the sign bit set, or 0 if the slot is free
+    private int[] hashes;
+    private Object[] values;
+
+    private int mask;
+    private int size;
+
+    public WordMap() {
+        this(0);
+    }
+
+    /**
+     * Creates a map which can hold the given number of entries without growing.
+     *
+     * @param expectedSize
+     *            the expected number of entries
+     */
+    public WordMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Creates a copy of another map.
+     *
+     * @param other
+     *            the map to copy
+     */
+    public WordMap(WordMap<V> other) {
+        this.keys = other.keys.clone();
+        this.hashes = other.hashes.clone();
+        this.values = other.values.clone();
+        this.mask = other.mask;
+        this.size = other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public V get(DataWord key) {
+        return get(key.getLong(0), key.getLong(1), key.getLong(2), key.getLong(3));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long k0, long k1, long k2, long k3) {
+        int slot = find(k0, k1, k2, k3, hash(k0, k1, k2, k3));
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    public boolean containsKey(DataWord key) {
+        return containsKey(key.getLong(0), key.getLong(1), key.getLong(2), key.getLong(3));
+    }
+
+    public boolean containsKey(long k0, long k1, long k2, long k3) {
+        return find(k0, k1, k2, k3, hash(k0, k1, k2, k3)) >= 0;
+    }
+
+    public V put(DataWord key, V value) {
+        return put(key.getLong(0), key.getLong(1), key.getLong(2), key.getLong(3), value);
+    }
+
+    /**
+     * Associates a value with a key.
+     *
+     * @return the previous value, or NULL if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long k0, long k1, long k2, long k3, V value) {
+        int h = hash(k0, k1, k2, k3);
+        int slot = find(k0, k1, k2, k3, h);
+        if (slot >= 0) {
+            V old = (V) values[slot];
+            values[slot] = value;
+            return old;
+        }
+
+        if (size + 1 > (mask + 1) * 3 / 4) {
+            grow();
+        }
+        slot = h & mask;
+        while (hashes[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[4 * slot] = k0;
+        keys[4 * slot + 1] = k1;
+        keys[4 * slot + 2] = k2;
+        keys[4 * slot + 3] = k3;
+        hashes[slot] = h;
+        values[slot] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Copies all the entries of another map into this map.
+     *
+     * @param other
+     *            the map to copy from
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(WordMap<V> other) {
+        for (int slot = other.first(); slot >= 0; slot = other.next(slot)) {
+            put(other.keys[4 * slot], other.keys[4 * slot + 1], other.keys[4 * slot + 2], other.keys[4 * slot + 3],
+                    (V) other.values[slot]);
+        }
+    }
+
+    public V remove(DataWord key) {
+        return remove(key.getLong(0), key.getLong(1), key.getLong(2), key.getLong(3));
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @return the removed value, or NULL if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long k0, long k1, long k2, long k3) {
+        int slot = find(k0, k1, k2, k3, hash(k0, k1, k2, k3));
+        if (slot < 0) {
+            return null;
+        }
+        V old = (V) values[slot];
+        delete(slot);
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(hashes, 0);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the slot of the first entry.
+     *
+     * @return the slot, or -1 if the map is empty
+     */
+    public int first() {
+        return next(-1);
+    }
+
+    /**
+     * Returns the slot of the entry after the given one.
+     *
+     * @param slot
+     *            the current slot
+     * @return the next slot, or -1 if there is none
+     */
+    public int next(int slot) {
+        for (int i = slot + 1; i < hashes.length; i++) {
+            if (hashes[i] != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a part of the key at a slot.
+     *
+     * @param slot
+     *            the slot
+     * @param index
+     *            the index of the long, from 0 (most significant) to 3
+     * @return a long
+     */
+    public long keyAt(int slot, int index) {
+        return keys[4 * slot + index];
+    }
+
+    /**
+     * Returns the key at a slot.
+     *
+     * @param slot
+     *            the slot
+     * @return a new DataWord
+     */
+    public DataWord keyAt(int slot) {
+        byte[] bytes = new byte[DataWord.SIZE];
+        for (int i = 0; i < 4; i++) {
+            ByteArrayUtil.writeLong(keys[4 * slot + i], bytes, 8 * i);
+        }
+        return DataWord.of(bytes);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    public void setValueAt(int slot, V value) {
+        values[slot] = value;
+    }
+
+    private static int hash(long k0, long k1, long k2, long k3) {
+        long h = ((k0 * 0x9e3779b97f4a7c15L + k1) * 0x9e3779b97f4a7c15L + k2) * 0x9e3779b97f4a7c15L + k3;
+        h ^= h >>> 32;
+        h *= 0xd6e8feb86659fd93L;
+        h ^= h >>> 32;
+        return (int) h | Integer.MIN_VALUE;
+    }
+
+    private int find(long k0, long k1, long k2, long k3, int h) {
+        int slot = h & mask;
+        int s;
+        while ((s = hashes[slot]) != 0) {
+            if (s == h && keys[4 * slot + 3] == k3 && keys[4 * slot + 2] == k2 && keys[4 * slot + 1] == k1
+                    && keys[4 * slot] == k0) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Frees a slot, moving back the entries of the probe sequence which follows it.
+     */
+    private void delete(int slot) {
+        int free = slot;
+        for (int i = (slot + 1) & mask; hashes[i] != 0; i = (i + 1) & mask) {
+            int home = hashes[i] & mask;
+            // the entry may move back unless its home is cyclically in (free, i]
+            boolean stays = free <= i ? (free < home && home <= i) : (free < home || home <= i);
+            if (!stays) {
+                System.arraycopy(keys, 4 * i, keys, 4 * free, 4);
+                hashes[free] = hashes[i];
+                values[free] = values[i];
+                free = i;
+            }
+        }
+        hashes[free] = 0;
+        values[free] = null;
+        size--;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[4 * capacity];
+        hashes = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        Object[] oldValues = values;
+
+        allocate(oldHashes.length * 2);
+        for (int i = 0; i < oldHashes.length; i++) {
+            int h = oldHashes[i];
+            if (h != 0) {
+                int slot = h & mask;
+                while (hashes[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                System.arraycopy(oldKeys, 4 * i, keys, 4 * slot, 4);
+                hashes[slot] = h;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
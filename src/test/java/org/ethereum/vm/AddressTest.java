@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Random;
+
+import org.ethereum.vm.util.AddressMap;
+import org.ethereum.vm.util.HexUtil;
+import org.junit.Test;
+
+public class AddressTest {
+
+    private final Random random = new Random(46);
+
+    private byte[] randomAddress() {
+        byte[] address = new byte[20];
+        random.nextBytes(address);
+        return address;
+    }
+
+    @Test
+    public void testOfBytes() {
+        for (int i = 0; i < 100; i++) {
+            byte[] bytes = randomAddress();
+            Address address = Address.of(bytes);
+
+            assertArrayEquals(bytes, address.toBytes());
+            assertEquals(HexUtil.toHexString(bytes), address.toString());
+            assertEquals(address, Address.of(bytes.clone()));
+            assertEquals(address.hashCode(), Address.of(bytes.clone()).hashCode());
+        }
+    }
+
+    @Test
+    public void testOfDataWord() {
+        for (int i = 0; i < 100; i++) {
+            byte[] data = new byte[32];
+            random.nextBytes(data);
+            DataWord word = DataWord.of(data);
+            Address address = Address.of(word);
+
+            assertArrayEquals(word.getLast20Bytes(), address.toBytes());
+            assertEquals(Address.of(word.getLast20Bytes()), address);
+            assertEquals(DataWord.of(word.getLast20Bytes()), address.toDataWord());
+        }
+    }
+
+    @Test
+    public void testEquals() {
+        byte[] bytes = randomAddress();
+        Address address = Address.of(bytes);
+
+        for (int i = 0; i < 20; i++) {
+            byte[] other = bytes.clone();
+            other[i] ^= 1;
+            assertNotEquals(address, Address.of(other));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLength() {
+        Address.of(new byte[19]);
+    }
+
+    @Test
+    public void testAddressMap() {
+        AddressMap<Integer> map = new AddressMap<>();
+        byte[] bytes = randomAddress();
+
+        map.put(Address.of(bytes), 1);
+        assertEquals(Integer.valueOf(1), map.get(bytes));
+        assertEquals(Integer.valueOf(1), map.get(Address.of(bytes)));
+        assertEquals(Integer.valueOf(1), map.remove(Address.of(bytes)));
+        assertEquals(0, map.size());
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.ethereum.vm.util.HashUtil;
+import org.junit.Test;
+
+public class BloomTest {
+
+    @Test
+    public void testBits() {
+        byte[] item = "test".getBytes(StandardCharsets.UTF_8);
+        byte[] hash = HashUtil.keccak256(item);
+
+        byte[] expected = new byte[Bloom.SIZE];
+        for (int i = 0; i < 6; i += 2) {
+            int bit = ((hash[i] & 0xff) << 8 | (hash[i + 1] & 0xff)) % 2048;
+            expected[255 - bit / 8] |= 1 << (bit % 8);
+        }
+        assertArrayEquals(expected, new Bloom().add(item).getData());
+    }
+
+    @Test
+    public void testMayContain() {
+        Bloom bloom = new Bloom();
+        for (String s : new String[] { "testtest", "test", "hallo", "other" }) {
+            bloom.add(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        for (String s : new String[] { "testtest", "test", "hallo", "other" }) {
+            assertTrue(bloom.mayContain(s.getBytes(StandardCharsets.UTF_8)));
+        }
+        assertFalse(bloom.mayContain("bogus".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testLogBloom() {
+        byte[] address = new byte[20];
+        address[19] = 1;
+        DataWord topic = DataWord.of(2);
+        LogInfo log = new LogInfo(address, Arrays.asList(topic), new byte[0]);
+
+        Bloom bloom = Bloom.of(log);
+        assertTrue(bloom.mayContain(address));
+        assertTrue(bloom.mayContain(topic.getData()));
+        assertEquals(new Bloom().add(address).add(topic.getData()), bloom);
+    }
+
+    @Test
+    public void testOrAndMatches() {
+        Bloom a = new Bloom().add(new byte[] { 1 });
+        Bloom b = new Bloom().add(new byte[] { 2 });
+        Bloom ab = new Bloom().or(a).or(b);
+
+        assertTrue(ab.matches(a));
+        assertTrue(ab.matches(b));
+        assertFalse(a.matches(ab));
+        assertTrue(new Bloom().isEmpty());
+        assertFalse(ab.isEmpty());
+        assertEquals(ab, new Bloom(ab.getData()));
+    }
+}
@@ -39,6 +39,16 @@ public class DataWordTest {
         assertEquals(32, x.getData().length);
     }
 
+    @Test
+    public void testUnsignedByteValue() {
+        assertEquals(0, DataWord.ZERO.unsignedByteValue());
+        assertEquals(8, DataWord.of(8).unsignedByteValue());
+        assertEquals(255, DataWord.of(255).unsignedByteValue());
+        assertEquals(-1, DataWord.of(256).unsignedByteValue());
+        assertEquals(-1, DataWord.of("0100000000000000000000000000000000000000000000000000000000000001")
+                .unsignedByteValue());
+    }
+
     @Test
     public void testMod() {
         String expected = "000000000000000000000000000000000000000000000000000000000000001a";
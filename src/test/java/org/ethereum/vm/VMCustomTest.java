@@ -17,17 +17,25 @@
  */
 package org.ethereum.vm;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigInteger;
 
+import org.ethereum.vm.client.Repository;
+import org.ethereum.vm.program.InternalTxRecording;
 import org.ethereum.vm.program.Program;
 import org.ethereum.vm.program.exception.IllegalOperationException;
 import org.ethereum.vm.program.exception.OutOfGasException;
 import org.ethereum.vm.program.exception.StackUnderflowException;
+import org.ethereum.vm.util.BytecodeCompiler;
 import org.ethereum.vm.util.HexUtil;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,6 +52,47 @@ public class VMCustomTest extends TestBase {
         repository.addBalance(address, BigInteger.valueOf(1000L));
     }
 
+    @Test // CALL OP
+    public void testCALL_precompiledNotRecorded() {
+        Repository repo = spy(track);
+        when(invoke.getRepository()).thenReturn(repo);
+
+        VM vm = new VM();
+        program = new Program(BytecodeCompiler.compile("PUSH1 0x20 PUSH1 0x00 MSTORE" // data
+                + " PUSH1 0x20 PUSH1 0x20 PUSH1 0x20 PUSH1 0x00 PUSH1 0x00" // out, in, value
+                + " PUSH1 0x04 PUSH2 0xffff CALL" // the identity contract
+                + " PUSH1 0x20 PUSH1 0x20 RETURN"), invoke);
+        program.setInternalTxRecording(InternalTxRecording.NONE);
+
+        vm.play(program);
+
+        assertArrayEquals(DataWord.of(0x20).getData(), program.getResult().getReturnData());
+        assertTrue(program.getResult().getInternalTransactions().isEmpty());
+        verify(repo, never()).getNonce(address);
+    }
+
+    @Test // SSTORE, SLOAD, BALANCE OP
+    public void testAddressOverloads() {
+        Repository repo = spy(track);
+        when(invoke.getRepository()).thenReturn(repo);
+
+        VM vm = new VM();
+        program = new Program(BytecodeCompiler.compile("PUSH1 0x01 PUSH1 0x00 SSTORE"
+                + " PUSH1 0x00 SLOAD ADDRESS BALANCE"), invoke);
+
+        vm.play(program);
+
+        assertEquals(DataWord.of(1000L), program.stackPop());
+        assertEquals(DataWord.of(1), program.stackPop());
+        Address owner = Address.of(address);
+        verify(repo).putStorageRow(owner, DataWord.ZERO, DataWord.of(1));
+        verify(repo, atLeastOnce()).getStorageRow(owner, DataWord.ZERO);
+        verify(repo).getBalance(owner);
+        verify(repo, never()).putStorageRow(any(byte[].class), any(), any());
+        verify(repo, never()).getStorageRow(any(byte[].class), any());
+        verify(repo, never()).getBalance(any(byte[].class));
+    }
+
     @Test // CALLDATASIZE OP
     public void testCALLDATASIZE_1() {
         VM vm = new VM();
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.chainspec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.program.InternalTransaction;
+import org.ethereum.vm.util.HexUtil;
+import org.ethereum.vm.util.Pair;
+import org.junit.Test;
+
+public class CachingPrecompiledContractsTest {
+
+    private static final DataWord ECRECOVER = DataWord.of(1);
+    private static final DataWord SHA256 = DataWord.of(2);
+    private static final DataWord IDENTITY = DataWord.of(4);
+    private static final DataWord MODEXP = DataWord.of(5);
+
+    // the hashes and Identity are not cached by default, but are simple to test
+    // with
+    private static final List<DataWord> ALL_PURE = Arrays.asList(ECRECOVER, SHA256, DataWord.of(3), IDENTITY,
+            DataWord.of(6), DataWord.of(7), DataWord.of(8));
+
+    private final ByzantiumPrecompiledContracts delegate = new ByzantiumPrecompiledContracts();
+
+    private PrecompiledContractContext wrapData(byte[] data) {
+        InternalTransaction tx = mock(InternalTransaction.class);
+        when(tx.getData()).thenReturn(data);
+        PrecompiledContractContext context = mock(PrecompiledContractContext.class);
+        when(context.getInternalTransaction()).thenReturn(tx);
+        return context;
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        CachingPrecompiledContracts contracts = new CachingPrecompiledContracts(delegate, 16, 1 << 20,
+                ALL_PURE);
+        PrecompiledContract sha256 = contracts.getContractForAddress(SHA256);
+
+        byte[] data = HexUtil.fromHexString("112233445566");
+        byte[] expected = delegate.getContractForAddress(SHA256).execute(wrapData(data)).getRight();
+
+        for (int i = 0; i < 3; i++) {
+            Pair<Boolean, byte[]> result = sha256.execute(wrapData(data));
+            assertTrue(result.getLeft());
+            assertArrayEquals(expected, result.getRight());
+        }
+        sha256.execute(wrapData(null));
+
+        assertEquals(2, contracts.getHitCount(SHA256));
+        assertEquals(2, contracts.getMissCount(SHA256));
+        assertEquals(0.5, contracts.getHitRate(SHA256), 0);
+        assertEquals(0, contracts.getHitCount(IDENTITY));
+        assertEquals(0, contracts.getHitRate(IDENTITY), 0);
+    }
+
+    @Test
+    public void testKeyedByAddress() {
+        CachingPrecompiledContracts contracts = new CachingPrecompiledContracts(delegate, 16, 1 << 20,
+                ALL_PURE);
+
+        byte[] data = HexUtil.fromHexString("112233445566");
+        byte[] hash = contracts.getContractForAddress(SHA256).execute(wrapData(data)).getRight();
+        byte[] copy = contracts.getContractForAddress(IDENTITY).execute(wrapData(data)).getRight();
+
+        assertEquals(32, hash.length);
+        assertArrayEquals(data, copy);
+        assertEquals(0, contracts.getHitCount(IDENTITY));
+    }
+
+    @Test
+    public void testFailuresAreCached() {
+        CachingPrecompiledContracts contracts = new CachingPrecompiledContracts(delegate, 16, 1 << 20,
+                ALL_PURE);
+        PrecompiledContract pairing = contracts.getContractForAddress(DataWord.of(8));
+
+        byte[] data = new byte[100]; // not a multiple of the pair size
+        assertFalse(pairing.execute(wrapData(data)).getLeft());
+        assertFalse(pairing.execute(wrapData(data)).getLeft());
+        assertEquals(1, contracts.getHitCount(DataWord.of(8)));
+    }
+
+    @Test
+    public void testOutputIsCopied() {
+        CachingPrecompiledContracts contracts = new CachingPrecompiledContracts(delegate, 16, 1 << 20,
+                ALL_PURE);
+        PrecompiledContract identity = contracts.getContractForAddress(IDENTITY);
+
+        byte[] data = HexUtil.fromHexString("112233445566");
+        identity.execute(wrapData(data)).getRight()[0] = 0;
+
+        assertArrayEquals(data, identity.execute(wrapData(data)).getRight());
+        assertEquals(1, contracts.getHitCount(IDENTITY));
+    }
+
+    @Test
+    public void testConfiguredAddressesOnly() {
+        CachingPrecompiledContracts contracts = new CachingPrecompiledContracts(delegate, 16, 1 << 20,
+                Arrays.asList(ECRECOVER, MODEXP));
+
+        assertSame(delegate.getContractForAddress(SHA256), contracts.getContractForAddress(SHA256));
+        assertSame(null, contracts.getContractForAddress(DataWord.of(9)));
+
+        PrecompiledContract modExp = contracts.getContractForAddress(MODEXP);
+        byte[] data = HexUtil.fromHexString("0000000000000000000000000000000000000000000000000000000000000001"
+                + "0000000000000000000000000000000000000000000000000000000000000001"
+                + "0000000000000000000000000000000000000000000000000000000000000001"
+                + "03" + "05" + "07");
+        assertEquals(delegate.getContractForAddress(MODEXP).getGasForData(data), modExp.getGasForData(data));
+        assertArrayEquals(new byte[] { 5 }, modExp.execute(wrapData(data)).getRight());
+        assertArrayEquals(new byte[] { 5 }, modExp.execute(wrapData(data)).getRight());
+        assertEquals(1, contracts.getHitCount(MODEXP));
+    }
+
+    @Test
+    public void testDefaultContracts() {
+        CachingPrecompiledContracts contracts = new CachingPrecompiledContracts(delegate, 16, 1 << 20,
+                CachingPrecompiledContracts.DEFAULT_CONTRACTS);
+        assertSame(delegate.getContractForAddress(SHA256), contracts.getContractForAddress(SHA256));
+        assertSame(delegate.getContractForAddress(IDENTITY), contracts.getContractForAddress(IDENTITY));
+
+        // a raw key, then a hashed one
+        PrecompiledContract pairing = contracts.getContractForAddress(DataWord.of(8));
+        for (byte[] data : new byte[][] { new byte[0], new byte[192 * 2] }) {
+            Pair<Boolean, byte[]> expected = delegate.getContractForAddress(DataWord.of(8)).execute(wrapData(data));
+            assertArrayEquals(expected.getRight(), pairing.execute(wrapData(data)).getRight());
+            assertArrayEquals(expected.getRight(), pairing.execute(wrapData(data)).getRight());
+        }
+        assertEquals(2, contracts.getHitCount(DataWord.of(8)));
+        assertEquals(2, contracts.getMissCount(DataWord.of(8)));
+    }
+
+    @Test
+    public void testMemoryBudget() {
+        int budget = 4096;
+        CachingPrecompiledContracts contracts = new CachingPrecompiledContracts(delegate, 1000, budget,
+                ALL_PURE);
+        PrecompiledContract identity = contracts.getContractForAddress(IDENTITY);
+
+        for (int i = 0; i < 100; i++) {
+            identity.execute(wrapData(DataWord.of(i).getData()));
+            assertTrue(contracts.getMemoryFootprint() <= budget);
+        }
+        assertTrue(contracts.getEvictionCount() > 0);
+
+        // larger than the whole budget, never cached
+        byte[] large = new byte[budget];
+        identity.execute(wrapData(large));
+        identity.execute(wrapData(large));
+        assertEquals(0, contracts.getHitCount(IDENTITY));
+
+        contracts.clear();
+        assertEquals(0, contracts.getMemoryFootprint());
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.chainspec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.util.Pair;
+import org.junit.Test;
+
+public class PrecompiledContractsTest {
+
+    private final PrecompiledContract custom = new PrecompiledContract() {
+        @Override
+        public long getGasForData(byte[] data) {
+            return 1;
+        }
+
+        @Override
+        public Pair<Boolean, byte[]> execute(PrecompiledContractContext invoke) {
+            return Pair.of(true, new byte[0]);
+        }
+    };
+
+    @Test
+    public void testLookup() {
+        PrecompiledContracts base = new BasePrecompiledContracts();
+        PrecompiledContracts byzantium = new ByzantiumPrecompiledContracts();
+
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(i <= 5, base.getContractForAddress(DataWord.of(i)) != null);
+            assertNotNull(byzantium.getContractForAddress(DataWord.of(i)));
+        }
+        assertSame(base.getContractForAddress(DataWord.of(2)), byzantium.getContractForAddress(DataWord.of(2)));
+
+        assertNull(byzantium.getContractForAddress(DataWord.ZERO));
+        assertNull(byzantium.getContractForAddress(DataWord.of(9)));
+        assertNull(byzantium.getContractForAddress(DataWord.of(0x101)));
+        assertNull(byzantium.getContractForAddress(
+                DataWord.of("0100000000000000000000000000000000000000000000000000000000000001")));
+    }
+
+    @Test
+    public void testRegisterOnSpec() {
+        ByzantiumSpec spec = new ByzantiumSpec();
+        spec.registerPrecompiledContract(DataWord.of(0x42), custom)
+                .registerPrecompiledContract(DataWord.of(4), null);
+
+        assertSame(custom, spec.getPrecompiledContracts().getContractForAddress(DataWord.of(0x42)));
+        assertNull(spec.getPrecompiledContracts().getContractForAddress(DataWord.of(4)));
+        assertNotNull(spec.getPrecompiledContracts().getContractForAddress(DataWord.of(8)));
+
+        // other instances are not affected
+        ByzantiumSpec other = new ByzantiumSpec();
+        assertNull(other.getPrecompiledContracts().getContractForAddress(DataWord.of(0x42)));
+        assertNotNull(other.getPrecompiledContracts().getContractForAddress(DataWord.of(4)));
+        assertNotNull(new ConstantinopleSpec().getPrecompiledContracts().getContractForAddress(DataWord.of(8)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterOnDefaultSpec() {
+        ((BaseSpec) Spec.DEFAULT).registerPrecompiledContract(DataWord.of(0x42), custom);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterZeroAddress() {
+        new BaseSpec().registerPrecompiledContract(DataWord.ZERO, custom);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterLargeAddress() {
+        new BaseSpec().registerPrecompiledContract(DataWord.of(256), custom);
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.ethereum.vm.DataWord;
+import org.junit.Test;
+
+public class AccessSetTest {
+
+    private final Random random = new Random(27);
+
+    private AccessSet randomSet() {
+        AccessRecorder recorder = new AccessRecorder();
+        for (int i = random.nextInt(6); i > 0; i--) {
+            byte[] address = new byte[20];
+            address[random.nextInt(20)] = (byte) random.nextInt(4);
+            if (random.nextBoolean()) {
+                recorder.recordAccount(address, random.nextInt(4) == 0 ? AccessSet.WRITE : AccessSet.READ);
+            } else {
+                recorder.recordSlot(address, DataWord.of(random.nextInt(4)),
+                        random.nextInt(3) == 0 ? AccessSet.WRITE : AccessSet.READ);
+            }
+        }
+        return recorder.toAccessSet();
+    }
+
+    /**
+     * Checks a conflict pair by pair.
+     */
+    private static boolean naiveConflict(AccessSet a, AccessSet b) {
+        for (int i = 0; i < a.getAccountCount(); i++) {
+            int j = b.indexOfAccount(a.getAccount(i));
+            if (j != -1 && (a.isAccountWritten(i) || b.isAccountWritten(j))) {
+                return true;
+            }
+        }
+        for (int i = 0; i < a.getSlotCount(); i++) {
+            for (int j = 0; j < b.getSlotCount(); j++) {
+                if ((a.isSlotWritten(i) || b.isSlotWritten(j)) && a.getSlotKey(i).equals(b.getSlotKey(j))
+                        && Arrays.equals(a.getAccount(a.getSlotAccount(i)),
+                                b.getAccount(b.getSlotAccount(j)))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testConflictsWith() {
+        for (int i = 0; i < 2000; i++) {
+            AccessSet a = randomSet();
+            AccessSet b = randomSet();
+            assertEquals(naiveConflict(a, b), a.conflictsWith(b));
+            assertEquals(naiveConflict(b, a), b.conflictsWith(a));
+        }
+    }
+}
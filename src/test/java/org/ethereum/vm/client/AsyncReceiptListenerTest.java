@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class AsyncReceiptListenerTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private final Block block = mock(Block.class);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testOrdering() {
+        List<Integer> indexes = Collections.synchronizedList(new ArrayList<>());
+        AsyncReceiptListener listener = new AsyncReceiptListener((b, index, receipt) -> indexes.add(index),
+                executor, 4);
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            listener.onReceipt(block, i, null);
+            expected.add(i);
+        }
+        listener.flush();
+
+        assertEquals(expected, indexes);
+        assertEquals(0, listener.getBuffered());
+    }
+
+    @Test(timeout = 10_000)
+    public void testConsumerError() {
+        List<Integer> indexes = Collections.synchronizedList(new ArrayList<>());
+        AsyncReceiptListener listener = new AsyncReceiptListener((b, index, receipt) -> {
+            if (index == 1) {
+                throw new AssertionError("consumer error");
+            }
+            indexes.add(index);
+        }, executor, 2);
+
+        // delivery goes on after the error, rather than blocking the producer
+        for (int i = 0; i < 10; i++) {
+            listener.onReceipt(block, i, null);
+        }
+        listener.flush();
+
+        assertEquals(9, indexes.size());
+        assertFalse(indexes.contains(1));
+        assertEquals(0, listener.getBuffered());
+    }
+
+    @Test
+    public void testBackPressure() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncReceiptListener listener = new AsyncReceiptListener((b, index, receipt) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, executor, 2);
+
+        listener.onReceipt(block, 0, null);
+        listener.onReceipt(block, 1, null);
+        assertEquals(2, listener.getBuffered());
+
+        // the third receipt waits for a free slot
+        CountDownLatch submitted = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            listener.onReceipt(block, 2, null);
+            submitted.countDown();
+        });
+        producer.start();
+        assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(submitted.await(10, TimeUnit.SECONDS));
+        listener.close();
+        assertEquals(0, listener.getBuffered());
+    }
+
+    @Test
+    public void testFailingConsumer() {
+        List<Integer> indexes = Collections.synchronizedList(new ArrayList<>());
+        AsyncReceiptListener listener = new AsyncReceiptListener((b, index, receipt) -> {
+            if (index == 1) {
+                throw new IllegalStateException("consumer failure");
+            }
+            indexes.add(index);
+        }, executor, 1);
+
+        for (int i = 0; i < 3; i++) {
+            listener.onReceipt(block, i, null);
+        }
+        listener.flush();
+
+        assertEquals(Arrays.asList(0, 2), indexes);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() {
+        AsyncReceiptListener listener = new AsyncReceiptListener((b, index, receipt) -> {
+        }, executor, 1);
+        listener.close();
+        listener.onReceipt(block, 0, null);
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.TestTransactionBase;
+import org.ethereum.vm.util.BytecodeCompiler;
+import org.junit.Test;
+
+public class BlockExecutorTest extends TestTransactionBase {
+
+    @Test
+    public void testRunBlock() {
+        // a contract which always reverts
+        byte[] reverter = address(100);
+        repository.saveCode(reverter, BytecodeCompiler.compile("PUSH1 0x00 PUSH1 0x00 REVERT"));
+
+        List<Transaction> txs = Arrays.asList(
+                new TransactionMock(false, caller, address, 0, Unit.ETH, data, gas, gasPrice),
+                new TransactionMock(false, caller, reverter, 1, value, data, gas, gasPrice),
+                new TransactionMock(false, caller, address, 5, Unit.ETH, data, gas, gasPrice), // bad nonce
+                new TransactionMock(false, caller, address, 2, Unit.ETH, data, gas, gasPrice));
+
+        BlockExecutor executor = new BlockExecutor(block, repository, blockStore);
+        BlockSummary summary = executor.run(txs);
+
+        List<TransactionReceipt> receipts = summary.getReceipts();
+        assertEquals(4, receipts.size());
+        assertTrue(receipts.get(0).isSuccess());
+        assertFalse(receipts.get(1).isSuccess());
+        assertNull(receipts.get(2));
+        assertTrue(receipts.get(3).isSuccess());
+
+        assertEquals(1, summary.getFailedCount());
+        assertEquals(1, summary.getRejectedCount());
+        assertEquals(receipts.get(0).getGasUsed() + receipts.get(1).getGasUsed() + receipts.get(3).getGasUsed(),
+                summary.getGasUsed());
+        assertTrue(summary.getGasPerSecond() > 0);
+
+        assertEquals(Unit.ETH.multiply(BigInteger.valueOf(2)), repository.getBalance(address));
+        assertEquals(3, repository.getNonce(caller));
+    }
+
+    @Test
+    public void testReceiptListener() {
+        // a contract which emits a log, then reverts
+        byte[] reverter = address(100);
+        repository.saveCode(reverter,
+                BytecodeCompiler.compile("PUSH1 0x00 PUSH1 0x00 LOG0 PUSH1 0x00 PUSH1 0x00 REVERT"));
+
+        List<Transaction> txs = Arrays.asList(
+                new TransactionMock(false, caller, address, 0, Unit.ETH, data, gas, gasPrice),
+                new TransactionMock(false, caller, reverter, 1, value, data, gas, gasPrice),
+                new TransactionMock(false, caller, address, 5, Unit.ETH, data, gas, gasPrice)); // bad nonce
+
+        List<TransactionReceipt> received = new ArrayList<>();
+        List<BlockSummary> summaries = new ArrayList<>();
+        BlockExecutor executor = new BlockExecutor(block, repository, blockStore);
+        executor.setReceiptListener(new ReceiptListener() {
+            @Override
+            public void onReceipt(Block b, int index, TransactionReceipt receipt) {
+                assertEquals(block, b);
+                assertEquals(received.size(), index);
+                received.add(receipt);
+            }
+
+            @Override
+            public void onBlock(BlockSummary summary) {
+                summaries.add(summary);
+            }
+        });
+        BlockSummary summary = executor.run(txs);
+
+        assertEquals(summary.getReceipts(), received);
+        assertEquals(Collections.singletonList(summary), summaries);
+        assertFalse(received.get(1).isSuccess());
+        assertTrue(received.get(1).getLogs().isEmpty());
+        assertNull(received.get(2));
+    }
+
+    @Test
+    public void testReceiptsNotRetained() {
+        // a contract which emits a log
+        byte[] emitter = address(101);
+        repository.saveCode(emitter, BytecodeCompiler.compile("PUSH1 0x00 PUSH1 0x00 LOG0"));
+
+        List<Transaction> txs = Arrays.asList(
+                new TransactionMock(false, caller, emitter, 0, value, data, gas, gasPrice),
+                new TransactionMock(false, caller, address, 5, Unit.ETH, data, gas, gasPrice)); // bad nonce
+
+        List<TransactionReceipt> received = new ArrayList<>();
+        BlockExecutor executor = new BlockExecutor(block, repository, blockStore);
+        executor.setRetainReceipts(false);
+        executor.setReceiptListener((b, index, receipt) -> received.add(receipt));
+        BlockSummary summary = executor.run(txs);
+
+        assertTrue(summary.getReceipts().isEmpty());
+        assertEquals(2, summary.getTxCount());
+        assertEquals(1, summary.getRejectedCount());
+        assertEquals(received.get(0).getGasUsed(), summary.getGasUsed());
+        assertEquals(1, received.get(0).getLogs().size());
+        assertEquals(received.get(0).getBloom(), summary.getBloom());
+        assertFalse(summary.getBloom().isEmpty());
+    }
+
+    @Test
+    public void testLogIndexWithoutReceipts() {
+        byte[] emitter = address(101);
+        repository.saveCode(emitter, BytecodeCompiler.compile("PUSH1 0x00 PUSH1 0x00 LOG0"));
+
+        List<Transaction> txs = Arrays.asList(
+                new TransactionMock(false, caller, address, 5, Unit.ETH, data, gas, gasPrice), // bad nonce
+                new TransactionMock(false, caller, emitter, 0, value, data, gas, gasPrice));
+
+        LogIndex index = new LogIndex(4);
+        BlockExecutor executor = new BlockExecutor(block, repository, blockStore);
+        executor.setRetainReceipts(false);
+        executor.setReceiptListener(index);
+        executor.run(txs);
+
+        List<LogIndex.Entry> entries = index.filter(0, Long.MAX_VALUE, Collections.singletonList(emitter), null);
+        assertEquals(1, entries.size());
+        assertEquals(1, entries.get(0).getTransactionIndex());
+        assertArrayEquals(emitter, entries.get(0).getLog().getAddress());
+    }
+
+    @Test
+    public void testPrefetchHints() {
+        // stores the call value at slot 0, and returns the previous one
+        String asm = "PUSH1 0x00 SLOAD PUSH1 0x00 MSTORE CALLVALUE PUSH1 0x00 SSTORE PUSH1 0x20 PUSH1 0x00 RETURN";
+        repository.saveCode(address, BytecodeCompiler.compile(asm));
+
+        List<Transaction> txs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            txs.add(new TransactionMock(false, caller, address, i, BigInteger.valueOf(i + 1), data, gas, gasPrice));
+        }
+
+        PrefetchingRepository prefetcher = new PrefetchingRepository(repository, Runnable::run, 4);
+        BlockExecutor executor = new BlockExecutor(block, prefetcher, blockStore);
+        executor.setRecordAccesses(true);
+        // the hints of a transaction are issued before the previous one runs
+        executor.setAccessHints(new ContractAccessHints(16), prefetcher, 1);
+        BlockSummary summary = executor.run(txs);
+
+        for (int i = 0; i < 4; i++) {
+            // no stale value is served
+            assertArrayEquals(DataWord.of(i).getData(), summary.getReceipts().get(i).getReturnData());
+        }
+        assertTrue(prefetcher.getHitCount() > 0);
+    }
+
+    @Test
+    public void testBatchHints() {
+        // stores the call value at slot 0, and returns the previous one
+        String asm = "PUSH1 0x00 SLOAD PUSH1 0x00 MSTORE CALLVALUE PUSH1 0x00 SSTORE PUSH1 0x20 PUSH1 0x00 RETURN";
+        repository.saveCode(address, BytecodeCompiler.compile(asm));
+
+        List<Transaction> txs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            txs.add(new TransactionMock(false, caller, address, i, BigInteger.valueOf(i + 1), data, gas, gasPrice));
+        }
+
+        Repository backend = spy(repository);
+        CachingRepository repo = new CachingRepository(backend, new StateCache(16, 16));
+        BlockExecutor executor = new BlockExecutor(block, repo, blockStore);
+        executor.setRecordAccesses(true);
+        executor.setAccessHints(new ContractAccessHints(16), null, 0);
+        BlockSummary summary = executor.run(txs);
+
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(DataWord.of(i).getData(), summary.getReceipts().get(i).getReturnData());
+        }
+        // the hints of the last two transactions, learned from the previous ones
+        verify(backend, times(2)).getStorageRows(address, Collections.singletonList(DataWord.ZERO));
+        verify(backend, times(2)).getAccounts(anyList());
+    }
+
+    @Test
+    public void testBlockGasLimit() {
+        Block block = new BlockMock(number, prevHash, coinbase, timestamp, 21_000L * 2);
+
+        List<Transaction> txs = Arrays.asList(
+                new TransactionMock(false, caller, address, 0, Unit.ETH, data, 21_000L, gasPrice),
+                new TransactionMock(false, caller, address, 1, Unit.ETH, data, 21_000L, gasPrice),
+                new TransactionMock(false, caller, address, 2, Unit.ETH, data, 21_000L, gasPrice));
+
+        BlockSummary summary = new BlockExecutor(block, repository, blockStore).run(txs);
+
+        assertEquals(21_000L * 2, summary.getGasUsed());
+        assertEquals(1, summary.getRejectedCount());
+        assertNull(summary.getReceipts().get(2));
+    }
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.ethereum.vm.Address;
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.TestTransactionBase;
+import org.ethereum.vm.util.BytecodeCompiler;
+import org.junit.Test;
+
+public class CachingRepositoryTest extends TestTransactionBase {
+
+    private final DataWord key = DataWord.of(1);
+
+    @Test
+    public void testHits() {
+        repository.putStorageRow(address, key, DataWord.ONE);
+
+        CachingRepository repo = new CachingRepository(repository, new StateCache(16, 16));
+        assertEquals(DataWord.ONE, repo.getStorageRow(address, key));
+        assertEquals(DataWord.ONE, repo.getStorageRow(address, key));
+        assertNull(repo.getStorageRow(address, DataWord.of(2)));
+        assertNull(repo.getStorageRow(address, DataWord.of(2)));
+        repo.setLoadFullAccounts(true);
+        assertEquals(premine, repo.getBalance(caller));
+        assertEquals(0, repo.getNonce(caller));
+
+        assertEquals(3, repo.getL1HitCount());
+        assertEquals(3, repo.getMissCount());
+
+        // promoted to L2 once committed
+        repo.commit();
+        assertEquals(DataWord.ONE, repo.getStorageRow(address, key));
+        assertEquals(1, repo.getL2HitCount());
+        assertTrue(repo.getHitRatio() > 0.5);
+        assertTrue(repo.getMemoryFootprint() > 0);
+    }
+
+    @Test
+    public void testRollbackDiscardsL1() {
+        repository.putStorageRow(address, key, DataWord.ONE);
+        StateCache l2 = new StateCache(16, 16);
+        CachingRepository repo = new CachingRepository(repository.startTracking(), l2);
+
+        Repository track = repo.startTracking();
+        track.putStorageRow(address, key, DataWord.ZERO);
+        track.commit();
+        assertEquals(DataWord.ZERO, repo.getStorageRow(address, key));
+
+        repo.rollback();
+        assertEquals(0, l2.getIndexedSlotCount());
+        assertEquals(DataWord.ONE, repo.getStorageRow(address, key));
+    }
+
+    @Test
+    public void testFieldLoads() {
+        Repository backend = mock(Repository.class);
+        when(backend.getBalance(address)).thenReturn(BigInteger.ONE);
+        when(backend.getAccounts(anyList())).thenReturn(
+                Collections.singletonList(new AccountState(true, 0, BigInteger.TEN, new byte[0])));
+        CachingRepository repo = new CachingRepository(backend, new StateCache(16, 16));
+
+        // the balance alone, without the code
+        assertEquals(BigInteger.ONE, repo.getBalance(address));
+        verify(backend).getBalance(address);
+        verify(backend, never()).getCode(address);
+        verify(backend, never()).getAccounts(anyList());
+
+        // the whole account, once
+        repo.setLoadFullAccounts(true);
+        assertEquals(BigInteger.TEN, repo.getBalance(address));
+        assertEquals(BigInteger.TEN, repo.getBalance(address));
+        verify(backend).getAccounts(anyList());
+        assertEquals(1, repo.getL1HitCount());
+    }
+
+    @Test
+    public void testTrackCommit() {
+        repository.putStorageRow(address, key, DataWord.ONE);
+        CachingRepository repo = new CachingRepository(repository, new StateCache(16, 16));
+        assertEquals(DataWord.ONE, repo.getStorageRow(address, key));
+        assertEquals(premine, repo.getBalance(caller));
+
+        Repository track = repo.startTracking();
+        track.putStorageRow(address, key, DataWord.ZERO);
+        track.addBalance(caller, BigInteger.ONE);
+        assertEquals(DataWord.ZERO, track.getStorageRow(address, key));
+        assertEquals(premine.add(BigInteger.ONE), track.getBalance(caller));
+        assertEquals(DataWord.ONE, repo.getStorageRow(address, key));
+        assertEquals(premine, repo.getBalance(caller));
+
+        track.commit();
+        assertEquals(DataWord.ZERO, repo.getStorageRow(address, key));
+        assertEquals(premine.add(BigInteger.ONE), repo.getBalance(caller));
+    }
+
+    @Test
+    public void testTrackRollback() {
+        repository.putStorageRow(address, key, DataWord.ONE);
+        CachingRepository repo = new CachingRepository(repository, new StateCache(16, 16));
+
+        Repository track = repo.startTracking();
+        Repository track2 = track.startTracking();
+        track2.putStorageRow(address, key, DataWord.ZERO);
+        track2.commit();
+        assertEquals(DataWord.ZERO, track.getStorageRow(address, key));
+
+        track.rollback();
+        assertEquals(DataWord.ONE, repo.getStorageRow(address, key));
+    }
+
+    @Test
+    public void testDelete() {
+        repository.putStorageRow(address, key, DataWord.ONE);
+        CachingRepository repo = new CachingRepository(repository, new StateCache(16, 16));
+        assertTrue(repo.exists(address));
+        assertEquals(DataWord.ONE, repo.getStorageRow(address, key));
+        repo.commit();
+
+        Repository track = repo.startTracking();
+        track.delete(address);
+        assertFalse(track.exists(address));
+        assertNull(track.getStorageRow(address, key));
+        track.commit();
+
+        assertFalse(repo.exists(address));
+        assertNull(repo.getStorageRow(address, key));
+    }
+
+    @Test
+    public void testDeleteKeepsOtherStorage() {
+        repository.putStorageRow(address, key, DataWord.ONE);
+        repository.putStorageRow(caller, key, DataWord.ONE);
+        StateCache l2 = new StateCache(16, 16);
+        CachingRepository repo = new CachingRepository(repository, l2);
+        repo.getStorageRow(address, key);
+        repo.getStorageRow(caller, key);
+        repo.commit();
+        assertEquals(2, l2.getIndexedSlotCount());
+
+        repo.delete(address);
+        assertEquals(1, l2.getIndexedSlotCount());
+        assertNull(repo.getStorageRow(address, key));
+        assertEquals(DataWord.ONE, repo.getStorageRow(caller, key));
+        assertEquals(1, repo.getL2HitCount());
+    }
+
+    @Test
+    public void testEvictionUnindexes() {
+        StateCache l2 = new StateCache(4, 4);
+        CachingRepository repo = new CachingRepository(repository, l2);
+        for (int i = 0; i < 10; i++) {
+            repo.getStorageRow(address, DataWord.of(i));
+        }
+        repo.commit();
+        assertEquals(4, l2.getIndexedSlotCount());
+
+        l2.clear();
+        assertEquals(0, l2.getIndexedSlotCount());
+    }
+
+    @Test
+    public void testForwardsAddress() {
+        Repository backend = mock(Repository.class);
+        Repository repo = new CachingRepository(
+                new PrefetchingRepository(new RecordingRepository(backend, new AccessRecorder()), Runnable::run, 4),
+                new StateCache(16, 16));
+
+        Address owner = Address.of(address);
+        repo.putStorageRow(owner, key, DataWord.ONE);
+        repo.getStorageRow(owner, DataWord.of(2));
+        repo.addBalance(owner, BigInteger.ONE);
+
+        verify(backend).putStorageRow(owner, key, DataWord.ONE);
+        verify(backend).getStorageRow(owner, DataWord.of(2));
+        verify(backend).addBalance(owner, BigInteger.ONE);
+    }
+
+    @Test
+    public void testEviction() {
+        CachingRepository repo = new CachingRepository(repository, new StateCache(4, 4));
+        for (int i = 0; i < 10; i++) {
+            repo.getStorageRow(address, DataWord.of(i));
+        }
+        repo.commit();
+        assertEquals(6, repo.getEvictionCount());
+    }
+
+    @Test
+    public void testTransaction() {
+        // stores the call value at slot 0, and returns the previous one
+        String asm = "PUSH1 0x00 SLOAD PUSH1 0x00 MSTORE CALLVALUE PUSH1 0x00 SSTORE PUSH1 0x20 PUSH1 0x00 RETURN";
+        repository.saveCode(address, BytecodeCompiler.compile(asm));
+
+        StateCache l2 = new StateCache(16, 16);
+        CachingRepository repo = new CachingRepository(repository, l2);
+        BlockExecutor executor = new BlockExecutor(block, repo, blockStore);
+        BlockSummary summary = executor.run(Arrays.asList(
+                new TransactionMock(false, caller, address, 0, BigInteger.ONE, data, gas, gasPrice),
+                new TransactionMock(false, caller, address, 1, BigInteger.TEN, data, gas, gasPrice)));
+
+        assertArrayEquals(DataWord.ZERO.getData(), summary.getReceipts().get(0).getReturnData());
+        assertArrayEquals(DataWord.ONE.getData(), summary.getReceipts().get(1).getReturnData());
+        assertEquals(DataWord.of(10), repo.getStorageRow(address, DataWord.ZERO));
+
+        // nothing is promoted before the block is committed
+        assertEquals(0, l2.getIndexedSlotCount());
+        repo.commit();
+        assertEquals(1, l2.getIndexedSlotCount());
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+import org.junit.Test;
+
+public class LogIndexTest {
+
+    private final Random random = new Random(49);
+
+    private static byte[] address(int n) {
+        byte[] address = new byte[20];
+        address[19] = (byte) n;
+        return address;
+    }
+
+    private BlockSummary randomBlock(long number) {
+        Block block = mock(Block.class);
+        when(block.getNumber()).thenReturn(number);
+
+        List<TransactionReceipt> receipts = new ArrayList<>();
+        for (int tx = random.nextInt(4); tx >= 0; tx--) {
+            if (random.nextInt(5) == 0) {
+                receipts.add(null); // rejected
+                continue;
+            }
+            List<LogInfo> logs = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                List<DataWord> topics = new ArrayList<>();
+                for (int t = random.nextInt(4); t > 0; t--) {
+                    topics.add(DataWord.of(random.nextInt(6)));
+                }
+                logs.add(new LogInfo(address(random.nextInt(4)), topics, new byte[0]));
+            }
+            receipts.add(new TransactionReceipt(null, true, 21_000L, new byte[0], logs, Collections.emptyList(),
+                    Collections.emptyList()));
+        }
+        return new BlockSummary(block, receipts, 0, 0, 0, 0);
+    }
+
+    /**
+     * Filters by scanning all the receipts.
+     */
+    private static List<String> scan(List<BlockSummary> blocks, long fromBlock, long toBlock,
+            Collection<byte[]> addresses, List<? extends Collection<DataWord>> topics) {
+        List<String> result = new ArrayList<>();
+        for (BlockSummary summary : blocks) {
+            long number = summary.getBlock().getNumber();
+            if (number < fromBlock || number > toBlock) {
+                continue;
+            }
+            for (int tx = 0; tx < summary.getReceipts().size(); tx++) {
+                TransactionReceipt receipt = summary.getReceipts().get(tx);
+                for (int i = 0; receipt != null && i < receipt.getLogs().size(); i++) {
+                    if (LogIndex.matches(receipt.getLogs().get(i), addresses, topics)) {
+                        result.add(number + "/" + tx + "/" + i);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<String> toStrings(List<LogIndex.Entry> entries) {
+        List<String> result = new ArrayList<>();
+        for (LogIndex.Entry e : entries) {
+            result.add(e.getBlock().getNumber() + "/" + e.getTransactionIndex() + "/" + e.getLogIndex());
+        }
+        return result;
+    }
+
+    @Test
+    public void testAgainstScan() {
+        LogIndex index = new LogIndex(8);
+        List<BlockSummary> retained = new ArrayList<>();
+
+        for (long number = 1; number <= 50; number++) {
+            BlockSummary summary = randomBlock(number);
+            index.onBlock(summary);
+            retained.add(summary);
+            if (retained.size() > 8) {
+                retained.remove(0);
+            }
+            assertEquals(retained.size(), index.getBlockCount());
+
+            for (int q = 0; q < 10; q++) {
+                long from = number - random.nextInt(10);
+                long to = from + random.nextInt(10);
+                List<byte[]> addresses = random.nextBoolean() ? null
+                        : Arrays.asList(address(random.nextInt(4)), address(random.nextInt(4)));
+                List<List<DataWord>> topics = new ArrayList<>();
+                for (int t = random.nextInt(3); t > 0; t--) {
+                    topics.add(random.nextBoolean() ? null
+                            : Arrays.asList(DataWord.of(random.nextInt(6)), DataWord.of(random.nextInt(6))));
+                }
+
+                assertEquals(scan(retained, from, to, addresses, topics),
+                        toStrings(index.filter(from, to, addresses, topics)));
+            }
+        }
+    }
+
+    @Test
+    public void testReceiptsNotRetained() {
+        LogIndex index = new LogIndex(4);
+        List<BlockSummary> retained = new ArrayList<>();
+
+        for (long number = 1; number <= 10; number++) {
+            BlockSummary summary = randomBlock(number);
+            List<TransactionReceipt> receipts = summary.getReceipts();
+            for (int tx = 0; tx < receipts.size(); tx++) {
+                index.onReceipt(summary.getBlock(), tx, receipts.get(tx));
+            }
+            index.onBlock(new BlockSummary(summary.getBlock(), Collections.emptyList(), receipts.size(),
+                    summary.getBloom(), 0, 0, 0, 0));
+            retained.add(summary);
+            if (retained.size() > 4) {
+                retained.remove(0);
+            }
+
+            assertEquals(scan(retained, 0, Long.MAX_VALUE, null, null),
+                    toStrings(index.filter(0, Long.MAX_VALUE, null, null)));
+            List<byte[]> addresses = Collections.singletonList(address(1));
+            assertEquals(scan(retained, 0, Long.MAX_VALUE, addresses, null),
+                    toStrings(index.filter(0, Long.MAX_VALUE, addresses, null)));
+        }
+    }
+
+    @Test
+    public void testEntry() {
+        BlockSummary summary = randomBlock(1);
+        LogIndex index = new LogIndex(1);
+        index.add(summary);
+
+        for (LogIndex.Entry e : index.filter(0, Long.MAX_VALUE, null, null)) {
+            assertTrue(summary.getReceipts().get(e.getTransactionIndex()).getLogs().contains(e.getLog()));
+            assertEquals(summary.getBlock(), e.getBlock());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfOrder() {
+        LogIndex index = new LogIndex(4);
+        index.add(randomBlock(2));
+        index.add(randomBlock(1));
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.TestBase;
+import org.junit.Test;
+
+public class PrefetchingRepositoryTest extends TestBase {
+
+    private final DataWord key = DataWord.of(1);
+
+    @Test
+    public void testPrefetch() {
+        repository.addBalance(address, BigInteger.TEN);
+        repository.saveCode(address, new byte[] { 0x01 });
+        repository.putStorageRow(address, key, DataWord.ONE);
+
+        PrefetchingRepository repo = new PrefetchingRepository(repository, Runnable::run, 4);
+        repo.prefetchAccount(address);
+        repo.prefetchStorageRow(address, key);
+
+        assertEquals(BigInteger.TEN, repo.getBalance(address));
+        assertArrayEquals(new byte[] { 0x01 }, repo.getCode(address));
+        assertEquals(DataWord.ONE, repo.getStorageRow(address, key));
+        assertEquals(3, repo.getHitCount());
+        assertEquals(0, repo.getMissCount());
+    }
+
+    @Test
+    public void testWriteThroughTrack() {
+        repository.addBalance(address, BigInteger.TEN);
+        repository.putStorageRow(address, key, DataWord.ONE);
+
+        PrefetchingRepository repo = new PrefetchingRepository(repository, Runnable::run, 4);
+        repo.prefetchAccount(address);
+        repo.prefetchStorageRow(address, key);
+
+        Repository track = repo.startTracking();
+        track.addBalance(address, BigInteger.ONE);
+        track.putStorageRow(address, key, DataWord.ZERO);
+
+        // the track observes its own writes
+        assertEquals(BigInteger.valueOf(11), track.getBalance(address));
+        assertEquals(DataWord.ZERO, track.getStorageRow(address, key));
+
+        // the parent observes the committed state
+        track.commit();
+        assertEquals(BigInteger.valueOf(11), repo.getBalance(address));
+        assertEquals(DataWord.ZERO, repo.getStorageRow(address, key));
+        assertEquals(0, repo.getHitCount());
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        repository.putStorageRow(address, key, DataWord.ONE);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        PrefetchingRepository repo = new PrefetchingRepository(repository, executor, 1);
+        for (int i = 0; i < 100; i++) {
+            repo.prefetchStorageRow(address, DataWord.of(i));
+        }
+        repo.cancel();
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(DataWord.ONE, repo.getStorageRow(address, key));
+        assertEquals(0, repo.getHitCount());
+    }
+
+    @Test
+    public void testGroups() {
+        repository.putStorageRow(address, key, DataWord.ONE);
+        repository.putStorageRow(address, DataWord.of(2), DataWord.of(2));
+        repository.putStorageRow(address, DataWord.of(3), DataWord.of(3));
+
+        PrefetchingRepository repo = new PrefetchingRepository(repository, Runnable::run, 4);
+        long first = repo.startGroup();
+        repo.prefetchStorageRow(address, key);
+        repo.startGroup();
+        repo.prefetchStorageRows(address, Arrays.asList(DataWord.of(2), DataWord.of(3)));
+
+        // written before the first group is done
+        Repository track = repo.startTracking();
+        track.putStorageRow(address, DataWord.of(3), DataWord.ZERO);
+        track.commit();
+        repo.cancel(first);
+
+        assertEquals(DataWord.ONE, repo.getStorageRow(address, key));
+        assertEquals(DataWord.of(2), repo.getStorageRow(address, DataWord.of(2)));
+        assertEquals(DataWord.ZERO, repo.getStorageRow(address, DataWord.of(3)));
+        assertEquals(1, repo.getHitCount());
+    }
+
+    @Test
+    public void testBatchReads() {
+        repository.addBalance(address, BigInteger.TEN);
+        repository.putStorageRow(address, key, DataWord.ONE);
+        repository.putStorageRow(address, DataWord.of(2), DataWord.of(2));
+
+        PrefetchingRepository repo = new PrefetchingRepository(repository, Runnable::run, 4);
+        repo.prefetchStorageRow(address, key);
+
+        List<DataWord> values = repo.getStorageRows(address, Arrays.asList(DataWord.of(2), key, DataWord.of(3)));
+        assertEquals(Arrays.asList(DataWord.of(2), DataWord.ONE, null), values);
+        assertEquals(1, repo.getHitCount());
+
+        List<AccountState> accounts = repo.getAccounts(Arrays.asList(address, caller));
+        assertTrue(accounts.get(0).exists());
+        assertEquals(BigInteger.TEN, accounts.get(0).getBalance());
+        assertFalse(accounts.get(1).exists());
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.ethereum.vm.DataWord;
+import org.ethereum.vm.LogInfo;
+import org.ethereum.vm.util.ByteArrayWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReceiptCodecTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Random random = new Random(50);
+
+    private byte[] address() {
+        byte[] address = new byte[20];
+        address[19] = (byte) random.nextInt(8);
+        return address;
+    }
+
+    private byte[] bytes(int maxLength) {
+        byte[] bytes = new byte[random.nextInt(maxLength)];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private BlockSummary randomBlock(long number) {
+        Block block = mock(Block.class);
+        when(block.getNumber()).thenReturn(number);
+
+        List<TransactionReceipt> receipts = new ArrayList<>();
+        for (int tx = random.nextInt(5); tx >= 0; tx--) {
+            if (random.nextInt(5) == 0) {
+                receipts.add(null);
+                continue;
+            }
+
+            List<LogInfo> logs = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                List<DataWord> topics = new ArrayList<>();
+                for (int t = random.nextInt(5); t > 0; t--) {
+                    topics.add(DataWord.of(random.nextInt(8)));
+                }
+                logs.add(new LogInfo(address(), topics, bytes(300)));
+            }
+
+            List<ByteArrayWrapper> deleted = new ArrayList<>();
+            for (int i = random.nextInt(3); i > 0; i--) {
+                deleted.add(new ByteArrayWrapper(address()));
+            }
+
+            AccessSet accessSet = null;
+            if (random.nextBoolean()) {
+                int accounts = 1 + random.nextInt(3);
+                byte[] accountBytes = new byte[accounts * 20];
+                byte[] accountFlags = new byte[accounts];
+                for (int i = 0; i < accounts; i++) {
+                    System.arraycopy(address(), 0, accountBytes, i * 20, 20);
+                    accountFlags[i] = (byte) (1 + random.nextInt(3));
+                }
+                int slots = random.nextInt(4);
+                int[] slotAccounts = new int[slots];
+                byte[] slotKeys = new byte[slots * 32];
+                byte[] slotFlags = new byte[slots];
+                for (int i = 0; i < slots; i++) {
+                    slotAccounts[i] = random.nextInt(accounts);
+                    slotKeys[i * 32 + 31] = (byte) random.nextInt(8);
+                    slotFlags[i] = (byte) (1 + random.nextInt(3));
+                }
+                accessSet = new AccessSet(accountBytes, accountFlags, slotAccounts, slotKeys, slotFlags);
+            }
+
+            receipts.add(new TransactionReceipt(null, random.nextBoolean(), random.nextInt(1_000_000), bytes(100),
+                    logs, deleted, Collections.emptyList(), accessSet));
+        }
+        return new BlockSummary(block, receipts, 0, 0, 0, 0);
+    }
+
+    private static void assertReceiptsEqual(List<TransactionReceipt> expected, List<TransactionReceipt> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            TransactionReceipt e = expected.get(i);
+            TransactionReceipt a = actual.get(i);
+            if (e == null) {
+                assertNull(a);
+                continue;
+            }
+            assertEquals(e.isSuccess(), a.isSuccess());
+            assertEquals(e.getGasUsed(), a.getGasUsed());
+            assertArrayEquals(e.getReturnData(), a.getReturnData());
+            assertEquals(e.getLogs().size(), a.getLogs().size());
+            for (int j = 0; j < e.getLogs().size(); j++) {
+                assertArrayEquals(e.getLogs().get(j).getAddress(), a.getLogs().get(j).getAddress());
+                assertEquals(e.getLogs().get(j).getTopics(), a.getLogs().get(j).getTopics());
+                assertArrayEquals(e.getLogs().get(j).getData(), a.getLogs().get(j).getData());
+            }
+            assertEquals(e.getDeletedAccounts(), a.getDeletedAccounts());
+            assertEquals(String.valueOf(e.getAccessSet()), String.valueOf(a.getAccessSet()));
+            assertEquals(e.getBloom(), a.getBloom());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (int i = 0; i < 200; i++) {
+            BlockSummary summary = randomBlock(i);
+            ByteBuffer record = ReceiptCodec.encode(summary);
+
+            assertEquals(record.limit(), new BlockReceiptsView().wrap(record, 0).getRecordLength());
+            assertReceiptsEqual(summary.getReceipts(), ReceiptCodec.decode(record, 0));
+
+            // skip the receipts without visiting their logs
+            BlockReceiptsView.Cursor cursor = new BlockReceiptsView().wrap(record, 0).receipts();
+            int n = 0;
+            while (cursor.next()) {
+                n++;
+            }
+            assertEquals(summary.getReceipts().size(), n);
+        }
+    }
+
+    @Test
+    public void testMappedArchive() throws IOException {
+        List<BlockSummary> blocks = new ArrayList<>();
+        File file = folder.newFile();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            for (int i = 0; i < 50; i++) {
+                BlockSummary summary = randomBlock(1000 + i);
+                ReceiptCodec.write(summary, channel);
+                blocks.add(summary);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            BlockReceiptsView view = new BlockReceiptsView();
+            int n = 0;
+            for (int offset = 0; offset < buffer.limit(); offset += view.getRecordLength()) {
+                view.wrap(buffer, offset);
+                BlockSummary summary = blocks.get(n++);
+                assertEquals(summary.getBlock().getNumber(), view.getNumber());
+
+                // scan the logs without decoding the receipts
+                BlockReceiptsView.Cursor cursor = view.receipts();
+                for (int tx = 0; cursor.next(); tx++) {
+                    TransactionReceipt receipt = summary.getReceipts().get(tx);
+                    assertEquals(receipt != null, cursor.isExecuted());
+                    for (int i = 0; cursor.nextLog(); i++) {
+                        LogInfo log = receipt.getLogs().get(i);
+                        assertEquals(view.indexOfAddress(log.getAddress()), cursor.getLogAddress());
+                        byte[] data = new byte[log.getData().length];
+                        cursor.getLogDataSlice().get(data);
+                        assertArrayEquals(log.getData(), data);
+                    }
+                }
+                assertFalse(cursor.next());
+
+                assertReceiptsEqual(summary.getReceipts(), ReceiptCodec.decode(buffer, offset));
+            }
+            assertEquals(blocks.size(), n);
+        }
+    }
+
+    @Test
+    public void testDeduplication() {
+        byte[] address = new byte[20];
+        DataWord topic = DataWord.of(7);
+        List<LogInfo> logs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            logs.add(new LogInfo(address, Collections.singletonList(topic), new byte[0]));
+        }
+        Block block = mock(Block.class);
+        TransactionReceipt receipt = new TransactionReceipt(null, true, 21_000L, new byte[0], logs,
+                Collections.emptyList(), Collections.emptyList());
+        BlockSummary summary = new BlockSummary(block, Collections.singletonList(receipt), 0, 0, 0, 0);
+
+        BlockReceiptsView view = new BlockReceiptsView().wrap(ReceiptCodec.encode(summary), 0);
+        assertEquals(1, view.getAddressCount());
+        assertEquals(1, view.getWordCount());
+        assertEquals(0, view.indexOfWord(topic));
+        assertEquals(-1, view.indexOfWord(DataWord.of(8)));
+        // 4 bytes per log: address index, topic count, topic index and data length
+        assertTrue(view.getRecordLength() < 20 + 32 + 100 * 4 + 32);
+    }
+
+    @Test
+    public void testReceiptsNotRetained() {
+        BlockSummary summary = randomBlock(1);
+        List<TransactionReceipt> receipts = summary.getReceipts();
+        BlockSummary unretained = new BlockSummary(summary.getBlock(), Collections.emptyList(), receipts.size(),
+                summary.getBloom(), 0, 0, 0, 0);
+
+        try {
+            ReceiptCodec.encode(unretained);
+            assertTrue(receipts.isEmpty());
+        } catch (IllegalArgumentException e) {
+            assertFalse(receipts.isEmpty());
+        }
+        // the receipts collected by a listener
+        assertEquals(ReceiptCodec.encode(summary), ReceiptCodec.encode(1, receipts));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedVersion() {
+        ByteBuffer record = ReceiptCodec.encode(randomBlock(1));
+        record.put(4, (byte) 99);
+        new BlockReceiptsView().wrap(record, 0);
+    }
+}
@@ -18,15 +18,15 @@
 package org.ethereum.vm.client;
 
 import java.math.BigInteger;
-import java.util.HashMap;
-import java.util.Map;
 
+import org.ethereum.vm.Address;
 import org.ethereum.vm.DataWord;
-import org.ethereum.vm.util.ByteArrayWrapper;
+import org.ethereum.vm.util.AddressMap;
+import org.ethereum.vm.util.WordMap;
 
 public class RepositoryMock implements Repository {
 
-    private Map<ByteArrayWrapper, Account> accounts = new HashMap<>();
+    private AddressMap<Account> accounts = new AddressMap<>();
     private RepositoryMock parent;
 
     public RepositoryMock() {
@@ -45,14 +45,12 @@ public class RepositoryMock implements Repository {
      * @return an account if exists, NULL otherwise
      */
     protected Account getAccount(byte[] address) {
-        ByteArrayWrapper key = new ByteArrayWrapper(address);
-
-        if (accounts.containsKey(key)) {
-            return accounts.get(key);
+        if (accounts.containsKey(address)) {
+            return accounts.get(address);
         } else if (parent != null && parent.exists(address)) {
             Account account = parent.getAccount(address);
             Account accountTrack = new Account(account);
-            accounts.put(key, accountTrack);
+            accounts.put(address, accountTrack);
             return accountTrack;
         } else {
             return null;
@@ -61,10 +59,8 @@ public class RepositoryMock implements Repository {
 
     @Override
     public boolean exists(byte[] address) {
-        ByteArrayWrapper key = new ByteArrayWrapper(address);
-
-        if (accounts.containsKey(new ByteArrayWrapper(address))) {
-            return accounts.get(key) != null;
+        if (accounts.containsKey(address)) {
+            return accounts.get(address) != null;
         } else if (parent != null) {
             return parent.exists(address);
         } else {
@@ -75,13 +71,13 @@ public class RepositoryMock implements Repository {
     @Override
     public void createAccount(byte[] address) {
         if (!exists(address)) {
-            accounts.put(new ByteArrayWrapper(address), new Account());
+            accounts.put(address, new Account());
         }
     }
 
     @Override
     public void delete(byte[] address) {
-        accounts.put(new ByteArrayWrapper(address), null);
+        accounts.put(address, null);
     }
 
     @Override
@@ -139,6 +135,79 @@ public class RepositoryMock implements Repository {
         return account.balance = account.balance.add(value);
     }
 
+    /*
+     * The Address overloads look the accounts up by Address, with no byte array in
+     * between.
+     */
+
+    protected Account getAccount(Address address) {
+        if (accounts.containsKey(address)) {
+            return accounts.get(address);
+        } else if (parent != null && parent.exists(address)) {
+            Account account = parent.getAccount(address);
+            Account accountTrack = new Account(account);
+            accounts.put(address, accountTrack);
+            return accountTrack;
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean exists(Address address) {
+        if (accounts.containsKey(address)) {
+            return accounts.get(address) != null;
+        } else if (parent != null) {
+            return parent.exists(address);
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public long getNonce(Address address) {
+        Account account = getAccount(address);
+        return account == null ? 0 : account.nonce;
+    }
+
+    @Override
+    public byte[] getCode(Address address) {
+        Account account = getAccount(address);
+        return account == null ? null : account.code;
+    }
+
+    @Override
+    public void putStorageRow(Address address, DataWord key, DataWord value) {
+        getOrCreateAccount(address).storage.put(key, value);
+    }
+
+    @Override
+    public DataWord getStorageRow(Address address, DataWord key) {
+        Account account = getAccount(address);
+        return account == null ? null : account.storage.get(key);
+    }
+
+    @Override
+    public BigInteger getBalance(Address address) {
+        Account account = getAccount(address);
+        return account == null ? BigInteger.ZERO : account.balance;
+    }
+
+    @Override
+    public BigInteger addBalance(Address address, BigInteger value) {
+        Account account = getOrCreateAccount(address);
+        return account.balance = account.balance.add(value);
+    }
+
+    private Account getOrCreateAccount(Address address) {
+        Account account = getAccount(address);
+        if (account == null) {
+            account = new Account();
+            accounts.put(address, account);
+        }
+        return account;
+    }
+
     @Override
     public RepositoryMock startTracking() {
         return new RepositoryMock(this);
@@ -147,8 +216,8 @@ public class RepositoryMock implements Repository {
     @Override
     public Repository clone() {
         RepositoryMock copy = new RepositoryMock(parent);
-        for (Map.Entry<ByteArrayWrapper, Account> entry : accounts.entrySet()) {
-            copy.accounts.put(entry.getKey(), entry.getValue().clone());
+        for (int slot = accounts.first(); slot >= 0; slot = accounts.next(slot)) {
+            copy.accounts.put(accounts.keyAt(slot), accounts.valueAt(slot).clone());
         }
         return copy;
     }
@@ -169,7 +238,7 @@ public class RepositoryMock implements Repository {
         public long nonce = 0;
         public BigInteger balance = BigInteger.ZERO;
         public byte[] code = new byte[0];
-        public Map<DataWord, DataWord> storage = new HashMap<>();
+        public WordMap<DataWord> storage = new WordMap<>();
 
         public Account() {
         }
@@ -178,7 +247,7 @@ public class RepositoryMock implements Repository {
             this.nonce = parent.nonce;
             this.balance = parent.balance;
             this.code = parent.code;
-            this.storage = new HashMap<>(parent.storage);
+            this.storage = new WordMap<>(parent.storage);
         }
 
         public Account clone() {
@@ -186,7 +255,7 @@ public class RepositoryMock implements Repository {
             a.nonce = nonce;
             a.balance = balance;
             a.code = code.clone();
-            a.storage = new HashMap<>(storage);
+            a.storage = new WordMap<>(storage);
 
             return a;
         }
@@ -36,6 +36,7 @@ import org.ethereum.vm.OpCode;
 import org.ethereum.vm.TestTransactionBase;
 import org.ethereum.vm.chainspec.Spec;
 import org.ethereum.vm.program.InternalTransaction;
+import org.ethereum.vm.program.InternalTxRecording;
 import org.ethereum.vm.util.ByteArrayUtil;
 import org.ethereum.vm.util.ByteArrayWrapper;
 import org.ethereum.vm.util.BytecodeCompiler;
@@ -137,6 +138,48 @@ public class TransactionExecutorTest extends TestTransactionBase {
                 receipt.getInternalTransactions().get(0).getGas());
     }
 
+    @Test
+    public void testInternalTxRecording() {
+        String asm = "PUSH1 0x20" // out size
+                + " PUSH1 0x20" // out offset
+                + " PUSH1 0x20" // in size
+                + " PUSH1 0x00" // in offset
+                + " PUSH1 0x00" // value
+                + " PUSH1 0x04" // address of the identity contract
+                + " PUSH2 0xffff" // gas
+                + " PUSH1 0x20" // data
+                + " PUSH1 0x00" // offset
+                + " MSTORE"
+                + " CALL"
+                + " PUSH1 0x20"
+                + " PUSH1 0x20"
+                + " RETURN";
+        byte[] code = BytecodeCompiler.compile(asm);
+
+        for (InternalTxRecording mode : InternalTxRecording.values()) {
+            Repository track = repository.startTracking();
+            track.saveCode(address, code);
+
+            TransactionExecutor executor = new TransactionExecutor(transaction, block, track, blockStore);
+            executor.setInternalTxRecording(mode);
+            TransactionReceipt receipt = executor.run();
+
+            assertTrue(receipt.isSuccess());
+            assertArrayEquals(DataWord.of(0x20).getData(), receipt.getReturnData());
+
+            List<InternalTransaction> txs = receipt.getInternalTransactions();
+            if (mode == InternalTxRecording.NONE) {
+                assertTrue(txs.isEmpty());
+            } else {
+                assertEquals(1, txs.size());
+                assertArrayEquals(mode == InternalTxRecording.FULL ? DataWord.of(0x20).getData() : new byte[0],
+                        txs.get(0).getData());
+                assertEquals(0, txs.get(0).getDataOffset());
+                assertEquals(0x20, txs.get(0).getDataSize());
+            }
+        }
+    }
+
     @Test
     public void testDeploy() {
         // contract Test {
@@ -249,4 +292,53 @@ public class TransactionExecutorTest extends TestTransactionBase {
         assertTrue(receipt.isSuccess());
         assertEquals(DataWord.ONE, DataWord.of(receipt.getReturnData()));
     }
+
+    @Test
+    public void testAccessSet() {
+        String asm = "PUSH1 0x01 SLOAD" // read slot 1
+                + " PUSH1 0x02 SSTORE" // write slot 2
+                + " PUSH20 0x" + Hex.toHexString(address(200)) + " BALANCE";
+        repository.saveCode(address, BytecodeCompiler.compile(asm));
+
+        TransactionExecutor executor = new TransactionExecutor(transaction, block, repository, blockStore);
+        executor.setRecordAccesses(true);
+        TransactionReceipt receipt = executor.run();
+        assertTrue(receipt.isSuccess());
+
+        AccessSet accessSet = receipt.getAccessSet();
+        int sender = accessSet.indexOfAccount(caller);
+        int contract = accessSet.indexOfAccount(address);
+        int other = accessSet.indexOfAccount(address(200));
+        assertTrue(accessSet.isAccountWritten(sender));
+        assertTrue(accessSet.isAccountRead(contract));
+        assertTrue(accessSet.isAccountRead(other));
+        assertFalse(accessSet.isAccountWritten(other));
+
+        assertEquals(2, accessSet.getSlotCount());
+        for (int i = 0; i < accessSet.getSlotCount(); i++) {
+            assertEquals(contract, accessSet.getSlotAccount(i));
+            boolean isWrite = accessSet.getSlotKey(i).equals(DataWord.of(2));
+            assertEquals(isWrite, accessSet.isSlotWritten(i));
+        }
+
+        // a transaction conflicts with itself, as it writes the sender
+        assertTrue(accessSet.conflictsWith(accessSet));
+    }
+
+    @Test
+    public void testAccessSetOverRecordingRepository() {
+        repository.saveCode(address, BytecodeCompiler.compile("PUSH1 0x01 SLOAD"));
+
+        AccessRecorder callerRecorder = new AccessRecorder();
+        Repository repo = new RecordingRepository(repository, callerRecorder);
+        TransactionExecutor executor = new TransactionExecutor(transaction, block, repo, blockStore);
+        executor.setRecordAccesses(true);
+        TransactionReceipt receipt = executor.run();
+        assertTrue(receipt.isSuccess());
+
+        AccessSet accessSet = receipt.getAccessSet();
+        assertTrue(accessSet.indexOfAccount(address) >= 0);
+        assertEquals(1, accessSet.getSlotCount());
+        assertEquals(1, callerRecorder.toAccessSet().getSlotCount());
+    }
 }
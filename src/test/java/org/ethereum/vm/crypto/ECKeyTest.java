@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.ethereum.vm.crypto.ECKey.ECDSASignature;
+import org.ethereum.vm.crypto.ECKey.RecoveryResult;
+import org.junit.Test;
+
+public class ECKeyTest {
+
+    private static final BigInteger N = ECKey.SECP256K1N;
+
+    private final Random random = new Random(39);
+
+    private BigInteger randomScalar() {
+        return new BigInteger(256, random).mod(N.subtract(BigInteger.ONE)).add(BigInteger.ONE);
+    }
+
+    private ECDSASignature sign(BigInteger key, byte[] hash) {
+        BigInteger k = randomScalar();
+        ECPoint p = ECKey.CURVE.getG().multiply(k).normalize();
+        BigInteger r = p.getAffineXCoord().toBigInteger().mod(N);
+        BigInteger s = k.modInverse(N).multiply(new BigInteger(1, hash).add(r.multiply(key))).mod(N);
+
+        ECDSASignature sig = new ECDSASignature(r, s);
+        sig.v = (byte) (27 + (p.getAffineYCoord().toBigInteger().testBit(0) ? 1 : 0));
+        return sig;
+    }
+
+    /**
+     * Valid signatures mixed with all sorts of invalid ones.
+     */
+    private void batch(byte[][] hashes, ECDSASignature[] sigs) {
+        for (int i = 0; i < sigs.length; i++) {
+            hashes[i] = new byte[32];
+            random.nextBytes(hashes[i]);
+            sigs[i] = sign(randomScalar(), hashes[i]);
+
+            switch (i % 10) {
+            case 1:
+                sigs[i].v = 26; // header out of range
+                break;
+            case 2:
+                hashes[i] = new byte[31];
+                break;
+            case 3:
+                sigs[i] = new ECDSASignature(BigInteger.ZERO, BigInteger.ONE); // r not invertible
+                sigs[i].v = 27;
+                break;
+            case 4:
+                sigs[i] = new ECDSASignature(new BigInteger(256, random), BigInteger.ONE); // likely not a point
+                sigs[i].v = 28;
+                break;
+            case 5:
+                sigs[i].v = 29; // x = r + n, most likely greater than p
+                break;
+            default:
+            }
+        }
+    }
+
+    private static void assertSameOutcome(byte[] hash, ECDSASignature sig, RecoveryResult result) {
+        try {
+            byte[] address = ECKey.signatureToAddress(hash, sig);
+            assertTrue(result.isSuccess());
+            assertArrayEquals(address, result.getAddress());
+            assertNull(result.getError());
+        } catch (Exception e) {
+            assertFalse(result.isSuccess());
+            assertNull(result.getAddress());
+            assertEquals(e.getClass(), result.getError().getClass());
+            assertEquals(e.getMessage(), result.getError().getMessage());
+        }
+    }
+
+    @Test
+    public void testSignaturesToAddresses() {
+        byte[][] hashes = new byte[300][];
+        ECDSASignature[] sigs = new ECDSASignature[hashes.length];
+        batch(hashes, sigs);
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            RecoveryResult[] serial = ECKey.signaturesToAddresses(hashes, sigs, null);
+            RecoveryResult[] parallel = ECKey.signaturesToAddresses(hashes, sigs, pool);
+            RecoveryResult[] common = ECKey.signaturesToAddresses(hashes, sigs);
+
+            for (int i = 0; i < sigs.length; i++) {
+                assertSameOutcome(hashes[i], sigs[i], serial[i]);
+                assertSameOutcome(hashes[i], sigs[i], parallel[i]);
+                assertSameOutcome(hashes[i], sigs[i], common[i]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSignaturesToAddressesEmpty() {
+        assertEquals(0, ECKey.signaturesToAddresses(new byte[0][], new ECDSASignature[0]).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSignaturesToAddressesLengthMismatch() {
+        ECKey.signaturesToAddresses(new byte[1][], new ECDSASignature[0]);
+    }
+
+    @Test
+    public void testSignatureToAddress() throws ECKey.SignatureException {
+        BigInteger key = randomScalar();
+        byte[] hash = new byte[32];
+        random.nextBytes(hash);
+
+        byte[] pub = ECKey.CURVE.getG().multiply(key).getEncoded(false);
+        ECDSASignature sig = sign(key, hash);
+
+        assertArrayEquals(pub, ECKey.recoverPubBytesFromSignature(sig.v - 27, sig, hash));
+        assertArrayEquals(ECKey.signatureToAddress(hash, sig),
+                ECKey.signaturesToAddresses(new byte[][] { hash }, new ECDSASignature[] { sig })[0].getAddress());
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ModExpEngineTest {
+
+    private final Random random = new Random(1234);
+
+    private void check(BigInteger base, BigInteger exp, BigInteger mod) {
+        assertEquals(base + "^" + exp + " mod " + mod, base.modPow(exp, mod), ModExpEngine.modPow(base, exp, mod));
+    }
+
+    private BigInteger random(int maxBits) {
+        return new BigInteger(random.nextInt(maxBits + 1), random);
+    }
+
+    @Test
+    public void testShortcuts() {
+        BigInteger m = BigInteger.valueOf(1000003);
+        check(BigInteger.ZERO, BigInteger.ZERO, m);
+        check(BigInteger.ZERO, BigInteger.TEN, m);
+        check(BigInteger.TEN, BigInteger.ZERO, m);
+        check(BigInteger.TEN, BigInteger.ONE, m);
+        check(BigInteger.TEN, BigInteger.TEN, BigInteger.ONE);
+        check(BigInteger.ZERO, BigInteger.ZERO, BigInteger.ONE);
+        check(m.multiply(BigInteger.TEN), BigInteger.TEN, m);
+        check(m, BigInteger.TEN, m);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testZeroModulus() {
+        ModExpEngine.modPow(BigInteger.ONE, BigInteger.ONE, BigInteger.ZERO);
+    }
+
+    @Test
+    public void testSmall() {
+        for (int i = 0; i < 5000; i++) {
+            BigInteger mod = random(70).add(BigInteger.ONE);
+            check(random(80), random(40), mod);
+        }
+    }
+
+    @Test
+    public void testIntModulus() {
+        for (int i = 0; i < 5000; i++) {
+            BigInteger mod = random(31).add(BigInteger.ONE);
+            check(random(64), random(80), mod);
+        }
+        BigInteger max = BigInteger.valueOf(Integer.MAX_VALUE);
+        check(max.subtract(BigInteger.ONE), max, max);
+        check(max, max, max.add(BigInteger.ONE));
+    }
+
+    @Test
+    public void testEvenModulus() {
+        for (int i = 0; i < 500; i++) {
+            BigInteger q = random(300).setBit(0);
+            BigInteger mod = q.shiftLeft(random.nextInt(100) + 1);
+            check(random(400), random(300), mod);
+            check(random(400).shiftLeft(random.nextInt(20)), random(12), mod);
+        }
+    }
+
+    @Test
+    public void testPowerOfTwoModulus() {
+        for (int k = 1; k <= 130; k++) {
+            BigInteger mod = BigInteger.ONE.shiftLeft(k);
+            check(random(200), random(200), mod);
+            check(BigInteger.valueOf(2), BigInteger.valueOf(k - 1), mod);
+            check(BigInteger.valueOf(2), BigInteger.valueOf(k), mod);
+            check(mod.subtract(BigInteger.ONE), random(100), mod);
+        }
+    }
+
+    @Test
+    public void testLimbBoundaries() {
+        for (int bits = 31; bits <= 257; bits++) {
+            BigInteger mod = BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE);
+            check(mod.subtract(BigInteger.ONE), mod, mod);
+            check(random(bits + 40), random(bits), mod);
+            check(random(bits + 40), random(bits), mod.add(BigInteger.ONE));
+            check(random(bits + 40), random(bits), mod.add(BigInteger.valueOf(2)));
+        }
+    }
+
+    @Test
+    public void testRsaSizes() {
+        BigInteger e = BigInteger.valueOf(65537);
+        for (int bits : new int[] { 1024, 2048, 4096 }) {
+            BigInteger mod = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+            for (int i = 0; i < 3; i++) {
+                BigInteger base = new BigInteger(bits, random);
+                check(base, e, mod);
+                check(base, new BigInteger(bits, random), mod);
+                check(base, new BigInteger(bits, random), mod.clearBit(0));
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto;
+
+import static org.ethereum.vm.crypto.Secp256k1.PRIME;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.bouncycastle.asn1.x9.X9IntegerConverter;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECPoint;
+import org.ethereum.vm.crypto.ECKey.ECDSASignature;
+import org.ethereum.vm.util.HashUtil;
+import org.junit.Test;
+
+public class Secp256k1Test {
+
+    private static final BigInteger N = ECKey.CURVE.getN();
+
+    private static final BigInteger LAMBDA = new BigInteger(
+            "5363ad4cc05c30e0a5261c028812645a122e22ea20816678df02967c1b23bd72", 16);
+
+    private final Random random = new Random(256);
+
+    private BigInteger randomBelow(BigInteger max) {
+        BigInteger v;
+        do {
+            v = new BigInteger(max.bitLength(), random);
+        } while (v.compareTo(max) >= 0);
+        return v;
+    }
+
+    private static int[] limbs(BigInteger v) {
+        int[] r = new int[8];
+        Secp256k1.fromBigInteger(r, 0, v);
+        return r;
+    }
+
+    private static int[] affine(ECPoint p) {
+        p = p.normalize();
+        int[] r = new int[16];
+        Secp256k1.fromBigInteger(r, 0, p.getAffineXCoord().toBigInteger());
+        Secp256k1.fromBigInteger(r, 8, p.getAffineYCoord().toBigInteger());
+        return r;
+    }
+
+    private static byte[] sum(BigInteger u1, int[] r, BigInteger u2) {
+        int[] q = new int[24];
+        Secp256k1.sumOfTwoMultiplies(u1, r, u2, q, 0);
+        Secp256k1.toAffine(q, 1);
+        return Secp256k1.encode(q, 0);
+    }
+
+    @Test
+    public void testFieldArithmetic() {
+        Secp256k1 engine = Secp256k1.get();
+        int[] z = new int[8];
+        for (int i = 0; i < 200; i++) {
+            BigInteger a = randomBelow(PRIME);
+            BigInteger b = i < 10 ? PRIME.subtract(BigInteger.valueOf(i + 1)) : randomBelow(PRIME);
+            int[] x = limbs(a);
+            int[] y = limbs(b);
+
+            Secp256k1.add(z, 0, x, 0, y, 0);
+            assertEquals(a.add(b).mod(PRIME), Secp256k1.toBigInteger(z, 0));
+            Secp256k1.sub(z, 0, x, 0, y, 0);
+            assertEquals(a.subtract(b).mod(PRIME), Secp256k1.toBigInteger(z, 0));
+            Secp256k1.neg(z, 0, x, 0);
+            assertEquals(a.negate().mod(PRIME), Secp256k1.toBigInteger(z, 0));
+
+            engine.mul(z, 0, x, 0, y, 0);
+            assertEquals(a.multiply(b).mod(PRIME), Secp256k1.toBigInteger(z, 0));
+            engine.sqr(z, 0, y, 0);
+            assertEquals(b.multiply(b).mod(PRIME), Secp256k1.toBigInteger(z, 0));
+            engine.mul(x, 0, x, 0, x, 0);
+            assertEquals(a.multiply(a).mod(PRIME), Secp256k1.toBigInteger(x, 0));
+
+            if (b.signum() > 0) {
+                engine.inverse(z, 0, y, 0);
+                assertEquals(b.modInverse(PRIME), Secp256k1.toBigInteger(z, 0));
+            }
+        }
+    }
+
+    @Test
+    public void testDecompress() {
+        for (int i = 0; i < 50; i++) {
+            ECPoint p = ECKey.CURVE.getG().multiply(randomBelow(N)).normalize();
+            BigInteger x = p.getAffineXCoord().toBigInteger();
+            boolean odd = p.getAffineYCoord().toBigInteger().testBit(0);
+
+            assertArrayEquals(affine(p), Secp256k1.decompress(x, odd));
+            assertArrayEquals(affine(p.negate()), Secp256k1.decompress(x, !odd));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecompressInvalid() {
+        // x^3 + 7 is not a square for x = 5
+        Secp256k1.decompress(BigInteger.valueOf(5), false);
+    }
+
+    @Test
+    public void testDecompose() {
+        for (int i = 0; i < 100; i++) {
+            BigInteger k = i == 0 ? N.subtract(BigInteger.ONE) : randomBelow(N);
+            BigInteger[] d = Secp256k1.decompose(k);
+
+            assertEquals(k, d[0].add(d[1].multiply(LAMBDA)).mod(N));
+            assertTrue(d[0].bitLength() <= 129 && d[1].bitLength() <= 129);
+        }
+    }
+
+    @Test
+    public void testEndomorphism() {
+        ECPoint g = ECKey.CURVE.getG().normalize();
+        ECPoint lg = g.multiply(LAMBDA).normalize();
+
+        assertEquals(g.getAffineYCoord().toBigInteger(), lg.getAffineYCoord().toBigInteger());
+        assertEquals(lg.getAffineXCoord().toBigInteger(), g.getAffineXCoord().toBigInteger()
+                .multiply(new BigInteger("7ae96a2b657c07106e64479eac3434e99cf0497512f58995c1396c28719501ee", 16))
+                .mod(PRIME));
+    }
+
+    @Test
+    public void testSumOfTwoMultiplies() {
+        ECPoint g = ECKey.CURVE.getG();
+        BigInteger[] special = { BigInteger.ZERO, BigInteger.ONE, N.subtract(BigInteger.ONE) };
+
+        for (int i = 0; i < 100; i++) {
+            BigInteger u1 = i < 9 ? special[i % 3] : randomBelow(N);
+            BigInteger u2 = i < 9 ? special[i / 3] : randomBelow(N);
+            ECPoint r = g.multiply(randomBelow(N));
+
+            ECPoint expected = ECAlgorithms.sumOfTwoMultiplies(g, u1, r, u2);
+            byte[] actual = sum(u1, affine(r), u2);
+
+            if (expected.isInfinity()) {
+                assertNull(actual);
+            } else {
+                assertArrayEquals(expected.getEncoded(false), actual);
+            }
+        }
+    }
+
+    @Test
+    public void testSumOfTwoMultipliesSpecialCases() {
+        ECPoint g = ECKey.CURVE.getG();
+
+        for (int i = 0; i < 20; i++) {
+            BigInteger k = randomBelow(N);
+            BigInteger u2 = randomBelow(N);
+            int[] r = affine(g.multiply(k));
+
+            // u1 * G = -u2 * R
+            assertNull(sum(u2.multiply(k).negate().mod(N), r, u2));
+
+            // u1 * G = u2 * R, the sum is a doubling
+            BigInteger u1 = u2.multiply(k).mod(N);
+            assertArrayEquals(g.multiply(u1.shiftLeft(1).mod(N)).getEncoded(false),
+                    sum(u1, r, u2));
+        }
+
+        // R = G
+        assertArrayEquals(g.multiply(BigInteger.valueOf(5)).getEncoded(false),
+                sum(BigInteger.valueOf(2), affine(g), BigInteger.valueOf(3)));
+    }
+
+    @Test
+    public void testToAffine() {
+        ECPoint g = ECKey.CURVE.getG();
+        int count = 10;
+        int[] points = new int[count * 24];
+        byte[][] expected = new byte[count][];
+
+        for (int i = 0; i < count; i++) {
+            BigInteger u1 = randomBelow(N);
+            BigInteger u2 = i % 4 == 1 ? BigInteger.ZERO : randomBelow(N);
+            BigInteger k = randomBelow(N);
+            if (i % 4 == 1) {
+                u1 = BigInteger.ZERO; // at infinity
+            }
+
+            Secp256k1.sumOfTwoMultiplies(u1, affine(g.multiply(k)), u2, points, i * 24);
+            ECPoint p = g.multiply(u1.add(u2.multiply(k)).mod(N));
+            expected[i] = p.isInfinity() ? null : p.getEncoded(false);
+        }
+
+        Secp256k1.toAffine(points, count);
+        for (int i = 0; i < count; i++) {
+            assertArrayEquals(expected[i], Secp256k1.encode(points, i * 24));
+        }
+    }
+
+    @Test
+    public void testSignatureToAddress() {
+        for (int i = 0; i < 100; i++) {
+            byte[] hash = new byte[32];
+            random.nextBytes(hash);
+
+            BigInteger r;
+            switch (i % 10) {
+            case 0:
+                r = BigInteger.ZERO;
+                break;
+            case 1:
+                r = N;
+                break;
+            case 2:
+                r = PRIME.subtract(N).add(BigInteger.valueOf(random.nextInt(10)));
+                break;
+            case 3:
+                r = PRIME.subtract(BigInteger.valueOf(random.nextInt(10) + 1));
+                break;
+            default:
+                // about half of these are not the x coordinate of a point
+                r = new BigInteger(256, random);
+            }
+            BigInteger s = i % 7 == 0 ? BigInteger.ZERO : new BigInteger(256, random);
+
+            for (int v = 26; v <= 35; v++) {
+                ECDSASignature sig = new ECDSASignature(r, s);
+                sig.v = (byte) v;
+
+                assertEquals(expected(hash, sig), actual(hash, sig));
+            }
+        }
+    }
+
+    @Test
+    public void testSignatureToAddressValid() throws ECKey.SignatureException {
+        for (int i = 0; i < 20; i++) {
+            BigInteger d = randomBelow(N);
+            byte[] hash = new byte[32];
+            random.nextBytes(hash);
+
+            BigInteger k = randomBelow(N);
+            ECPoint p = ECKey.CURVE.getG().multiply(k).normalize();
+            BigInteger r = p.getAffineXCoord().toBigInteger().mod(N);
+            BigInteger s = k.modInverse(N).multiply(new BigInteger(1, hash).add(r.multiply(d))).mod(N);
+
+            ECDSASignature sig = new ECDSASignature(r, s);
+            sig.v = (byte) (27 + (p.getAffineYCoord().toBigInteger().testBit(0) ? 1 : 0));
+
+            byte[] pub = ECKey.CURVE.getG().multiply(d).getEncoded(false);
+            assertArrayEquals(HashUtil.sha3omit12(Arrays.copyOfRange(pub, 1, 65)), ECKey.signatureToAddress(hash, sig));
+        }
+    }
+
+    @Test
+    public void testZeroMessageHash() {
+        // e = 0, thus u1 = 0
+        byte[] hash = new byte[32];
+        ECDSASignature sig = new ECDSASignature(ECKey.CURVE.getG().normalize().getAffineXCoord().toBigInteger(),
+                BigInteger.ONE);
+        sig.v = 27;
+        assertEquals(expected(hash, sig), actual(hash, sig));
+        assertFalse(actual(hash, sig).startsWith("exception"));
+    }
+
+    private static String actual(byte[] hash, ECDSASignature sig) {
+        try {
+            return Arrays.toString(ECKey.signatureToAddress(hash, sig));
+        } catch (Exception e) {
+            return "exception " + e.getClass().getName();
+        }
+    }
+
+    private static String expected(byte[] hash, ECDSASignature sig) {
+        try {
+            int header = sig.v;
+            if (header < 27 || header > 34) {
+                throw new ECKey.SignatureException("Header byte out of range: " + header);
+            }
+            if (header >= 31) {
+                header -= 4;
+            }
+            byte[] pub = recoverWithBouncyCastle(header - 27, sig, hash);
+            if (pub == null) {
+                throw new ECKey.SignatureException("Could not recover public key from signature");
+            }
+            return Arrays.toString(HashUtil.sha3omit12(Arrays.copyOfRange(pub, 1, pub.length)));
+        } catch (Exception e) {
+            return "exception " + e.getClass().getName();
+        }
+    }
+
+    /**
+     * The generic recovery on BouncyCastle's curve.
+     */
+    private static byte[] recoverWithBouncyCastle(int recId, ECDSASignature sig, byte[] messageHash) {
+        BigInteger x = sig.r.add(BigInteger.valueOf((long) recId / 2).multiply(N));
+        if (x.compareTo(PRIME) >= 0) {
+            return null;
+        }
+
+        X9IntegerConverter x9 = new X9IntegerConverter();
+        byte[] compEnc = x9.integerToBytes(x, 1 + x9.getByteLength(ECKey.CURVE.getCurve()));
+        compEnc[0] = (byte) ((recId & 1) == 1 ? 0x03 : 0x02);
+        ECPoint r = ECKey.CURVE.getCurve().decodePoint(compEnc);
+        if (!r.multiply(N).isInfinity()) {
+            return null;
+        }
+
+        BigInteger e = new BigInteger(1, messageHash);
+        BigInteger eInv = BigInteger.ZERO.subtract(e).mod(N);
+        BigInteger rInv = sig.r.modInverse(N);
+        BigInteger srInv = rInv.multiply(sig.s).mod(N);
+        BigInteger eInvrInv = rInv.multiply(eInv).mod(N);
+        ECPoint q = ECAlgorithms.sumOfTwoMultiplies(ECKey.CURVE.getG(), eInvrInv, r, srInv);
+
+        return q.isInfinity() ? null : q.getEncoded(false);
+    }
+}
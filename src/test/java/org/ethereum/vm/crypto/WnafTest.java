@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class WnafTest {
+
+    private final Random random = new Random(1);
+
+    @Test
+    public void testEncode() {
+        for (int w = 2; w <= 5; w++) {
+            for (int i = 0; i < 50; i++) {
+                BigInteger k = new BigInteger(256, random);
+                byte[] naf = Wnaf.encode(k, w);
+
+                BigInteger v = BigInteger.ZERO;
+                for (int j = naf.length - 1; j >= 0; j--) {
+                    v = v.shiftLeft(1).add(BigInteger.valueOf(naf[j]));
+                    assertTrue(naf[j] == 0 || (naf[j] & 1) == 1 && Math.abs(naf[j]) < 1 << (w - 1));
+                }
+                assertEquals(k, v);
+            }
+        }
+    }
+
+    @Test
+    public void testZero() {
+        assertEquals(0, Wnaf.encode(BigInteger.ZERO, 4).length);
+    }
+}
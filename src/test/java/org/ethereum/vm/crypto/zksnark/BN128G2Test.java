@@ -0,0 +1,152 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+import static org.ethereum.vm.crypto.zksnark.Params.P;
+import static org.ethereum.vm.crypto.zksnark.Params.R;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BN128G2Test {
+
+    private final Random random = new Random(4321);
+
+    /**
+     * The reference check: -1 * p + p == 0, where -1 belongs to F_r
+     */
+    private static boolean isGroupMemberSlow(BN128<Fp2> p) {
+        return p.mul(R.subtract(BigInteger.ONE)).add(p).isZero();
+    }
+
+    private static Fp2 pow(Fp2 a, BigInteger e) {
+        Fp2 res = Fp2._1;
+        for (int i = e.bitLength() - 1; i >= 0; i--) {
+            res = res.squared();
+            if (e.testBit(i)) {
+                res = res.mul(a);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Square root in Fp2 for p = 3 mod 4, or null if there is none.
+     */
+    private static Fp2 sqrt(Fp2 a) {
+        Fp2 a1 = pow(a, P.subtract(BigInteger.valueOf(3)).shiftRight(2));
+        Fp2 alpha = a1.squared().mul(a);
+        Fp2 minusOne = Fp2._1.negate();
+
+        if (alpha.frobeniusMap(1).mul(alpha).equals(minusOne)) {
+            return null;
+        }
+
+        Fp2 x0 = a1.mul(a);
+        Fp2 x = alpha.equals(minusOne)
+                ? new Fp2(Fp.ZERO, Fp._1).mul(x0)
+                : pow(Fp2._1.add(alpha), P.subtract(BigInteger.ONE).shiftRight(1)).mul(x0);
+
+        return x.squared().equals(a) ? x : null;
+    }
+
+    private BigInteger randomValue() {
+        return new BigInteger(P.bitLength(), random).mod(P);
+    }
+
+    /**
+     * Random point of the twisted curve, almost surely not in the subgroup.
+     */
+    private BN128<Fp2> randomPoint() {
+        while (true) {
+            Fp2 x = Fp2.create(randomValue(), randomValue());
+            Fp2 y = sqrt(x.squared().mul(x).add(Params.B_Fp2));
+            if (y != null) {
+                BN128<Fp2> p = new BN128Fp2(x, y, Fp2._1);
+                assertTrue(p.isValid());
+                return p;
+            }
+        }
+    }
+
+    private void assertEquivalent(boolean expected, BN128<Fp2> p) {
+        assertEquals(expected, isGroupMemberSlow(p));
+        assertEquals(expected, BN128G2.isGroupMember(p));
+    }
+
+    @Test
+    public void testMembers() {
+        BN128G2 g = PairingCheckTest.g2();
+        assertEquivalent(true, g);
+
+        for (int i = 0; i < 5; i++) {
+            BigInteger s = new BigInteger(R.bitLength(), random).mod(R);
+            BN128<Fp2> p = g.mul(s);
+
+            // Jacobian and affine
+            assertEquivalent(true, p);
+            assertEquivalent(true, p.toAffine());
+        }
+    }
+
+    @Test
+    public void testNonMembers() {
+        for (int i = 0; i < 10; i++) {
+            assertEquivalent(false, randomPoint());
+        }
+    }
+
+    @Test
+    public void testAdversarialPoints() {
+        BN128G2 g = PairingCheckTest.g2();
+
+        for (int i = 0; i < 3; i++) {
+            // a point of the cofactor torsion only
+            BN128<Fp2> t = randomPoint().mul(R);
+            assertFalse(t.isZero());
+            assertEquivalent(false, t);
+
+            // a subgroup member shifted by the torsion
+            BN128<Fp2> p = g.mul(BigInteger.valueOf(i + 2)).add(t);
+            assertEquivalent(false, p);
+            assertEquivalent(false, p.toAffine());
+        }
+    }
+
+    @Test
+    public void testCreate() {
+        BN128<Fp2> t = randomPoint().toAffine();
+
+        byte[][] encoded = new byte[4][];
+        encoded[0] = t.x().a.bytes();
+        encoded[1] = t.x().b.bytes();
+        encoded[2] = t.y().a.bytes();
+        encoded[3] = t.y().b.bytes();
+
+        // on the curve, but not in the subgroup
+        assertNotNull(BN128Fp2.create(encoded[0], encoded[1], encoded[2], encoded[3]));
+        assertNull(BN128G2.create(encoded[0], encoded[1], encoded[2], encoded[3]));
+    }
+}
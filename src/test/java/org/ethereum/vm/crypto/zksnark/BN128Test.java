@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+import static org.ethereum.vm.crypto.zksnark.Params.R;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BN128Test {
+
+    private final Random random = new Random(2024);
+
+    /**
+     * The reference double-and-add multiplication.
+     */
+    private static <T extends Field<T>> BN128<T> mulSlow(BN128<T> p, BigInteger s) {
+        BN128<T> res = p.zero();
+        for (int i = s.bitLength() - 1; i >= 0; i--) {
+            res = res.add(res);
+            if (s.testBit(i)) {
+                res = res.add(p);
+            }
+        }
+        return res;
+    }
+
+    private List<BigInteger> scalars() {
+        List<BigInteger> list = new ArrayList<>(Arrays.asList(
+                BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(2), BigInteger.valueOf(3),
+                BigInteger.valueOf(7), BigInteger.valueOf(255), R.subtract(BigInteger.ONE), R,
+                R.add(BigInteger.ONE), BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE),
+                BigInteger.ONE.shiftLeft(100)));
+        for (int bits : new int[] { 16, 63, 64, 65, 128, 192, 193, 254, 256 }) {
+            list.add(new BigInteger(bits, random));
+        }
+        return list;
+    }
+
+    @Test
+    public void testMulG1() {
+        BN128<Fp> g = PairingCheckTest.g1();
+        BN128<Fp> p = g.mul(BigInteger.valueOf(12345)); // Jacobian
+
+        for (BigInteger s : scalars()) {
+            assertEquals(mulSlow(g, s).toEthNotation(), g.mul(s).toEthNotation());
+            assertEquals(mulSlow(p, s).toEthNotation(), p.mul(s).toEthNotation());
+        }
+    }
+
+    @Test
+    public void testMulG2() {
+        BN128<Fp2> g = PairingCheckTest.g2();
+
+        for (BigInteger s : scalars()) {
+            assertEquals(mulSlow(g, s).toEthNotation(), g.mul(s).toEthNotation());
+        }
+    }
+
+    @Test
+    public void testMixedAddition() {
+        BN128<Fp> g = PairingCheckTest.g1();
+        BN128<Fp> p = g.mul(BigInteger.valueOf(5)); // Jacobian
+        BN128<Fp> q = p.toAffine();
+
+        // Jacobian + affine, affine + Jacobian, affine + affine
+        BN128<Fp> expected = g.mul(BigInteger.valueOf(6)).toEthNotation();
+        assertEquals(expected, p.add(g).toEthNotation());
+        assertEquals(expected, g.add(p).toEthNotation());
+        assertEquals(expected, q.add(g).toEthNotation());
+
+        // P + P, P + (-P)
+        assertEquals(g.mul(BigInteger.valueOf(10)).toEthNotation(), p.add(q).toEthNotation());
+        assertTrue(p.add(q.negate()).isZero());
+        assertTrue(q.add(q.negate()).isZero());
+    }
+
+    @Test
+    public void testBatchToAffine() {
+        BN128<Fp> g = PairingCheckTest.g1();
+
+        List<BN128<Fp>> points = new ArrayList<>();
+        points.add(BN128Fp.ZERO);
+        for (int i = 1; i < 6; i++) {
+            points.add(g.mul(BigInteger.valueOf(i * 1000 + 1)));
+        }
+        points.add(BN128Fp.ZERO);
+        points.add(g);
+
+        List<BN128<Fp>> affine = BN128.toAffine(points);
+        assertEquals(points.size(), affine.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(points.get(i).toAffine(), affine.get(i));
+        }
+
+        assertTrue(BN128.toAffine(new ArrayList<BN128<Fp>>()).isEmpty());
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+import static org.ethereum.vm.crypto.zksnark.Params.PAIRING_FINAL_EXPONENT_Z;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the final exponentiation using cyclotomic squaring and
+ * exponentiation with the one using generic Fp12 arithmetic.
+ *
+ * Run with the test classpath:
+ * {@code java org.ethereum.vm.crypto.zksnark.FinalExponentiationBenchmark}
+ */
+public class FinalExponentiationBenchmark {
+
+    private static final int WARMUP = 50;
+    private static final int ROUNDS = 15;
+    private static final int ITERATIONS = 30;
+
+    private static Fp12 pow(Fp12 el, BigInteger e) {
+        Fp12 res = Fp12._1;
+        for (int i = e.bitLength() - 1; i >= 0; i--) {
+            res = res.squared();
+            if (e.testBit(i)) {
+                res = res.mul(el);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * The hard part of {@link PairingCheck#finalExponentiation(Fp12)} with generic
+     * squaring and exponentiation.
+     */
+    static Fp12 genericFinalExponentiation(Fp12 el) {
+        Fp12 y = el.unitaryInverse().mul(el.inverse());
+        Fp12 pre = y.frobeniusMap(2).mul(y);
+
+        Fp12 a = pow(pre, PAIRING_FINAL_EXPONENT_Z).unitaryInverse();
+        Fp12 b = a.squared();
+        Fp12 c = b.squared();
+        Fp12 d = c.mul(b);
+        Fp12 e = pow(d, PAIRING_FINAL_EXPONENT_Z).unitaryInverse();
+        Fp12 f = e.squared();
+        Fp12 g = pow(f, PAIRING_FINAL_EXPONENT_Z).unitaryInverse();
+        Fp12 k = g.unitaryInverse().mul(e).mul(d.unitaryInverse());
+        Fp12 l = k.mul(b);
+        Fp12 n = k.mul(e).mul(pre);
+        Fp12 r = k.frobeniusMap(2).mul(l.frobeniusMap(1).mul(n));
+
+        return pre.unitaryInverse().mul(l).frobeniusMap(3).mul(r);
+    }
+
+    private static long run(Fp12 el, boolean generic, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Fp12 r = generic ? genericFinalExponentiation(el) : PairingCheck.finalExponentiation(el);
+            if (r.isZero()) {
+                throw new IllegalStateException();
+            }
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    public static void main(String[] args) {
+        Fp12 el = Fp12Test.random(new Random(1));
+
+        if (!genericFinalExponentiation(el).equals(PairingCheck.finalExponentiation(el))) {
+            throw new IllegalStateException("Results mismatch");
+        }
+
+        run(el, true, WARMUP);
+        run(el, false, WARMUP);
+
+        // interleave the rounds to even out the noise
+        long[] generic = new long[ROUNDS];
+        long[] cyclotomic = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            generic[i] = run(el, true, ITERATIONS);
+            cyclotomic[i] = run(el, false, ITERATIONS);
+        }
+        Arrays.sort(generic);
+        Arrays.sort(cyclotomic);
+
+        System.out.printf("generic:    best %8.1f us/op, median %8.1f us/op%n",
+                generic[0] / 1000.0, generic[ROUNDS / 2] / 1000.0);
+        System.out.printf("cyclotomic: best %8.1f us/op, median %8.1f us/op%n",
+                cyclotomic[0] / 1000.0, cyclotomic[ROUNDS / 2] / 1000.0);
+    }
+}
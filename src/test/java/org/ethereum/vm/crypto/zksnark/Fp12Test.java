@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+import static org.ethereum.vm.crypto.zksnark.Params.P;
+import static org.ethereum.vm.crypto.zksnark.Params.PAIRING_FINAL_EXPONENT_Z;
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Fp12Test {
+
+    private final Random random = new Random(777);
+
+    static Fp12 random(Random random) {
+        Fp2[] c = new Fp2[6];
+        for (int i = 0; i < c.length; i++) {
+            c[i] = Fp2.create(new BigInteger(P.bitLength(), random).mod(P),
+                    new BigInteger(P.bitLength(), random).mod(P));
+        }
+        return new Fp12(new Fp6(c[0], c[1], c[2]), new Fp6(c[3], c[4], c[5]));
+    }
+
+    /**
+     * Maps an element into the cyclotomic subgroup, as the easy part of the final
+     * exponentiation does.
+     */
+    static Fp12 cyclotomic(Fp12 el) {
+        Fp12 y = el.unitaryInverse().mul(el.inverse());
+        return y.frobeniusMap(2).mul(y);
+    }
+
+    private static Fp12 pow(Fp12 el, BigInteger e) {
+        Fp12 res = Fp12._1;
+        for (int i = e.bitLength() - 1; i >= 0; i--) {
+            res = res.squared();
+            if (e.testBit(i)) {
+                res = res.mul(el);
+            }
+        }
+        return res;
+    }
+
+    @Test
+    public void testCyclotomicSquared() {
+        for (int i = 0; i < 20; i++) {
+            Fp12 el = cyclotomic(random(random));
+            assertEquals(el.squared(), el.cyclotomicSquared());
+        }
+    }
+
+    @Test
+    public void testCyclotomicExp() {
+        for (int i = 0; i < 5; i++) {
+            Fp12 el = cyclotomic(random(random));
+            BigInteger e = new BigInteger(64, random);
+
+            assertEquals(pow(el, e), el.cyclotomicExp(e));
+            assertEquals(pow(el, PAIRING_FINAL_EXPONENT_Z), el.cyclotomicExp(PAIRING_FINAL_EXPONENT_Z));
+            assertEquals(pow(el, PAIRING_FINAL_EXPONENT_Z).unitaryInverse(), el.negExp(PAIRING_FINAL_EXPONENT_Z));
+        }
+
+        Fp12 el = cyclotomic(random(random));
+        assertEquals(Fp12._1, el.cyclotomicExp(BigInteger.ZERO));
+        assertEquals(el, el.cyclotomicExp(BigInteger.ONE));
+        assertEquals(el.squared().mul(el), el.cyclotomicExp(BigInteger.valueOf(3)));
+    }
+
+    @Test
+    public void testNaf() {
+        for (int i = 0; i < 100; i++) {
+            BigInteger k = new BigInteger(80, random);
+            byte[] naf = Fp12.naf(k);
+
+            BigInteger v = BigInteger.ZERO;
+            for (int j = naf.length - 1; j >= 0; j--) {
+                v = v.shiftLeft(1).add(BigInteger.valueOf(naf[j]));
+                if (j > 0) {
+                    assertEquals(0, naf[j] * naf[j - 1]); // no adjacent non-zero digits
+                }
+            }
+            assertEquals(k, v);
+        }
+    }
+}
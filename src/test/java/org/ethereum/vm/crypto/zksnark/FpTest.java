@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+import static org.ethereum.vm.crypto.zksnark.Params.P;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FpTest {
+
+    private static final int ROUNDS = 2000;
+
+    private final Random random = new Random(12345);
+
+    private BigInteger randomValue() {
+        return new BigInteger(P.bitLength(), random).mod(P);
+    }
+
+    private List<BigInteger> samples() {
+        List<BigInteger> list = new ArrayList<>();
+        list.add(BigInteger.ZERO);
+        list.add(BigInteger.ONE);
+        list.add(BigInteger.valueOf(2));
+        list.add(P.subtract(BigInteger.ONE));
+        list.add(P.subtract(BigInteger.valueOf(2)));
+        list.add(P.shiftRight(1));
+        list.add(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE));
+        list.add(BigInteger.ONE.shiftLeft(192));
+        for (int i = 0; i < ROUNDS; i++) {
+            list.add(randomValue());
+        }
+        return list;
+    }
+
+    private static BigInteger value(Fp fp) {
+        return new BigInteger(fp.toString());
+    }
+
+    @Test
+    public void testArithmetic() {
+        List<BigInteger> samples = samples();
+        for (int i = 0; i < samples.size(); i++) {
+            BigInteger x = samples.get(i);
+            BigInteger y = samples.get((i * 7 + 3) % samples.size());
+            Fp a = Fp.create(x);
+            Fp b = Fp.create(y);
+
+            assertEquals(x.add(y).mod(P), value(a.add(b)));
+            assertEquals(x.subtract(y).mod(P), value(a.sub(b)));
+            assertEquals(x.multiply(y).mod(P), value(a.mul(b)));
+            assertEquals(x.multiply(x).mod(P), value(a.squared()));
+            assertEquals(x.shiftLeft(1).mod(P), value(a.dbl()));
+            assertEquals(x.negate().mod(P), value(a.negate()));
+            assertEquals(x.signum() == 0, a.isZero());
+            if (x.signum() != 0) {
+                assertEquals(x.modInverse(P), value(a.inverse()));
+            }
+        }
+    }
+
+    @Test
+    public void testEncoding() {
+        for (BigInteger x : samples()) {
+            Fp a = Fp.create(x);
+            assertArrayEquals(x.toByteArray(), a.bytes());
+            assertEquals(x.toString(), a.toString());
+            assertEquals(a, Fp.create(x.toByteArray()));
+            assertEquals(a.hashCode(), Fp.create(x).hashCode());
+            assertTrue(a.isValid());
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        byte[] p = P.toByteArray();
+        Fp a = Fp.create(p);
+        assertFalse(a.isValid());
+        assertFalse(a.isZero());
+
+        byte[] max = new byte[32];
+        java.util.Arrays.fill(max, (byte) 0xff);
+        Fp b = Fp.create(max);
+        assertFalse(b.isValid());
+        assertFalse(b.isZero());
+
+        assertTrue(Fp.create(P.subtract(BigInteger.ONE).toByteArray()).isValid());
+        assertTrue(Fp.create(new byte[32]).isZero());
+    }
+}
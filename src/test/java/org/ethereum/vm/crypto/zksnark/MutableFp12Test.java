@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+import static org.ethereum.vm.crypto.zksnark.Params.PAIRING_FINAL_EXPONENT_Z;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MutableFp12Test {
+
+    private final Random random = new Random(1234);
+
+    private final Arena arena = Arena.get();
+
+    private static MutableFp12 of(Fp12 x) {
+        return new MutableFp12().set(x);
+    }
+
+    @Test
+    public void testMul() {
+        for (int i = 0; i < 20; i++) {
+            Fp12 x = Fp12Test.random(random);
+            Fp12 y = Fp12Test.random(random);
+
+            assertEquals(x.mul(y), new MutableFp12().mul(of(x), of(y), arena).toFp12());
+
+            // aliased operands
+            MutableFp12 m = of(x);
+            assertEquals(x.mul(y), m.mul(m, of(y), arena).toFp12());
+            m = of(y);
+            assertEquals(x.mul(y), m.mul(of(x), m, arena).toFp12());
+            m = of(x);
+            assertEquals(x.mul(x), m.mul(m, m, arena).toFp12());
+        }
+    }
+
+    @Test
+    public void testSquared() {
+        for (int i = 0; i < 20; i++) {
+            Fp12 x = Fp12Test.random(random);
+
+            assertEquals(x.squared(), new MutableFp12().squared(of(x), arena).toFp12());
+
+            MutableFp12 m = of(x);
+            assertEquals(x.squared(), m.squared(m, arena).toFp12());
+        }
+    }
+
+    @Test
+    public void testMulBy024() {
+        for (int i = 0; i < 20; i++) {
+            Fp12 x = Fp12Test.random(random);
+            Fp12 c = Fp12Test.random(random);
+
+            Fp12 expected = x.mulBy024(c.a.a, c.a.b, c.a.c);
+            MutableFp12 m = of(x).mulBy024(MutableFp2.of(c.a.a), MutableFp2.of(c.a.b), MutableFp2.of(c.a.c), arena);
+
+            assertEquals(expected, m.toFp12());
+        }
+    }
+
+    @Test
+    public void testCyclotomic() {
+        for (int i = 0; i < 5; i++) {
+            Fp12 x = Fp12Test.cyclotomic(Fp12Test.random(random));
+
+            assertEquals(x.cyclotomicSquared(), new MutableFp12().cyclotomicSquared(of(x), arena).toFp12());
+
+            MutableFp12 m = of(x);
+            assertEquals(x.cyclotomicSquared(), m.cyclotomicSquared(m, arena).toFp12());
+
+            m = of(x);
+            assertEquals(x.cyclotomicExp(PAIRING_FINAL_EXPONENT_Z),
+                    m.cyclotomicExp(m, Fp12.Z_NAF, arena).toFp12());
+        }
+    }
+
+    @Test
+    public void testFrobeniusMap() {
+        Fp12 x = Fp12Test.random(random);
+        for (int power = 0; power < 12; power++) {
+            MutableFp12 m = of(x);
+            assertEquals(x.frobeniusMap(power), m.frobeniusMap(m, power, arena).toFp12());
+        }
+    }
+
+    @Test
+    public void testConjugate() {
+        Fp12 x = Fp12Test.random(random);
+        MutableFp12 m = of(x);
+        assertEquals(x.unitaryInverse(), m.conjugate(m).toFp12());
+        assertTrue(new MutableFp12().setOne().isOne());
+    }
+
+    @Test
+    public void testFinalExponentiation() {
+        for (int i = 0; i < 3; i++) {
+            Fp12 x = Fp12Test.random(random);
+            assertEquals(finalExponentiation(x), PairingCheck.finalExponentiation(x));
+        }
+    }
+
+    /**
+     * The final exponentiation on immutable elements.
+     */
+    private static Fp12 finalExponentiation(Fp12 el) {
+        Fp12 y = el.unitaryInverse().mul(el.inverse());
+        Fp12 pre = y.frobeniusMap(2).mul(y);
+
+        Fp12 a = pre.negExp(PAIRING_FINAL_EXPONENT_Z);
+        Fp12 b = a.cyclotomicSquared();
+        Fp12 d = b.cyclotomicSquared().mul(b);
+        Fp12 e = d.negExp(PAIRING_FINAL_EXPONENT_Z);
+        Fp12 g = e.cyclotomicSquared().negExp(PAIRING_FINAL_EXPONENT_Z);
+        Fp12 k = g.unitaryInverse().mul(e).mul(d.unitaryInverse());
+        Fp12 l = k.mul(b);
+        Fp12 n = k.mul(e).mul(pre);
+        Fp12 p = l.frobeniusMap(1).mul(n);
+        Fp12 r = k.frobeniusMap(2).mul(p);
+        Fp12 t = pre.unitaryInverse().mul(l);
+
+        return t.frobeniusMap(3).mul(r);
+    }
+}
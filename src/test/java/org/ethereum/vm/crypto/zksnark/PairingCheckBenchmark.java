@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+import static org.ethereum.vm.crypto.zksnark.PairingCheckTest.g1;
+import static org.ethereum.vm.crypto.zksnark.PairingCheckTest.g2;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares serial and parallel Miller loops by number of pairs, to find where
+ * the fork-join overhead is paid back, see
+ * {@link PairingCheck#DEFAULT_PARALLEL_THRESHOLD}. The G2 points are distinct,
+ * with the line coefficients cached as for repeated verifying keys.
+ *
+ * Run with the test classpath:
+ * {@code java org.ethereum.vm.crypto.zksnark.PairingCheckBenchmark}
+ */
+public class PairingCheckBenchmark {
+
+    private static final int MAX_PAIRS = 8;
+    private static final int WARMUP = 20;
+    private static final int ROUNDS = 15;
+    private static final int ITERATIONS = 10;
+
+    private static BN128G1[] g1s = new BN128G1[MAX_PAIRS];
+    private static BN128G2[] g2s = new BN128G2[MAX_PAIRS];
+
+    private static long run(ForkJoinPool pool, int pairs, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            PairingCheck check = PairingCheck.create(pool, pool == null ? 0 : 2);
+            for (int j = 0; j < pairs; j++) {
+                check.addPair(g1s[j], g2s[j]);
+            }
+            check.run();
+            if (check.result() != 0) {
+                throw new IllegalStateException();
+            }
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    public static void main(String[] args) {
+        for (int i = 0; i < MAX_PAIRS; i++) {
+            BigInteger s = BigInteger.valueOf(1000 + i);
+            g1s[i] = new BN128G1(g1().mul(s)).toAffine();
+            g2s[i] = new BN128G2(g2().mul(s)).toAffine();
+        }
+
+        int cpus = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(cpus);
+        System.out.printf("%d CPUs%n", cpus);
+        try {
+            for (int pairs = 2; pairs <= MAX_PAIRS; pairs++) {
+                run(null, pairs, WARMUP);
+                run(pool, pairs, WARMUP);
+
+                // interleave the rounds to even out the noise
+                long[] serial = new long[ROUNDS];
+                long[] parallel = new long[ROUNDS];
+                for (int i = 0; i < ROUNDS; i++) {
+                    serial[i] = run(null, pairs, ITERATIONS);
+                    parallel[i] = run(pool, pairs, ITERATIONS);
+                }
+                Arrays.sort(serial);
+                Arrays.sort(parallel);
+
+                System.out.printf("%d pairs: serial median %8.1f us/op, parallel median %8.1f us/op (x%.2f)%n",
+                        pairs, serial[ROUNDS / 2] / 1000.0, parallel[ROUNDS / 2] / 1000.0,
+                        (double) serial[ROUNDS / 2] / parallel[ROUNDS / 2]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
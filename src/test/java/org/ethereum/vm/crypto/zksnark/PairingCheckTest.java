@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.crypto.zksnark;
+
+import static org.ethereum.vm.crypto.zksnark.Params.P;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+
+import org.ethereum.vm.util.HexUtil;
+import org.junit.Test;
+
+public class PairingCheckTest {
+
+    static final byte[] G1_X = BigInteger.ONE.toByteArray();
+    static final byte[] G1_Y = BigInteger.valueOf(2).toByteArray();
+    static final byte[] G1_NEG_Y = P.subtract(BigInteger.valueOf(2)).toByteArray();
+
+    // G2 generator, real and imaginary parts of x and y
+    static final byte[] G2_XA = HexUtil
+            .fromHexString("1800deef121f1e76426a00665e5c4479674322d4f75edadd46debd5cd992f6ed");
+    static final byte[] G2_XB = HexUtil
+            .fromHexString("198e9393920d483a7260bfb731fb5d25f1aa493335a9e71297e485b7aef312c2");
+    static final byte[] G2_YA = HexUtil
+            .fromHexString("12c85ea5db8c6deb4aab71808dcb408fe3d1e7690c43d37b4ce6cc0166fa7daa");
+    static final byte[] G2_YB = HexUtil
+            .fromHexString("090689d0585ff075ec9e99ad690c3395bc4b313370b38ef355acdadcd122975b");
+
+    static BN128G1 g1() {
+        return BN128G1.create(G1_X, G1_Y);
+    }
+
+    static BN128G2 g2() {
+        return BN128G2.create(G2_XA, G2_XB, G2_YA, G2_YB);
+    }
+
+    @Test
+    public void testAddition() {
+        BN128<Fp> g = BN128Fp.create(G1_X, G1_Y);
+        assertNotNull(g);
+
+        BN128<Fp> res = g.add(g).toEthNotation();
+        assertEquals(new BigInteger("030644e72e131a029b85045b68181585d97816a916871ca8d3c208c16d87cfd3", 16),
+                new BigInteger(1, res.x().bytes()));
+        assertEquals(new BigInteger("15ed738c0e0a7c92e7845f96b2ae9c0a68a6a449e3538fc7ff3ebf7a5a18a2c4", 16),
+                new BigInteger(1, res.y().bytes()));
+        assertEquals(res, g.mul(BigInteger.valueOf(2)).toEthNotation());
+    }
+
+    @Test
+    public void testPairing() {
+        assertNotNull(g1());
+        assertNotNull(g2());
+
+        PairingCheck check = PairingCheck.create();
+        check.addPair(g1(), g2());
+        check.run();
+        assertEquals(0, check.result());
+
+        check = PairingCheck.create();
+        check.addPair(g1(), g2());
+        check.addPair(BN128G1.create(G1_X, G1_NEG_Y), g2());
+        check.run();
+        assertEquals(1, check.result());
+    }
+
+    @Test
+    public void testBilinearity() {
+        BigInteger s = new BigInteger("1234567890123456789");
+
+        // e(s * G1, G2) * e(-G1, s * G2) == 1
+        BN128G1 sg1 = new BN128G1(g1().mul(s)).toAffine();
+        BN128G2 sg2 = new BN128G2(g2().mul(s)).toAffine();
+
+        PairingCheck check = PairingCheck.create();
+        check.addPair(sg1, g2());
+        check.addPair(BN128G1.create(G1_X, G1_NEG_Y), sg2);
+        check.run();
+        assertEquals(1, check.result());
+    }
+
+    @Test
+    public void testParallel() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PairingCheck serial = PairingCheck.create(null, 0);
+            PairingCheck parallel = PairingCheck.create(pool, 2);
+            PairingCheck balanced = PairingCheck.create(pool, 2);
+
+            BN128G1 negG1 = BN128G1.create(G1_X, G1_NEG_Y);
+            for (int i = 1; i <= 5; i++) {
+                BigInteger s = BigInteger.valueOf(1000 + i);
+                BN128G1 sg1 = new BN128G1(g1().mul(s)).toAffine();
+                BN128G2 sg2 = new BN128G2(g2().mul(s)).toAffine();
+
+                serial.addPair(sg1, g2());
+                parallel.addPair(sg1, g2());
+
+                balanced.addPair(sg1, g2());
+                balanced.addPair(negG1, sg2);
+            }
+
+            // pairs with a point at infinity
+            serial.addPair(new BN128G1(BN128Fp.ZERO), g2());
+            parallel.addPair(new BN128G1(BN128Fp.ZERO), g2());
+
+            serial.run();
+            parallel.run();
+            balanced.run();
+
+            assertEquals(serial.product, parallel.product);
+            assertEquals(0, parallel.result());
+            assertEquals(1, balanced.result());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCoeffsCache() {
+        try {
+            PairingCheck.setCoeffsCacheSize(2);
+            BN128G1 sg1 = new BN128G1(g1().mul(BigInteger.valueOf(7))).toAffine();
+
+            PairingCheck first = PairingCheck.create(null, 0);
+            first.addPair(sg1, g2());
+            first.run();
+            assertEquals(1, PairingCheck.getCoeffsCache().size());
+            assertEquals(0, PairingCheck.getCoeffsCache().getHitCount());
+
+            PairingCheck second = PairingCheck.create(null, 0);
+            second.addPair(sg1, g2());
+            second.run();
+            assertEquals(1, PairingCheck.getCoeffsCache().getHitCount());
+            assertEquals(first.product, second.product);
+
+            // bounded
+            for (int i = 2; i < 5; i++) {
+                PairingCheck check = PairingCheck.create(null, 0);
+                check.addPair(g1(), new BN128G2(g2().mul(BigInteger.valueOf(i))).toAffine());
+                check.run();
+            }
+            assertEquals(2, PairingCheck.getCoeffsCache().size());
+            assertTrue(PairingCheck.getCoeffsCache().getEvictionCount() > 0);
+
+            PairingCheck.setCoeffsCacheSize(0);
+            assertNull(PairingCheck.getCoeffsCache());
+
+            PairingCheck uncached = PairingCheck.create(null, 0);
+            uncached.addPair(sg1, g2());
+            uncached.run();
+            assertEquals(first.product, uncached.product);
+        } finally {
+            PairingCheck.setCoeffsCacheSize(PairingCheck.DEFAULT_COEFFS_CACHE_SIZE);
+        }
+    }
+
+    @Test
+    public void testCoeffsCacheBudget() {
+        try {
+            PairingCheck.setCoeffsCacheSize(64);
+            PairingCheck first = PairingCheck.create(null, 0);
+            first.addPair(g1(), g2());
+            first.run();
+            long weight = PairingCheck.getCoeffsCache().getWeight();
+            assertTrue(weight > 0);
+
+            // room for two G2 points only
+            PairingCheck.setCoeffsCacheSize(64, weight * 2);
+            for (int i = 2; i < 6; i++) {
+                PairingCheck check = PairingCheck.create(null, 0);
+                check.addPair(g1(), new BN128G2(g2().mul(BigInteger.valueOf(i))).toAffine());
+                check.run();
+            }
+            assertEquals(2, PairingCheck.getCoeffsCache().size());
+            assertEquals(weight * 2, PairingCheck.getCoeffsCache().getWeight());
+        } finally {
+            PairingCheck.setCoeffsCacheSize(PairingCheck.DEFAULT_COEFFS_CACHE_SIZE);
+        }
+    }
+}
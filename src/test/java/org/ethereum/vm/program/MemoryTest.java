@@ -539,4 +539,26 @@ public class MemoryTest {
         assertEquals(20, ones);
         assertEquals(10, zero);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void memoryCopy_manyChunks() {
+        Memory memoryBuffer = new Memory();
+
+        byte[] data = new byte[100 * CHUNK_SIZE + 7];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+
+        memoryBuffer.write(3, data, data.length, false);
+        memoryBuffer.write(50, data, data.length, true);
+
+        assertEquals(calcSize(data.length + 3, CHUNK_SIZE), memoryBuffer.internalSize());
+        assertEquals(calcSize(data.length + 3, WORD_SIZE), memoryBuffer.size());
+        assertEquals(101, memoryBuffer.getChunks().size());
+
+        byte[] expected = new byte[memoryBuffer.size() - 50];
+        System.arraycopy(data, 0, expected, 0, expected.length);
+        assertArrayEquals(expected, memoryBuffer.read(50, expected.length));
+        assertArrayEquals(Arrays.copyOfRange(data, 0, 47), memoryBuffer.read(3, 47));
+    }
+}
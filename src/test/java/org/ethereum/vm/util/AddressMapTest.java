@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AddressMapTest {
+
+    private final Random random = new Random(20);
+
+    private byte[] randomAddress(int range) {
+        byte[] address = new byte[20];
+        address[random.nextInt(20)] = (byte) random.nextInt(range);
+        address[19] = (byte) random.nextInt(range);
+        return address;
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        for (int range : new int[] { 2, 16, 256 }) {
+            Map<ByteArrayWrapper, Integer> expected = new HashMap<>();
+            AddressMap<Integer> map = new AddressMap<>();
+
+            for (int i = 0; i < 20000; i++) {
+                byte[] address = randomAddress(range);
+                ByteArrayWrapper key = new ByteArrayWrapper(address);
+                int op = random.nextInt(10);
+                if (op < 5) {
+                    Integer value = random.nextInt(10) == 0 ? null : i;
+                    assertEquals(expected.put(key, value), map.put(address, value));
+                } else if (op < 8) {
+                    assertEquals(expected.remove(key), map.remove(address));
+                } else {
+                    assertEquals(expected.containsKey(key), map.containsKey(address));
+                    assertEquals(expected.get(key), map.get(address));
+                }
+            }
+
+            assertEquals(expected.size(), map.size());
+            int count = 0;
+            for (int slot = map.first(); slot >= 0; slot = map.next(slot)) {
+                ByteArrayWrapper key = new ByteArrayWrapper(map.keyAt(slot));
+                assertTrue(expected.containsKey(key));
+                assertEquals(expected.get(key), map.valueAt(slot));
+                count++;
+            }
+            assertEquals(expected.size(), count);
+        }
+    }
+
+    @Test
+    public void testCopy() {
+        AddressMap<Integer> map = new AddressMap<>();
+        byte[] address = HexUtil.fromHexString("0123456789abcdef0123456789abcdef01234567");
+        map.put(address, 1);
+
+        AddressMap<Integer> copy = new AddressMap<>(map);
+        copy.put(address, 2);
+        assertEquals(Integer.valueOf(1), map.get(address));
+        assertArrayEquals(address, copy.keyAt(copy.first()));
+
+        map.putAll(copy);
+        assertEquals(Integer.valueOf(2), map.get(address));
+        assertEquals(1, map.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidAddress() {
+        new AddressMap<>().get(new byte[32]);
+    }
+}
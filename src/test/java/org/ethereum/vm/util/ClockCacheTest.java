@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class ClockCacheTest {
+
+    @Test
+    public void testCapacity() {
+        ClockCache<Integer, String> cache = new ClockCache<>(4, (k, v) -> 1);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "v" + i);
+            assertEquals("v" + i, cache.get(i));
+        }
+        assertEquals(4, cache.size());
+        assertEquals(6, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testWeightBudgetKeepsNewEntries() {
+        ClockCache<Integer, String> cache = new ClockCache<>(100, 50, (k, v) -> 10);
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, "v" + i);
+            assertEquals("v" + i, cache.get(i));
+        }
+        assertEquals(5, cache.size());
+        assertEquals(50, cache.getWeight());
+
+        // also without the reference bits set by the reads above
+        cache.clear();
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, "v" + i);
+        }
+        assertNotNull(cache.get(19));
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    public void testUpdateOverBudget() {
+        ClockCache<Integer, Integer> cache = new ClockCache<>(100, 50, (k, v) -> v);
+        for (int i = 0; i < 5; i++) {
+            cache.put(i, 10);
+        }
+        cache.put(4, 30);
+        assertEquals(Integer.valueOf(30), cache.get(4));
+        assertEquals(50, cache.getWeight());
+
+        // a value alone over the budget is dropped
+        cache.put(4, 60);
+        assertNull(cache.get(4));
+    }
+
+    @Test
+    public void testRemovalListener() {
+        int[] removed = new int[1];
+        ClockCache<Integer, String> cache = new ClockCache<>(2, (k, v) -> 1);
+        cache.setRemovalListener((k, v) -> removed[0]++);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.put(3, "c");
+        cache.remove(3);
+        cache.clear();
+        assertEquals(3, removed[0]);
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.RIPEMD160Digest;
+
+/**
+ * Compares the throughput of the SHA-256 and RIPEMD-160 hashes of
+ * {@link HashUtil}, which use cached digests, with the one of a new JDK or
+ * Bouncy Castle digest per call, at 32 B, 1 KiB and 64 KiB inputs.
+ *
+ * Run with the test classpath: {@code java org.ethereum.vm.util.HashBenchmark}
+ */
+public class HashBenchmark {
+
+    private static final int ROUNDS = 15;
+    private static final long BYTES_PER_ROUND = 16L << 20;
+
+    private interface Hash {
+        byte[] hash(byte[] input);
+    }
+
+    private static byte[] newSha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] newRipemd160(byte[] input) {
+        Digest digest = new RIPEMD160Digest();
+        byte[] buffer = new byte[digest.getDigestSize()];
+        digest.update(input, 0, input.length);
+        digest.doFinal(buffer, 0);
+        return buffer;
+    }
+
+    private static double run(Hash hash, byte[] input) {
+        int iterations = (int) Math.max(1, BYTES_PER_ROUND / input.length / 4);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (hash.hash(input).length == 0) {
+                throw new IllegalStateException();
+            }
+        }
+        return (System.nanoTime() - start) / (double) iterations;
+    }
+
+    private static void compare(String name, Hash uncached, Hash cached, byte[] input) {
+        if (!Arrays.equals(uncached.hash(input), cached.hash(input))) {
+            throw new IllegalStateException("Results mismatch");
+        }
+
+        run(uncached, input);
+        run(cached, input);
+
+        // interleave the rounds to even out the noise
+        double[] a = new double[ROUNDS];
+        double[] b = new double[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            a[i] = run(uncached, input);
+            b[i] = run(cached, input);
+        }
+        Arrays.sort(a);
+        Arrays.sort(b);
+
+        System.out.printf("%-10s %6d B: new digest %10.0f ns/op %8.1f MB/s, cached %10.0f ns/op %8.1f MB/s%n",
+                name, input.length, a[ROUNDS / 2], input.length * 1000.0 / a[ROUNDS / 2],
+                b[ROUNDS / 2], input.length * 1000.0 / b[ROUNDS / 2]);
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        for (int size : new int[] { 32, 1024, 64 * 1024 }) {
+            byte[] input = new byte[size];
+            random.nextBytes(input);
+
+            compare("SHA-256", HashBenchmark::newSha256, HashUtil::sha256, input);
+            compare("RIPEMD-160", HashBenchmark::newRipemd160, HashUtil::ripemd160, input);
+        }
+    }
+}
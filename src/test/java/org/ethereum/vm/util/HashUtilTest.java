@@ -19,6 +19,7 @@ package org.ethereum.vm.util;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import org.bouncycastle.util.encoders.Hex;
 import org.junit.Test;
@@ -51,4 +52,53 @@ public class HashUtilTest {
         assertArrayEquals(Hex.decode("d26e42c8a0511c19757f783402231cf82b2bdf59"),
                 HashUtil.calcSaltAddress(from, code, salt));
     }
+
+    @Test
+    public void testSha256() {
+        byte[] msg = "abc".getBytes();
+        String expected = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+        // the cached digest must be reset between calls
+        assertEquals(expected, HexUtil.toHexString(HashUtil.sha256(msg)));
+        assertEquals(expected, HexUtil.toHexString(HashUtil.sha256(msg)));
+        assertEquals(expected, HexUtil.toHexString(HashUtil.sha256("xxabcxx".getBytes(), 2, 3)));
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+                HexUtil.toHexString(HashUtil.sha256(new byte[0])));
+    }
+
+    @Test
+    public void testRipemd160() {
+        byte[] msg = "abc".getBytes();
+        String expected = "8eb208f7e05d987a9b044a8e98c6b087f15a0bfc";
+
+        assertEquals(expected, HexUtil.toHexString(HashUtil.ripemd160(msg)));
+        assertEquals(expected, HexUtil.toHexString(HashUtil.ripemd160(msg)));
+        assertEquals(expected, HexUtil.toHexString(HashUtil.ripemd160("xxabcxx".getBytes(), 2, 3)));
+        assertEquals("9c1185a5c5e9fc54612808977ee8f548b2258d31",
+                HexUtil.toHexString(HashUtil.ripemd160(new byte[0])));
+    }
+
+    @Test
+    public void testBadRangeLeavesDigestClean() {
+        byte[] msg = "abc".getBytes();
+        int[][] ranges = { { 1, 3 }, { -1, 2 }, { 0, -1 }, { 4, 0 } };
+        for (int[] range : ranges) {
+            try {
+                HashUtil.sha256(msg, range[0], range[1]);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+            try {
+                HashUtil.ripemd160(msg, range[0], range[1]);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                HexUtil.toHexString(HashUtil.sha256(msg)));
+        assertEquals("8eb208f7e05d987a9b044a8e98c6b087f15a0bfc", HexUtil.toHexString(HashUtil.ripemd160(msg)));
+    }
 }
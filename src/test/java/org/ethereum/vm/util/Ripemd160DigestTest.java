@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.util;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.RIPEMD160Digest;
+import org.junit.Test;
+
+public class Ripemd160DigestTest {
+
+    private final Random random = new Random(160);
+
+    private static byte[] digest(Digest digest, byte[] data, int chunk) {
+        for (int off = 0; off < data.length; off += chunk) {
+            digest.update(data, off, Math.min(chunk, data.length - off));
+        }
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        return out;
+    }
+
+    @Test
+    public void testAgainstBouncyCastle() {
+        Ripemd160Digest digest = new Ripemd160Digest();
+        for (int length = 0; length < 300; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+
+            byte[] expected = digest(new RIPEMD160Digest(), data, Math.max(1, length));
+            assertArrayEquals(expected, digest(digest, data, Math.max(1, length)));
+            assertArrayEquals(expected, digest(digest, data, 1 + random.nextInt(70)));
+        }
+
+        byte[] data = new byte[100_000];
+        random.nextBytes(data);
+        assertArrayEquals(digest(new RIPEMD160Digest(), data, data.length), digest(digest, data, 4099));
+    }
+
+    @Test
+    public void testCopy() {
+        byte[] data = new byte[200];
+        random.nextBytes(data);
+
+        Ripemd160Digest digest = new Ripemd160Digest();
+        digest.update(data, 0, 77);
+        Ripemd160Digest copy = (Ripemd160Digest) digest.copy();
+        digest.update(data, 77, 123);
+        copy.update(data, 77, 123);
+
+        byte[] a = new byte[20];
+        byte[] b = new byte[20];
+        digest.doFinal(a, 0);
+        copy.doFinal(b, 0);
+        assertArrayEquals(HashUtil.ripemd160(data), a);
+        assertArrayEquals(a, b);
+
+        digest.update(data, 0, 10);
+        digest.reset(copy);
+        digest.update(data, 0, data.length);
+        digest.doFinal(a, 0);
+        assertArrayEquals(HashUtil.ripemd160(data), a);
+    }
+}
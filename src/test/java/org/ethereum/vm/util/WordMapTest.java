@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) [2018] [ The Semux Developers ]
+ * Copyright (c) [2016] [ <ether.camp> ]
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.ethereum.vm.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.ethereum.vm.DataWord;
+import org.junit.Test;
+
+public class WordMapTest {
+
+    private final Random random = new Random(256);
+
+    private DataWord randomKey(int range) {
+        // a small range forces long probe sequences; the high bytes vary too
+        byte[] bytes = new byte[32];
+        bytes[random.nextInt(4)] = (byte) random.nextInt(4);
+        bytes[31] = (byte) random.nextInt(range);
+        bytes[30] = (byte) random.nextInt(range);
+        return DataWord.of(bytes);
+    }
+
+    private static <V> void assertSameContent(Map<DataWord, V> expected, WordMap<V> map) {
+        assertEquals(expected.size(), map.size());
+        int count = 0;
+        for (int slot = map.first(); slot >= 0; slot = map.next(slot)) {
+            DataWord key = map.keyAt(slot);
+            assertTrue(expected.containsKey(key));
+            assertEquals(expected.get(key), map.valueAt(slot));
+            assertEquals(key.getLong(2), map.keyAt(slot, 2));
+            count++;
+        }
+        assertEquals(expected.size(), count);
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        for (int range : new int[] { 2, 16, 256 }) {
+            Map<DataWord, Integer> expected = new HashMap<>();
+            WordMap<Integer> map = new WordMap<>();
+
+            for (int i = 0; i < 20000; i++) {
+                DataWord key = randomKey(range);
+                int op = random.nextInt(10);
+                if (op < 5) {
+                    Integer value = random.nextInt(10) == 0 ? null : i;
+                    assertEquals(expected.put(key, value), map.put(key, value));
+                } else if (op < 8) {
+                    assertEquals(expected.remove(key), map.remove(key));
+                } else {
+                    assertEquals(expected.containsKey(key), map.containsKey(key));
+                    assertEquals(expected.get(key), map.get(key));
+                }
+            }
+            assertSameContent(expected, map);
+        }
+    }
+
+    @Test
+    public void testCopy() {
+        WordMap<String> map = new WordMap<>(100);
+        for (int i = 0; i < 100; i++) {
+            map.put(DataWord.of(i), "v" + i);
+        }
+
+        WordMap<String> copy = new WordMap<>(map);
+        copy.remove(DataWord.of(1));
+        copy.put(DataWord.of(2), "x");
+        assertEquals("v1", map.get(DataWord.of(1)));
+        assertEquals("v2", map.get(DataWord.of(2)));
+
+        WordMap<String> all = new WordMap<>();
+        all.put(DataWord.of(1), "y");
+        all.putAll(copy);
+        assertEquals(100, all.size());
+        assertEquals("y", all.get(DataWord.of(1)));
+        assertEquals("x", all.get(DataWord.of(2)));
+
+        for (int slot = all.first(); slot >= 0; slot = all.next(slot)) {
+            all.setValueAt(slot, "z");
+        }
+        assertEquals("z", all.get(DataWord.of(99)));
+
+        all.clear();
+        assertTrue(all.isEmpty());
+        assertEquals(-1, all.first());
+        assertNull(all.get(DataWord.of(99)));
+        assertFalse(all.containsKey(DataWord.of(99)));
+    }
+}